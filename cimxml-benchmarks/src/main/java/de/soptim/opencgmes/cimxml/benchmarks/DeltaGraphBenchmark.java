@@ -0,0 +1,161 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.soptim.opencgmes.cimxml.benchmarks;
+
+import de.soptim.opencgmes.cimxml.graph.FastDeltaGraph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures find and contains on a {@link FastDeltaGraph} over a parsed full model, with a given share of the
+ * elements changed by the delta.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+public class DeltaGraphBenchmark {
+
+    private static final int SAMPLES = 1024;
+
+    @Param({"10000", "100000"})
+    public int size;
+
+    /** The percentage of elements whose float attribute is replaced by the delta. */
+    @Param({"1", "10"})
+    public int changedPercent;
+
+    private FastDeltaGraph delta;
+    private Node floatValue;
+    private Node intValue;
+    private final Node[] subjects = new Node[SAMPLES];
+    private final Triple[] unchanged = new Triple[SAMPLES];
+    private final Triple[] deleted = new Triple[SAMPLES];
+    private final Triple[] added = new Triple[SAMPLES];
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        final var parser = SyntheticCimModels.parserWithProfiles(1, "BM");
+        final var body = SyntheticCimModels.parseBody(parser, SyntheticCimModels.fullModel("BM", 1, size));
+        delta = new FastDeltaGraph(body);
+        floatValue = NodeFactory.createURI(SyntheticCimModels.NS_CIM + "Class0.floatValue");
+        intValue = NodeFactory.createURI(SyntheticCimModels.NS_CIM + "Class0.intValue");
+        final var name = NodeFactory.createURI(SyntheticCimModels.NS_CIM + "Class0.name");
+
+        final var changedCount = Math.max(1, size * changedPercent / 100);
+        final var changed = new Triple[changedCount];
+        final var replacements = new Triple[changedCount];
+        for (int i = 0; i < changedCount; i++) {
+            final var subject = NodeFactory.createURI("urn:uuid:" + SyntheticCimModels.uuid(i));
+            changed[i] = body.find(subject, floatValue, Node.ANY).next();
+            replacements[i] = Triple.create(subject, floatValue, NodeFactory.createLiteralString("changed " + i));
+            delta.delete(changed[i]);
+            delta.add(replacements[i]);
+        }
+        for (int i = 0; i < SAMPLES; i++) {
+            final var index = (int) ((long) i * size / SAMPLES);
+            subjects[i] = NodeFactory.createURI("urn:uuid:" + SyntheticCimModels.uuid(index));
+            unchanged[i] = body.find(subjects[i], name, Node.ANY).next();
+            deleted[i] = changed[i % changedCount];
+            added[i] = replacements[i % changedCount];
+        }
+    }
+
+    private int nextSample() {
+        next = (next + 1) & (SAMPLES - 1);
+        return next;
+    }
+
+    @Benchmark
+    public boolean containsUnchanged() {
+        return delta.contains(unchanged[nextSample()]);
+    }
+
+    @Benchmark
+    public boolean containsDeleted() {
+        return delta.contains(deleted[nextSample()]);
+    }
+
+    @Benchmark
+    public boolean containsAdded() {
+        return delta.contains(added[nextSample()]);
+    }
+
+    @Benchmark
+    public int findBySubject() {
+        var count = 0;
+        final var it = delta.find(subjects[nextSample()], Node.ANY, Node.ANY);
+        while (it.hasNext()) {
+            it.next();
+            count++;
+        }
+        return count;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public int findByPredicate() {
+        var count = 0;
+        final var it = delta.find(Node.ANY, floatValue, Node.ANY);
+        while (it.hasNext()) {
+            it.next();
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Scans a predicate without deletions, which should cost the same as {@link #baseFindByUntouchedPredicate}.
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public int findByUntouchedPredicate() {
+        return count(delta.find(Node.ANY, intValue, Node.ANY));
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public int baseFindByUntouchedPredicate() {
+        return count(delta.getBase().find(Node.ANY, intValue, Node.ANY));
+    }
+
+    private static int count(Iterator<Triple> it) {
+        var count = 0;
+        while (it.hasNext()) {
+            it.next();
+            count++;
+        }
+        return count;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public long streamAll() {
+        return delta.stream().count();
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.soptim.opencgmes.cimxml.benchmarks;
+
+import de.soptim.opencgmes.cimxml.parser.CimXmlParser;
+import de.soptim.opencgmes.cimxml.sparql.core.CimDatasetGraph;
+import de.soptim.opencgmes.cimxml.sparql.core.LinkedCimDatasetGraph;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how fast full models and difference models are parsed into a {@link CimDatasetGraph}.
+ * <p>
+ * Besides the time per model, the {@link Throughput} counters report the parsed triples and bytes per second.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+public class ParseBenchmark {
+
+    public enum ModelKind { FULL, DIFFERENCE }
+
+    /** The number of elements of a full model or the number of changed elements of a difference model. */
+    @Param({"1000", "10000", "100000"})
+    public int size;
+
+    @Param({"FULL", "DIFFERENCE"})
+    public ModelKind kind;
+
+    private CimXmlParser parser;
+    private byte[] model;
+
+    /**
+     * Counts the parsed triples and bytes, which JMH reports as rates.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Throughput {
+        public long triples;
+        public long bytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            triples = 0;
+            bytes = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        parser = SyntheticCimModels.parserWithProfiles(20, "BM");
+        final var xml = switch (kind) {
+            case FULL -> SyntheticCimModels.fullModel("BM", 20, size);
+            case DIFFERENCE -> SyntheticCimModels.differenceModel("BM", 20, size);
+        };
+        model = xml.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public CimDatasetGraph parse(Throughput throughput) {
+        final var dataset = parser.parseCimModel(new ByteArrayInputStream(model));
+        for (var graph : ((LinkedCimDatasetGraph) dataset).getGraphs()) {
+            throughput.triples += graph.size();
+        }
+        throughput.bytes += model.length;
+        return dataset;
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.soptim.opencgmes.cimxml.benchmarks;
+
+import de.soptim.opencgmes.cimxml.rdfs.CimProfileRegistry;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the lookup of property datatypes in the {@link CimProfileRegistry}, which the parser does once per
+ * model header for the set of profiles in md:Model.profile, and then once per property element.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProfileLookupBenchmark {
+
+    private static final int SAMPLES = 1024;
+
+    /** The number of classes per profile, each with five properties. */
+    @Param({"100", "1000"})
+    public int classCount;
+
+    private CimProfileRegistry registry;
+    private Node eq;
+    private Node ssh;
+    private Node tp;
+    private Map<Node, CimProfileRegistry.PropertyInfo> properties;
+    private final Node[] propertyNodes = new Node[SAMPLES];
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        registry = SyntheticCimModels.parserWithProfiles(classCount, "EQ", "SSH", "TP").getCimProfileRegistry();
+        eq = NodeFactory.createURI(SyntheticCimModels.versionIri("EQ"));
+        ssh = NodeFactory.createURI(SyntheticCimModels.versionIri("SSH"));
+        tp = NodeFactory.createURI(SyntheticCimModels.versionIri("TP"));
+        properties = registry.getPropertiesAndDatatypes(Set.of(eq, ssh, tp));
+        final var prefixes = new String[]{"", "SSH", "TP"};
+        for (int i = 0; i < SAMPLES; i++) {
+            // every fourth lookup misses, like a property that is not part of the profiles
+            final var property = i % 4 == 3
+                    ? "Unknown" + i + ".name"
+                    : prefixes[i % 3] + "Class" + (i % classCount) + ".floatValue";
+            propertyNodes[i] = NodeFactory.createURI(SyntheticCimModels.NS_CIM + property);
+        }
+    }
+
+    @Benchmark
+    public Object singleProfile() {
+        return registry.getPropertiesAndDatatypes(Set.of(eq));
+    }
+
+    @Benchmark
+    public Object profileSet() {
+        return registry.getPropertiesAndDatatypes(Set.of(eq, ssh, tp));
+    }
+
+    @Benchmark
+    public Object propertyLookup() {
+        next = (next + 1) & (SAMPLES - 1);
+        return properties.get(propertyNodes[next]);
+    }
+}
@@ -0,0 +1,262 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.soptim.opencgmes.cimxml.benchmarks;
+
+import de.soptim.opencgmes.cimxml.parser.CimXmlParser;
+import org.apache.jena.graph.Graph;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+/**
+ * Generates CIMXML profiles and instance files for the benchmarks, so no ENTSO-E data is needed.
+ * <p>
+ * A profile defines the classes {@code cim:Class0} to {@code cim:Class<n-1>}, each with a float, an integer,
+ * a boolean and a string attribute and a reference. The models use these classes round-robin, so the parser
+ * has to resolve a datatype for each attribute. All output is deterministic.
+ */
+final class SyntheticCimModels {
+
+    static final String NS_CIM = "http://iec.ch/TC57/CIM100#";
+
+    /** The number of triples of each element of a full model, including its rdf:type. */
+    static final int TRIPLES_PER_ELEMENT = 6;
+
+    private SyntheticCimModels() {
+    }
+
+    /**
+     * Gets the version IRI of the profile with the given keyword.
+     */
+    static String versionIri(String keyword) {
+        return "http://example.org/benchmark/" + keyword + "/1/1";
+    }
+
+    /**
+     * Gets the UUID of the element with the given index.
+     */
+    static String uuid(int index) {
+        return "%08x-8da5-45c2-892e-59a648f2f862".formatted(index);
+    }
+
+    /**
+     * Creates a parser with the file header profile and the profiles with the given keywords registered.
+     * Each profile defines the given number of classes, with the class names prefixed by its keyword
+     * except for the first profile, so models generated with {@link #fullModel} match the first profile.
+     */
+    static CimXmlParser parserWithProfiles(int classCount, String... keywords) throws IOException {
+        final var parser = new CimXmlParser();
+        final var directory = Files.createTempDirectory("cimxml-benchmark-profiles");
+        try {
+            final var header = directory.resolve("FileHeader.rdf");
+            Files.writeString(header, fileHeaderProfile(), StandardCharsets.UTF_8);
+            parser.parseAndRegisterCimProfile(header);
+            for (int i = 0; i < keywords.length; i++) {
+                final var file = directory.resolve(keywords[i] + ".rdf");
+                Files.writeString(file, profile(keywords[i], i == 0 ? "" : keywords[i], classCount),
+                        StandardCharsets.UTF_8);
+                parser.parseAndRegisterCimProfile(file);
+            }
+        } finally {
+            try (var files = Files.list(directory)) {
+                for (var file : files.toList()) {
+                    Files.delete(file);
+                }
+            }
+            Files.delete(directory);
+        }
+        return parser;
+    }
+
+    /**
+     * Parses the given model with the given parser and returns its body.
+     */
+    static Graph parseBody(CimXmlParser parser, String xml) {
+        return parser.parseCimModel(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8))).getBody();
+    }
+
+    static String fileHeaderProfile() {
+        return """
+            <?xml version="1.0" encoding="UTF-8"?>
+            <rdf:RDF
+                xmlns:cim="http://iec.ch/TC57/CIM100#"
+                xmlns:cims="http://iec.ch/TC57/1999/rdf-schema-extensions-19990926#"
+                xmlns:rdf="http://www.w3.org/1999/02/22-rdf-syntax-ns#"
+                xmlns:rdfs="http://www.w3.org/2000/01/rdf-schema#"
+                xml:base="http://iec.ch/TC57/CIM100">
+                <rdf:Description rdf:about="#Package_FileHeaderProfile">
+                    <rdf:type rdf:resource="http://iec.ch/TC57/1999/rdf-schema-extensions-19990926#ClassCategory"/>
+                </rdf:Description>
+                <rdf:Description rdf:about="http://iec.ch/TC57/61970-552/ModelDescription/1#Model.profile">
+                    <cims:stereotype rdf:resource="http://iec.ch/TC57/NonStandard/UML#attribute"/>
+                    <rdfs:domain rdf:resource="http://iec.ch/TC57/61970-552/ModelDescription/1#Model"/>
+                    <cims:dataType rdf:resource="http://iec.ch/TC57/CIM100-European#URI"/>
+                    <rdf:type rdf:resource="http://www.w3.org/1999/02/22-rdf-syntax-ns#Property"/>
+                </rdf:Description>
+                <rdf:Description rdf:about="http://iec.ch/TC57/CIM100-European#URI">
+                    <rdfs:label xml:lang="en">URI</rdfs:label>
+                    <cims:stereotype>Primitive</cims:stereotype>
+                    <rdf:type rdf:resource="http://www.w3.org/2000/01/rdf-schema#Class"/>
+                </rdf:Description>
+            </rdf:RDF>
+            """;
+    }
+
+    /**
+     * Creates a CIM 17 profile with the given keyword and number of classes.
+     */
+    static String profile(String keyword, String classPrefix, int classCount) {
+        final var sb = new StringBuilder("""
+            <?xml version="1.0" encoding="UTF-8"?>
+            <rdf:RDF
+               xmlns:cim="http://iec.ch/TC57/CIM100#"
+               xmlns:cims="http://iec.ch/TC57/1999/rdf-schema-extensions-19990926#"
+               xmlns:dcat="http://www.w3.org/ns/dcat#"
+               xmlns:owl="http://www.w3.org/2002/07/owl#"
+               xmlns:rdf="http://www.w3.org/1999/02/22-rdf-syntax-ns#"
+               xmlns:rdfs="http://www.w3.org/2000/01/rdf-schema#"
+               xml:base="http://iec.ch/TC57/CIM100">
+                <rdf:Description rdf:about="http://example.org/benchmark/%1$s#Ontology">
+                    <dcat:keyword>%1$s</dcat:keyword>
+                    <owl:versionIRI rdf:resource="%2$s"/>
+                    <owl:versionInfo xml:lang="en">1.1.0</owl:versionInfo>
+                    <rdf:type rdf:resource="http://www.w3.org/2002/07/owl#Ontology"/>
+                </rdf:Description>
+            """.formatted(keyword, versionIri(keyword)));
+        for (var primitive : new String[]{"Float", "Integer", "Boolean", "String"}) {
+            sb.append("""
+                    <rdf:Description rdf:about="#%1$s">
+                        <rdfs:label xml:lang="en">%1$s</rdfs:label>
+                        <cims:stereotype>Primitive</cims:stereotype>
+                        <rdf:type rdf:resource="http://www.w3.org/2000/01/rdf-schema#Class"/>
+                    </rdf:Description>
+                """.formatted(primitive));
+        }
+        for (int c = 0; c < classCount; c++) {
+            final var className = classPrefix + "Class" + c;
+            sb.append("""
+                    <rdf:Description rdf:about="#%1$s">
+                        <rdf:type rdf:resource="http://www.w3.org/2000/01/rdf-schema#Class"/>
+                        <cims:stereotype rdf:resource="http://iec.ch/TC57/NonStandard/UML#concrete"/>
+                    </rdf:Description>
+                """.formatted(className));
+            for (var attribute : new String[][]{
+                    {"floatValue", "Float"}, {"intValue", "Integer"}, {"flag", "Boolean"}, {"name", "String"}}) {
+                sb.append("""
+                        <rdf:Description rdf:about="#%1$s.%2$s">
+                            <rdf:type rdf:resource="http://www.w3.org/1999/02/22-rdf-syntax-ns#Property"/>
+                            <cims:stereotype rdf:resource="http://iec.ch/TC57/NonStandard/UML#attribute"/>
+                            <rdfs:domain rdf:resource="#%1$s"/>
+                            <cims:dataType rdf:resource="#%3$s"/>
+                        </rdf:Description>
+                    """.formatted(className, attribute[0], attribute[1]));
+            }
+            sb.append("""
+                    <rdf:Description rdf:about="#%1$s.next">
+                        <rdf:type rdf:resource="http://www.w3.org/1999/02/22-rdf-syntax-ns#Property"/>
+                        <cims:stereotype rdf:resource="http://iec.ch/TC57/NonStandard/UML#association"/>
+                        <rdfs:domain rdf:resource="#%1$s"/>
+                        <rdfs:range rdf:resource="#%1$s"/>
+                    </rdf:Description>
+                """.formatted(className));
+        }
+        sb.append("</rdf:RDF>\n");
+        return sb.toString();
+    }
+
+    /**
+     * Creates a full model of the profile with the given keyword with the given number of elements,
+     * each with {@link #TRIPLES_PER_ELEMENT} triples.
+     */
+    static String fullModel(String keyword, int classCount, int elementCount) {
+        return fullModel(keyword, classCount, 0, elementCount);
+    }
+
+    /**
+     * Creates a full model like {@link #fullModel(String, int, int)}, but with the elements numbered from
+     * the given index on, so several models can be generated without sharing any element.
+     */
+    static String fullModel(String keyword, int classCount, int firstElement, int elementCount) {
+        final var sb = new StringBuilder(256 + elementCount * 400);
+        sb.append("""
+            <?xml version="1.0" encoding="utf-8"?>
+            <rdf:RDF xmlns:cim="http://iec.ch/TC57/CIM100#" xmlns:md="http://iec.ch/TC57/61970-552/ModelDescription/1#" xmlns:rdf="http://www.w3.org/1999/02/22-rdf-syntax-ns#">
+             <md:FullModel rdf:about="urn:uuid:08984e27-811f-4042-9125-1531ae0de0f6">
+               <md:Model.profile>%s</md:Model.profile>
+             </md:FullModel>
+            """.formatted(versionIri(keyword)));
+        for (int i = firstElement; i < firstElement + elementCount; i++) {
+            final var className = "Class" + (i % classCount);
+            sb.append("""
+                 <cim:%1$s rdf:ID="_%2$s">
+                   <cim:%1$s.floatValue>%3$d.5</cim:%1$s.floatValue>
+                   <cim:%1$s.intValue>%3$d</cim:%1$s.intValue>
+                   <cim:%1$s.flag>%4$s</cim:%1$s.flag>
+                   <cim:%1$s.name>Element %3$d</cim:%1$s.name>
+                   <cim:%1$s.next rdf:resource="#_%5$s"/>
+                 </cim:%1$s>
+                """.formatted(className, uuid(i), i, i % 2 == 0,
+                        uuid(firstElement + (i - firstElement + classCount) % elementCount)));
+        }
+        sb.append("</rdf:RDF>\n");
+        return sb.toString();
+    }
+
+    /**
+     * Creates a difference model of the profile with the given keyword that changes the float attribute
+     * and the name of the given number of elements.
+     */
+    static String differenceModel(String keyword, int classCount, int changeCount) {
+        final var sb = new StringBuilder(512 + changeCount * 600);
+        sb.append("""
+            <?xml version="1.0" encoding="utf-8"?>
+            <rdf:RDF
+                xmlns:dm="http://iec.ch/TC57/61970-552/DifferenceModel/1#"
+                xmlns:md="http://iec.ch/TC57/61970-552/ModelDescription/1#"
+                xmlns:cim="http://iec.ch/TC57/CIM100#"
+                xmlns:rdf="http://www.w3.org/1999/02/22-rdf-syntax-ns#">
+             <dm:DifferenceModel rdf:about="urn:uuid:d4336345-ad68-4566-afab-d9798ec5ca86">
+               <md:Model.profile>%s</md:Model.profile>
+            """.formatted(versionIri(keyword)));
+        appendChanges(sb, "forwardDifferences", classCount, changeCount, "new");
+        appendChanges(sb, "reverseDifferences", classCount, changeCount, "old");
+        sb.append("""
+             </dm:DifferenceModel>
+            </rdf:RDF>
+            """);
+        return sb.toString();
+    }
+
+    private static void appendChanges(StringBuilder sb, String container, int classCount, int changeCount,
+                                      String label) {
+        sb.append("   <dm:").append(container).append(" rdf:parseType=\"Statements\">\n");
+        for (int i = 0; i < changeCount; i++) {
+            final var className = "Class" + (i % classCount);
+            sb.append("""
+                     <rdf:Description rdf:about="#_%2$s">
+                       <cim:%1$s.floatValue>%3$d.25</cim:%1$s.floatValue>
+                       <cim:%1$s.name>%4$s %3$d</cim:%1$s.name>
+                     </rdf:Description>
+                """.formatted(className, uuid(i), i, label));
+        }
+        sb.append("   </dm:").append(container).append(">\n");
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.soptim.opencgmes.cimxml.benchmarks;
+
+import de.soptim.opencgmes.cimxml.graph.DisjointMultiUnion;
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures find and contains on a {@link DisjointMultiUnion} of several parsed full models, as used by
+ * {@code CimModelSet.getCombinedDatasetGraph()}. The elements are spread evenly over the graphs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+public class UnionGraphBenchmark {
+
+    private static final int SAMPLES = 1024;
+
+    /** The number of elements in all graphs together. */
+    @Param({"10000", "100000"})
+    public int size;
+
+    @Param({"2", "8"})
+    public int graphCount;
+
+    /** Whether the union routes lookups with per-member subject and predicate filters. */
+    @Param({"false", "true"})
+    public boolean memberFilters;
+
+    private DisjointMultiUnion union;
+    private Node floatValue;
+    private final Node[] subjects = new Node[SAMPLES];
+    private final Triple[] present = new Triple[SAMPLES];
+    private final Triple[] absent = new Triple[SAMPLES];
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        final var parser = SyntheticCimModels.parserWithProfiles(1, "BM");
+        final var elementsPerGraph = size / graphCount;
+        final var graphs = new Graph[graphCount];
+        for (int g = 0; g < graphCount; g++) {
+            graphs[g] = SyntheticCimModels.parseBody(parser,
+                    SyntheticCimModels.fullModel("BM", 1, g * elementsPerGraph, elementsPerGraph));
+        }
+        union = new DisjointMultiUnion(graphs);
+        if (memberFilters)
+            union.enableMemberFilters();
+        floatValue = NodeFactory.createURI(SyntheticCimModels.NS_CIM + "Class0.floatValue");
+        final var name = NodeFactory.createURI(SyntheticCimModels.NS_CIM + "Class0.name");
+        for (int i = 0; i < SAMPLES; i++) {
+            final var index = (int) ((long) i * elementsPerGraph * graphCount / SAMPLES);
+            subjects[i] = NodeFactory.createURI("urn:uuid:" + SyntheticCimModels.uuid(index));
+            present[i] = union.find(subjects[i], name, Node.ANY).next();
+            absent[i] = Triple.create(subjects[i], name, NodeFactory.createLiteralString("absent " + i));
+        }
+    }
+
+    private int nextSample() {
+        next = (next + 1) & (SAMPLES - 1);
+        return next;
+    }
+
+    @Benchmark
+    public boolean containsPresent() {
+        return union.contains(present[nextSample()]);
+    }
+
+    @Benchmark
+    public boolean containsAbsent() {
+        return union.contains(absent[nextSample()]);
+    }
+
+    @Benchmark
+    public int findBySubject() {
+        var count = 0;
+        final var it = union.find(subjects[nextSample()], Node.ANY, Node.ANY);
+        while (it.hasNext()) {
+            it.next();
+            count++;
+        }
+        return count;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public int findByPredicate() {
+        var count = 0;
+        final var it = union.find(Node.ANY, floatValue, Node.ANY);
+        while (it.hasNext()) {
+            it.next();
+            count++;
+        }
+        return count;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public long streamAll() {
+        return union.stream().count();
+    }
+}
@@ -0,0 +1,463 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.soptim.opencgmes.cimxml.graph;
+
+import de.soptim.opencgmes.cimxml.CimHeaderVocabulary;
+import de.soptim.opencgmes.cimxml.CimVersion;
+import de.soptim.opencgmes.cimxml.sparql.core.CimDatasetGraph;
+import de.soptim.opencgmes.cimxml.sparql.core.LinkedCimDatasetGraph;
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.TextDirection;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.mem2.GraphMem2Roaring;
+import org.apache.jena.mem2.IndexingStrategy;
+import org.apache.jena.shared.PrefixMapping;
+import org.apache.jena.sparql.core.Quad;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Writes a {@link CimDatasetGraph} to a compact binary snapshot and reads it back.
+ * <p>
+ * A snapshot contains the CIM version, the prefixes, one {@link NodeDictionary} shared by all graphs and the
+ * named graphs of the dataset, i.e. the model header and the body, forward differences, reverse differences and
+ * preconditions. The data graphs are stored as {@link DictionaryGraph} columns together with their hash table
+ * and their indexes, so reading a snapshot maps the file into memory and copies arrays. Only the nodes that are
+ * not CIM UUIDs, which are mostly predicates, classes and literals, have to be decoded.
+ * <p>
+ * This is meant for base models that are loaded again and again, e.g. at every restart of a service:
+ * <pre>{@code
+ * CimDatasetGraph dataset;
+ * if (Files.exists(snapshot)) {
+ *     dataset = CimDatasetSnapshot.read(snapshot);
+ * } else {
+ *     dataset = parser.parseCimModel(modelFile);
+ *     CimDatasetSnapshot.write(dataset, snapshot);
+ * }
+ * }</pre>
+ * The data graphs of the dataset that is read are {@link DictionaryGraph}s sharing one dictionary. So they
+ * should only be changed from one thread; changes are best kept in a {@link FastDeltaGraph} on top of them.
+ * The model headers are read into {@link GraphMem2Roaring} graphs, just like the parser creates them.
+ * <p>
+ * Snapshots are a cache and not an exchange format: they are only read by the same version of this library.
+ */
+public final class CimDatasetSnapshot {
+
+    private static final byte[] MAGIC = "CIMSNAP\0".getBytes(StandardCharsets.US_ASCII);
+    private static final int FORMAT_VERSION = 1;
+
+    private static final byte GRAPH_WITH_TRIPLES = 0;
+    private static final byte GRAPH_WITH_DICTIONARY = 1;
+
+    private static final byte NODE_URI = 0;
+    private static final byte NODE_BLANK = 1;
+    private static final byte NODE_LITERAL = 2;
+
+    private CimDatasetSnapshot() {
+    }
+
+    /**
+     * Writes the given dataset to a snapshot file. The file is first written under a temporary name and then
+     * moved into place, so readers never see a partially written snapshot.
+     * @param dataset the dataset to write
+     * @param file the snapshot file, which is replaced if it exists
+     * @throws IOException if the file cannot be written
+     * @throws IllegalArgumentException if the dataset contains nodes that cannot be stored, like triple terms
+     */
+    public static void write(CimDatasetGraph dataset, Path file) throws IOException {
+        final var dictionary = new NodeDictionary();
+        final var graphs = new ArrayList<SnapshotGraph>();
+        graphs.add(toSnapshotGraph(Quad.defaultGraphIRI, dataset.getDefaultGraph(), dictionary));
+        dataset.listGraphNodes().forEachRemaining(graphName -> {
+            if (!Quad.isDefaultGraph(graphName))
+                graphs.add(toSnapshotGraph(graphName, dataset.getGraph(graphName), dictionary));
+        });
+
+        // a unique temporary file, so concurrent writers of the same file do not overwrite each other's
+        final var temporaryFile = Files.createTempFile(file.toAbsolutePath().getParent(),
+                file.getFileName().toString(), ".tmp");
+        try {
+            try (var channel = FileChannel.open(temporaryFile, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+                 var out = new Output(channel)) {
+                out.writeBytes(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.writeString(getCimVersion(dataset).name());
+                writePrefixes(out, dataset.prefixes().getMapping());
+                dictionary.write(out);
+                out.writeInt(graphs.size());
+                for (var graph : graphs) {
+                    out.writeNode(graph.name);
+                    writePrefixes(out, graph.prefixes);
+                    if (graph.dictionaryGraph != null) {
+                        out.writeByte(GRAPH_WITH_DICTIONARY);
+                        graph.dictionaryGraph.write(out);
+                    } else {
+                        out.writeByte(GRAPH_WITH_TRIPLES);
+                        out.writeInt(graph.tripleIds.length / 3);
+                        out.writeInts(graph.tripleIds, graph.tripleIds.length);
+                    }
+                }
+            }
+            moveIntoPlace(temporaryFile, file);
+        } finally {
+            Files.deleteIfExists(temporaryFile);
+        }
+    }
+
+    private static void moveIntoPlace(Path temporaryFile, Path file) throws IOException {
+        try {
+            Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Reads a dataset from a snapshot file written by {@link #write}.
+     * @param file the snapshot file
+     * @return the dataset
+     * @throws IOException if the file cannot be read or is not a snapshot of this format version
+     */
+    public static CimDatasetGraph read(Path file) throws IOException {
+        try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final var in = new Input(channel);
+            readHeader(in, file);
+            final var dataset = new LinkedCimDatasetGraph();
+            readPrefixes(in).getNsPrefixMap().forEach(dataset.prefixes()::add);
+            final var dictionary = NodeDictionary.read(in);
+            final var graphCount = in.readInt();
+            for (int i = 0; i < graphCount; i++) {
+                final var graphName = in.readNode();
+                final var prefixes = readPrefixes(in);
+                final Graph graph = switch (in.readByte()) {
+                    case GRAPH_WITH_DICTIONARY -> DictionaryGraph.read(in, dictionary);
+                    case GRAPH_WITH_TRIPLES -> readTriples(in, dictionary);
+                    default -> throw new IOException("Unknown graph kind in snapshot " + file);
+                };
+                graph.getPrefixMapping().setNsPrefixes(prefixes);
+                dataset.addGraph(graphName, graph);
+            }
+            return dataset;
+        }
+    }
+
+    /**
+     * Reads only the CIM version from a snapshot file, e.g. to choose the profiles before reading the dataset.
+     * @param file the snapshot file
+     * @return the CIM version of the dataset in the snapshot
+     * @throws IOException if the file cannot be read or is not a snapshot of this format version
+     */
+    public static CimVersion readCimVersion(Path file) throws IOException {
+        try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return readHeader(new Input(channel), file);
+        }
+    }
+
+    private static CimVersion readHeader(Input in, Path file) throws IOException {
+        final var magic = new byte[MAGIC.length];
+        try {
+            in.readBytes(magic);
+        } catch (EOFException e) {
+            throw new IOException("Not a CIM dataset snapshot: " + file, e);
+        }
+        if (!Arrays.equals(MAGIC, magic))
+            throw new IOException("Not a CIM dataset snapshot: " + file);
+        final var formatVersion = in.readInt();
+        if (formatVersion != FORMAT_VERSION)
+            throw new IOException("Unsupported format version " + formatVersion + " of CIM dataset snapshot: " + file);
+        try {
+            return CimVersion.valueOf(in.readString());
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Unknown CIM version in snapshot: " + file, e);
+        }
+    }
+
+    private static CimVersion getCimVersion(CimDatasetGraph dataset) {
+        final var cimNamespace = dataset.prefixes().get("cim");
+        return cimNamespace == null
+                ? CimGraph.getCIMXMLVersion(dataset.getDefaultGraph())
+                : CimVersion.fromCimNamespace(cimNamespace);
+    }
+
+    /**
+     * A graph prepared for writing: the data graphs as {@link DictionaryGraph}, the small header graphs as
+     * plain triples of node ids.
+     */
+    private record SnapshotGraph(Node name, Map<String, String> prefixes, DictionaryGraph dictionaryGraph,
+                                 int[] tripleIds) {}
+
+    private static SnapshotGraph toSnapshotGraph(Node graphName, Graph graph, NodeDictionary dictionary) {
+        final var prefixes = graph.getPrefixMapping().getNsPrefixMap();
+        if (isHeaderGraph(graphName)) {
+            final var tripleIds = new int[3 * graph.size()];
+            var i = 0;
+            for (var it = graph.find(); it.hasNext(); ) {
+                final var triple = it.next();
+                tripleIds[i++] = dictionary.getOrCreateId(triple.getSubject());
+                tripleIds[i++] = dictionary.getOrCreateId(triple.getPredicate());
+                tripleIds[i++] = dictionary.getOrCreateId(triple.getObject());
+            }
+            return new SnapshotGraph(graphName, prefixes, null, i == tripleIds.length ? tripleIds : Arrays.copyOf(tripleIds, i));
+        }
+        final var dictionaryGraph = new DictionaryGraph(dictionary);
+        graph.find().forEachRemaining(dictionaryGraph::add);
+        return new SnapshotGraph(graphName, prefixes, dictionaryGraph, null);
+    }
+
+    private static boolean isHeaderGraph(Node graphName) {
+        return CimHeaderVocabulary.TYPE_FULL_MODEL.equals(graphName)
+                || CimHeaderVocabulary.TYPE_DIFFERENCE_MODEL.equals(graphName);
+    }
+
+    private static Graph readTriples(Input in, NodeDictionary dictionary) throws IOException {
+        final var tripleIds = new int[3 * in.readInt()];
+        in.readInts(tripleIds, tripleIds.length);
+        final var graph = new GraphMem2Roaring(IndexingStrategy.MINIMAL);
+        for (int i = 0; i < tripleIds.length; i += 3) {
+            graph.add(Triple.create(
+                    dictionary.getNode(tripleIds[i]),
+                    dictionary.getNode(tripleIds[i + 1]),
+                    dictionary.getNode(tripleIds[i + 2])));
+        }
+        return graph;
+    }
+
+    private static void writePrefixes(Output out, Map<String, String> prefixes) throws IOException {
+        out.writeInt(prefixes.size());
+        for (var entry : prefixes.entrySet()) {
+            out.writeString(entry.getKey());
+            out.writeString(entry.getValue());
+        }
+    }
+
+    private static PrefixMapping readPrefixes(Input in) throws IOException {
+        final var prefixes = PrefixMapping.Factory.create();
+        final var count = in.readInt();
+        for (int i = 0; i < count; i++)
+            prefixes.setNsPrefix(in.readString(), in.readString());
+        return prefixes;
+    }
+
+    /**
+     * Writes little-endian binary data to a file channel through a direct buffer.
+     */
+    static final class Output implements AutoCloseable {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+
+        Output(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes)
+                flush();
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining())
+                channel.write(buffer);
+            buffer.clear();
+        }
+
+        void writeByte(byte value) throws IOException {
+            ensure(1);
+            buffer.put(value);
+        }
+
+        void writeInt(int value) throws IOException {
+            ensure(Integer.BYTES);
+            buffer.putInt(value);
+        }
+
+        void writeBytes(byte[] bytes) throws IOException {
+            var offset = 0;
+            while (offset < bytes.length) {
+                ensure(1);
+                final var length = Math.min(bytes.length - offset, buffer.remaining());
+                buffer.put(bytes, offset, length);
+                offset += length;
+            }
+        }
+
+        void writeInts(int[] values, int length) throws IOException {
+            var offset = 0;
+            while (offset < length) {
+                ensure(Integer.BYTES);
+                final var count = Math.min(length - offset, buffer.remaining() / Integer.BYTES);
+                buffer.asIntBuffer().put(values, offset, count);
+                buffer.position(buffer.position() + count * Integer.BYTES);
+                offset += count;
+            }
+        }
+
+        void writeLongs(long[] values, int length) throws IOException {
+            var offset = 0;
+            while (offset < length) {
+                ensure(Long.BYTES);
+                final var count = Math.min(length - offset, buffer.remaining() / Long.BYTES);
+                buffer.asLongBuffer().put(values, offset, count);
+                buffer.position(buffer.position() + count * Long.BYTES);
+                offset += count;
+            }
+        }
+
+        void writeString(String value) throws IOException {
+            final var bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeInt(bytes.length);
+            writeBytes(bytes);
+        }
+
+        void writeNode(Node node) throws IOException {
+            if (node.isURI()) {
+                writeByte(NODE_URI);
+                writeString(node.getURI());
+            } else if (node.isBlank()) {
+                writeByte(NODE_BLANK);
+                writeString(node.getBlankNodeLabel());
+            } else if (node.isLiteral()) {
+                writeByte(NODE_LITERAL);
+                writeString(node.getLiteralLexicalForm());
+                writeString(node.getLiteralDatatypeURI());
+                writeString(node.getLiteralLanguage());
+                final var direction = node.getLiteralBaseDirection();
+                writeString(direction == null ? "" : direction.direction());
+            } else {
+                throw new IllegalArgumentException("Node cannot be stored in a snapshot: " + node);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+
+    /**
+     * Reads little-endian binary data from a file channel through memory-mapped windows, so that files
+     * larger than 2 GB can be read as well.
+     */
+    static final class Input {
+        private static final long WINDOW_SIZE = 1L << 26;
+
+        private final FileChannel channel;
+        private final long size;
+        private ByteBuffer window = ByteBuffer.allocate(0);
+        private long windowStart = 0;
+
+        Input(FileChannel channel) throws IOException {
+            this.channel = channel;
+            this.size = channel.size();
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (window.remaining() >= bytes)
+                return;
+            final var position = windowStart + window.position();
+            if (position + bytes > size)
+                throw new EOFException("Unexpected end of CIM dataset snapshot");
+            final var length = Math.min(size - position, Math.max(WINDOW_SIZE, bytes));
+            window = channel.map(FileChannel.MapMode.READ_ONLY, position, length).order(ByteOrder.LITTLE_ENDIAN);
+            windowStart = position;
+        }
+
+        byte readByte() throws IOException {
+            ensure(1);
+            return window.get();
+        }
+
+        int readInt() throws IOException {
+            ensure(Integer.BYTES);
+            final var value = window.getInt();
+            if (value < 0)
+                throw new IOException("Invalid length or id in CIM dataset snapshot: " + value);
+            return value;
+        }
+
+        void readBytes(byte[] target) throws IOException {
+            ensure(target.length);
+            window.get(target);
+        }
+
+        void readInts(int[] target, int length) throws IOException {
+            var offset = 0;
+            while (offset < length) {
+                ensure(Integer.BYTES);
+                final var count = Math.min(length - offset, window.remaining() / Integer.BYTES);
+                window.asIntBuffer().get(target, offset, count);
+                window.position(window.position() + count * Integer.BYTES);
+                offset += count;
+            }
+        }
+
+        void readLongs(long[] target, int length) throws IOException {
+            var offset = 0;
+            while (offset < length) {
+                ensure(Long.BYTES);
+                final var count = Math.min(length - offset, window.remaining() / Long.BYTES);
+                window.asLongBuffer().get(target, offset, count);
+                window.position(window.position() + count * Long.BYTES);
+                offset += count;
+            }
+        }
+
+        String readString() throws IOException {
+            final var bytes = new byte[readInt()];
+            readBytes(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        Node readNode() throws IOException {
+            return switch (readByte()) {
+                case NODE_URI -> NodeFactory.createURI(readString());
+                case NODE_BLANK -> NodeFactory.createBlankNode(readString());
+                case NODE_LITERAL -> {
+                    final var lexicalForm = readString();
+                    final var datatypeUri = readString();
+                    final var language = readString();
+                    final var direction = readString();
+                    if (!language.isEmpty()) {
+                        yield direction.isEmpty()
+                                ? NodeFactory.createLiteralLang(lexicalForm, language)
+                                : NodeFactory.createLiteralDirLang(lexicalForm, language, TextDirection.create(direction));
+                    }
+                    yield NodeFactory.createLiteralDT(lexicalForm, NodeFactory.getType(datatypeUri));
+                }
+                default -> throw new IOException("Unknown node kind in CIM dataset snapshot");
+            };
+        }
+    }
+}
@@ -0,0 +1,284 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.soptim.opencgmes.cimxml.graph;
+
+import de.soptim.opencgmes.cimxml.parser.system.NodeCacheStatistics;
+import de.soptim.opencgmes.cimxml.sparql.core.CimDatasetGraph;
+import org.apache.jena.atlas.lib.cache.CacheInfo;
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.mem2.GraphMem2Roaring;
+import org.apache.jena.sparql.core.Quad;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * An estimate of the heap memory held by the graphs of a {@link CimDatasetGraph}.
+ * <p>
+ * For each named graph, the report counts the triples and the distinct nodes by kind and estimates the bytes
+ * of the nodes, of the stored triples and of the indexes for pattern matching. The estimates assume a 64-bit
+ * JVM with compressed object pointers and are meant for sizing, e.g. to predict the footprint of a model
+ * before it is admitted into a cache, not for exact accounting:
+ * <ul>
+ *     <li>{@link GraphMem2Roaring}: a {@link org.apache.jena.graph.Triple} object and its slots in the hash set
+ *     per triple, plus the three roaring indexes once they are built.</li>
+ *     <li>{@link DictionaryGraph}: the sizes of its int columns, hash table and sorted indexes. The nodes are
+ *     counted once per {@link NodeDictionary}, for the first graph that uses it.</li>
+ *     <li>Other graphs are counted like a {@link GraphMem2Roaring} without indexes. Views that do not hold
+ *     triples of their own, like unions, are therefore counted in addition to their members.</li>
+ * </ul>
+ * Nodes that are equal but not the same instance are only counted once, which is what the node caches of
+ * the parser achieve for most nodes. Counting the distinct nodes needs a temporary set of all of them.
+ */
+public final class CimMemoryReport {
+
+    private static final int OBJECT_HEADER = 12;
+    private static final int REFERENCE = 4;
+    /** A {@link org.apache.jena.graph.Triple} with three references, plus its slots in the hash set of the graph. */
+    private static final int TRIPLE_BYTES = 24 + 16;
+    /** The roaring bitmap entries of one triple in the three indexes. */
+    private static final int INDEX_BYTES_PER_TRIPLE = 3 * 2;
+    /** The map slot and the roaring bitmap of one node in one of the three indexes. */
+    private static final int INDEX_BYTES_PER_KEY = 80;
+    /** The map entry and the array slot of a node in a {@link NodeDictionary}. */
+    private static final int DICTIONARY_BYTES_PER_NODE = 48 + REFERENCE;
+
+    /**
+     * The estimate for one named graph.
+     * @param graphName the name of the graph, {@link Quad#defaultGraphIRI} for the default graph
+     * @param storage the simple class name of the graph
+     * @param triples the number of triples
+     * @param uris the number of distinct URI nodes
+     * @param blankNodes the number of distinct blank nodes
+     * @param literals the number of distinct literals
+     * @param nodeBytes the estimated bytes of the nodes
+     * @param tripleBytes the estimated bytes of the stored triples
+     * @param indexBytes the estimated bytes of the indexes for pattern matching, 0 if they are not built
+     */
+    public record GraphReport(Node graphName, String storage, long triples, long uris, long blankNodes,
+                              long literals, long nodeBytes, long tripleBytes, long indexBytes) {
+
+        /**
+         * Gets the estimated bytes of the graph.
+         * @return the sum of the node, triple and index bytes
+         */
+        public long totalBytes() {
+            return nodeBytes + tripleBytes + indexBytes;
+        }
+    }
+
+    private final List<GraphReport> graphs;
+    private final NodeCacheStatistics nodeCacheStatistics;
+
+    private CimMemoryReport(List<GraphReport> graphs, NodeCacheStatistics nodeCacheStatistics) {
+        this.graphs = Collections.unmodifiableList(graphs);
+        this.nodeCacheStatistics = nodeCacheStatistics;
+    }
+
+    /**
+     * Creates the report for the given dataset.
+     * @param dataset the dataset
+     * @return the report
+     */
+    public static CimMemoryReport of(CimDatasetGraph dataset) {
+        return of(dataset, null);
+    }
+
+    /**
+     * Creates the report for the given dataset, including the node cache statistics of the parser that created it.
+     * @param dataset the dataset
+     * @param nodeCacheStatistics the statistics of the node caches, or null if they are not known
+     * @return the report
+     */
+    public static CimMemoryReport of(CimDatasetGraph dataset, NodeCacheStatistics nodeCacheStatistics) {
+        Objects.requireNonNull(dataset, "dataset");
+        final var countedDictionaries = Collections.newSetFromMap(new IdentityHashMap<NodeDictionary, Boolean>());
+        final var graphs = new ArrayList<GraphReport>();
+        graphs.add(report(Quad.defaultGraphIRI, dataset.getDefaultGraph(), countedDictionaries));
+        dataset.listGraphNodes().forEachRemaining(graphName -> {
+            if (!Quad.isDefaultGraph(graphName))
+                graphs.add(report(graphName, dataset.getGraph(graphName), countedDictionaries));
+        });
+        return new CimMemoryReport(graphs, nodeCacheStatistics);
+    }
+
+    private static GraphReport report(Node graphName, Graph graph, Set<NodeDictionary> countedDictionaries) {
+        final var subjects = new HashSet<Node>();
+        final var predicates = new HashSet<Node>();
+        final var objects = new HashSet<Node>();
+        var triples = 0L;
+        for (var it = graph.find(); it.hasNext(); ) {
+            final var triple = it.next();
+            subjects.add(triple.getSubject());
+            predicates.add(triple.getPredicate());
+            objects.add(triple.getObject());
+            triples++;
+        }
+        final var nodes = new HashSet<Node>(subjects);
+        nodes.addAll(predicates);
+        nodes.addAll(objects);
+        var uris = 0L;
+        var blankNodes = 0L;
+        var literals = 0L;
+        var nodeBytes = 0L;
+        for (var node : nodes) {
+            if (node.isURI())
+                uris++;
+            else if (node.isBlank())
+                blankNodes++;
+            else if (node.isLiteral())
+                literals++;
+            nodeBytes += estimateNodeBytes(node);
+        }
+
+        final long tripleBytes;
+        final long indexBytes;
+        if (graph instanceof DictionaryGraph dictionaryGraph) {
+            nodeBytes = countedDictionaries.add(dictionaryGraph.getDictionary())
+                    ? dictionaryGraph.getDictionary().estimateBytes()
+                    : 0;
+            tripleBytes = dictionaryGraph.estimateTripleBytes();
+            indexBytes = dictionaryGraph.estimateIndexBytes();
+        } else {
+            tripleBytes = triples * TRIPLE_BYTES;
+            indexBytes = graph instanceof GraphMem2Roaring roaring && roaring.isIndexInitialized()
+                    ? triples * INDEX_BYTES_PER_TRIPLE
+                    + (long) (subjects.size() + predicates.size() + objects.size()) * INDEX_BYTES_PER_KEY
+                    : 0;
+        }
+        return new GraphReport(graphName, graph.getClass().getSimpleName(), triples, uris, blankNodes, literals,
+                nodeBytes, tripleBytes, indexBytes);
+    }
+
+    /**
+     * Estimates the bytes of a node together with its strings.
+     */
+    static long estimateNodeBytes(Node node) {
+        final var nodeObject = align(OBJECT_HEADER + REFERENCE);
+        if (node.isURI())
+            return nodeObject + estimateStringBytes(node.getURI());
+        if (node.isBlank())
+            return nodeObject + align(OBJECT_HEADER + REFERENCE) + estimateStringBytes(node.getBlankNodeLabel());
+        if (node.isLiteral()) {
+            // the literal label with lexical form, language, direction, datatype, value and hash code
+            final var label = align(OBJECT_HEADER + 5 * REFERENCE + Integer.BYTES);
+            return nodeObject + label + estimateStringBytes(node.getLiteralLexicalForm());
+        }
+        return nodeObject;
+    }
+
+    /**
+     * Estimates the bytes of a string with its array, stored with one byte per character if possible.
+     */
+    static long estimateStringBytes(String s) {
+        var bytesPerChar = 1;
+        for (int i = 0; i < s.length(); i++) {
+            if (s.charAt(i) > 0xFF) {
+                bytesPerChar = 2;
+                break;
+            }
+        }
+        return align(OBJECT_HEADER + REFERENCE + 2 * Integer.BYTES) + align(16 + (long) bytesPerChar * s.length());
+    }
+
+    static long estimateDictionaryNodeBytes(Node node) {
+        return DICTIONARY_BYTES_PER_NODE + estimateNodeBytes(node);
+    }
+
+    private static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+
+    /**
+     * Gets the estimates of the graphs, starting with the default graph.
+     * @return the estimates per graph
+     */
+    public List<GraphReport> getGraphs() {
+        return graphs;
+    }
+
+    /**
+     * Gets the estimated bytes of all graphs.
+     * @return the sum of the estimates of the graphs
+     */
+    public long getTotalBytes() {
+        return graphs.stream().mapToLong(GraphReport::totalBytes).sum();
+    }
+
+    /**
+     * Gets the number of triples in all graphs.
+     * @return the sum of the triples of the graphs
+     */
+    public long getTotalTriples() {
+        return graphs.stream().mapToLong(GraphReport::triples).sum();
+    }
+
+    /**
+     * Gets the statistics of the node caches of the parser that created the dataset.
+     * @return the statistics, or null if they are not known
+     */
+    public NodeCacheStatistics getNodeCacheStatistics() {
+        return nodeCacheStatistics;
+    }
+
+    /**
+     * Formats the report as a table with one line per graph, followed by the node cache hit rates.
+     * @return the summary
+     */
+    @Override
+    public String toString() {
+        final var sb = new StringBuilder();
+        sb.append(String.format(Locale.ROOT, "%-48s %-18s %12s %10s %8s %10s %10s %10s %10s %10s%n",
+                "graph", "storage", "triples", "uris", "blanks", "literals",
+                "nodes MB", "triples MB", "index MB", "total MB"));
+        for (var graph : graphs) {
+            sb.append(String.format(Locale.ROOT, "%-48s %-18s %,12d %,10d %,8d %,10d %10.1f %10.1f %10.1f %10.1f%n",
+                    Quad.isDefaultGraph(graph.graphName()) ? "default" : graph.graphName().toString(),
+                    graph.storage(), graph.triples(), graph.uris(), graph.blankNodes(), graph.literals(),
+                    megabytes(graph.nodeBytes()), megabytes(graph.tripleBytes()), megabytes(graph.indexBytes()),
+                    megabytes(graph.totalBytes())));
+        }
+        sb.append(String.format(Locale.ROOT, "%-48s %-18s %,12d %74.1f%n",
+                "total", "", getTotalTriples(), megabytes(getTotalBytes())));
+        if (nodeCacheStatistics != null) {
+            appendCacheInfo(sb, "URI node cache", nodeCacheStatistics.uriNodes());
+            appendCacheInfo(sb, "UUID node cache", nodeCacheStatistics.uuidNodes());
+            appendCacheInfo(sb, "literal node cache", nodeCacheStatistics.literalNodes());
+        }
+        return sb.toString();
+    }
+
+    private static void appendCacheInfo(StringBuilder sb, String name, CacheInfo cacheInfo) {
+        if (cacheInfo == null)
+            return;
+        sb.append(String.format(Locale.ROOT, "%s: %,d requests, %,d hits (%.1f %%)%n",
+                name, cacheInfo.requests, cacheInfo.hits, 100 * cacheInfo.hitRate));
+    }
+
+    private static double megabytes(long bytes) {
+        return bytes / (1024.0 * 1024.0);
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.soptim.opencgmes.cimxml.graph;
+
+import de.soptim.opencgmes.cimxml.CimHeaderVocabulary;
+import de.soptim.opencgmes.cimxml.sparql.core.CimDatasetGraph;
+import de.soptim.opencgmes.cimxml.sparql.core.LinkedCimDatasetGraph;
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.GraphUtil;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.mem2.GraphMem2Roaring;
+import org.apache.jena.mem2.IndexingStrategy;
+import org.apache.jena.vocabulary.RDF;
+
+import java.util.ArrayList;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Computes the DifferenceModel between two FullModels.
+ * <p>
+ * The forward differences are the triples of the successor body that are missing in the predecessor body,
+ * the reverse differences are the triples of the predecessor body that are missing in the successor body.
+ * Both bodies are scanned in parallel and each triple is looked up in the other body, so besides the two
+ * bodies only the differences themselves are held in memory.
+ * <pre>{@code
+ * CimDatasetGraph differenceModel = CimModelDiff.compute(yesterday, today);
+ * Graph today2 = differenceModel.differenceModelToFullModel(yesterday);
+ * }</pre>
+ * Triples are compared by value, so triples with blank nodes never match between two parsed models.
+ */
+public final class CimModelDiff {
+
+    private static final int TRIPLES_PER_CHUNK = 1 << 16;
+
+    private CimModelDiff() {
+    }
+
+    /**
+     * Computes the DifferenceModel between two FullModels, identified by a new random {@code urn:uuid} IRI.
+     * @param predecessor the FullModel the differences are applied to
+     * @param successor the FullModel that results from applying the differences
+     * @return a new DifferenceModel dataset
+     * @throws IllegalArgumentException if one of the datasets is not a FullModel
+     */
+    public static CimDatasetGraph compute(CimDatasetGraph predecessor, CimDatasetGraph successor) {
+        return compute(predecessor, successor, NodeFactory.createURI("urn:uuid:" + UUID.randomUUID()));
+    }
+
+    /**
+     * Computes the DifferenceModel between two FullModels.
+     * <p>
+     * The header of the DifferenceModel supersedes the model of the predecessor and takes all other
+     * properties, like {@code md:Model.profile}, from the header of the successor.
+     * @param predecessor the FullModel the differences are applied to
+     * @param successor the FullModel that results from applying the differences
+     * @param differenceModel the IRI of the DifferenceModel
+     * @return a new DifferenceModel dataset
+     * @throws IllegalArgumentException if one of the datasets is not a FullModel
+     */
+    public static CimDatasetGraph compute(CimDatasetGraph predecessor, CimDatasetGraph successor, Node differenceModel) {
+        Objects.requireNonNull(predecessor, "predecessor");
+        Objects.requireNonNull(successor, "successor");
+        Objects.requireNonNull(differenceModel, "differenceModel");
+        if (!predecessor.isFullModel())
+            throw new IllegalArgumentException("The predecessor dataset must be a FullModel. Use isFullModel() to check.");
+        if (!successor.isFullModel())
+            throw new IllegalArgumentException("The successor dataset must be a FullModel. Use isFullModel() to check.");
+
+        final var predecessorBody = predecessor.getBody();
+        final var successorBody = successor.getBody();
+        final var successorHeader = successor.getModelHeader();
+        final var prefixes = successorHeader.getPrefixMapping();
+
+        final var header = new GraphMem2Roaring(IndexingStrategy.MINIMAL);
+        header.getPrefixMapping().setNsPrefixes(prefixes);
+        header.add(differenceModel, RDF.type.asNode(), CimHeaderVocabulary.TYPE_DIFFERENCE_MODEL);
+        header.add(differenceModel, CimHeaderVocabulary.PREDICATE_SUPERSEDES, predecessor.getModelHeader().getModel());
+        successorHeader.find(successorHeader.getModel(), Node.ANY, Node.ANY).forEachRemaining(t -> {
+            if (!t.predicateMatches(RDF.type.asNode()) && !t.predicateMatches(CimHeaderVocabulary.PREDICATE_SUPERSEDES))
+                header.add(differenceModel, t.getPredicate(), t.getObject());
+        });
+
+        final var forwardDifferences = difference(successorBody, predecessorBody);
+        final var reverseDifferences = difference(predecessorBody, successorBody);
+        forwardDifferences.getPrefixMapping().setNsPrefixes(prefixes);
+        reverseDifferences.getPrefixMapping().setNsPrefixes(prefixes);
+
+        final var dataset = new LinkedCimDatasetGraph(new GraphMem2Roaring(IndexingStrategy.MINIMAL));
+        dataset.addGraph(CimHeaderVocabulary.TYPE_DIFFERENCE_MODEL, header);
+        dataset.addGraph(CimHeaderVocabulary.GRAPH_FORWARD_DIFFERENCES, forwardDifferences);
+        dataset.addGraph(CimHeaderVocabulary.GRAPH_REVERSE_DIFFERENCES, reverseDifferences);
+        dataset.prefixes().putAll(successor.prefixes());
+        return dataset;
+    }
+
+    /**
+     * Collects the triples of {@code left} that are not contained in {@code right}.
+     * The triples are read in chunks, whose lookups run in parallel, while the results are added by a single
+     * thread, since the graph implementations do not support concurrent inserts. So only one chunk of the
+     * differences is held besides the result.
+     */
+    private static Graph difference(Graph left, Graph right) {
+        final var result = new GraphMem2Roaring(IndexingStrategy.LAZY_PARALLEL);
+        final var chunk = new ArrayList<Triple>(TRIPLES_PER_CHUNK);
+        final var it = left.find();
+        try {
+            while (it.hasNext()) {
+                chunk.add(it.next());
+                if (chunk.size() == TRIPLES_PER_CHUNK || !it.hasNext()) {
+                    GraphUtil.add(result, chunk.parallelStream()
+                            .filter(t -> !right.contains(t))
+                            .toList());
+                    chunk.clear();
+                }
+            }
+        } finally {
+            it.close();
+        }
+        return result;
+    }
+}
@@ -0,0 +1,554 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.soptim.opencgmes.cimxml.graph;
+
+import org.apache.jena.graph.GraphEvents;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.graph.impl.GraphBase;
+import org.apache.jena.mem2.GraphMem2Roaring;
+import org.apache.jena.util.iterator.ExtendedIterator;
+import org.apache.jena.util.iterator.NiceIterator;
+import org.apache.jena.util.iterator.NullIterator;
+import org.apache.jena.util.iterator.SingletonIterator;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.ConcurrentModificationException;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+
+/**
+ * A memory efficient in-memory graph for large, mostly read-only CIM models.
+ * <p>
+ * Every node is interned into a {@link NodeDictionary}, where CIM UUID URIs only take two longs. The triples
+ * are stored as three int columns of node ids. For pattern matching, there are three sorted indexes
+ * (SPO, POS and OSP), each consisting of an offset per node id and one long per triple.
+ * <p>
+ * Like {@link GraphMem2Roaring} with a lazy indexing strategy, adding triples only fills the columns.
+ * The indexes are built on the first find with a pattern, or in parallel with {@link #initializeIndexParallel()}.
+ * Adding or deleting triples afterwards drops the indexes, which are rebuilt on the next find. So this graph is
+ * meant to be filled once, e.g. by the parser, and then to be read. Changes to a parsed model are best kept in a
+ * {@link FastDeltaGraph} on top of it.
+ * <p>
+ * This graph is not thread-safe for writes. Concurrent reads are safe while there are no writes.
+ */
+public class DictionaryGraph extends GraphBase {
+
+    private static final int TOMBSTONE = -1;
+    private static final int MIN_ROWS_FOR_COMPACTION = 1024;
+
+    private final NodeDictionary dictionary;
+
+    private int[] subjects = new int[1024];
+    private int[] predicates = new int[1024];
+    private int[] objects = new int[1024];
+    private int rowCount = 0;
+    private final BitSet deletedRows = new BitSet();
+    private int deletedRowCount = 0;
+
+    // open addressing hash table with row + 1, 0 marks an empty slot and TOMBSTONE a deleted row
+    private int[] rowTable = new int[2048];
+    private int usedRowTableSlots = 0;
+
+    private int modificationCount = 0;
+
+    /**
+     * One of the three sorted indexes. For each triple, the first column is used as key into
+     * {@code offsets}, while the other two columns are packed into one long of {@code entries}.
+     * The entries of each key are sorted.
+     */
+    private record Index(int[] offsets, long[] entries) {
+        int from(int key) {
+            return key + 1 < offsets.length ? offsets[key] : 0;
+        }
+
+        int to(int key) {
+            return key + 1 < offsets.length ? offsets[key + 1] : 0;
+        }
+    }
+
+    private record Indexes(Index spo, Index pos, Index osp) {}
+
+    private volatile Indexes indexes = null;
+
+    /**
+     * Creates an empty graph with its own node dictionary.
+     */
+    public DictionaryGraph() {
+        this(new NodeDictionary());
+    }
+
+    /**
+     * Creates an empty graph with the given node dictionary, which may be shared with other graphs
+     * that are filled on the same thread.
+     * @param dictionary the node dictionary
+     */
+    public DictionaryGraph(NodeDictionary dictionary) {
+        super();
+        if (dictionary == null)
+            throw new IllegalArgumentException("dictionary must not be null");
+        this.dictionary = dictionary;
+    }
+
+    /**
+     * Gets the dictionary of the nodes of this graph.
+     */
+    public NodeDictionary getDictionary() {
+        return dictionary;
+    }
+
+    /**
+     * Checks if the indexes for pattern matching have been built.
+     */
+    public boolean isIndexInitialized() {
+        return indexes != null;
+    }
+
+    /**
+     * Builds the three indexes for pattern matching in parallel.
+     */
+    public void initializeIndexParallel() {
+        getOrBuildIndexes();
+    }
+
+    /**
+     * Drops the indexes for pattern matching to free their memory. They are rebuilt on the next find.
+     */
+    public void clearIndex() {
+        indexes = null;
+    }
+
+    /**
+     * Estimates the heap bytes of the columns and the hash table, see {@link CimMemoryReport}.
+     */
+    long estimateTripleBytes() {
+        return (long) Integer.BYTES * (subjects.length + predicates.length + objects.length + rowTable.length)
+                + deletedRows.size() / Byte.SIZE;
+    }
+
+    /**
+     * Estimates the heap bytes of the indexes, see {@link CimMemoryReport}.
+     * @return the bytes of the indexes, 0 if they are not built
+     */
+    long estimateIndexBytes() {
+        final var current = indexes;
+        if (current == null)
+            return 0;
+        var bytes = 0L;
+        for (var index : List.of(current.spo(), current.pos(), current.osp())) {
+            bytes += (long) Integer.BYTES * index.offsets().length + (long) Long.BYTES * index.entries().length;
+        }
+        return bytes;
+    }
+
+    @Override
+    public void performAdd(Triple t) {
+        final var s = dictionary.getOrCreateId(t.getSubject());
+        final var p = dictionary.getOrCreateId(t.getPredicate());
+        final var o = dictionary.getOrCreateId(t.getObject());
+        if (findRow(s, p, o) >= 0)
+            return;
+        if (2 * (usedRowTableSlots + 1) > rowTable.length)
+            rebuildRowTable(Math.max(rowTable.length, Integer.highestOneBit(4 * (graphBaseSize() + 1))));
+        if (rowCount == subjects.length) {
+            final var newLength = subjects.length * 2;
+            subjects = Arrays.copyOf(subjects, newLength);
+            predicates = Arrays.copyOf(predicates, newLength);
+            objects = Arrays.copyOf(objects, newLength);
+        }
+        final var row = rowCount++;
+        subjects[row] = s;
+        predicates[row] = p;
+        objects[row] = o;
+        insertIntoRowTable(row);
+        changed();
+    }
+
+    @Override
+    public void performDelete(Triple t) {
+        final var s = dictionary.getId(t.getSubject());
+        final var p = dictionary.getId(t.getPredicate());
+        final var o = dictionary.getId(t.getObject());
+        if (s == NodeDictionary.NO_ID || p == NodeDictionary.NO_ID || o == NodeDictionary.NO_ID)
+            return;
+        final var slot = findRowSlot(s, p, o);
+        if (slot < 0)
+            return;
+        deletedRows.set(rowTable[slot] - 1);
+        rowTable[slot] = TOMBSTONE;
+        deletedRowCount++;
+        if (deletedRowCount >= MIN_ROWS_FOR_COMPACTION && 2 * deletedRowCount > rowCount)
+            compact();
+        changed();
+    }
+
+    @Override
+    public void clear() {
+        subjects = new int[1024];
+        predicates = new int[1024];
+        objects = new int[1024];
+        rowCount = 0;
+        deletedRows.clear();
+        deletedRowCount = 0;
+        rowTable = new int[2048];
+        usedRowTableSlots = 0;
+        changed();
+        getEventManager().notifyEvent(this, GraphEvents.removeAll);
+    }
+
+    @Override
+    protected boolean graphBaseContains(Triple t) {
+        if (!t.isConcrete())
+            return graphBaseFind(t).hasNext();
+        final var s = dictionary.getId(t.getSubject());
+        final var p = dictionary.getId(t.getPredicate());
+        final var o = dictionary.getId(t.getObject());
+        if (s == NodeDictionary.NO_ID || p == NodeDictionary.NO_ID || o == NodeDictionary.NO_ID)
+            return false;
+        return findRow(s, p, o) >= 0;
+    }
+
+    @Override
+    protected int graphBaseSize() {
+        return rowCount - deletedRowCount;
+    }
+
+    @Override
+    protected ExtendedIterator<Triple> graphBaseFind(Triple triplePattern) {
+        final var sNode = triplePattern.getSubject();
+        final var pNode = triplePattern.getPredicate();
+        final var oNode = triplePattern.getObject();
+        final var hasS = sNode.isConcrete();
+        final var hasP = pNode.isConcrete();
+        final var hasO = oNode.isConcrete();
+        if (!hasS && !hasP && !hasO)
+            return new RowIterator();
+
+        final var s = hasS ? dictionary.getId(sNode) : NodeDictionary.NO_ID;
+        final var p = hasP ? dictionary.getId(pNode) : NodeDictionary.NO_ID;
+        final var o = hasO ? dictionary.getId(oNode) : NodeDictionary.NO_ID;
+        if ((hasS && s == NodeDictionary.NO_ID) || (hasP && p == NodeDictionary.NO_ID)
+                || (hasO && o == NodeDictionary.NO_ID))
+            return NullIterator.instance();
+        if (hasS && hasP && hasO) {
+            return findRow(s, p, o) >= 0
+                    ? new SingletonIterator<>(triplePattern)
+                    : NullIterator.instance();
+        }
+
+        final var current = getOrBuildIndexes();
+        if (hasS && hasP)
+            return new EntryIterator(current.spo, Order.SPO, s, p);
+        if (hasS && hasO)
+            return new EntryIterator(current.osp, Order.OSP, o, s);
+        if (hasP && hasO)
+            return new EntryIterator(current.pos, Order.POS, p, o);
+        if (hasS)
+            return new EntryIterator(current.spo, Order.SPO, s);
+        if (hasP)
+            return new EntryIterator(current.pos, Order.POS, p);
+        return new EntryIterator(current.osp, Order.OSP, o);
+    }
+
+    private void changed() {
+        modificationCount++;
+        indexes = null;
+    }
+
+    // ---- Snapshots
+
+    /**
+     * Writes the columns, the hash table of the rows and the indexes to a snapshot, so that {@link #read}
+     * only has to copy arrays. Deleted rows are removed from the columns first.
+     */
+    void write(CimDatasetSnapshot.Output out) throws IOException {
+        if (deletedRowCount > 0)
+            compact();
+        final var current = getOrBuildIndexes();
+        out.writeInt(rowCount);
+        out.writeInts(subjects, rowCount);
+        out.writeInts(predicates, rowCount);
+        out.writeInts(objects, rowCount);
+        out.writeInt(rowTable.length);
+        out.writeInts(rowTable, rowTable.length);
+        out.writeInt(usedRowTableSlots);
+        for (var index : new Index[] {current.spo, current.pos, current.osp}) {
+            out.writeInt(index.offsets.length);
+            out.writeInts(index.offsets, index.offsets.length);
+            out.writeInt(index.entries.length);
+            out.writeLongs(index.entries, index.entries.length);
+        }
+    }
+
+    /**
+     * Reads a graph written by {@link #write}.
+     * @param dictionary the dictionary the ids in the snapshot refer to
+     */
+    static DictionaryGraph read(CimDatasetSnapshot.Input in, NodeDictionary dictionary) throws IOException {
+        final var graph = new DictionaryGraph(dictionary);
+        final var rowCount = in.readInt();
+        final var columnLength = Math.max(rowCount, 1024);
+        graph.subjects = new int[columnLength];
+        graph.predicates = new int[columnLength];
+        graph.objects = new int[columnLength];
+        in.readInts(graph.subjects, rowCount);
+        in.readInts(graph.predicates, rowCount);
+        in.readInts(graph.objects, rowCount);
+        graph.rowCount = rowCount;
+        final var rowTableLength = in.readInt();
+        if (Integer.bitCount(rowTableLength) != 1 || rowTableLength < 2 * rowCount)
+            throw new IOException("Invalid row table length in snapshot: " + rowTableLength);
+        graph.rowTable = new int[rowTableLength];
+        in.readInts(graph.rowTable, rowTableLength);
+        graph.usedRowTableSlots = in.readInt();
+        final var restored = new Index[3];
+        for (int i = 0; i < restored.length; i++) {
+            final var offsets = new int[in.readInt()];
+            in.readInts(offsets, offsets.length);
+            final var entries = new long[in.readInt()];
+            in.readLongs(entries, entries.length);
+            if (entries.length != rowCount)
+                throw new IOException("Index of snapshot does not match its rows");
+            restored[i] = new Index(offsets, entries);
+        }
+        graph.indexes = new Indexes(restored[0], restored[1], restored[2]);
+        return graph;
+    }
+
+    // ---- Hash table of the rows
+
+    private static int hash(int s, int p, int o) {
+        var h = (s * 31 + p) * 31 + o;
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        return h;
+    }
+
+    private int findRow(int s, int p, int o) {
+        final var slot = findRowSlot(s, p, o);
+        return slot < 0 ? -1 : rowTable[slot] - 1;
+    }
+
+    private int findRowSlot(int s, int p, int o) {
+        final var mask = rowTable.length - 1;
+        var slot = hash(s, p, o) & mask;
+        int entry;
+        while ((entry = rowTable[slot]) != 0) {
+            if (entry != TOMBSTONE) {
+                final var row = entry - 1;
+                if (subjects[row] == s && predicates[row] == p && objects[row] == o)
+                    return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void insertIntoRowTable(int row) {
+        final var mask = rowTable.length - 1;
+        var slot = hash(subjects[row], predicates[row], objects[row]) & mask;
+        while (rowTable[slot] != 0)
+            slot = (slot + 1) & mask;
+        rowTable[slot] = row + 1;
+        usedRowTableSlots++;
+    }
+
+    private void rebuildRowTable(int newSize) {
+        rowTable = new int[newSize];
+        usedRowTableSlots = 0;
+        for (int row = 0; row < rowCount; row++) {
+            if (!deletedRows.get(row))
+                insertIntoRowTable(row);
+        }
+    }
+
+    /** Removes deleted rows from the columns. */
+    private void compact() {
+        var target = 0;
+        for (int row = 0; row < rowCount; row++) {
+            if (deletedRows.get(row))
+                continue;
+            subjects[target] = subjects[row];
+            predicates[target] = predicates[row];
+            objects[target] = objects[row];
+            target++;
+        }
+        rowCount = target;
+        deletedRows.clear();
+        deletedRowCount = 0;
+        rebuildRowTable(rowTable.length);
+    }
+
+    // ---- Sorted indexes
+
+    private Indexes getOrBuildIndexes() {
+        var current = indexes;
+        if (current != null)
+            return current;
+        synchronized (this) {
+            current = indexes;
+            if (current == null) {
+                final var idLimit = dictionary.idLimit();
+                final var spo = CompletableFuture.supplyAsync(() -> buildIndex(subjects, predicates, objects, idLimit));
+                final var pos = CompletableFuture.supplyAsync(() -> buildIndex(predicates, objects, subjects, idLimit));
+                final var osp = buildIndex(objects, subjects, predicates, idLimit);
+                current = new Indexes(spo.join(), pos.join(), osp);
+                indexes = current;
+            }
+            return current;
+        }
+    }
+
+    private Index buildIndex(int[] first, int[] second, int[] third, int idLimit) {
+        final var offsets = new int[idLimit + 1];
+        for (int row = 0; row < rowCount; row++) {
+            if (deletedRowCount == 0 || !deletedRows.get(row))
+                offsets[first[row] + 1]++;
+        }
+        for (int key = 0; key < idLimit; key++)
+            offsets[key + 1] += offsets[key];
+        final var positions = Arrays.copyOf(offsets, idLimit);
+        final var entries = new long[graphBaseSize()];
+        for (int row = 0; row < rowCount; row++) {
+            if (deletedRowCount == 0 || !deletedRows.get(row))
+                entries[positions[first[row]]++] = pack(second[row], third[row]);
+        }
+        IntStream.range(0, idLimit).parallel().forEach(key -> {
+            final var from = offsets[key];
+            final var to = offsets[key + 1];
+            if (to - from > 65536)
+                Arrays.parallelSort(entries, from, to);
+            else if (to - from > 1)
+                Arrays.sort(entries, from, to);
+        });
+        return new Index(offsets, entries);
+    }
+
+    private static long pack(int high, int low) {
+        return ((long) high << 32) | (low & 0xFFFFFFFFL);
+    }
+
+    /** Finds the first position in [from, to) whose entry is not less than the given value. */
+    private static int lowerBound(long[] entries, int from, int to, long value) {
+        var low = from;
+        var high = to;
+        while (low < high) {
+            final var mid = (low + high) >>> 1;
+            if (entries[mid] < value)
+                low = mid + 1;
+            else
+                high = mid;
+        }
+        return low;
+    }
+
+    private enum Order { SPO, POS, OSP }
+
+    /** Iterates over the entries of one key, or of one key and one second column value, of an index. */
+    private final class EntryIterator extends NiceIterator<Triple> {
+        private final long[] entries;
+        private final Order order;
+        private final int first;
+        private final int end;
+        private final int expectedModificationCount = modificationCount;
+        private final Node firstNode;
+        private int position;
+        private int lastSecond = NodeDictionary.NO_ID;
+        private Node lastSecondNode = null;
+
+        EntryIterator(Index index, Order order, int first) {
+            this.entries = index.entries;
+            this.order = order;
+            this.first = first;
+            this.position = index.from(first);
+            this.end = index.to(first);
+            this.firstNode = dictionary.getNode(first);
+        }
+
+        EntryIterator(Index index, Order order, int first, int second) {
+            this.entries = index.entries;
+            this.order = order;
+            this.first = first;
+            final var from = index.from(first);
+            final var to = index.to(first);
+            this.position = lowerBound(entries, from, to, pack(second, 0));
+            this.end = lowerBound(entries, position, to, pack(second + 1, 0));
+            this.firstNode = dictionary.getNode(first);
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (modificationCount != expectedModificationCount)
+                throw new ConcurrentModificationException();
+            return position < end;
+        }
+
+        @Override
+        public Triple next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            final var entry = entries[position++];
+            final var second = (int) (entry >>> 32);
+            if (second != lastSecond) {
+                lastSecond = second;
+                lastSecondNode = dictionary.getNode(second);
+            }
+            final var thirdNode = dictionary.getNode((int) entry);
+            return switch (order) {
+                case SPO -> Triple.create(firstNode, lastSecondNode, thirdNode);
+                case POS -> Triple.create(thirdNode, firstNode, lastSecondNode);
+                case OSP -> Triple.create(lastSecondNode, thirdNode, firstNode);
+            };
+        }
+    }
+
+    /** Iterates over all rows in the order they have been added. */
+    private final class RowIterator extends NiceIterator<Triple> {
+        private final int expectedModificationCount = modificationCount;
+        private int row = nextRow(0);
+
+        private int nextRow(int from) {
+            return deletedRowCount == 0 ? from : deletedRows.nextClearBit(from);
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (modificationCount != expectedModificationCount)
+                throw new ConcurrentModificationException();
+            return row < rowCount;
+        }
+
+        @Override
+        public Triple next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            final var triple = Triple.create(
+                    dictionary.getNode(subjects[row]),
+                    dictionary.getNode(predicates[row]),
+                    dictionary.getNode(objects[row]));
+            row = nextRow(row + 1);
+            return triple;
+        }
+    }
+}
@@ -25,15 +25,26 @@ import org.apache.jena.graph.compose.MultiUnion;
 import org.apache.jena.util.iterator.ExtendedIterator;
 import org.apache.jena.util.iterator.NullIterator;
 
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
 import java.util.stream.Stream;
 
 /**
  * Extends the Apache Jena MultiUnion but find does not elminiate duplicates
  * This is based on from https://github.com/apache/jena/blob/master/jena-core/src/main/java/org/apache/jena/graph/compose/MultiUnion.java
+ * <p>
+ * With {@link #enableMemberFilters()}, each member graph gets a Bloom filter of its subjects and the set of its
+ * predicates, built at the first lookup that can use them. Lookups with a concrete subject or predicate then
+ * only ask the members that may contain a match, which pays off for unions of many profile graphs.
  */
 public class DisjointMultiUnion extends MultiUnion {
 
+    private boolean memberFiltersEnabled = false;
+    private volatile MemberFilter[] memberFilters = null;
+
     public DisjointMultiUnion() {
         super();
     }
@@ -60,12 +71,21 @@ public class DisjointMultiUnion extends MultiUnion {
     @Override
     public ExtendedIterator<Triple> graphBaseFind(Triple t) { // optimise the case where there's only one component graph.
         ExtendedIterator<Triple> iter = NullIterator.instance();
-        for(var g: m_subGraphs) {
+        for(var g: candidates(t.getSubject(), t.getPredicate())) {
             iter = iter.andThen(g.find(t));
         }
         return iter;
     }
 
+    @Override
+    public boolean graphBaseContains(Triple t) {
+        for(var g: candidates(t.getSubject(), t.getPredicate())) {
+            if (g.contains(t))
+                return true;
+        }
+        return false;
+    }
+
     @Override
     public ExtendedIterator<Triple> find() {
         ExtendedIterator<Triple> iter = NullIterator.instance();
@@ -77,7 +97,7 @@ public class DisjointMultiUnion extends MultiUnion {
 
     @Override
     public Stream<Triple> stream(Node s, Node p, Node o) {
-        return m_subGraphs.stream()
+        return candidates(s, p).stream()
                                .flatMap(g -> g.stream(s, p, o));
     }
 
@@ -95,4 +115,156 @@ public class DisjointMultiUnion extends MultiUnion {
         }
         return size;
     }
+
+    @Override
+    public void addGraph(Graph graph) {
+        super.addGraph(graph);
+        memberFilters = null;
+    }
+
+    @Override
+    public void removeGraph(Graph graph) {
+        super.removeGraph(graph);
+        memberFilters = null;
+    }
+
+    @Override
+    public void performAdd(Triple t) {
+        super.performAdd(t);
+        memberFilters = null;
+    }
+
+    @Override
+    public void performDelete(Triple t) {
+        super.performDelete(t);
+        memberFilters = null;
+    }
+
+    /**
+     * Enables the per-member subject and predicate filters for lookups with a concrete subject or predicate.
+     * <p>
+     * The filters are rebuilt after graphs are added or removed or triples are added or deleted through this
+     * union. Member graphs must not be modified directly while the filters are enabled, as that would not be
+     * noticed and a lookup could miss triples added to a member.
+     */
+    public void enableMemberFilters() {
+        memberFiltersEnabled = true;
+    }
+
+    /**
+     * Checks whether lookups use the per-member subject and predicate filters.
+     * @return true if {@link #enableMemberFilters()} has been called
+     */
+    public boolean isMemberFiltersEnabled() {
+        return memberFiltersEnabled;
+    }
+
+    /**
+     * Gets the member graphs that may contain triples with the given subject and predicate.
+     * Without member filters, these are all members.
+     * @param s the subject of the pattern, which may be {@link Node#ANY}
+     * @param p the predicate of the pattern, which may be {@link Node#ANY}
+     * @return the members to ask, in the order of the union
+     */
+    protected List<Graph> candidates(Node s, Node p) {
+        final var isSubjectConcrete = s != null && s.isConcrete();
+        final var isPredicateConcrete = p != null && p.isConcrete();
+        if (!memberFiltersEnabled || m_subGraphs.size() < 2 || !(isSubjectConcrete || isPredicateConcrete))
+            return m_subGraphs;
+        final var filters = getMemberFilters();
+        final var candidates = new ArrayList<Graph>(2);
+        for (int i = 0; i < filters.length; i++) {
+            if ((!isSubjectConcrete || filters[i].mightContainSubject(s))
+                    && (!isPredicateConcrete || filters[i].containsPredicate(p)))
+                candidates.add(m_subGraphs.get(i));
+        }
+        return candidates;
+    }
+
+    private MemberFilter[] getMemberFilters() {
+        var filters = memberFilters;
+        if (filters == null) {
+            synchronized (this) {
+                filters = memberFilters;
+                if (filters == null) {
+                    filters = m_subGraphs.parallelStream()
+                            .map(MemberFilter::of)
+                            .toArray(MemberFilter[]::new);
+                    memberFilters = filters;
+                }
+            }
+        }
+        return filters;
+    }
+
+    /**
+     * A Bloom filter of the subjects and the exact set of predicates of one member graph.
+     * CIM profiles use a few hundred predicates at most, so these are kept exactly.
+     */
+    private static final class MemberFilter {
+        private static final int HASH_FUNCTIONS = 3;
+        private static final int BITS_PER_TRIPLE = 4;
+        private static final long MAX_BITS = 1L << 30;
+
+        private final long[] subjectBits;
+        private final int mask;
+        private final Set<Node> predicates = new HashSet<>();
+
+        private MemberFilter(long triples) {
+            // sized by triples, since the number of subjects is not known before the scan
+            final var bits = Long.highestOneBit(Math.min(MAX_BITS, Math.max(64L, triples * BITS_PER_TRIPLE)) * 2 - 1);
+            this.subjectBits = new long[(int) (bits >>> 6)];
+            this.mask = (int) (bits - 1);
+        }
+
+        static MemberFilter of(Graph graph) {
+            final var filter = new MemberFilter(graph.size());
+            final var it = graph.find();
+            try {
+                while (it.hasNext()) {
+                    final var t = it.next();
+                    filter.addSubject(t.getSubject());
+                    filter.predicates.add(t.getPredicate());
+                }
+            } finally {
+                it.close();
+            }
+            return filter;
+        }
+
+        private void addSubject(Node subject) {
+            final var h = hash(subject);
+            final var h1 = (int) h;
+            final var h2 = (int) (h >>> 32) | 1;
+            for (int i = 0; i < HASH_FUNCTIONS; i++) {
+                final var bit = (h1 + i * h2) & mask;
+                subjectBits[bit >>> 6] |= 1L << bit;
+            }
+        }
+
+        boolean mightContainSubject(Node subject) {
+            final var h = hash(subject);
+            final var h1 = (int) h;
+            final var h2 = (int) (h >>> 32) | 1;
+            for (int i = 0; i < HASH_FUNCTIONS; i++) {
+                final var bit = (h1 + i * h2) & mask;
+                if ((subjectBits[bit >>> 6] & (1L << bit)) == 0)
+                    return false;
+            }
+            return true;
+        }
+
+        boolean containsPredicate(Node predicate) {
+            return predicates.contains(predicate);
+        }
+
+        private static long hash(Node node) {
+            // spreads the 32 bit hash code over 64 bits, see the finalizer of MurmurHash3
+            var h = node.hashCode() * 0x9E3779B97F4A7C15L;
+            h ^= h >>> 33;
+            h *= 0xC4CEB9FE1A85EC53L;
+            h ^= h >>> 33;
+            return h;
+        }
+    }
 }
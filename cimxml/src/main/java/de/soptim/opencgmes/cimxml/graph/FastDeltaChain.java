@@ -0,0 +1,231 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.soptim.opencgmes.cimxml.graph;
+
+import de.soptim.opencgmes.cimxml.sparql.core.CimDatasetGraph;
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.mem2.GraphMem2Roaring;
+import org.apache.jena.mem2.IndexingStrategy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Applies an ordered chain of difference models to one base graph.
+ * <p>
+ * Each difference model is stacked as a {@link FastDeltaGraph} on top of the previous result, so applying it
+ * does not copy anything. Since every layer adds a filter to each {@code find}, the layers are compacted into
+ * a single pair of additions and deletions relative to the base, once more than {@code maxDepth} layers are
+ * stacked or the stacked layers hold more than {@code maxPendingTriples} triples. So the query latency of
+ * {@link #getGraph()} stays flat, no matter how long the chain grows.
+ * <pre>{@code
+ * var chain = new FastDeltaChain(baseModel.getBody());
+ * for (CimDatasetGraph differenceModel : sshDifferences) {
+ *     chain.apply(differenceModel);
+ * }
+ * Graph current = chain.getGraph();
+ * }</pre>
+ * The base graph and the graphs of the difference models are never modified. A graph returned by
+ * {@link #getGraph()} keeps its content when more difference models are applied or the chain is compacted.
+ * Instances are not thread-safe.
+ */
+public class FastDeltaChain {
+
+    public static final int DEFAULT_MAX_DEPTH = 8;
+    public static final long DEFAULT_MAX_PENDING_TRIPLES = 1_000_000L;
+
+    private final Graph base;
+    private final int maxDepth;
+    private final long maxPendingTriples;
+    private final List<Difference> pending = new ArrayList<>();
+    private FastDeltaGraph compacted = null;
+    private Graph head;
+    private long pendingTriples = 0;
+    private int appliedCount = 0;
+
+    /**
+     * Creates a chain with the default thresholds.
+     * @param base the graph the difference models are applied to
+     */
+    public FastDeltaChain(Graph base) {
+        this(base, DEFAULT_MAX_DEPTH, DEFAULT_MAX_PENDING_TRIPLES);
+    }
+
+    /**
+     * Creates a chain that is compacted once more than {@code maxDepth} difference models are stacked
+     * or the stacked difference models hold more than {@code maxPendingTriples} triples.
+     * @param base the graph the difference models are applied to
+     * @param maxDepth the maximum number of stacked difference models, at least 1
+     * @param maxPendingTriples the maximum number of triples in the stacked difference models
+     */
+    public FastDeltaChain(Graph base, int maxDepth, long maxPendingTriples) {
+        if (base == null)
+            throw new IllegalArgumentException("base graph must not be null");
+        if (maxDepth < 1)
+            throw new IllegalArgumentException("maxDepth must be at least 1");
+        if (maxPendingTriples < 0)
+            throw new IllegalArgumentException("maxPendingTriples must not be negative");
+        this.base = base;
+        this.maxDepth = maxDepth;
+        this.maxPendingTriples = maxPendingTriples;
+        this.head = base;
+    }
+
+    /**
+     * Applies the next difference model of the chain.
+     * @param differenceModel the difference model
+     * @return the graph with all difference models applied so far
+     * @throws IllegalArgumentException if the dataset is not a DifferenceModel or if the current graph
+     *                                  does not contain all of its preconditions
+     */
+    public Graph apply(CimDatasetGraph differenceModel) {
+        Objects.requireNonNull(differenceModel, "differenceModel");
+        if (!differenceModel.isDifferenceModel())
+            throw new IllegalArgumentException("Only DifferenceModels can be applied. Use isDifferenceModel() to check.");
+
+        final var preconditions = differenceModel.getPreconditions();
+        if (preconditions != null && !preconditions.isEmpty()) {
+            final var missingPreconditions = new ArrayList<Triple>();
+            preconditions.find().forEachRemaining(t -> {
+                if (!head.contains(t))
+                    missingPreconditions.add(t);
+            });
+            if (!missingPreconditions.isEmpty())
+                throw new IllegalArgumentException("The graph does not contain all required preconditions of difference model "
+                        + appliedCount + ". Missing preconditions: " + missingPreconditions);
+        }
+        final var layer = push(differenceModel.getForwardDifferences(), differenceModel.getReverseDifferences());
+        layer.getPrefixMapping().setNsPrefixes(differenceModel.getModelHeader().getPrefixMapping());
+        return compactIfNeeded();
+    }
+
+    /**
+     * Applies the next difference of the chain, given as forward and reverse differences.
+     * @param forwardDifferences the triples to add
+     * @param reverseDifferences the triples to remove
+     * @return the graph with all difference models applied so far
+     */
+    public Graph apply(Graph forwardDifferences, Graph reverseDifferences) {
+        Objects.requireNonNull(forwardDifferences, "forwardDifferences");
+        Objects.requireNonNull(reverseDifferences, "reverseDifferences");
+        push(forwardDifferences, reverseDifferences).getPrefixMapping().setNsPrefixes(head.getPrefixMapping());
+        return compactIfNeeded();
+    }
+
+    private record Difference(Graph forward, Graph reverse) {}
+
+    private FastDeltaGraph push(Graph forwardDifferences, Graph reverseDifferences) {
+        final var layer = new FastDeltaGraph(head, forwardDifferences, reverseDifferences);
+        pending.add(new Difference(forwardDifferences, reverseDifferences));
+        pendingTriples += forwardDifferences.size() + reverseDifferences.size();
+        appliedCount++;
+        head = layer;
+        return layer;
+    }
+
+    private Graph compactIfNeeded() {
+        if (pending.size() > maxDepth || pendingTriples > maxPendingTriples)
+            compact();
+        return head;
+    }
+
+    /**
+     * Merges all stacked difference models into a single pair of additions and deletions relative to the base.
+     * <p>
+     * The additions and deletions are copied into new graphs, so graphs returned before stay unchanged.
+     */
+    public void compact() {
+        if (pending.isEmpty())
+            return;
+        final var additions = new GraphMem2Roaring(IndexingStrategy.LAZY_PARALLEL);
+        final var deletions = new GraphMem2Roaring(IndexingStrategy.LAZY_PARALLEL);
+        if (compacted != null) {
+            compacted.getAdditions().forEachRemaining(additions::add);
+            compacted.getDeletions().forEachRemaining(deletions::add);
+        }
+        final var merged = new FastDeltaGraph(base, additions, deletions);
+        final var toAdd = new ArrayList<Triple>();
+        final var toRemove = new ArrayList<Triple>();
+        for (var difference : pending) {
+            // like FastDeltaGraph.find, each difference removes its reverse differences from the view
+            // before it and then adds its forward differences, so a triple in both of them is kept
+            difference.forward().find().forEachRemaining(t -> {
+                if (!merged.contains(t))
+                    toAdd.add(t);
+            });
+            difference.reverse().find().forEachRemaining(t -> {
+                if (merged.contains(t) && !difference.forward().contains(t))
+                    toRemove.add(t);
+            });
+            for (var t : toRemove) {
+                if (additions.contains(t))
+                    additions.delete(t);
+                else
+                    deletions.add(t);
+            }
+            for (var t : toAdd) {
+                if (deletions.contains(t))
+                    deletions.delete(t);
+                else
+                    additions.add(t);
+            }
+            toAdd.clear();
+            toRemove.clear();
+        }
+        merged.getPrefixMapping().setNsPrefixes(head.getPrefixMapping());
+        compacted = merged;
+        head = merged;
+        pending.clear();
+        pendingTriples = 0;
+    }
+
+    /**
+     * Gets the graph with all difference models applied so far.
+     * @return the base graph if no difference model has been applied yet
+     */
+    public Graph getGraph() {
+        return head;
+    }
+
+    /**
+     * Gets the graph the difference models are applied to.
+     * @return the base graph
+     */
+    public Graph getBase() {
+        return base;
+    }
+
+    /**
+     * Gets the number of {@link FastDeltaGraph} layers above the base, including the compacted one.
+     * @return the number of layers a {@code find} on {@link #getGraph()} passes through
+     */
+    public int getDepth() {
+        return pending.size() + (compacted == null ? 0 : 1);
+    }
+
+    /**
+     * Gets the number of difference models applied to the base.
+     * @return the number of applied difference models
+     */
+    public int getAppliedCount() {
+        return appliedCount;
+    }
+}
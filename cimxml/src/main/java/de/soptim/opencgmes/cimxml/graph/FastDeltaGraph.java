@@ -19,15 +19,20 @@
 package de.soptim.opencgmes.cimxml.graph;
 
 import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.GraphUtil;
 import org.apache.jena.graph.Node;
 import org.apache.jena.graph.Triple;
 import org.apache.jena.graph.compose.Delta;
+import org.apache.jena.graph.compose.Polyadic;
 import org.apache.jena.graph.impl.GraphBase;
 import org.apache.jena.mem2.GraphMem2Roaring;
 import org.apache.jena.mem2.IndexingStrategy;
 import org.apache.jena.util.iterator.ExtendedIterator;
 
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.Objects;
+import java.util.function.Supplier;
 import java.util.stream.Stream;
 
 /**
@@ -90,6 +95,82 @@ public class FastDeltaGraph extends GraphBase {
         return base;
     }
 
+    /**
+     * Copies the current content of this delta graph into a new {@link GraphMem2Roaring}, which can
+     * become the base of the next delta. See {@link #materialize(Supplier)}.
+     * @return the new graph with its indexes initialized
+     */
+    public Graph materialize() {
+        return materialize(() -> new GraphMem2Roaring(IndexingStrategy.LAZY_PARALLEL));
+    }
+
+    /**
+     * Copies the current content of this delta graph into a new graph, which can become the base of the
+     * next delta.
+     * <p>
+     * The triples of the base are filtered against the deletions in parallel and then added to the new graph
+     * in bulk, followed by the additions. If the new graph is a {@link GraphMem2Roaring} or a
+     * {@link DictionaryGraph} with a lazy index, the index is built in parallel afterward, as after parsing.
+     * Neither the base nor the additions or deletions may be changed while this method runs.
+     * @param graphFactory creates the empty graph to fill
+     * @return the new graph
+     */
+    public Graph materialize(Supplier<Graph> graphFactory) {
+        final var result = Objects.requireNonNull(graphFactory, "graphFactory").get();
+        // a plain hash set can safely be read by many threads, a lazily indexed graph not necessarily
+        final var deleted = new HashSet<Triple>();
+        deletions.find().forEachRemaining(deleted::add);
+        final Stream<Triple> survivors = deleted.isEmpty()
+                ? base.stream().parallel()
+                : base.stream().parallel().filter(t -> !deleted.contains(t));
+        final var remaining = survivors.unordered().toList();
+        GraphUtil.add(result, remaining);
+        additions.find().forEachRemaining(result::add);
+        result.getPrefixMapping().setNsPrefixes(getPrefixMapping());
+
+        if (result instanceof GraphMem2Roaring roaring && !roaring.isIndexInitialized()) {
+            roaring.initializeIndexParallel();
+        } else if (result instanceof DictionaryGraph dictionaryGraph && !dictionaryGraph.isIndexInitialized()) {
+            dictionaryGraph.initializeIndexParallel();
+        }
+        return result;
+    }
+
+    /**
+     * Builds the lazy indexes of the base, the additions and the deletions, down through stacked delta graphs.
+     * A lazy index is built by the first {@code find}, which must not happen on several threads at once. So this
+     * is called before a graph is handed to concurrent readers.
+     */
+    void initializeIndexes() {
+        initializeIndex(base);
+        initializeIndex(additions);
+        initializeIndex(deletions);
+    }
+
+    /**
+     * Builds the lazy index of a graph, so that it can be read by several threads at once.
+     * <p>
+     * A {@link GraphMem2Roaring} with a lazy indexing strategy and a {@link DictionaryGraph} build their index on
+     * the first {@code find} with a pattern, without synchronization. Delta graphs and unions are initialized
+     * down through their parts. Other graphs are left as they are.
+     * @param graph the graph to prepare for concurrent readers
+     */
+    public static void initializeIndex(Graph graph) {
+        if (graph instanceof FastDeltaGraph deltaGraph) {
+            deltaGraph.initializeIndexes();
+        } else if (graph instanceof Polyadic union) {
+            union.getSubGraphs().forEach(FastDeltaGraph::initializeIndex);
+        } else if (graph instanceof GraphMem2Roaring roaring && !roaring.isIndexInitialized()) {
+            switch (roaring.getIndexingStrategy()) {
+                case LAZY -> roaring.initializeIndex();
+                case LAZY_PARALLEL -> roaring.initializeIndexParallel();
+                default -> { } // minimal and manual graphs do not build an index on their own
+            }
+        } else if (graph instanceof DictionaryGraph dictionaryGraph && !dictionaryGraph.isIndexInitialized()) {
+            dictionaryGraph.initializeIndexParallel();
+        }
+    }
+
     @Override
     public void performAdd(Triple t) {
         if (!base.contains(t))
@@ -116,31 +197,43 @@ public class FastDeltaGraph extends GraphBase {
         }
     }
 
+    /**
+     * Checks if any deletion matches the given pattern. If none does, the base triples matching the pattern
+     * do not need to be filtered, which saves one hash lookup per triple in wide scans over predicates or
+     * subjects that the delta does not touch. The check itself is a single lookup in the deletions index.
+     */
+    private boolean hasDeletionsMatching(Node s, Node p, Node o) {
+        return !deletions.isEmpty() && deletions.contains(s, p, o);
+    }
+
     @Override
     protected ExtendedIterator<Triple> graphBaseFind(Triple triplePattern) {
-        return base.find(triplePattern)
-                .filterDrop(deletions::contains)
+        final var baseMatches = base.find(triplePattern);
+        return (hasDeletionsMatching(triplePattern.getSubject(), triplePattern.getPredicate(), triplePattern.getObject())
+                ? baseMatches.filterDrop(deletions::contains)
+                : baseMatches)
                 .andThen(additions.find(triplePattern));
     }
 
     @Override
     public ExtendedIterator<Triple> find() {
-        return base.find()
-                .filterDrop(deletions::contains)
+        return (deletions.isEmpty() ? base.find() : base.find().filterDrop(deletions::contains))
                 .andThen(additions.find());
     }
 
     @Override
     public Stream<Triple> stream() {
         return Stream.concat(
-                base.stream().filter(t -> !deletions.contains(t)),
+                deletions.isEmpty() ? base.stream() : base.stream().filter(t -> !deletions.contains(t)),
                 additions.stream());
     }
 
     @Override
     public Stream<Triple> stream(Node s, Node p, Node o) {
         return Stream.concat(
-                base.stream(s, p, o).filter(t -> !deletions.contains(t)),
+                hasDeletionsMatching(s, p, o)
+                        ? base.stream(s, p, o).filter(t -> !deletions.contains(t))
+                        : base.stream(s, p, o),
                 additions.stream(s, p, o));
     }
 
@@ -0,0 +1,282 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.soptim.opencgmes.cimxml.graph;
+
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Maps the nodes of a {@link DictionaryGraph} to int ids and back.
+ * <p>
+ * URIs of the form {@code urn:uuid:xxxxxxxx-xxxx-xxxx-xxxx-xxxxxxxxxxxx} with lowercase hex digits, which is
+ * how the CIMXML parser normalizes the rdf:ID and rdf:about of CIM objects, are stored as two longs and get odd
+ * ids. Their {@link Node} is only created again when it is read. All other nodes are stored as they are and
+ * get even ids. Ids are dense per kind and tagged by the lowest bit, so {@code id >>> 1} can be used as an
+ * index into an array per kind, while the ids themselves have gaps wherever one kind outnumbers the other.
+ * <p>
+ * This class is not thread-safe for writes. Concurrent reads are safe while there are no writes.
+ */
+public final class NodeDictionary {
+
+    /** The id returned by {@link #getId(Node)} for unknown nodes. */
+    public static final int NO_ID = -1;
+
+    private static final String UUID_URI_PREFIX = "urn:uuid:";
+    private static final int UUID_URI_LENGTH = UUID_URI_PREFIX.length() + 36;
+    private static final int DECODE_CACHE_SIZE = 4096;
+
+    private final Map<Node, Integer> otherNodeIds = new HashMap<>();
+    private Node[] otherNodes = new Node[256];
+    private int otherNodeCount = 0;
+
+    private long[] uuidMostSignificantBits = new long[256];
+    private long[] uuidLeastSignificantBits = new long[256];
+    private int uuidCount = 0;
+    // open addressing hash table with uuid index + 1, 0 marks an empty slot
+    private int[] uuidTable = new int[512];
+
+    private record DecodedUuid(int id, Node node) {}
+
+    // Recently decoded uuid nodes; the entries are immutable, so concurrent readers see complete entries.
+    private final DecodedUuid[] decodeCache = new DecodedUuid[DECODE_CACHE_SIZE];
+
+    /**
+     * Checks if the given id belongs to a node stored as uuid.
+     */
+    public static boolean isUuidId(int id) {
+        return (id & 1) != 0;
+    }
+
+    /**
+     * Gets the number of nodes in this dictionary.
+     */
+    public int size() {
+        return otherNodeCount + uuidCount;
+    }
+
+    /**
+     * Gets an exclusive upper bound of all ids in this dictionary.
+     */
+    public int idLimit() {
+        return Math.max(2 * otherNodeCount, 2 * uuidCount + 1);
+    }
+
+    /**
+     * Estimates the heap bytes of the stored nodes, see {@link CimMemoryReport}.
+     */
+    long estimateBytes() {
+        var bytes = (long) Long.BYTES * (uuidMostSignificantBits.length + uuidLeastSignificantBits.length)
+                + (long) Integer.BYTES * (uuidTable.length + otherNodes.length);
+        for (int i = 0; i < otherNodeCount; i++)
+            bytes += CimMemoryReport.estimateDictionaryNodeBytes(otherNodes[i]);
+        return bytes;
+    }
+
+    /**
+     * Gets the id of the given node, adding the node if it is not in the dictionary yet.
+     * @param node a concrete node
+     * @return the id of the node
+     */
+    public int getOrCreateId(Node node) {
+        if (isUuidUri(node)) {
+            final var uri = node.getURI();
+            final var msb = parseHex(uri, 9, 17) << 32 | parseHex(uri, 18, 22) << 16 | parseHex(uri, 23, 27);
+            final var lsb = parseHex(uri, 28, 32) << 48 | parseHex(uri, 33, 45);
+            return getOrCreateUuidId(msb, lsb);
+        }
+        final var id = otherNodeIds.get(node);
+        if (id != null)
+            return id;
+        if (otherNodeCount == otherNodes.length)
+            otherNodes = Arrays.copyOf(otherNodes, otherNodes.length * 2);
+        final var newId = 2 * otherNodeCount;
+        otherNodes[otherNodeCount++] = node;
+        otherNodeIds.put(node, newId);
+        return newId;
+    }
+
+    /**
+     * Gets the id of the given node.
+     * @param node a concrete node
+     * @return the id of the node or {@link #NO_ID} if the node is not in the dictionary
+     */
+    public int getId(Node node) {
+        if (isUuidUri(node)) {
+            final var uri = node.getURI();
+            final var msb = parseHex(uri, 9, 17) << 32 | parseHex(uri, 18, 22) << 16 | parseHex(uri, 23, 27);
+            final var lsb = parseHex(uri, 28, 32) << 48 | parseHex(uri, 33, 45);
+            final var index = findUuidIndex(msb, lsb);
+            return index < 0 ? NO_ID : 2 * index + 1;
+        }
+        final var id = otherNodeIds.get(node);
+        return id == null ? NO_ID : id;
+    }
+
+    /**
+     * Gets the node with the given id.
+     * @param id an id returned by this dictionary
+     * @return the node
+     */
+    public Node getNode(int id) {
+        if (!isUuidId(id))
+            return otherNodes[id >>> 1];
+        final var slot = (id >>> 1) & (DECODE_CACHE_SIZE - 1);
+        final var cached = decodeCache[slot];
+        if (cached != null && cached.id == id)
+            return cached.node;
+        final var index = id >>> 1;
+        final var node = NodeFactory.createURI(UUID_URI_PREFIX
+                + new UUID(uuidMostSignificantBits[index], uuidLeastSignificantBits[index]));
+        decodeCache[slot] = new DecodedUuid(id, node);
+        return node;
+    }
+
+    /**
+     * Writes this dictionary to a snapshot, including the hash table of the uuids, so that
+     * {@link #read} only has to copy arrays for them.
+     */
+    void write(CimDatasetSnapshot.Output out) throws IOException {
+        out.writeInt(uuidCount);
+        out.writeLongs(uuidMostSignificantBits, uuidCount);
+        out.writeLongs(uuidLeastSignificantBits, uuidCount);
+        out.writeInt(uuidTable.length);
+        out.writeInts(uuidTable, uuidTable.length);
+        out.writeInt(otherNodeCount);
+        for (int i = 0; i < otherNodeCount; i++)
+            out.writeNode(otherNodes[i]);
+    }
+
+    /**
+     * Reads a dictionary written by {@link #write}.
+     */
+    static NodeDictionary read(CimDatasetSnapshot.Input in) throws IOException {
+        final var dictionary = new NodeDictionary();
+        final var uuidCount = in.readInt();
+        dictionary.uuidMostSignificantBits = new long[Math.max(uuidCount, 256)];
+        dictionary.uuidLeastSignificantBits = new long[Math.max(uuidCount, 256)];
+        in.readLongs(dictionary.uuidMostSignificantBits, uuidCount);
+        in.readLongs(dictionary.uuidLeastSignificantBits, uuidCount);
+        dictionary.uuidCount = uuidCount;
+        final var uuidTableLength = in.readInt();
+        if (Integer.bitCount(uuidTableLength) != 1 || uuidTableLength < 2 * uuidCount)
+            throw new IOException("Invalid uuid table length in snapshot: " + uuidTableLength);
+        dictionary.uuidTable = new int[uuidTableLength];
+        in.readInts(dictionary.uuidTable, uuidTableLength);
+        final var otherNodeCount = in.readInt();
+        dictionary.otherNodes = new Node[Math.max(otherNodeCount, 256)];
+        for (int i = 0; i < otherNodeCount; i++) {
+            final var node = in.readNode();
+            dictionary.otherNodes[i] = node;
+            dictionary.otherNodeIds.put(node, 2 * i);
+        }
+        dictionary.otherNodeCount = otherNodeCount;
+        return dictionary;
+    }
+
+    private int getOrCreateUuidId(long msb, long lsb) {
+        final var existing = findUuidIndex(msb, lsb);
+        if (existing >= 0)
+            return 2 * existing + 1;
+        if (uuidCount == uuidMostSignificantBits.length) {
+            uuidMostSignificantBits = Arrays.copyOf(uuidMostSignificantBits, uuidCount * 2);
+            uuidLeastSignificantBits = Arrays.copyOf(uuidLeastSignificantBits, uuidCount * 2);
+        }
+        final var index = uuidCount++;
+        uuidMostSignificantBits[index] = msb;
+        uuidLeastSignificantBits[index] = lsb;
+        if (2 * uuidCount > uuidTable.length)
+            rehashUuidTable(uuidTable.length * 2);
+        else
+            insertIntoUuidTable(index);
+        return 2 * index + 1;
+    }
+
+    private int findUuidIndex(long msb, long lsb) {
+        final var mask = uuidTable.length - 1;
+        var slot = hash(msb, lsb) & mask;
+        int entry;
+        while ((entry = uuidTable[slot]) != 0) {
+            final var index = entry - 1;
+            if (uuidMostSignificantBits[index] == msb && uuidLeastSignificantBits[index] == lsb)
+                return index;
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void insertIntoUuidTable(int index) {
+        final var mask = uuidTable.length - 1;
+        var slot = hash(uuidMostSignificantBits[index], uuidLeastSignificantBits[index]) & mask;
+        while (uuidTable[slot] != 0)
+            slot = (slot + 1) & mask;
+        uuidTable[slot] = index + 1;
+    }
+
+    private void rehashUuidTable(int newSize) {
+        uuidTable = new int[newSize];
+        for (int i = 0; i < uuidCount; i++)
+            insertIntoUuidTable(i);
+    }
+
+    private static int hash(long msb, long lsb) {
+        final var h = (msb ^ Long.rotateLeft(lsb, 32)) * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * Checks for a URI in the canonical lowercase form of "urn:uuid:" followed by a UUID, so that
+     * decoding the two longs gives back exactly the same URI.
+     */
+    private static boolean isUuidUri(Node node) {
+        if (!node.isURI())
+            return false;
+        final var uri = node.getURI();
+        if (uri.length() != UUID_URI_LENGTH || !uri.startsWith(UUID_URI_PREFIX))
+            return false;
+        for (int i = UUID_URI_PREFIX.length(); i < UUID_URI_LENGTH; i++) {
+            final var c = uri.charAt(i);
+            switch (i - UUID_URI_PREFIX.length()) {
+                case 8, 13, 18, 23 -> {
+                    if (c != '-')
+                        return false;
+                }
+                default -> {
+                    if (!((c >= '0' && c <= '9') || (c >= 'a' && c <= 'f')))
+                        return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static long parseHex(String s, int from, int to) {
+        var value = 0L;
+        for (int i = from; i < to; i++) {
+            final var c = s.charAt(i);
+            value = (value << 4) | (c <= '9' ? c - '0' : c - 'a' + 10);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.soptim.opencgmes.cimxml.graph;
+
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+
+import java.util.*;
+
+/**
+ * A {@link DisjointMultiUnion} that sends each pattern with a concrete predicate only to the members
+ * declared to hold that predicate.
+ * <p>
+ * Members are added with the set of predicates they may contain, typically the properties of their profiles.
+ * A pattern with such a predicate is answered by the members that declare it and by the members added
+ * without a declaration. Patterns with any other predicate, like {@code rdf:type}, or without a concrete
+ * predicate are answered by all members. In both cases, the {@linkplain #enableMemberFilters() member filters}
+ * narrow the members further if they are enabled.
+ * <p>
+ * The declarations are trusted: a triple whose predicate is declared by other members only is not found.
+ */
+public class PredicateRoutedUnion extends DisjointMultiUnion {
+
+    private final Map<Graph, Set<Node>> predicatesByMember = new IdentityHashMap<>();
+    private volatile Map<Node, List<Graph>> routes = null;
+
+    public PredicateRoutedUnion() {
+        super();
+    }
+
+    /**
+     * Adds a member that only holds triples with the given predicates.
+     * @param graph the member graph
+     * @param predicates the predicates of all triples in the graph, except for predicates not declared by any member
+     */
+    public void addGraph(Graph graph, Set<Node> predicates) {
+        Objects.requireNonNull(predicates, "predicates");
+        super.addGraph(graph);
+        predicatesByMember.put(graph, Set.copyOf(predicates));
+        routes = null;
+    }
+
+    /**
+     * Adds a member without declared predicates, which is asked for every pattern.
+     * @param graph the member graph
+     */
+    @Override
+    public void addGraph(Graph graph) {
+        super.addGraph(graph);
+        predicatesByMember.remove(graph);
+        routes = null;
+    }
+
+    @Override
+    public void removeGraph(Graph graph) {
+        super.removeGraph(graph);
+        predicatesByMember.remove(graph);
+        routes = null;
+    }
+
+    @Override
+    protected List<Graph> candidates(Node s, Node p) {
+        if (p == null || !p.isConcrete())
+            return super.candidates(s, p);
+        final var route = getRoutes().get(p);
+        if (route == null)
+            return super.candidates(s, p);
+        if (s == null || !s.isConcrete())
+            return route;
+        // a property like IdentifiedObject.name is declared by most profiles, so narrow by the subject filters
+        final var filtered = super.candidates(s, p);
+        final var candidates = new ArrayList<Graph>(Math.min(route.size(), filtered.size()));
+        for (var member : route) {
+            if (filtered.contains(member))
+                candidates.add(member);
+        }
+        return candidates;
+    }
+
+    private Map<Node, List<Graph>> getRoutes() {
+        var current = routes;
+        if (current == null) {
+            synchronized (this) {
+                current = routes;
+                if (current == null) {
+                    current = buildRoutes();
+                    routes = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    private Map<Node, List<Graph>> buildRoutes() {
+        final var declared = new HashSet<Node>();
+        predicatesByMember.values().forEach(declared::addAll);
+        final var result = new HashMap<Node, List<Graph>>(declared.size() * 2);
+        for (var predicate : declared) {
+            final var route = new ArrayList<Graph>(2);
+            for (var member : m_subGraphs) {
+                final var predicates = predicatesByMember.get(member);
+                if (predicates == null || predicates.contains(predicate))
+                    route.add(member);
+            }
+            result.put(predicate, List.copyOf(route));
+        }
+        return result;
+    }
+}
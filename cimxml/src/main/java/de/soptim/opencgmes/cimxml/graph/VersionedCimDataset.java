@@ -0,0 +1,321 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.soptim.opencgmes.cimxml.graph;
+
+import de.soptim.opencgmes.cimxml.sparql.core.CimDatasetGraph;
+import de.soptim.opencgmes.cimxml.sparql.core.LinkedCimDatasetGraph;
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.mem2.GraphMem2Roaring;
+import org.apache.jena.mem2.IndexingStrategy;
+import org.apache.jena.query.ReadWrite;
+import org.apache.jena.query.TxnType;
+import org.apache.jena.riot.system.PrefixMap;
+import org.apache.jena.sparql.JenaTransactionException;
+import org.apache.jena.sparql.core.Quad;
+import org.apache.jena.sparql.core.Transactional;
+import org.apache.jena.sparql.core.TransactionalNull;
+import org.apache.jena.sparql.graph.GraphReadOnly;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * A {@link CimDatasetGraph} under live updates, which readers see as a sequence of immutable versions.
+ * <p>
+ * Readers call {@link #current()} and work on the returned {@link Version} for as long as they like, without
+ * taking any lock, and see neither partial nor later updates. A writer changes the graphs in an
+ * {@link Update}, and all its changes are published at once as the next version:
+ * <pre>{@code
+ * var versioned = new VersionedCimDataset(igm);
+ * // reader threads
+ * var version = versioned.current();
+ * var voltages = QueryExecutionDatasetBuilder.create().query(query).dataset(version).select();
+ * // writer thread
+ * versioned.update(update -> update.apply(sshGraphName, sshDifferenceModel));
+ * }</pre>
+ * The changed graphs of a version are {@link FastDeltaGraph}s on top of the graphs of the version before,
+ * stacked and compacted by a {@link FastDeltaChain} per graph, so publishing a version copies only the changes
+ * and read latency stays flat over many updates. The lazy indexes of each version are built before it is
+ * published, since they must not be built by concurrent readers.
+ * <p>
+ * Updates are serialized; a second writer waits until the first one has published. The graphs of the dataset
+ * passed to the constructor must not be changed directly afterward.
+ */
+public class VersionedCimDataset {
+
+    private final ReentrantLock writeLock = new ReentrantLock();
+    /** The chains of the graphs changed since they were added, only used under the write lock. */
+    private final Map<Node, FastDeltaChain> chains = new HashMap<>();
+    private volatile Version current;
+
+    /**
+     * Creates the versions of the given dataset, starting with version 0 holding its graphs.
+     * @param dataset the dataset, whose graphs become the graphs of version 0
+     */
+    public VersionedCimDataset(CimDatasetGraph dataset) {
+        Objects.requireNonNull(dataset, "dataset");
+        final var graphs = new LinkedHashMap<Node, Graph>();
+        graphs.put(Quad.defaultGraphIRI, dataset.getDefaultGraph());
+        dataset.listGraphNodes().forEachRemaining(graphName -> {
+            if (!Quad.isDefaultGraph(graphName))
+                graphs.put(graphName, dataset.getGraph(graphName));
+        });
+        graphs.values().forEach(FastDeltaGraph::initializeIndex);
+        this.current = new Version(0, graphs, dataset.prefixes());
+    }
+
+    /**
+     * Gets the latest published version. This never blocks.
+     * @return the current version
+     */
+    public Version current() {
+        return current;
+    }
+
+    /**
+     * Runs the given changes as one update and publishes the result as the next version. If the changes
+     * throw an exception, nothing is published.
+     * @param changes the changes, made through the given {@link Update}
+     * @return the published version, or the current version if nothing was changed
+     */
+    public Version update(Consumer<Update> changes) {
+        Objects.requireNonNull(changes, "changes");
+        writeLock.lock();
+        try {
+            final var update = new Update(current);
+            changes.accept(update);
+            if (update.isEmpty())
+                return current;
+            final var published = update.publish();
+            current = published;
+            return published;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Applies a difference model to one graph and publishes the result as the next version.
+     * @param graphName the name of the graph to apply the difference model to
+     * @param differenceModel the difference model
+     * @return the published version
+     * @see Update#apply(Node, CimDatasetGraph)
+     */
+    public Version apply(Node graphName, CimDatasetGraph differenceModel) {
+        return update(update -> update.apply(graphName, differenceModel));
+    }
+
+    /**
+     * The changes of one update, collected in a {@link FastDeltaGraph} per changed graph on top of the current
+     * version. Instances are only valid within {@link #update(Consumer)}.
+     */
+    public final class Update {
+
+        private record Changes(FastDeltaGraph graph, Graph additions, Graph deletions) {}
+
+        private final Version base;
+        private final Map<Node, Graph> graphs;
+        private final Map<Node, Changes> changes = new HashMap<>();
+        private boolean graphsReplaced = false;
+
+        private Update(Version base) {
+            this.base = base;
+            this.graphs = new LinkedHashMap<>(base.graphs);
+        }
+
+        /**
+         * Gets a graph of the next version for changing it.
+         * @param graphName the name of the graph, {@link Quad#defaultGraphIRI} for the default graph
+         * @return the graph to change
+         * @throws IllegalArgumentException if there is no graph with the given name
+         */
+        public Graph getGraph(Node graphName) {
+            Objects.requireNonNull(graphName, "graphName");
+            return changes.computeIfAbsent(graphName, name -> {
+                final var graph = graphs.get(name);
+                if (graph == null)
+                    throw new IllegalArgumentException("There is no graph named " + name);
+                final var additions = new GraphMem2Roaring(IndexingStrategy.LAZY);
+                final var deletions = new GraphMem2Roaring(IndexingStrategy.LAZY);
+                final var changed = new FastDeltaGraph(graph, additions, deletions);
+                changed.getPrefixMapping().setNsPrefixes(graph.getPrefixMapping());
+                return new Changes(changed, additions, deletions);
+            }).graph();
+        }
+
+        /**
+         * Applies a difference model to a graph of the next version.
+         * @param graphName the name of the graph to apply the difference model to
+         * @param differenceModel the difference model
+         * @throws IllegalArgumentException if there is no graph with the given name, if the dataset is not a
+         *                                  DifferenceModel or if the graph does not contain all of its preconditions
+         */
+        public void apply(Node graphName, CimDatasetGraph differenceModel) {
+            Objects.requireNonNull(differenceModel, "differenceModel");
+            if (!differenceModel.isDifferenceModel())
+                throw new IllegalArgumentException("Only DifferenceModels can be applied. Use isDifferenceModel() to check.");
+            final var graph = getGraph(graphName);
+            final var preconditions = differenceModel.getPreconditions();
+            if (preconditions != null && !preconditions.isEmpty()) {
+                final var missingPreconditions = new ArrayList<Triple>();
+                preconditions.find().forEachRemaining(t -> {
+                    if (!graph.contains(t))
+                        missingPreconditions.add(t);
+                });
+                if (!missingPreconditions.isEmpty())
+                    throw new IllegalArgumentException("The graph " + graphName
+                            + " does not contain all required preconditions. Missing preconditions: " + missingPreconditions);
+            }
+            // like FastDeltaGraph, the reverse differences are removed first, so a triple in both is kept
+            differenceModel.getReverseDifferences().find().forEachRemaining(graph::delete);
+            differenceModel.getForwardDifferences().find().forEachRemaining(graph::add);
+        }
+
+        /**
+         * Adds a graph to the next version or replaces a graph with the same name.
+         * @param graphName the name of the graph
+         * @param graph the graph, which must not be changed directly afterward
+         */
+        public void addGraph(Node graphName, Graph graph) {
+            Objects.requireNonNull(graphName, "graphName");
+            Objects.requireNonNull(graph, "graph");
+            changes.remove(graphName);
+            graphs.put(graphName, graph);
+            graphsReplaced = true;
+        }
+
+        /**
+         * Removes a graph from the next version.
+         * @param graphName the name of the graph
+         */
+        public void removeGraph(Node graphName) {
+            Objects.requireNonNull(graphName, "graphName");
+            changes.remove(graphName);
+            graphsReplaced |= graphs.remove(graphName) != null;
+        }
+
+        /**
+         * Gets the version this update is based on.
+         * @return the current version when the update started
+         */
+        public Version getBase() {
+            return base;
+        }
+
+        private boolean isEmpty() {
+            return !graphsReplaced && changes.values().stream().noneMatch(c -> c.graph().hasChanges());
+        }
+
+        private Version publish() {
+            chains.keySet().removeIf(graphName -> graphs.get(graphName) != base.graphs.get(graphName));
+            for (var entry : changes.entrySet()) {
+                final var changed = entry.getValue();
+                if (!changed.graph().hasChanges())
+                    continue;
+                final var graphName = entry.getKey();
+                final var chain = chains.computeIfAbsent(graphName, name -> new FastDeltaChain(graphs.get(name)));
+                graphs.put(graphName, chain.apply(changed.additions(), changed.deletions()));
+            }
+            graphs.values().forEach(FastDeltaGraph::initializeIndex);
+            return new Version(base.getVersion() + 1, graphs, base.prefixes());
+        }
+    }
+
+    /**
+     * An immutable version of the dataset. Its graphs cannot be changed, and transactions are only tracked,
+     * since there is nothing to isolate.
+     */
+    public static final class Version extends LinkedCimDatasetGraph {
+
+        private final long version;
+        private final Map<Node, Graph> graphs;
+        private final Transactional txn = TransactionalNull.create();
+
+        private Version(long version, Map<Node, Graph> graphs, PrefixMap prefixes) {
+            super();
+            this.version = version;
+            this.graphs = Collections.unmodifiableMap(new LinkedHashMap<>(graphs));
+            this.graphs.forEach((graphName, graph) -> super.addGraph(graphName, new GraphReadOnly(graph)));
+            this.prefixes.putAll(prefixes);
+        }
+
+        /**
+         * Gets the number of this version, which is incremented with every published update.
+         * @return the version number, 0 for the dataset the versions started with
+         */
+        public long getVersion() {
+            return version;
+        }
+
+        @Override
+        public void addGraph(Node graphName, Graph graph) {
+            throw new UnsupportedOperationException("A version of a VersionedCimDataset cannot be changed");
+        }
+
+        @Override
+        public void removeGraph(Node graphName) {
+            throw new UnsupportedOperationException("A version of a VersionedCimDataset cannot be changed");
+        }
+
+        @Override
+        public void begin(TxnType type) {
+            if (type == TxnType.WRITE)
+                throw new JenaTransactionException("A version of a VersionedCimDataset is read-only");
+            txn.begin(type);
+        }
+
+        @Override
+        public void commit() {
+            txn.commit();
+        }
+
+        @Override
+        public void abort() {
+            txn.abort();
+        }
+
+        @Override
+        public void end() {
+            txn.end();
+        }
+
+        @Override
+        public ReadWrite transactionMode() {
+            return txn.transactionMode();
+        }
+
+        @Override
+        public TxnType transactionType() {
+            return txn.transactionType();
+        }
+
+        @Override
+        public boolean isInTransaction() {
+            return txn.isInTransaction();
+        }
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.soptim.opencgmes.cimxml.parser;
+
+import org.apache.jena.atlas.lib.cache.CacheInfo;
+import org.apache.jena.datatypes.RDFDatatype;
+import org.apache.jena.datatypes.xsd.XSDDatatype;
+import org.apache.jena.graph.Node;
+import org.apache.jena.riot.system.FactoryRDF;
+
+/**
+ * Creates the literals of CIM properties typed as {@code Float}, {@code Double}, {@code Decimal},
+ * {@code Integer}, {@code Int}, {@code Long} or {@code Boolean} by their profiles.
+ * <p>
+ * Values like "0", "1.0" or "true" repeat many times in SV and SSH files. The literals are cached by datatype
+ * and lexical form, and a lookup compares the characters collected by the parser with the cached lexical form.
+ * So a repeated value needs neither a string nor a node. Long lexical forms, which rarely repeat, are not cached.
+ * <p>
+ * When validating, the lexical form of each literal is checked against its datatype, see
+ * {@link #isLastLexicalFormValid()}. Invalid literals are not cached, so a repeated valid value is only
+ * checked once.
+ * <p>
+ * Instances are not thread-safe; each parser has its own.
+ */
+final class CimLiteralNodeFactory {
+
+    private static final int CACHE_SIZE = 4096;
+    private static final int MAX_CACHED_LENGTH = 24;
+
+    private final FactoryRDF factoryRDF;
+    // direct mapped cache of literals by datatype and lexical form
+    private final Node[] cachedNodes = new Node[CACHE_SIZE];
+    private long requests = 0;
+    private long misses = 0;
+    private boolean validating = false;
+    private boolean lastLexicalFormValid = true;
+
+    CimLiteralNodeFactory(FactoryRDF factoryRDF) {
+        this.factoryRDF = factoryRDF;
+    }
+
+    /**
+     * Enables the validation of the lexical forms. This must be set before the first literal is created.
+     */
+    void setValidating(boolean validating) {
+        this.validating = validating;
+    }
+
+    /**
+     * Checks if the lexical form of the last created literal is valid for its datatype.
+     * @return the result of the validation, or true if not validating
+     */
+    boolean isLastLexicalFormValid() {
+        return lastLexicalFormValid;
+    }
+
+    /**
+     * Checks if literals of the given datatype are cached.
+     */
+    static boolean isCached(RDFDatatype datatype) {
+        return datatype == XSDDatatype.XSDfloat
+                || datatype == XSDDatatype.XSDdouble
+                || datatype == XSDDatatype.XSDdecimal
+                || datatype == XSDDatatype.XSDinteger
+                || datatype == XSDDatatype.XSDint
+                || datatype == XSDDatatype.XSDlong
+                || datatype == XSDDatatype.XSDboolean;
+    }
+
+    /**
+     * Creates a typed literal, or returns the cached one with the same datatype and lexical form.
+     * @param lexicalForm the characters of the lexical form, which are only turned into a string on a miss
+     * @param datatype the datatype
+     * @return the literal
+     */
+    Node createTypedLiteral(CharSequence lexicalForm, RDFDatatype datatype) {
+        final var length = lexicalForm.length();
+        if (length > MAX_CACHED_LENGTH || !isCached(datatype))
+            return create(lexicalForm.toString(), datatype);
+        var h = System.identityHashCode(datatype);
+        for (int i = 0; i < length; i++)
+            h = 31 * h + lexicalForm.charAt(i);
+        final var slot = (h ^ (h >>> 16)) & (CACHE_SIZE - 1);
+        final var cached = cachedNodes[slot];
+        requests++;
+        if (cached != null && cached.getLiteralDatatype() == datatype
+                && cached.getLiteralLexicalForm().contentEquals(lexicalForm)) {
+            lastLexicalFormValid = true;
+            return cached;
+        }
+        misses++;
+        final var node = create(lexicalForm.toString(), datatype);
+        if (lastLexicalFormValid)
+            cachedNodes[slot] = node;
+        return node;
+    }
+
+    private Node create(String lexicalForm, RDFDatatype datatype) {
+        lastLexicalFormValid = !validating || datatype.isValid(lexicalForm);
+        return factoryRDF.createTypedLiteral(lexicalForm, datatype);
+    }
+
+    /**
+     * Gets the hit statistics of the literal cache.
+     */
+    CacheInfo stats() {
+        return FactoryRDFCachingWithStats.cacheInfo(requests, misses);
+    }
+}
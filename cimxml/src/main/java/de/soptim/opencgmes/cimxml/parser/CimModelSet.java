@@ -0,0 +1,146 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.soptim.opencgmes.cimxml.parser;
+
+import de.soptim.opencgmes.cimxml.graph.DisjointMultiUnion;
+import de.soptim.opencgmes.cimxml.sparql.core.CimDatasetGraph;
+import de.soptim.opencgmes.cimxml.sparql.core.LinkedCimDatasetGraph;
+import org.apache.jena.graph.Graph;
+import org.apache.jena.sparql.core.Quad;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * The result of parsing a set of CIMXML instance files, e.g. all profile files (EQ, SSH, TP, SV, ...)
+ * of one IGM, with {@link CimXmlParser#parseCimModelSet}.
+ * <p>
+ * Each parsed file is kept as its own {@link CimDatasetGraph} together with the time it took to parse
+ * and the number of triples it contains and the profiles it was recognized to conform to. In addition, {@link #getCombinedDatasetGraph()} offers a
+ * combined view over all full models of the set.
+ */
+public class CimModelSet {
+
+    /**
+     * One parsed file of a model set.
+     *
+     * @param name the file name or zip entry name the model was parsed from
+     * @param dataset the parsed model
+     * @param parseTime the wall-clock time it took to parse the model, including index initialization
+     * @param tripleCount the number of triples in all graphs of the parsed model
+     * @param profileKeywords the dcat:keyword of each registered profile that is referenced by md:Model.profile
+     *                        in the header of the model, e.g. "EQ" or "SSH"
+     */
+    public record Entry(String name, CimDatasetGraph dataset, Duration parseTime, long tripleCount,
+                        Set<String> profileKeywords) {}
+
+    private final List<Entry> entries;
+    private LinkedCimDatasetGraph combinedDatasetGraph = null;
+
+    CimModelSet(List<Entry> entries) {
+        this.entries = List.copyOf(entries);
+    }
+
+    /**
+     * Gets the parsed models in the order in which the files have been passed to the parser.
+     * @return the parsed models
+     */
+    public List<Entry> getEntries() {
+        return entries;
+    }
+
+    /**
+     * Gets the parsed model for the given file or zip entry name.
+     * @param name the file name or zip entry name
+     * @return the parsed model or null if there is no model with the given name
+     */
+    public CimDatasetGraph getDataset(String name) {
+        Objects.requireNonNull(name, "name");
+        for (var entry : entries) {
+            if (entry.name().equals(name))
+                return entry.dataset();
+        }
+        return null;
+    }
+
+    /**
+     * Gets the parsed models that conform to the profile with the given keyword.
+     * Profiles are recognized from the md:Model.profile IRIs in the model headers, so only profiles that
+     * were registered in the parser are known.
+     * @param profileKeyword the dcat:keyword of the profile, e.g. "EQ"
+     * @return the parsed models in the order of {@link #getEntries()}
+     */
+    public List<Entry> getEntriesForProfile(String profileKeyword) {
+        Objects.requireNonNull(profileKeyword, "profileKeyword");
+        final var result = new ArrayList<Entry>();
+        for (var entry : entries) {
+            if (entry.profileKeywords().contains(profileKeyword))
+                result.add(entry);
+        }
+        return result;
+    }
+
+    /**
+     * Gets the total number of triples in all parsed models.
+     * @return the total number of triples
+     */
+    public long getTripleCount() {
+        var count = 0L;
+        for (var entry : entries) {
+            count += entry.tripleCount();
+        }
+        return count;
+    }
+
+    /**
+     * Gets a combined view over all full models of the set.
+     * <p>
+     * The default graph is a {@link DisjointMultiUnion} of all bodies, and each body is also available
+     * as a named graph with the model IRI from its header as graph name. No triples are copied.
+     * The union uses {@linkplain DisjointMultiUnion#enableMemberFilters() member filters}, so the bodies
+     * must not be modified while the view is in use.
+     * Difference models are not part of the combined view, use {@link #getEntries()} to access them.
+     * @return the combined view
+     */
+    public synchronized CimDatasetGraph getCombinedDatasetGraph() {
+        if (combinedDatasetGraph != null)
+            return combinedDatasetGraph;
+
+        final var bodies = new ArrayList<Graph>(entries.size());
+        final var combined = new LinkedCimDatasetGraph();
+        for (var entry : entries) {
+            final var dataset = entry.dataset();
+            if (!dataset.isFullModel())
+                continue;
+            final var body = dataset.getBody();
+            bodies.add(body);
+            combined.addGraph(dataset.getModelHeader().getModel(), body);
+            combined.prefixes().putAll(dataset.prefixes());
+        }
+        final var union = new DisjointMultiUnion(bodies.iterator());
+        union.enableMemberFilters();
+        union.getPrefixMapping().setNsPrefixes(combined.prefixes().getMapping());
+        combined.addGraph(Quad.defaultGraphIRI, union);
+        combinedDatasetGraph = combined;
+        return combinedDatasetGraph;
+    }
+}
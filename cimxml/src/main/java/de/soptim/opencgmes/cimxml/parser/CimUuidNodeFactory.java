@@ -0,0 +1,179 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.soptim.opencgmes.cimxml.parser;
+
+import org.apache.jena.atlas.lib.cache.CacheInfo;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+
+import java.util.Arrays;
+
+/**
+ * Scans CIM UUIDs and creates their "urn:uuid:" URI nodes.
+ * <p>
+ * The scanner validates the 36 character dashed form and the 32 character form without dashes in a single
+ * pass and reads the UUID into two longs, accepting upper case hex digits. The nodes are cached by these two
+ * longs, so a UUID that is referenced again does not need a new string, regardless of how it is written.
+ * <p>
+ * Instances are not thread-safe; each parser has its own.
+ */
+final class CimUuidNodeFactory {
+
+    /** The result of {@link #scan} for a UUID that is not valid. */
+    static final int INVALID = 0;
+    /** The result of {@link #scan} for a dashed UUID in lower case, the canonical CIM form. */
+    static final int CANONICAL = 1;
+    /** The result of {@link #scan} for a dashed UUID with upper case hex digits. */
+    static final int UPPER_CASE = 2;
+    /** The result of {@link #scan} for a UUID without dashes in lower case. */
+    static final int NO_DASHES = 3;
+    /** The result of {@link #scan} for a UUID without dashes with upper case hex digits. */
+    static final int UPPER_CASE_NO_DASHES = 4;
+
+    private static final String URN_UUID = "urn:uuid:";
+    private static final int CACHE_SIZE = 16384;
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+    private static final byte[] HEX_VALUES = new byte[128];
+
+    static {
+        Arrays.fill(HEX_VALUES, (byte) -1);
+        for (int i = 0; i < 10; i++)
+            HEX_VALUES['0' + i] = (byte) i;
+        for (int i = 0; i < 6; i++) {
+            HEX_VALUES['a' + i] = (byte) (10 + i);
+            HEX_VALUES['A' + i] = (byte) (10 + i);
+        }
+    }
+
+    // the UUID found by the last successful scan
+    private long mostSignificantBits;
+    private long leastSignificantBits;
+
+    // direct mapped cache of nodes by UUID
+    private final long[] cachedMostSignificantBits = new long[CACHE_SIZE];
+    private final long[] cachedLeastSignificantBits = new long[CACHE_SIZE];
+    private final Node[] cachedNodes = new Node[CACHE_SIZE];
+    private long requests = 0;
+    private long misses = 0;
+
+    /**
+     * Scans the UUID starting at the given offset up to the end of the string.
+     * @param s the string containing the UUID
+     * @param offset the offset of the first character of the UUID
+     * @return one of {@link #CANONICAL}, {@link #UPPER_CASE}, {@link #NO_DASHES}, {@link #UPPER_CASE_NO_DASHES}
+     * or {@link #INVALID}
+     */
+    int scan(String s, int offset) {
+        final var length = s.length() - offset;
+        final boolean hasDashes;
+        if (length == 36) {
+            if (s.charAt(offset + 8) != '-' || s.charAt(offset + 13) != '-'
+                    || s.charAt(offset + 18) != '-' || s.charAt(offset + 23) != '-')
+                return INVALID;
+            hasDashes = true;
+        } else if (length == 32) {
+            hasDashes = false;
+        } else {
+            return INVALID;
+        }
+        var msb = 0L;
+        var lsb = 0L;
+        var hasUpperCase = false;
+        var digits = 0;
+        for (int i = offset, end = offset + length; i < end; i++) {
+            final var c = s.charAt(i);
+            if (c == '-' && hasDashes) {
+                final var position = i - offset;
+                if (position == 8 || position == 13 || position == 18 || position == 23)
+                    continue;
+                return INVALID;
+            }
+            final int value = c < 128 ? HEX_VALUES[c] : -1;
+            if (value < 0)
+                return INVALID;
+            if (c >= 'A' && c <= 'F')
+                hasUpperCase = true;
+            if (digits++ < 16)
+                msb = (msb << 4) | value;
+            else
+                lsb = (lsb << 4) | value;
+        }
+        mostSignificantBits = msb;
+        leastSignificantBits = lsb;
+        if (hasDashes)
+            return hasUpperCase ? UPPER_CASE : CANONICAL;
+        return hasUpperCase ? UPPER_CASE_NO_DASHES : NO_DASHES;
+    }
+
+    /**
+     * Gets the node "urn:uuid:" followed by the lower case dashed form of the UUID found by the last
+     * successful {@link #scan}.
+     */
+    Node createNode() {
+        final var msb = mostSignificantBits;
+        final var lsb = leastSignificantBits;
+        final var slot = slot(msb, lsb);
+        final var cached = cachedNodes[slot];
+        requests++;
+        if (cached != null && cachedMostSignificantBits[slot] == msb && cachedLeastSignificantBits[slot] == lsb)
+            return cached;
+        misses++;
+        final var node = NodeFactory.createURI(toUri(msb, lsb));
+        cachedMostSignificantBits[slot] = msb;
+        cachedLeastSignificantBits[slot] = lsb;
+        cachedNodes[slot] = node;
+        return node;
+    }
+
+    /**
+     * Gets the hit statistics of the node cache.
+     */
+    CacheInfo stats() {
+        return FactoryRDFCachingWithStats.cacheInfo(requests, misses);
+    }
+
+    private static int slot(long msb, long lsb) {
+        final var h = (msb ^ Long.rotateLeft(lsb, 32)) * 0x9E3779B97F4A7C15L;
+        return (int) (h >>> 32) & (CACHE_SIZE - 1);
+    }
+
+    private static String toUri(long msb, long lsb) {
+        final var chars = new char[URN_UUID.length() + 36];
+        URN_UUID.getChars(0, URN_UUID.length(), chars, 0);
+        var position = URN_UUID.length();
+        position = appendHex(chars, position, msb >>> 32, 8);
+        chars[position++] = '-';
+        position = appendHex(chars, position, msb >>> 16, 4);
+        chars[position++] = '-';
+        position = appendHex(chars, position, msb, 4);
+        chars[position++] = '-';
+        position = appendHex(chars, position, lsb >>> 48, 4);
+        chars[position++] = '-';
+        appendHex(chars, position, lsb, 12);
+        return new String(chars);
+    }
+
+    private static int appendHex(char[] chars, int position, long value, int digits) {
+        for (int i = digits - 1; i >= 0; i--) {
+            chars[position + i] = HEX_DIGITS[(int) (value & 0xF)];
+            value >>>= 4;
+        }
+        return position + digits;
+    }
+}
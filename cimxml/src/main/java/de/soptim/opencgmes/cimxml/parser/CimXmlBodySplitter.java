@@ -0,0 +1,287 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.soptim.opencgmes.cimxml.parser;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Finds the byte offsets at which a CIMXML document can be split into independently parsable parts.
+ * <p>
+ * The splitter does not parse XML. It only tracks tags, comments, processing instructions and CDATA sections
+ * on byte level to find the ends of the top-level node elements inside &lt;rdf:RDF&gt;. This works for all
+ * encodings in which '&lt;', '&gt;', '/' and quotes are single ASCII bytes, which is the case for UTF-8 and the
+ * ISO-8859 family. Documents with a DOCTYPE, which may declare entities, are not split.
+ */
+final class CimXmlBodySplitter {
+
+    private static final int BUFFER_SIZE = 1024 * 1024;
+
+    /**
+     * The layout of a CIMXML document whose first top-level element is a md:FullModel header.
+     *
+     * @param rootStartEnd the offset directly after the &lt;rdf:RDF ...&gt; start tag
+     * @param headerEnd the offset directly after the first top-level element
+     * @param bodyBounds the ascending offsets at which the body is split, starting with {@code headerEnd} and
+     *                   ending with {@code rootEndStart}; part {@code i} is {@code [bodyBounds[i], bodyBounds[i+1])}
+     * @param rootEndStart the offset of the &lt;/rdf:RDF&gt; end tag
+     * @param bodyBoundLines the 1-based line of each offset in {@code bodyBounds}
+     * @param bodyBoundColumns the number of bytes before each offset in {@code bodyBounds} on its line
+     */
+    record Layout(long rootStartEnd, long headerEnd, long[] bodyBounds, long rootEndStart,
+                  long[] bodyBoundLines, long[] bodyBoundColumns) {
+        int numberOfBodyParts() {
+            return bodyBounds.length - 1;
+        }
+    }
+
+    private CimXmlBodySplitter() {
+    }
+
+    /**
+     * Scans the given file and determines where its body can be split.
+     * @param channel the file to scan, which is read with positional reads only
+     * @param targetPartSize the minimum size of a body part in bytes; parts end at the first top-level element
+     *                       end after this size has been reached
+     * @return the layout or null if the document is not supported, e.g. because it has no rdf:RDF root element,
+     * a DOCTYPE, a non-ASCII-compatible encoding or a first top-level element other than a FullModel
+     * @throws IOException if an I/O error occurs
+     */
+    static Layout split(FileChannel channel, long targetPartSize) throws IOException {
+        return new Scanner(channel).scan(targetPartSize);
+    }
+
+    private static final class Scanner {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        private final byte[] bytes = buffer.array();
+        private int limit = 0;
+        private int index = 0;
+        private long bufferStart = 0;
+        private long newlines = 0;
+        private long lineStart = 0;
+
+        Scanner(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        /** Offset of the byte that will be returned by the next call of {@link #next()}. */
+        private long position() {
+            return bufferStart + index;
+        }
+
+        private int next() throws IOException {
+            if (index == limit) {
+                bufferStart += limit;
+                buffer.clear();
+                int n;
+                do {
+                    n = channel.read(buffer, bufferStart);
+                } while (n == 0);
+                if (n < 0)
+                    return -1;
+                limit = n;
+                index = 0;
+            }
+            final int b = bytes[index++] & 0xFF;
+            if (b == '\n') {
+                newlines++;
+                lineStart = bufferStart + index;
+            }
+            return b;
+        }
+
+        /** Skips bytes until the given terminator has been consumed. Returns false at the end of the file. */
+        private boolean skipPast(byte[] terminator) throws IOException {
+            int matched = 0;
+            int b;
+            while ((b = next()) != -1) {
+                if (b == terminator[matched]) {
+                    if (++matched == terminator.length)
+                        return true;
+                } else if (matched != 2 || b != terminator[1] || terminator[0] != terminator[1]) {
+                    // "--->" and "]]]>" keep the last two bytes matched, otherwise restart the match
+                    matched = (b == terminator[0]) ? 1 : 0;
+                }
+            }
+            return false;
+        }
+
+        private static final byte[] END_OF_PI = "?>".getBytes(StandardCharsets.US_ASCII);
+        private static final byte[] END_OF_COMMENT = "-->".getBytes(StandardCharsets.US_ASCII);
+        private static final byte[] END_OF_CDATA = "]]>".getBytes(StandardCharsets.US_ASCII);
+
+        Layout scan(long targetPartSize) throws IOException {
+            if (!hasAsciiCompatibleStart())
+                return null;
+
+            long rootStartEnd = -1;
+            long headerEnd = -1;
+            long rootEndStart = -1;
+            long lastBound = -1;
+            long[] bounds = new long[16];
+            long[] boundLines = new long[16];
+            long[] boundColumns = new long[16];
+            int numberOfBounds = 0;
+            int depth = 0;
+            final var name = new StringBuilder();
+
+            int b;
+            while (rootEndStart < 0 && (b = next()) != -1) {
+                if (b != '<')
+                    continue;
+                final long tagStart = position() - 1;
+                b = next();
+                if (b == '?') {
+                    if (!skipPast(END_OF_PI))
+                        return null;
+                    continue;
+                }
+                if (b == '!') {
+                    b = next();
+                    if (b == '-') {
+                        if (!skipPast(END_OF_COMMENT))
+                            return null;
+                    } else if (b == '[' && depth > 0) {
+                        if (!skipPast(END_OF_CDATA))
+                            return null;
+                    } else {
+                        return null; // DOCTYPE or markup declaration
+                    }
+                    continue;
+                }
+                final boolean elementEnds;
+                if (b == '/') {
+                    while ((b = next()) != '>') {
+                        if (b == -1)
+                            return null;
+                    }
+                    depth--;
+                    elementEnds = true;
+                } else {
+                    // start tag, collect the name for the checks on the root and the header element
+                    name.setLength(0);
+                    while (b != -1 && b != '>' && b != '/' && !isXmlWhitespace(b)) {
+                        name.append((char) (b & 0xFF));
+                        b = next();
+                    }
+                    int quote = 0;
+                    int previous = 0;
+                    while (b != '>' || quote != 0) {
+                        if (b == -1)
+                            return null;
+                        if (quote == 0) {
+                            if (b == '"' || b == '\'')
+                                quote = b;
+                        } else if (b == quote) {
+                            quote = 0;
+                        }
+                        previous = b;
+                        b = next();
+                    }
+                    final boolean isEmptyElement = previous == '/';
+                    if (depth == 0) {
+                        if (isEmptyElement || rootStartEnd >= 0 || !hasLocalName(name, "RDF"))
+                            return null;
+                        rootStartEnd = position();
+                    } else if (depth == 1 && headerEnd < 0 && !hasLocalName(name, "FullModel")) {
+                        return null;
+                    }
+                    if (isEmptyElement) {
+                        elementEnds = true;
+                    } else {
+                        depth++;
+                        elementEnds = false;
+                    }
+                }
+                if (!elementEnds)
+                    continue;
+                if (depth == 1) {
+                    final long elementEnd = position();
+                    if (headerEnd < 0 || elementEnd - lastBound >= targetPartSize) {
+                        if (headerEnd < 0)
+                            headerEnd = elementEnd;
+                        if (numberOfBounds == bounds.length) {
+                            bounds = Arrays.copyOf(bounds, bounds.length * 2);
+                            boundLines = Arrays.copyOf(boundLines, bounds.length);
+                            boundColumns = Arrays.copyOf(boundColumns, bounds.length);
+                        }
+                        bounds[numberOfBounds] = elementEnd;
+                        boundLines[numberOfBounds] = newlines + 1;
+                        boundColumns[numberOfBounds] = elementEnd - lineStart;
+                        numberOfBounds++;
+                        lastBound = elementEnd;
+                    }
+                } else if (depth == 0) {
+                    rootEndStart = tagStart;
+                }
+            }
+            if (rootStartEnd < 0 || headerEnd < 0 || rootEndStart < 0)
+                return null;
+            if (bounds[numberOfBounds - 1] == rootEndStart) {
+                numberOfBounds--; // there is nothing between the last element and </rdf:RDF>
+            }
+            if (numberOfBounds == bounds.length) {
+                bounds = Arrays.copyOf(bounds, bounds.length + 1);
+                boundLines = Arrays.copyOf(boundLines, bounds.length);
+                boundColumns = Arrays.copyOf(boundColumns, bounds.length);
+            }
+            // the line and column of the end tag are not needed, since no part starts there
+            bounds[numberOfBounds++] = rootEndStart;
+            return new Layout(rootStartEnd, headerEnd, Arrays.copyOf(bounds, numberOfBounds), rootEndStart,
+                    Arrays.copyOf(boundLines, numberOfBounds), Arrays.copyOf(boundColumns, numberOfBounds));
+        }
+
+        /**
+         * Rejects UTF-16 and UTF-32 documents, which start with a byte order mark or have zero bytes
+         * in the XML declaration.
+         */
+        private boolean hasAsciiCompatibleStart() throws IOException {
+            final var start = ByteBuffer.allocate(4);
+            while (start.hasRemaining() && channel.read(start, start.position()) > 0) {
+                // read until 4 bytes are available or the end of the file has been reached
+            }
+            for (int i = 0; i < start.position(); i++) {
+                final int b = start.get(i) & 0xFF;
+                if (b == 0x00 || b == 0xFE || b == 0xFF)
+                    return false;
+            }
+            return true;
+        }
+
+        private static boolean hasLocalName(CharSequence qName, String localName) {
+            final int length = qName.length();
+            final int start = length - localName.length();
+            if (start < 0 || (start > 0 && qName.charAt(start - 1) != ':'))
+                return false;
+            for (int i = 0; i < localName.length(); i++) {
+                if (qName.charAt(start + i) != localName.charAt(i))
+                    return false;
+            }
+            return true;
+        }
+
+        private static boolean isXmlWhitespace(int b) {
+            return b == ' ' || b == '\t' || b == '\n' || b == '\r';
+        }
+    }
+}
@@ -19,20 +19,40 @@
 package de.soptim.opencgmes.cimxml.parser;
 
 import de.soptim.opencgmes.cimxml.graph.CimProfile;
+import de.soptim.opencgmes.cimxml.parser.system.CimXmlElementFilter;
+import de.soptim.opencgmes.cimxml.parser.system.CimXmlProjection;
+import de.soptim.opencgmes.cimxml.parser.system.StreamCIMXML;
+import de.soptim.opencgmes.cimxml.parser.system.StreamCIMXMLBase;
+import de.soptim.opencgmes.cimxml.parser.system.StreamCIMXMLPipelined;
 import de.soptim.opencgmes.cimxml.parser.system.StreamCIMXMLToDatasetGraph;
 import de.soptim.opencgmes.cimxml.rdfs.CimProfileRegistry;
+import de.soptim.opencgmes.cimxml.rdfs.CimProfileRegistryCache;
 import de.soptim.opencgmes.cimxml.rdfs.CimProfileRegistryStd;
 import de.soptim.opencgmes.cimxml.sparql.core.CimDatasetGraph;
+import de.soptim.opencgmes.cimxml.sparql.core.LinkedCimDatasetGraph;
 import org.apache.commons.io.input.BufferedFileChannelInputStream;
+import org.apache.commons.io.input.CloseShieldInputStream;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.riot.RiotException;
 import org.apache.jena.riot.system.ErrorHandler;
 import org.apache.jena.riot.system.ErrorHandlerFactory;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.io.Reader;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
 
 /**
  * IEC 61970-552 CIMXML parser for OpenCGMES.
@@ -65,6 +85,19 @@ import java.nio.file.StandardOpenOption;
  *     Graph body = dataset.getBody();
  *     CimModelHeader header = dataset.getModelHeader();
  * }
+ *
+ * // Parse all files of an IGM in parallel
+ * CimModelSet igm = parser.parseCimModelSet(Path.of("igm-directory"));
+ *
+ * // Parse the body of a single large file on several threads
+ * CimDatasetGraph merged = parser.parseCimModelParallel(Path.of("merged-EQ.xml"));
+ *
+ * // Parse only the topology
+ * CimDatasetGraph topology = parser.parseCimModel(Path.of("model.xml"),
+ *         CimXmlProjection.ofProperties(CIM + "Terminal.ConnectivityNode", CIM + "Terminal.ConductingEquipment"));
+ *
+ * // Scan a file without keeping its triples
+ * parser.parseCimModel(Path.of("model.xml"), StreamCIMXMLBase.of((context, triple) -> count(triple)));
  * }</pre>
  *
  * <h2>Thread Safety:</h2>
@@ -78,7 +111,7 @@ import java.nio.file.StandardOpenOption;
 public class CimXmlParser {
 
     private final ReaderCIMXML_StAX_SR reader;
-    private final CimProfileRegistry cimProfileRegistry;
+    private final CimProfileRegistryStd cimProfileRegistry;
     private final RdfXmlParser rdfXmlParser;
 
     /**
@@ -126,6 +159,27 @@ public class CimXmlParser {
         return profile;
     }
 
+    /**
+     * Registers the given CIM profiles from a cache file, or parses and registers them and writes the cache file
+     * if it is missing or has been written for other profile files. See {@link CimProfileRegistryCache}.
+     * @param pathsToCimProfiles the paths to the CIM profiles
+     * @param cacheFile the cache file
+     * @return true if the profiles have been registered from the cache file, false if they have been parsed
+     * @throws IOException if an I/O error occurs
+     */
+    public boolean registerCimProfiles(final Collection<Path> pathsToCimProfiles, final Path cacheFile) throws IOException {
+        final var key = CimProfileRegistryCache.contentKey(pathsToCimProfiles);
+        if (CimProfileRegistryCache.read(cacheFile, key, cimProfileRegistry))
+            return true;
+        final var profiles = new ArrayList<CimProfile>(pathsToCimProfiles.size());
+        for (var pathToCimProfile : pathsToCimProfiles) {
+            profiles.add(rdfXmlParser.parseCimProfile(pathToCimProfile));
+        }
+        cimProfileRegistry.registerAll(profiles);
+        CimProfileRegistryCache.write(cimProfileRegistry, key, cacheFile);
+        return false;
+    }
+
     /**
      * Parses the CIMXML from the given reader and returns the resulting CIM dataset graph.
      * @param reader the reader containing the CIMXML
@@ -155,15 +209,376 @@ public class CimXmlParser {
      * @throws IOException if an I/O error occurs
      */
     public CimDatasetGraph parseCimModel(final Path pathToCimModel) throws IOException {
-        final var fileSize = Files.size(pathToCimModel);
+        return parseCimModel(this.reader, pathToCimModel);
+    }
+
+    /**
+     * Parses only the elements of the CIMXML from the given reader that are accepted by the given filter.
+     * @param reader the reader containing the CIMXML
+     * @param elementFilter the filter, e.g. a {@link CimXmlProjection}
+     * @return the resulting partial CIM dataset graph
+     * @see #parseCimModel(Path, CimXmlElementFilter)
+     */
+    public CimDatasetGraph parseCimModel(final Reader reader, final CimXmlElementFilter elementFilter) {
+        final var streamRDFProfile = new StreamCIMXMLToDatasetGraph(Objects.requireNonNull(elementFilter, "elementFilter"));
+        this.reader.read(reader, cimProfileRegistry, streamRDFProfile);
+        return streamRDFProfile.getCIMDatasetGraph();
+    }
+
+    /**
+     * Parses only the elements of the CIMXML from the given input stream that are accepted by the given filter.
+     * @param inputStream the input stream containing the CIMXML
+     * @param elementFilter the filter, e.g. a {@link CimXmlProjection}
+     * @return the resulting partial CIM dataset graph
+     * @see #parseCimModel(Path, CimXmlElementFilter)
+     */
+    public CimDatasetGraph parseCimModel(final InputStream inputStream, final CimXmlElementFilter elementFilter) {
+        final var streamRDFProfile = new StreamCIMXMLToDatasetGraph(Objects.requireNonNull(elementFilter, "elementFilter"));
+        this.reader.read(inputStream, cimProfileRegistry, streamRDFProfile);
+        return streamRDFProfile.getCIMDatasetGraph();
+    }
+
+    /**
+     * Parses only the elements of the CIMXML file at the given path that are accepted by the given filter.
+     * <p>
+     * Rejected elements are skipped by the XML reader: their IRIs are not resolved, their datatypes are not
+     * looked up and no nodes are created for them. The model header is always parsed completely. This is much
+     * faster than parsing everything when only a small part of the model is needed, e.g. the topology.
+     * @param pathToCimModel the path to the CIMXML file
+     * @param elementFilter the filter, e.g. a {@link CimXmlProjection}
+     * @return the resulting partial CIM dataset graph
+     * @throws IOException if an I/O error occurs
+     */
+    public CimDatasetGraph parseCimModel(final Path pathToCimModel, final CimXmlElementFilter elementFilter) throws IOException {
+        final var streamRDFProfile = new StreamCIMXMLToDatasetGraph(Objects.requireNonNull(elementFilter, "elementFilter"));
+        parseCimModel(this.reader, pathToCimModel, streamRDFProfile);
+        return streamRDFProfile.getCIMDatasetGraph();
+    }
+
+    /**
+     * Parses the CIMXML from the given reader into the given stream, without creating a dataset graph.
+     * <p>
+     * The literals are typed with the datatypes of the registered profiles, and the stream is told when
+     * the parser enters the model header, the body or one of the parts of a DifferenceModel. The elements
+     * rejected by the {@link StreamCIMXML#getElementFilter() filter} of the stream are skipped.
+     * {@link StreamCIMXMLBase} is a base class for streams that process the triples as they are parsed.
+     * @param reader the reader containing the CIMXML
+     * @param destination the stream that receives the triples
+     */
+    public void parseCimModel(final Reader reader, final StreamCIMXML destination) {
+        this.reader.read(reader, cimProfileRegistry, Objects.requireNonNull(destination, "destination"));
+    }
+
+    /**
+     * Parses the CIMXML from the given input stream into the given stream, without creating a dataset graph.
+     * @param inputStream the input stream containing the CIMXML
+     * @param destination the stream that receives the triples
+     * @see #parseCimModel(Reader, StreamCIMXML)
+     */
+    public void parseCimModel(final InputStream inputStream, final StreamCIMXML destination) {
+        this.reader.read(inputStream, cimProfileRegistry, Objects.requireNonNull(destination, "destination"));
+    }
+
+    /**
+     * Parses the CIMXML file at the given path into the given stream, without creating a dataset graph.
+     * @param pathToCimModel the path to the CIMXML file
+     * @param destination the stream that receives the triples
+     * @throws IOException if an I/O error occurs
+     * @see #parseCimModel(Reader, StreamCIMXML)
+     */
+    public void parseCimModel(final Path pathToCimModel, final StreamCIMXML destination) throws IOException {
+        parseCimModel(this.reader, pathToCimModel, Objects.requireNonNull(destination, "destination"));
+    }
+
+    /**
+     * Parses the CIMXML file at the given path, inserting the triples into the graphs on a separate thread.
+     * @param pathToCimModel the path to the CIMXML file
+     * @return the resulting CIM dataset graph
+     * @throws IOException if an I/O error occurs
+     * @see #parseCimModelPipelined(Path, int, int)
+     */
+    public CimDatasetGraph parseCimModelPipelined(final Path pathToCimModel) throws IOException {
+        return parseCimModelPipelined(pathToCimModel,
+                StreamCIMXMLPipelined.DEFAULT_BATCH_SIZE, StreamCIMXMLPipelined.DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Parses the CIMXML file at the given path, inserting the triples into the graphs on a separate thread.
+     * <p>
+     * The calling thread parses the XML and hands the triples over in batches to a second thread, which
+     * inserts them into the graphs. This uses two cores for a single file. See {@link StreamCIMXMLPipelined}.
+     * @param pathToCimModel the path to the CIMXML file
+     * @param batchSize the number of triples handed over at once
+     * @param capacity the number of batches that may wait for insertion before the parser thread blocks
+     * @return the resulting CIM dataset graph
+     * @throws IOException if an I/O error occurs
+     */
+    public CimDatasetGraph parseCimModelPipelined(final Path pathToCimModel, final int batchSize, final int capacity) throws IOException {
         final var streamRDFProfile = new StreamCIMXMLToDatasetGraph();
+        parseCimModel(this.reader, pathToCimModel, new StreamCIMXMLPipelined(streamRDFProfile, batchSize, capacity));
+        return streamRDFProfile.getCIMDatasetGraph();
+    }
+
+    /**
+     * Parses the CIMXML file at the given path, splitting its body into parts that are parsed in parallel.
+     * The number of worker threads is limited to the number of available processors.
+     * @param pathToCimModel the path to the CIMXML file
+     * @return the resulting CIM dataset graph
+     * @throws IOException if an I/O error occurs
+     * @see #parseCimModelParallel(Path, int)
+     */
+    public CimDatasetGraph parseCimModelParallel(final Path pathToCimModel) throws IOException {
+        return parseCimModelParallel(pathToCimModel, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Parses the CIMXML file at the given path, splitting its body into parts that are parsed in parallel.
+     * <p>
+     * This is meant for very large FullModel files. The body is split between its top-level node elements,
+     * after the md:FullModel header has been parsed, so each part is parsed with the datatypes of the profiles
+     * from the header. Files that are small, that are not a FullModel or whose layout cannot be split safely,
+     * e.g. because of a DOCTYPE, are parsed sequentially as with {@link #parseCimModel(Path)}.
+     * <p>
+     * The result is the same as with sequential parsing, except that the labels of anonymous blank nodes
+     * differ. Line and column numbers in warnings and value violations refer to the file, as with sequential
+     * parsing.
+     * @param pathToCimModel the path to the CIMXML file
+     * @param parallelism the maximum number of parts parsed at the same time
+     * @return the resulting CIM dataset graph
+     * @throws IOException if an I/O error occurs
+     */
+    public CimDatasetGraph parseCimModelParallel(final Path pathToCimModel, final int parallelism) throws IOException {
+        return parseCimModelParallel(pathToCimModel, parallelism, ParallelReaderCIMXML.DEFAULT_MIN_PART_SIZE);
+    }
+
+    CimDatasetGraph parseCimModelParallel(final Path pathToCimModel, final int parallelism, final long minPartSize) throws IOException {
+        Objects.requireNonNull(pathToCimModel, "pathToCimModel");
+        final var streamRDFProfile = new StreamCIMXMLToDatasetGraph();
+        if (new ParallelReaderCIMXML(reader, parallelism, minPartSize).read(pathToCimModel, cimProfileRegistry, streamRDFProfile))
+            return streamRDFProfile.getCIMDatasetGraph();
+        return parseCimModel(pathToCimModel);
+    }
+
+    /**
+     * Parses all CIMXML files in the given directory or zip file in parallel.
+     * Only files and zip entries with the extension ".xml" are parsed; subdirectories are not traversed.
+     * Zip entries with the extension ".zip" are read as nested archives, see {@link #parseCimModelSet(Path, int)}.
+     * The number of worker threads is limited to the number of available processors.
+     * @param directoryOrZip the directory or zip file containing the CIMXML files
+     * @return the parsed model set, with the entries ordered by file name
+     * @throws IOException if an I/O error occurs
+     * @see #parseCimModelSet(Path, int)
+     */
+    public CimModelSet parseCimModelSet(final Path directoryOrZip) throws IOException {
+        return parseCimModelSet(directoryOrZip, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Parses all CIMXML files in the given directory or zip file in parallel.
+     * Only files and zip entries with the extension ".xml" are parsed; subdirectories are not traversed.
+     * <p>
+     * CGMES exchange packages often contain one zip per profile file inside the outer zip. Such nested
+     * ".zip" entries are streamed directly into the parser, without extracting them to temporary files.
+     * The entries of the outer zip are inflated and parsed in parallel, while the entries of one nested
+     * zip are parsed one after the other by the same worker. A model from a nested zip is named after the
+     * path within the outer zip, e.g. {@code "EQ.zip/EQ.xml"}.
+     * @param directoryOrZip the directory or zip file containing the CIMXML files
+     * @param parallelism the maximum number of files parsed at the same time
+     * @return the parsed model set, with the entries ordered by file name
+     * @throws IOException if an I/O error occurs
+     */
+    public CimModelSet parseCimModelSet(final Path directoryOrZip, final int parallelism) throws IOException {
+        Objects.requireNonNull(directoryOrZip, "directoryOrZip");
+        if (Files.isDirectory(directoryOrZip)) {
+            final List<Path> paths;
+            try (final var files = Files.list(directoryOrZip)) {
+                paths = files
+                        .filter(Files::isRegularFile)
+                        .filter(p -> isCimXmlFileName(p.getFileName().toString()))
+                        .sorted()
+                        .toList();
+            }
+            return parseCimModelSet(paths, parallelism);
+        }
+        try (final var zipFile = new ZipFile(directoryOrZip.toFile())) {
+            final var entries = zipFile.stream()
+                    .filter(e -> !e.isDirectory())
+                    .filter(e -> isCimXmlFileName(e.getName()) || isZipFileName(e.getName()))
+                    .sorted(Comparator.comparing(ZipEntry::getName))
+                    .toList();
+            // ZipFile supports reading several entries concurrently, so each worker inflates its own entry.
+            return parseInParallel(entries, parallelism, (reader, entry) -> {
+                try (final var is = zipFile.getInputStream(entry)) {
+                    if (isCimXmlFileName(entry.getName()))
+                        return List.of(parseEntry(entry.getName(), () -> parseCimModel(reader, is)));
+                    final var models = new ArrayList<CimModelSet.Entry>();
+                    parseNestedZip(reader, entry.getName(), is, models);
+                    return models;
+                }
+            });
+        }
+    }
+
+    private void parseNestedZip(final ReaderCIMXML_StAX_SR reader, final String zipName, final InputStream inputStream,
+                                final List<CimModelSet.Entry> models) throws IOException {
+        // the parser must not close the zip stream, since it still has to move on to the next entry
+        final var zipInputStream = new ZipInputStream(CloseShieldInputStream.wrap(inputStream));
+        ZipEntry entry;
+        while ((entry = zipInputStream.getNextEntry()) != null) {
+            if (entry.isDirectory())
+                continue;
+            final var name = zipName + "/" + entry.getName();
+            if (isCimXmlFileName(entry.getName())) {
+                final var is = CloseShieldInputStream.wrap(zipInputStream);
+                models.add(parseEntry(name, () -> parseCimModel(reader, is)));
+            } else if (isZipFileName(entry.getName())) {
+                parseNestedZip(reader, name, zipInputStream, models);
+            }
+        }
+    }
+
+    /**
+     * Parses the given CIMXML files in parallel.
+     * The number of worker threads is limited to the number of available processors.
+     * @param pathsToCimModels the paths to the CIMXML files
+     * @return the parsed model set, with the entries in the order of the given paths
+     * @throws IOException if an I/O error occurs
+     * @see #parseCimModelSet(Collection, int)
+     */
+    public CimModelSet parseCimModelSet(final Collection<Path> pathsToCimModels) throws IOException {
+        return parseCimModelSet(pathsToCimModels, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Parses the given CIMXML files in parallel.
+     * <p>
+     * Each file is parsed on its own worker thread with its own {@link ReaderCIMXML_StAX_SR}, while all
+     * workers share the profile registry of this parser. So all required profiles have to be registered
+     * before calling this method.
+     * @param pathsToCimModels the paths to the CIMXML files
+     * @param parallelism the maximum number of files parsed at the same time
+     * @return the parsed model set, with the entries in the order of the given paths
+     * @throws IOException if an I/O error occurs
+     */
+    public CimModelSet parseCimModelSet(final Collection<Path> pathsToCimModels, final int parallelism) throws IOException {
+        Objects.requireNonNull(pathsToCimModels, "pathsToCimModels");
+        return parseInParallel(List.copyOf(pathsToCimModels), parallelism, (reader, path) ->
+                List.of(parseEntry(path.getFileName().toString(), () -> parseCimModel(reader, path))));
+    }
+
+    private interface ModelSource<T> {
+        List<CimModelSet.Entry> parse(ReaderCIMXML_StAX_SR reader, T source) throws IOException;
+    }
+
+    private interface ParseAction {
+        CimDatasetGraph parse() throws IOException;
+    }
+
+    private CimModelSet.Entry parseEntry(final String name, final ParseAction parseAction) throws IOException {
+        final var start = System.nanoTime();
+        final var dataset = parseAction.parse();
+        final var parseTime = Duration.ofNanos(System.nanoTime() - start);
+        var tripleCount = 0L;
+        for (var graph : ((LinkedCimDatasetGraph) dataset).getGraphs()) {
+            tripleCount += graph.size();
+        }
+        return new CimModelSet.Entry(name, dataset, parseTime, tripleCount, getProfileKeywords(dataset));
+    }
+
+    /**
+     * Recognizes the profiles of a parsed model by matching the md:Model.profile IRIs of its header
+     * against the version IRIs of the registered profiles.
+     */
+    private Set<String> getProfileKeywords(final CimDatasetGraph dataset) {
+        if (!dataset.isFullModel() && !dataset.isDifferenceModel())
+            return Set.of();
+        final var profileIris = new HashSet<Node>();
+        for (var profile : dataset.getModelHeader().getProfiles()) {
+            profileIris.add(profile.isLiteral() ? NodeFactory.createURI(profile.getLiteralLexicalForm()) : profile);
+        }
+        final var keywords = new TreeSet<String>();
+        for (var profile : cimProfileRegistry.getRegisteredProfiles()) {
+            if (profile.isHeaderProfile() || profile.getDcatKeyword() == null)
+                continue;
+            for (var versionIri : profile.getOwlVersionIRIs()) {
+                if (profileIris.contains(versionIri)) {
+                    keywords.add(profile.getDcatKeyword());
+                    break;
+                }
+            }
+        }
+        return Collections.unmodifiableSet(keywords);
+    }
+
+    private <T> CimModelSet parseInParallel(final List<T> sources, final int parallelism,
+                                            final ModelSource<T> modelSource) throws IOException {
+        if (parallelism < 1)
+            throw new IllegalArgumentException("parallelism must be at least 1");
+        if (sources.isEmpty())
+            return new CimModelSet(List.of());
+
+        final var threads = Math.min(parallelism, sources.size());
+        try (final var executor = Executors.newFixedThreadPool(threads)) {
+            final var futures = new ArrayList<Future<List<CimModelSet.Entry>>>(sources.size());
+            for (var source : sources) {
+                futures.add(executor.submit(() ->
+                        modelSource.parse(new ReaderCIMXML_StAX_SR(getErrorHandler()), source)));
+            }
+            final var entries = new ArrayList<CimModelSet.Entry>(sources.size());
+            for (var future : futures) {
+                entries.addAll(getResult(future));
+            }
+            return new CimModelSet(entries);
+        }
+    }
+
+    static <V> V getResult(Future<V> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the CIMXML parser");
+        } catch (ExecutionException e) {
+            final var cause = e.getCause();
+            if (cause instanceof IOException ioException)
+                throw ioException;
+            if (cause instanceof RuntimeException runtimeException)
+                throw runtimeException;
+            if (cause instanceof Error error)
+                throw error;
+            throw new RiotException(cause);
+        }
+    }
+
+    private static boolean isCimXmlFileName(String fileName) {
+        return fileName.toLowerCase(Locale.ROOT).endsWith(".xml");
+    }
+
+    private static boolean isZipFileName(String fileName) {
+        return fileName.toLowerCase(Locale.ROOT).endsWith(".zip");
+    }
+
+    private CimDatasetGraph parseCimModel(final ReaderCIMXML_StAX_SR reader, final InputStream inputStream) {
+        final var streamRDFProfile = new StreamCIMXMLToDatasetGraph();
+        reader.read(inputStream, cimProfileRegistry, streamRDFProfile);
+        return streamRDFProfile.getCIMDatasetGraph();
+    }
+
+    private CimDatasetGraph parseCimModel(final ReaderCIMXML_StAX_SR reader, final Path pathToCimModel) throws IOException {
+        final var streamRDFProfile = new StreamCIMXMLToDatasetGraph();
+        parseCimModel(reader, pathToCimModel, streamRDFProfile);
+        return streamRDFProfile.getCIMDatasetGraph();
+    }
+
+    private void parseCimModel(final ReaderCIMXML_StAX_SR reader, final Path pathToCimModel,
+                               final StreamCIMXML streamRDFProfile) throws IOException {
+        final var fileSize = Files.size(pathToCimModel);
         try(final var is = new BufferedFileChannelInputStream.Builder()
                 .setPath(pathToCimModel)
                 .setOpenOptions(StandardOpenOption.READ)
                 .setBufferSize((fileSize > RdfXmlParser.MAX_BUFFER_SIZE) ? RdfXmlParser.MAX_BUFFER_SIZE : (int) fileSize)
                 .get()) {
-            this.reader.read(is, cimProfileRegistry, streamRDFProfile);
+            reader.read(is, cimProfileRegistry, streamRDFProfile);
         }
-        return streamRDFProfile.getCIMDatasetGraph();
     }
 }
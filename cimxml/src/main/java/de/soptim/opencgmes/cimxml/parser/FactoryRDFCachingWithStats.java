@@ -0,0 +1,69 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.soptim.opencgmes.cimxml.parser;
+
+import org.apache.jena.atlas.lib.Cache;
+import org.apache.jena.atlas.lib.CacheFactory;
+import org.apache.jena.atlas.lib.cache.CacheInfo;
+import org.apache.jena.graph.Node;
+import org.apache.jena.riot.lang.LabelToNode;
+import org.apache.jena.riot.system.FactoryRDFCaching;
+import org.apache.jena.riot.system.RiotLib;
+
+/**
+ * A {@link FactoryRDFCaching} that counts the hits of its URI cache.
+ * <p>
+ * The simple cache of {@link FactoryRDFCaching} does not keep statistics, so this factory caches the URIs in a
+ * simple cache of its own and counts the requests and misses. The literal constants of
+ * {@link FactoryRDFCaching} are kept; the URI cache of the super class is not used.
+ * <p>
+ * Instances are not thread-safe; each parser has its own.
+ */
+final class FactoryRDFCachingWithStats extends FactoryRDFCaching {
+
+    private final Cache<String, Node> uriCache;
+    private long requests = 0;
+    private long misses = 0;
+
+    FactoryRDFCachingWithStats(int cacheSize, LabelToNode labelToNode) {
+        super(1, labelToNode);
+        this.uriCache = CacheFactory.createSimpleCache(cacheSize);
+    }
+
+    @Override
+    public Node createURI(String uriStr) {
+        requests++;
+        return uriCache.get(uriStr, this::createUncachedURI);
+    }
+
+    private Node createUncachedURI(String uriStr) {
+        misses++;
+        return RiotLib.createIRIorBNode(uriStr);
+    }
+
+    @Override
+    public CacheInfo stats() {
+        return cacheInfo(requests, misses);
+    }
+
+    static CacheInfo cacheInfo(long requests, long misses) {
+        final var hits = requests - misses;
+        return new CacheInfo(requests, hits, misses, requests == 0 ? 1.0 : (double) hits / requests);
+    }
+}
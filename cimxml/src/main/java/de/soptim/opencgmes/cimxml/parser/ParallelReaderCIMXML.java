@@ -0,0 +1,375 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.soptim.opencgmes.cimxml.parser;
+
+import de.soptim.opencgmes.cimxml.CimVersion;
+import de.soptim.opencgmes.cimxml.CimXmlDocumentContext;
+import de.soptim.opencgmes.cimxml.graph.CimModelHeader;
+import de.soptim.opencgmes.cimxml.parser.system.CimValueValidationReport;
+import de.soptim.opencgmes.cimxml.parser.system.CimXmlElementFilter;
+import de.soptim.opencgmes.cimxml.parser.system.NodeCacheStatistics;
+import de.soptim.opencgmes.cimxml.parser.system.StreamCIMXML;
+import de.soptim.opencgmes.cimxml.rdfs.CimProfileRegistry;
+import de.soptim.opencgmes.cimxml.sparql.core.CimDatasetGraph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.riot.RiotException;
+import org.apache.jena.riot.lang.BlankNodeAllocatorFixedSeedHash;
+import org.apache.jena.riot.lang.LabelToNode;
+import org.apache.jena.riot.system.MapWithScope;
+import org.apache.jena.sparql.core.Quad;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Parses the body of a large CIMXML FullModel on several threads.
+ * <p>
+ * The file is split with {@link CimXmlBodySplitter} at the ends of top-level node elements. The header is parsed
+ * first, directly into the destination. Then each part of the body is wrapped into the original &lt;rdf:RDF&gt;
+ * start and end tags and parsed by its own {@link ParserCIMXML_StAX_SR}, which continues with the profile
+ * datatypes resolved from the header. So the UUID normalization and the datatype lookups are the same as in
+ * sequential parsing. The triples of the parts are passed to the destination in document order.
+ * <p>
+ * The splitter records the line and column at which each part starts, so warnings, errors and invalid values
+ * from the body are reported at their lines and columns in the file.
+ */
+final class ParallelReaderCIMXML {
+
+    /** Files smaller than two parts of this size are not worth splitting. */
+    static final long DEFAULT_MIN_PART_SIZE = 8L * 1024 * 1024;
+
+    /** More parts than threads keep all threads busy even if the parts differ in their parsing costs. */
+    private static final int PARTS_PER_THREAD = 4;
+
+    /** A rough estimate used to presize the triple lists of the parts. */
+    private static final int ESTIMATED_BYTES_PER_TRIPLE = 80;
+
+    private static final int REGION_BUFFER_SIZE = 64 * 1024;
+
+    private final ReaderCIMXML_StAX_SR reader;
+    private final int parallelism;
+    private final long minPartSize;
+
+    ParallelReaderCIMXML(ReaderCIMXML_StAX_SR reader, int parallelism, long minPartSize) {
+        if (parallelism < 1)
+            throw new IllegalArgumentException("parallelism must be at least 1");
+        this.reader = reader;
+        this.parallelism = parallelism;
+        this.minPartSize = minPartSize;
+    }
+
+    /**
+     * Parses the given file in parallel, if it is large enough and its layout allows splitting.
+     * @return true if the file has been parsed, false if it has to be parsed sequentially;
+     * in this case nothing has been passed to the destination
+     */
+    boolean read(Path path, CimProfileRegistry cimProfileRegistry, StreamCIMXML destination) throws IOException {
+        try (final var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final var size = channel.size();
+            if (parallelism < 2 || size < 2 * minPartSize)
+                return false;
+            final var targetPartSize = Math.max(minPartSize, size / ((long) parallelism * PARTS_PER_THREAD));
+            final var layout = CimXmlBodySplitter.split(channel, targetPartSize);
+            if (layout == null || layout.numberOfBodyParts() < 2)
+                return false;
+            read(channel, layout, cimProfileRegistry, destination);
+            return true;
+        }
+    }
+
+    private void read(FileChannel channel, CimXmlBodySplitter.Layout layout, CimProfileRegistry cimProfileRegistry,
+                      StreamCIMXML destination) throws IOException {
+        final var prologue = readBytes(channel, 0, layout.rootStartEnd());
+        final var epilogue = readBytes(channel, layout.rootEndStart(), channel.size());
+        // All parsers map the same rdf:nodeID label to the same blank node.
+        final var blankNodeSeed = UUID.randomUUID();
+
+        final var headerParser = reader.createParser(
+                new SequenceInputStream(regionInputStream(channel, 0, layout.headerEnd()), new ByteArrayInputStream(epilogue)),
+                cimProfileRegistry, destination, createLabelToNode(blankNodeSeed));
+        destination.start();
+        try {
+            headerParser.parse();
+            final var bounds = layout.bodyBounds();
+            final var parts = layout.numberOfBodyParts();
+            // each part is parsed behind the prologue, so the lines of the prologue precede its first line
+            var prologueNewlines = 0;
+            var prologueLastLineStart = 0;
+            for (int i = 0; i < prologue.length; i++) {
+                if (prologue[i] == '\n') {
+                    prologueNewlines++;
+                    prologueLastLineStart = i + 1;
+                }
+            }
+            final var firstLineOfPart = prologueNewlines + 1;
+            final var prologueLastLineLength = prologue.length - prologueLastLineStart;
+            final Set<Node> propertiesNotInProfile = ConcurrentHashMap.newKeySet();
+            // the node caches of each part parser are counted, not only those of the header parser
+            var nodeCacheStatistics = headerParser.getNodeCacheStatistics();
+            try (final var executor = Executors.newFixedThreadPool(Math.min(parallelism, parts))) {
+                try {
+                    // Limit the number of parsed parts waiting to be passed to the destination.
+                    final var maxPending = 2 * parallelism;
+                    final var pending = new ArrayDeque<Future<ParsedBodyPart>>(maxPending);
+                    var nextPart = 0;
+                    while (nextPart < parts || !pending.isEmpty()) {
+                        while (nextPart < parts && pending.size() < maxPending) {
+                            final var from = bounds[nextPart];
+                            final var to = bounds[nextPart + 1];
+                            final var position = new ParserCIMXML_StAX_SR.BodySlicePosition(firstLineOfPart,
+                                    layout.bodyBoundLines()[nextPart] - firstLineOfPart,
+                                    layout.bodyBoundColumns()[nextPart] - prologueLastLineLength);
+                            pending.add(executor.submit(() -> parseBodyPart(channel, prologue, from, to, epilogue,
+                                    position, cimProfileRegistry, headerParser, propertiesNotInProfile, blankNodeSeed,
+                                    destination.getElementFilter(), destination.getValueValidationReport())));
+                            nextPart++;
+                        }
+                        final var part = CimXmlParser.getResult(pending.poll());
+                        for (var triple : part.triples()) {
+                            destination.triple(triple);
+                        }
+                        nodeCacheStatistics = nodeCacheStatistics.plus(part.nodeCacheStatistics());
+                    }
+                    destination.setNodeCacheStatistics(nodeCacheStatistics);
+                } finally {
+                    executor.shutdownNow();
+                }
+            }
+        } finally {
+            destination.finish();
+        }
+    }
+
+    private record ParsedBodyPart(List<Triple> triples, NodeCacheStatistics nodeCacheStatistics) {
+    }
+
+    private ParsedBodyPart parseBodyPart(FileChannel channel, byte[] prologue, long from, long to, byte[] epilogue,
+                                       ParserCIMXML_StAX_SR.BodySlicePosition position,
+                                       CimProfileRegistry cimProfileRegistry, ParserCIMXML_StAX_SR headerParser,
+                                       Set<Node> propertiesNotInProfile, UUID blankNodeSeed,
+                                       CimXmlElementFilter elementFilter,
+                                       CimValueValidationReport valueValidationReport) {
+        final var collector = new BodyPartCollector((int) Math.min(1 << 24, (to - from) / ESTIMATED_BYTES_PER_TRIPLE),
+                elementFilter, valueValidationReport);
+        final var input = new SequenceInputStream(Collections.enumeration(List.of(
+                new ByteArrayInputStream(prologue),
+                regionInputStream(channel, from, to),
+                new ByteArrayInputStream(epilogue))));
+        final var parser = reader.createParser(input, cimProfileRegistry, collector, createLabelToNode(blankNodeSeed));
+        if (headerParser.hasParsedFullModelHeader())
+            parser.continueFullModelBody(headerParser, propertiesNotInProfile, position);
+        parser.parse();
+        return new ParsedBodyPart(collector.triples, parser.getNodeCacheStatistics());
+    }
+
+    /**
+     * Creates a blank node mapping where labelled blank nodes depend only on the seed and the label,
+     * while anonymous blank nodes are unique across all parsers.
+     */
+    private static LabelToNode createLabelToNode(UUID seed) {
+        final var labelAllocator = new BlankNodeAllocatorFixedSeedHash(seed);
+        return new LabelToNode(
+                new MapWithScope.ScopePolicy<>() {
+                    private final Map<String, Node> map = new HashMap<>();
+
+                    @Override
+                    public Map<String, Node> getScope(Node scope) {
+                        return map;
+                    }
+
+                    @Override
+                    public void clear() {
+                        map.clear();
+                    }
+                },
+                new MapWithScope.Allocator<>() {
+                    @Override
+                    public Node alloc(Node scope, String label) {
+                        return labelAllocator.alloc(label);
+                    }
+
+                    @Override
+                    public Node create() {
+                        return NodeFactory.createBlankNode();
+                    }
+
+                    @Override
+                    public void reset() {
+                        labelAllocator.reset();
+                    }
+                });
+    }
+
+    private static byte[] readBytes(FileChannel channel, long from, long to) throws IOException {
+        final var buffer = ByteBuffer.allocate(Math.toIntExact(to - from));
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, from + buffer.position()) < 0)
+                throw new EOFException("Unexpected end of file at offset " + (from + buffer.position()));
+        }
+        return buffer.array();
+    }
+
+    private static InputStream regionInputStream(FileChannel channel, long from, long to) {
+        return new BufferedInputStream(new RegionInputStream(channel, from, to), REGION_BUFFER_SIZE);
+    }
+
+    /** Reads a region of a file with positional reads, so several regions of one channel can be read concurrently. */
+    private static final class RegionInputStream extends InputStream {
+        private final FileChannel channel;
+        private final long end;
+        private long position;
+
+        RegionInputStream(FileChannel channel, long from, long to) {
+            this.channel = channel;
+            this.position = from;
+            this.end = to;
+        }
+
+        @Override
+        public int read() throws IOException {
+            final var single = new byte[1];
+            return read(single, 0, 1) < 0 ? -1 : single[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            Objects.checkFromIndexSize(off, len, b.length);
+            if (position >= end)
+                return -1;
+            if (len == 0)
+                return 0;
+            final var n = channel.read(ByteBuffer.wrap(b, off, (int) Math.min(len, end - position)), position);
+            if (n < 0)
+                throw new EOFException("Unexpected end of file at offset " + position);
+            position += n;
+            return n;
+        }
+    }
+
+    /**
+     * Collects the triples of one part of the body.
+     * Collecting into a list instead of a graph avoids hashing every triple twice, since the destination
+     * graph has to deduplicate the triples of all parts anyway.
+     */
+    private static final class BodyPartCollector implements StreamCIMXML {
+        private final List<Triple> triples;
+        private final CimXmlElementFilter elementFilter;
+        private final CimValueValidationReport valueValidationReport;
+        private String versionOfIEC61970_552 = null;
+        private CimVersion versionOfCIMXML = CimVersion.NO_CIM;
+
+        BodyPartCollector(int expectedTriples, CimXmlElementFilter elementFilter,
+                          CimValueValidationReport valueValidationReport) {
+            this.triples = new ArrayList<>(expectedTriples);
+            this.elementFilter = elementFilter;
+            this.valueValidationReport = valueValidationReport;
+        }
+
+        @Override
+        public void triple(Triple triple) {
+            triples.add(triple);
+        }
+
+        @Override
+        public void quad(Quad quad) {
+            throw new UnsupportedOperationException("Quads are not supported in this context.");
+        }
+
+        @Override
+        public void start() {
+            // Nothing to do
+        }
+
+        @Override
+        public void base(String base) {
+            // Already passed to the destination by the header parser
+        }
+
+        @Override
+        public void prefix(String prefix, String iri) {
+            // Already passed to the destination by the header parser
+        }
+
+        @Override
+        public void finish() {
+            // Nothing to do
+        }
+
+        @Override
+        public CimXmlElementFilter getElementFilter() {
+            return elementFilter;
+        }
+
+        @Override
+        public CimValueValidationReport getValueValidationReport() {
+            return valueValidationReport;
+        }
+
+        @Override
+        public CimDatasetGraph getCIMDatasetGraph() {
+            throw new UnsupportedOperationException("A part of the body has no dataset graph.");
+        }
+
+        @Override
+        public CimModelHeader getModelHeader() {
+            return null;
+        }
+
+        @Override
+        public void setVersionOfIEC61970_552(String versionOfIEC61970_552) {
+            this.versionOfIEC61970_552 = versionOfIEC61970_552;
+        }
+
+        @Override
+        public String getVersionOfIEC61970_552() {
+            return versionOfIEC61970_552;
+        }
+
+        @Override
+        public CimVersion getVersionOfCIMXML() {
+            return versionOfCIMXML;
+        }
+
+        @Override
+        public void setVersionOfCIMXML(CimVersion versionOfCIMXML) {
+            this.versionOfCIMXML = versionOfCIMXML;
+        }
+
+        @Override
+        public CimXmlDocumentContext getCurrentContext() {
+            return CimXmlDocumentContext.body;
+        }
+
+        @Override
+        public void setCurrentContext(CimXmlDocumentContext context) {
+            if (context != CimXmlDocumentContext.body)
+                throw new RiotException("Unexpected " + context + " in the body of a CIMXML document. "
+                        + "This document has to be parsed sequentially.");
+        }
+    }
+}
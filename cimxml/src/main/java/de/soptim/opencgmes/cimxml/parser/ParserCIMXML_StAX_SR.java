@@ -21,8 +21,12 @@ package de.soptim.opencgmes.cimxml.parser;
 import de.soptim.opencgmes.cimxml.CimHeaderVocabulary;
 import de.soptim.opencgmes.cimxml.CimVersion;
 import de.soptim.opencgmes.cimxml.CimXmlDocumentContext;
+import de.soptim.opencgmes.cimxml.parser.system.CimValueValidationReport;
+import de.soptim.opencgmes.cimxml.parser.system.CimXmlElementFilter;
+import de.soptim.opencgmes.cimxml.parser.system.NodeCacheStatistics;
 import de.soptim.opencgmes.cimxml.parser.system.StreamCIMXML;
 import de.soptim.opencgmes.cimxml.rdfs.CimProfileRegistry;
+import de.soptim.opencgmes.cimxml.rdfs.CimPropertyIndex;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.jena.atlas.io.IndentedWriter;
 import org.apache.jena.atlas.lib.Cache;
@@ -40,10 +44,9 @@ import org.apache.jena.irix.IRIException;
 import org.apache.jena.irix.IRIx;
 import org.apache.jena.irix.SystemIRIx;
 import org.apache.jena.riot.RiotException;
+import org.apache.jena.riot.lang.LabelToNode;
 import org.apache.jena.riot.lang.rdfxml.RDFXMLParseException;
 import org.apache.jena.riot.system.ErrorHandler;
-import org.apache.jena.riot.system.FactoryRDF;
-import org.apache.jena.riot.system.FactoryRDFCaching;
 import org.apache.jena.riot.system.SyntaxLabels;
 import org.apache.jena.sparql.graph.NodeConst;
 import org.apache.jena.sys.JenaSystem;
@@ -58,7 +61,6 @@ import javax.xml.stream.Location;
 import javax.xml.stream.XMLStreamException;
 import java.math.BigInteger;
 import java.util.*;
-import java.util.regex.Pattern;
 
 import static javax.xml.stream.XMLStreamConstants.*;
 import static org.apache.jena.riot.SysRIOT.fmtMessage;
@@ -86,15 +88,15 @@ public class ParserCIMXML_StAX_SR {
     private Cache<String, IRIx> iriCacheForBaseNull = null;
     private Cache<String, IRIx> currentIriCache = null;
     private final Map<IRIx, Cache<String, IRIx>> mapBaseIriToCache = new HashMap<>();
-    private final FactoryRDF factoryRDF = new FactoryRDFCaching(IRI_CACHE_SIZE, SyntaxLabels.createLabelToNode());
+    private final FactoryRDFCachingWithStats factoryRDF;
+    private final CimUuidNodeFactory cimUuidNodeFactory = new CimUuidNodeFactory();
+    private final CimLiteralNodeFactory cimLiteralNodeFactory;
 
     // Constants
     private static final String rdfNS = RDF.uri;
     private static final String xmlNS = "http://www.w3.org/XML/1998/namespace";
     private static final String xmlBaseForCIMXML = "urn:uuid:";
 
-    private static final Pattern CIM_UUID_PATTERN = Pattern.compile("^[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}$");
-    private static final Pattern CIM_UUID_PATTERN_NO_DASHES = Pattern.compile("^[0-9a-f]{8}[0-9a-f]{4}[0-9a-f]{4}[0-9a-f]{4}[0-9a-f]{12}$");
 
     private boolean hasRDF = false;
     private boolean hasCimXmlNamespace = false;
@@ -173,14 +175,16 @@ public class ParserCIMXML_StAX_SR {
             return new RiotException(fmtMessage(message, -1, -1)) ;
         }
 
-        errorHandler.error(message, location.getLineNumber(), location.getColumnNumber());
+        final long line = bodySlicePosition.line(location);
+        final long column = bodySlicePosition.column(location);
+        errorHandler.error(message, line, column);
         // The error handler normally throws an exception - for RDF/XML parsing it is required.
-        return new RiotException(fmtMessage(message, location.getLineNumber(), location.getColumnNumber()));
+        return new RiotException(fmtMessage(message, line, column));
     }
 
     private void RDFXMLparseWarning(String message, Location location) {
         if ( location != null )
-            errorHandler.warning(message, location.getLineNumber(), location.getColumnNumber());
+            errorHandler.warning(message, bodySlicePosition.line(location), bodySlicePosition.column(location));
         else
             errorHandler.warning(message, -1, -1);
     }
@@ -208,15 +212,38 @@ public class ParserCIMXML_StAX_SR {
 
     private IRIx currentBase;
     private String currentLang = null;
-    private Map<Node, CimProfileRegistry.PropertyInfo> currentDataTypeMap = null;
+    private CimPropertyIndex currentPropertyIndex = null;
     private Set<Node> currentListOfPropertiesNotInProfile = null;
     private Set<Node> currentCimProfiles = null;
 
+    // Set when this parser only sees a slice of the body of a FullModel, whose header has already been parsed.
+    private boolean isFullModelBodyChunk = false;
+    // where the slice starts in the file, so that reported lines and columns refer to the file
+    private BodySlicePosition bodySlicePosition = BodySlicePosition.NONE;
+    // the filter of the destination or null
+    private CimXmlElementFilter elementFilter = null;
+    // the report of the destination for invalid values or null to not validate them
+    private CimValueValidationReport valueValidationReport = null;
+    // the subject of the md:FullModel or dm:DifferenceModel element, whose properties are never filtered
+    private Node modelHeaderSubject = null;
+
     /** Integer holder for rdf:li */
     private static class Counter { int value = 1; }
 
     public ParserCIMXML_StAX_SR(XMLStreamReader2 reader, CimProfileRegistry cimProfileRegistry, String xmlBase,
                                 StreamCIMXML destination, ErrorHandler errorHandler) {
+        this(reader, cimProfileRegistry, xmlBase, destination, errorHandler, SyntaxLabels.createLabelToNode());
+    }
+
+    /**
+     * Creates a parser with the given blank node label mapping.
+     * Parsers that share a {@link LabelToNode} created with the same seed map equal rdf:nodeID labels
+     * to the same blank node, which is needed when one document is parsed in several parts.
+     */
+    ParserCIMXML_StAX_SR(XMLStreamReader2 reader, CimProfileRegistry cimProfileRegistry, String xmlBase,
+                         StreamCIMXML destination, ErrorHandler errorHandler, LabelToNode labelToNode) {
+        this.factoryRDF = new FactoryRDFCachingWithStats(IRI_CACHE_SIZE, labelToNode);
+        this.cimLiteralNodeFactory = new CimLiteralNodeFactory(factoryRDF);
         // Debug
         IndentedWriter out = IndentedWriter.stdout.clone();
         out.setFlushOnNewline(true);
@@ -238,6 +265,54 @@ public class ParserCIMXML_StAX_SR {
         this.cimProfileRegistry = cimProfileRegistry;
     }
 
+    /**
+     * Configures this parser to parse a slice of the body of a FullModel.
+     * <p>
+     * The document is expected to consist of the original &lt;rdf:RDF&gt; start tag, some top-level node
+     * elements of the body and the &lt;/rdf:RDF&gt; end tag. Instead of looking for a model header, the
+     * parser continues with the profile datatypes resolved by the parser of the header.
+     * @param headerParser the parser that has parsed the md:FullModel header of the same document
+     * @param propertiesNotInProfile the thread-safe set of properties that have already been reported as
+     *                               missing in the profiles, shared by all parsers of the document
+     * @param position where the slice starts in the file, to report lines and columns of the file
+     */
+    void continueFullModelBody(ParserCIMXML_StAX_SR headerParser, Set<Node> propertiesNotInProfile,
+                               BodySlicePosition position) {
+        this.isFullModelBodyChunk = true;
+        this.bodySlicePosition = position;
+        this.currentPropertyIndex = headerParser.currentPropertyIndex;
+        this.currentCimProfiles = headerParser.currentCimProfiles;
+        this.currentListOfPropertiesNotInProfile = propertiesNotInProfile;
+    }
+
+    /**
+     * Maps the locations in a slice of the body, which is parsed behind the original &lt;rdf:RDF&gt; start tag,
+     * to the lines and columns of the file.
+     * @param firstLine the line of the slice document on which the body content starts, directly after the start tag
+     * @param lineOffset the number of lines to add to a line of the slice document
+     * @param firstLineColumnOffset the number of columns to add on the first line
+     */
+    record BodySlicePosition(long firstLine, long lineOffset, long firstLineColumnOffset) {
+        static final BodySlicePosition NONE = new BodySlicePosition(-1, 0, 0);
+
+        long line(Location location) {
+            final long line = location.getLineNumber();
+            return line < 0 ? line : line + lineOffset;
+        }
+
+        long column(Location location) {
+            final long column = location.getColumnNumber();
+            return column < 0 || location.getLineNumber() != firstLine ? column : column + firstLineColumnOffset;
+        }
+    }
+
+    /**
+     * Checks if this parser has parsed a CIMXML document whose first node element is a md:FullModel header.
+     */
+    boolean hasParsedFullModelHeader() {
+        return hasCimXmlNamespace && isCimXmlModel && destination.getCurrentContext() == CimXmlDocumentContext.body;
+    }
+
     // CIMXML model header constants.
     private static final QName mdFullModel = new QName(CimHeaderVocabulary.NS_MD, CimHeaderVocabulary.CLASSNAME_FULL_MODEL);
     private static final QName dmDifferenceModel = new QName(CimHeaderVocabulary.NS_DM, CimHeaderVocabulary.CLASSNAME_DIFFERENCE_MODEL);
@@ -380,6 +455,9 @@ public class ParserCIMXML_StAX_SR {
     //  6.2.9 Production RDF
     void parse() {
 
+        valueValidationReport = destination.getValueValidationReport();
+        cimLiteralNodeFactory.setValidating(valueValidationReport != null);
+
         int eventType = nextEventAny();
 
         // XMLStreamReader does not generate "START_DOCUMENT"
@@ -407,9 +485,15 @@ public class ParserCIMXML_StAX_SR {
             // Only the XML base and namespaces that apply throughout rdf:RDF are parser output.
             emitInitialBaseAndNamespacesDetermineCIMVersionAndSetBaseIfNeeded();
             hasRDF = true;
+            if ( isFullModelBodyChunk ) {
+                // The header has been parsed by another parser; do not look for it in this part of the body.
+                isCimXmlModel = true;
+                destination.setCurrentContext(CimXmlDocumentContext.body);
+            }
             eventType = nextEventTag();
         }
 
+        elementFilter = destination.getElementFilter();
         incIndent();
         if ( hasRDF )
             nodeElementLoop(eventType);
@@ -427,6 +511,14 @@ public class ParserCIMXML_StAX_SR {
         // Now past <rdf:RDF...></rdf:RDF>
         while ( isWhitespace(eventType) )
             eventType = nextEventAny();
+        destination.setNodeCacheStatistics(getNodeCacheStatistics());
+    }
+
+    /**
+     * Gets the statistics of the node caches of this parser so far.
+     */
+    NodeCacheStatistics getNodeCacheStatistics() {
+        return new NodeCacheStatistics(factoryRDF.stats(), cimUuidNodeFactory.stats(), cimLiteralNodeFactory.stats());
     }
 
     // ---- Node elements
@@ -442,11 +534,59 @@ public class ParserCIMXML_StAX_SR {
         while ( eventType >= 0 ) {
             if ( ! lookingAt(eventType, START_ELEMENT) )
                 break;
-            nodeElement();
+            if ( isRejectedNodeElement(qName()) )
+                skipElement();
+            else
+                nodeElement();
             eventType = nextEventTag();
         }
     }
 
+    /**
+     * Checks if the element filter rejects the typed node element with the given name.
+     * The model header is never rejected.
+     */
+    private boolean isRejectedNodeElement(QName qName) {
+        if ( elementFilter == null || isHeaderContext() )
+            return false;
+        if ( qNameMatches(qName, rdfDescription) || qNameMatches(qName, mdFullModel) || qNameMatches(qName, dmDifferenceModel) )
+            return false;
+        return ! elementFilter.acceptType(qName.getNamespaceURI(), qName.getLocalPart());
+    }
+
+    /**
+     * Checks if the element filter rejects the property element or property attribute with the given name.
+     * The properties of the model header are never rejected.
+     */
+    private boolean isRejectedProperty(Node subject, QName qName) {
+        if ( elementFilter == null || isHeaderContext() || subject.equals(modelHeaderSubject) )
+            return false;
+        return ! elementFilter.acceptProperty(qName.getNamespaceURI(), qName.getLocalPart());
+    }
+
+    private boolean isHeaderContext() {
+        final var context = destination.getCurrentContext();
+        return context == CimXmlDocumentContext.fullModel || context == CimXmlDocumentContext.differenceModel;
+    }
+
+    /**
+     * Skips the current element with all of its content.
+     * On entry, the start of the element has been read.
+     * On exit, have read the end tag of the element.
+     */
+    private void skipElement() {
+        int depth = 1;
+        while ( depth > 0 ) {
+            int event = nextEventRaw();
+            if ( event < 0 )
+                throw RDFXMLparseError("Unexpected end of document in skipped element");
+            if ( lookingAt(event, START_ELEMENT) )
+                depth++;
+            else if ( lookingAt(event, END_ELEMENT) )
+                depth--;
+        }
+    }
+
     /** Top level single node element. (no &lt;rdf:RDF&gt;, &lt;/rdf:RDF&gt;) */
     private void nodeElementSingle(int eventType) {
         if ( ! lookingAt(eventType, START_ELEMENT) )
@@ -519,11 +659,12 @@ public class ParserCIMXML_StAX_SR {
                 }
 
                 if (isCimXmlModel) {
+                    modelHeaderSubject = subject;
                     if (cimProfileRegistry == null) {
                         RDFXMLparseWarning("No CimProfileRegistry has been provided, so missing datatypes in CIMXML cannot be resolved.", location);
                     } else {
-                        currentDataTypeMap = cimProfileRegistry.getHeaderPropertiesAndDatatypes(versionOfCIMXML);
-                        if (currentDataTypeMap == null) {
+                        currentPropertyIndex = cimProfileRegistry.getHeaderPropertyIndex(versionOfCIMXML);
+                        if (currentPropertyIndex == null) {
                             RDFXMLparseWarning("No header profile has been registered for CIM version " + versionOfCIMXML, location);
                         }
                         currentListOfPropertiesNotInProfile = new HashSet<>();
@@ -576,8 +717,8 @@ public class ParserCIMXML_StAX_SR {
             currentCimProfiles = uriProfiles;
         }
         currentListOfPropertiesNotInProfile = new HashSet<>();
-        currentDataTypeMap = cimProfileRegistry.getPropertiesAndDatatypes(currentCimProfiles);
-        if (currentDataTypeMap == null) {
+        currentPropertyIndex = cimProfileRegistry.getPropertyIndex(currentCimProfiles);
+        if (currentPropertyIndex == null) {
             RDFXMLparseWarning("The profiles in the model header could not be found in the CimProfileRegistry. Profiles: " + currentCimProfiles.toString(), location);
         }
     }
@@ -602,6 +743,14 @@ public class ParserCIMXML_StAX_SR {
         if ( ReaderCIMXML_StAX_SR.TRACE )
             trace.println(">> propertyElement: "+str(location())+" "+str(qName()));
 
+        if ( isRejectedProperty(subject, qName()) ) {
+            // Skip before xml:base, xml:lang, the IRI or the datatype of the property are looked at.
+            if ( qNameMatches(rdfContainerItem, qName()) )
+                listElementCounter.value++;
+            skipElement();
+            return;
+        }
+
         incIndent();
         boolean hasFrame = startElement();
         QName qName = qName();
@@ -635,24 +784,29 @@ public class ParserCIMXML_StAX_SR {
 
         if ( qNameMatches(rdfContainerItem, qName) )
             property = iriDirect(rdfNS+"_"+(listElementCounter.value++));
-        else {
-            property = qNameToIRI(qName, QNameUsage.PropertyElement, location);
-
-            if (hasCimXmlNamespace
-                    && ( parseType == parseTypePlain || !"Statements".equals(parseType) ) // reference equality with parseTypePlain is a performance optimization
-                    && currentDataTypeMap != null) {
-                final var propertyAndType = currentDataTypeMap.get(property);
+        else if (hasCimXmlNamespace
+                && ( parseType == parseTypePlain || !"Statements".equals(parseType) ) // reference equality with parseTypePlain is a performance optimization
+                && currentPropertyIndex != null) {
+            // the names of the StAX parser are interned, so the lookup of known properties does not allocate
+            var propertyAndType = currentPropertyIndex.get(qName.getNamespaceURI(), qName.getLocalPart());
+            if (propertyAndType != null) {
+                property = propertyAndType.property(); // override to support reuse of property references across profiles
+                datatypeFromCimProfile = propertyAndType.primitiveType();
+            } else {
+                property = qNameToIRI(qName, QNameUsage.PropertyElement, location);
+                propertyAndType = currentPropertyIndex.get(property);
                 if (propertyAndType != null) {
                     property = propertyAndType.property(); // override to support reuse of property references across profiles
                     datatypeFromCimProfile = propertyAndType.primitiveType();
                 } else {
-                    if (!currentListOfPropertiesNotInProfile.contains(property)) {
-                        currentListOfPropertiesNotInProfile.add(property);
+                    if (currentListOfPropertiesNotInProfile.add(property)) {
                         RDFXMLparseWarning("Property '" + str(qName) + "' could not be found in current profiles. Profiles: " + currentCimProfiles , location);
                     }
                 }
             }
         }
+        else
+            property = qNameToIRI(qName, QNameUsage.PropertyElement, location);
 
         Node reify = reifyStatement(location);
         Emitter emitter = (reify==null) ? this::emit : (s,p,o,loc)->emitReify(reify, s, p, o, loc);
@@ -782,8 +936,8 @@ public class ParserCIMXML_StAX_SR {
             accCharacters.setLength(0);
 
             while(lookingAt(event, CHARACTERS)) {
-                String text = xmlSource.getText();
-                accCharacters.append(text);
+                // append from the buffer of the StAX parser, which avoids a string per text event
+                accCharacters.append(xmlSource.getTextCharacters(), xmlSource.getTextStart(), xmlSource.getTextLength());
                 event = nextEventAny();
             }
             if ( lookingAt(event, START_ELEMENT) ) {
@@ -795,21 +949,26 @@ public class ParserCIMXML_StAX_SR {
                 return;
             }
             if ( lookingAt(event, END_ELEMENT) ) {
-                final String lexicalForm = accCharacters.toString();
                 final Location loc = location();
                 final Node obj;
                 // Characters - lexical form.
                 if ( datatypeFromCimProfile != null && datatypeFromCimProfile != XSDDatatype.XSDstring )
                     if (datatypeFromCimProfile == XSDDatatype.XSDanyURI)
-                        obj = createURI(lexicalForm);
+                        obj = createURI(accCharacters.toString());
+                    else {
+                        obj = cimLiteralNodeFactory.createTypedLiteral(accCharacters, datatypeFromCimProfile);
+                        if ( ! cimLiteralNodeFactory.isLastLexicalFormValid() )
+                            reportInvalidValue(subject, property, obj.getLiteralLexicalForm(), datatypeFromCimProfile, loc);
+                    }
+                else {
+                    final String lexicalForm = accCharacters.toString();
+                    if ( datatype != null )
+                        obj = literalDatatype(lexicalForm, datatype);
+                    else if ( currentLang() != null )
+                        obj = literal(lexicalForm, currentLang);
                     else
-                        obj = literalDatatype(lexicalForm, datatypeFromCimProfile);
-                else if ( datatype != null )
-                    obj = literalDatatype(lexicalForm, datatype);
-                else if ( currentLang() != null )
-                    obj = literal(lexicalForm, currentLang);
-                else
-                    obj = literal(lexicalForm);
+                        obj = literal(lexicalForm);
+                }
                 emitter.emit(subject, property, obj, loc);
                 return;
             }
@@ -819,12 +978,24 @@ public class ParserCIMXML_StAX_SR {
             // No content before start element
             processNestedNodeElement(subject, property, emitter);
         } else if (lookingAt(event, END_ELEMENT) ) {
+            if ( valueValidationReport != null && datatypeFromCimProfile != null
+                    && datatypeFromCimProfile != XSDDatatype.XSDstring && datatypeFromCimProfile != XSDDatatype.XSDanyURI
+                    && ! datatypeFromCimProfile.isValid("") )
+                reportInvalidValue(subject, property, "", datatypeFromCimProfile, location);
             emitter.emit(subject, property, NodeConst.emptyString, location);
         } else {
             throw RDFXMLparseError("Malformed property. "+strEventType(event));
         }
     }
 
+    private void reportInvalidValue(Node subject, Node property, String lexicalForm, RDFDatatype datatype,
+                                    Location location) {
+        final long line = location == null ? -1 : bodySlicePosition.line(location);
+        final long column = location == null ? -1 : bodySlicePosition.column(location);
+        valueValidationReport.add(new CimValueValidationReport.Violation(subject, property, lexicalForm, datatype,
+                line, column));
+    }
+
     private Node processPropertyAttributes(Node resourceObj, QName qName, boolean isPropertyElement, Location location) {
         // Subject may not yet be decided.
         List<Integer> indexes = gatherPropertyAttributes(location);
@@ -866,6 +1037,8 @@ public class ParserCIMXML_StAX_SR {
                 emit(subject, RDF.Nodes.type, type, location);
                 return;
             }
+            if ( isRejectedProperty(subject, qName) )
+                continue;
             Node property = attributeToIRI(qName, location);
             String lexicalForm =  xmlSource.getAttributeValue(index);
             Node object = literal(lexicalForm, currentLang);
@@ -1306,8 +1479,8 @@ public class ParserCIMXML_StAX_SR {
     private RiotException handleXMLStreamException(XMLStreamException ex) {
         String msg = xmlStreamExceptionMessage(ex);
         if ( ex.getLocation() != null ) {
-            int line = ex.getLocation().getLineNumber();
-            int col = ex.getLocation().getColumnNumber();
+            long line = bodySlicePosition.line(ex.getLocation());
+            long col = bodySlicePosition.column(ex.getLocation());
             errorHandler.fatal(msg, line, col);
         } else
             errorHandler.fatal(msg, -1, -1);
@@ -1623,64 +1796,39 @@ public class ParserCIMXML_StAX_SR {
     /**
      * Create a CIM UUID IRI or a warning and resolves the IRI using iriResolve.
      * @param uriStr The full URI string (for warning messages).
-     * @param uuidPart The part after "urn:uuid:" or the part after "#_".
+     * @param uuidOffset The offset of the part after "urn:uuid:" or the part after "#_".
      * @param location Location for warnings.
      * @return Node or null if not valid CIM UUID.
      */
-    private Node createCimUuid(String uriStr, String uuidPart, Location location) {
-        // Simple  or
-        return switch (uuidPart.length()) {
-            case 36 -> { // expect UUID - 550e8400-e29b-41d4-a716-446655440000
-                if ( CIM_UUID_PATTERN.matcher(uuidPart).matches() ) {
-                    yield iriDirect(xmlBaseForCIMXML + uuidPart);
-                } else {
-                    final var lowerCase = uuidPart.toLowerCase(Locale.ROOT);
-                    if ( CIM_UUID_PATTERN.matcher(lowerCase).matches() ) {
-                        // warn parsed UUID with upper case into lower case form.
-                        RDFXMLparseWarning("CIM UUID with upper case letters: '"+uuidPart+"' - converted to lower case form.", location);
-                        yield iriDirect(xmlBaseForCIMXML + lowerCase);
-                    }
-                    RDFXMLparseWarning("Not a valid CIM UUID: '"+uriStr+"'", location);
-                    yield iriResolve(uriStr, location);
-                }
+    private Node createCimUuid(String uriStr, int uuidOffset, Location location) {
+        return switch (cimUuidNodeFactory.scan(uriStr, uuidOffset)) {
+            case CimUuidNodeFactory.CANONICAL -> cimUuidNodeFactory.createNode();
+            case CimUuidNodeFactory.UPPER_CASE -> {
+                // warn parsed UUID with upper case into lower case form.
+                RDFXMLparseWarning("CIM UUID with upper case letters: '"+uriStr.substring(uuidOffset)+"' - converted to lower case form.", location);
+                yield cimUuidNodeFactory.createNode();
             }
-            case 32 -> { // expect UUID without dashes - 550e8400e29b41d4a716446655440000
-                if ( CIM_UUID_PATTERN_NO_DASHES.matcher(uuidPart).matches() ) {
-                    // warn parsed UUID without dashes into dashed form.
-                    RDFXMLparseWarning("CIM UUID without dashes: '"+uuidPart+"' - converted to dashed form.", location);
-                    yield iriDirect(toDashedUUID(uuidPart));
-                } else {
-                    final var lowerCase = uuidPart.toLowerCase(Locale.ROOT);
-                    if ( CIM_UUID_PATTERN_NO_DASHES.matcher(lowerCase).matches() ) {
-                        // warn parsed UUID with upper case into lower case form.
-                        RDFXMLparseWarning("CIM UUID with upper case letters and without dashes: '"+uuidPart+"' - converted to lower case dashed form.", location);
-                        yield iriDirect(toDashedUUID(lowerCase));
-                    }
-                    RDFXMLparseWarning("Not a valid CIM UUID: '"+uriStr+"'", location);
-                    yield null;
-                }
+            case CimUuidNodeFactory.NO_DASHES -> {
+                // warn parsed UUID without dashes into dashed form.
+                RDFXMLparseWarning("CIM UUID without dashes: '"+uriStr.substring(uuidOffset)+"' - converted to dashed form.", location);
+                yield cimUuidNodeFactory.createNode();
+            }
+            case CimUuidNodeFactory.UPPER_CASE_NO_DASHES -> {
+                // warn parsed UUID with upper case into lower case form.
+                RDFXMLparseWarning("CIM UUID with upper case letters and without dashes: '"+uriStr.substring(uuidOffset)+"' - converted to lower case dashed form.", location);
+                yield cimUuidNodeFactory.createNode();
             }
             default -> {
                 RDFXMLparseWarning("Not a valid CIM UUID: '"+uriStr+"'", location);
-                yield null;
+                // A string of UUID length may still be a valid relative IRI.
+                yield (uriStr.length() - uuidOffset == 36) ? iriResolve(uriStr, location) : null;
             }
         };
     }
 
-    private static String toDashedUUID(String uuidPart) {
-       final var b = new StringBuilder(xmlBaseForCIMXML.length() + 36)
-                .append(xmlBaseForCIMXML)
-                .append(uuidPart, 0, 8).append('-')
-                .append(uuidPart, 8, 12).append('-')
-                .append(uuidPart, 12, 16).append('-')
-                .append(uuidPart, 16, 20).append('-')
-                .append(uuidPart, 20, 32);
-        return b.toString();
-    }
-
     private Node iriFromIDCimAware(String idStr, Location location) {
         if ( hasCimXmlNamespace && idStr != null && idStr.startsWith("_") ) {
-            final var uri = createCimUuid(idStr, idStr.substring(1), location);
+            final var uri = createCimUuid(idStr, 1, location);
             if ( uri != null )
                 return uri;
         }
@@ -1693,7 +1841,7 @@ public class ParserCIMXML_StAX_SR {
     private Node iriResolveCimAware(String uriStr, Location location) {
         Objects.requireNonNull(uriStr);
         if ( hasCimXmlNamespace && uriStr.startsWith("#_") ) {
-            final var uri = createCimUuid(uriStr, uriStr.substring(2), location);
+            final var uri = createCimUuid(uriStr, 2, location);
             if ( uri != null )
                 return uri;
         }
@@ -21,6 +21,7 @@ package de.soptim.opencgmes.cimxml.parser;
 import de.soptim.opencgmes.cimxml.parser.system.StreamCIMXML;
 import de.soptim.opencgmes.cimxml.rdfs.CimProfileRegistry;
 import org.apache.jena.riot.RiotException;
+import org.apache.jena.riot.lang.LabelToNode;
 import org.apache.jena.riot.lang.rdfxml.SysRRX;
 import org.apache.jena.riot.system.ErrorHandler;
 import org.apache.jena.riot.system.ErrorHandlerFactory;
@@ -105,6 +106,20 @@ public class ReaderCIMXML_StAX_SR
         }
     }
 
+    /**
+     * Creates a parser for the given input without starting it.
+     * The caller is responsible for calling {@link StreamCIMXML#start()} and {@link StreamCIMXML#finish()}.
+     */
+    ParserCIMXML_StAX_SR createParser(InputStream input, CimProfileRegistry cimProfileRegistry,
+                                      StreamCIMXML destination, LabelToNode labelToNode) {
+        try {
+            var xmlStreamReader = (XMLStreamReader2) xmlInputFactory.createXMLStreamReader(input);
+            return new ParserCIMXML_StAX_SR(xmlStreamReader, cimProfileRegistry, null, destination, errorHandler, labelToNode);
+        } catch (XMLStreamException ex) {
+            throw new RiotException("Failed to create the XMLEventReader", ex);
+        }
+    }
+
     private void parse(XMLStreamReader2 xmlStreamReader, CimProfileRegistry cimProfileRegistry, String xmlBase,
                        StreamCIMXML destination) {
         var parser = new ParserCIMXML_StAX_SR(xmlStreamReader, cimProfileRegistry, xmlBase, destination, errorHandler);
@@ -0,0 +1,153 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.soptim.opencgmes.cimxml.parser.system;
+
+import org.apache.jena.datatypes.RDFDatatype;
+import org.apache.jena.graph.Node;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collects the property values whose lexical form is not valid for the datatype of the property in its profile,
+ * e.g. "1,5" for a {@code Float} or "yes" for a {@code Boolean}.
+ * <p>
+ * Validation is opt-in: the parser validates the values while it parses the document, in the same pass, if
+ * {@link StreamCIMXML#getValueValidationReport()} returns a report. The values are still emitted as
+ * before, so the report replaces a second pass over the parsed model:
+ * <pre>{@code
+ * var report = new CimValueValidationReport(100);
+ * var streamRDF = new StreamCIMXMLToDatasetGraph();
+ * streamRDF.setValueValidationReport(report);
+ * parser.parseCimModel(modelFile, streamRDF);
+ * if (!report.isValid())
+ *     System.out.print(report);   // the number of violations per property, then the first violations
+ * }</pre>
+ * The report is bounded: it counts all violations per property, but only keeps the first
+ * {@code maxViolations} of them. Only values typed by a registered profile are validated. Values of
+ * {@code String} properties, references and literals with an explicit {@code rdf:datatype} are not.
+ * <p>
+ * A report may be shared by parsers that run in parallel. When a single file is parsed in parallel, the lines
+ * and columns of the values still refer to the file, not to the part of the body they were parsed in.
+ */
+public final class CimValueValidationReport {
+
+    /**
+     * A value that is not valid for its datatype.
+     * @param subject the subject of the triple
+     * @param property the property
+     * @param lexicalForm the lexical form of the value
+     * @param datatype the datatype of the property in its profile
+     * @param line the line of the end of the value in the document, or -1 if it is not known
+     * @param column the column of the end of the value in the document, or -1 if it is not known
+     */
+    public record Violation(Node subject, Node property, String lexicalForm, RDFDatatype datatype,
+                            long line, long column) {
+    }
+
+    private final int maxViolations;
+    private final List<Violation> violations = new ArrayList<>();
+    private final Map<Node, Long> violationCounts = new HashMap<>();
+    private long violationCount = 0;
+
+    /**
+     * Creates a report that keeps the given number of violations.
+     * @param maxViolations the number of violations to keep, further violations are only counted
+     */
+    public CimValueValidationReport(int maxViolations) {
+        if (maxViolations < 0)
+            throw new IllegalArgumentException("maxViolations must not be negative");
+        this.maxViolations = maxViolations;
+    }
+
+    /**
+     * Adds a violation, which is kept if there are fewer than {@code maxViolations} kept so far.
+     * @param violation the violation
+     */
+    public synchronized void add(Violation violation) {
+        violationCount++;
+        violationCounts.merge(violation.property(), 1L, Long::sum);
+        if (violations.size() < maxViolations)
+            violations.add(violation);
+    }
+
+    /**
+     * Checks if no violation has been found.
+     * @return true if all validated values are valid
+     */
+    public synchronized boolean isValid() {
+        return violationCount == 0;
+    }
+
+    /**
+     * Gets the number of all violations found, including those that were not kept.
+     * @return the number of violations
+     */
+    public synchronized long getViolationCount() {
+        return violationCount;
+    }
+
+    /**
+     * Checks if violations were found that were not kept.
+     * @return true if more than {@code maxViolations} violations were found
+     */
+    public synchronized boolean isTruncated() {
+        return violationCount > violations.size();
+    }
+
+    /**
+     * Gets the kept violations in the order they were found.
+     * @return a copy of the kept violations
+     */
+    public synchronized List<Violation> getViolations() {
+        return List.copyOf(violations);
+    }
+
+    /**
+     * Gets the number of all violations per property.
+     * @return a copy of the counts by property
+     */
+    public synchronized Map<Node, Long> getViolationCountsByProperty() {
+        return Collections.unmodifiableMap(new HashMap<>(violationCounts));
+    }
+
+    /**
+     * Formats the report with one line per property with violations, followed by the kept violations.
+     * @return the summary
+     */
+    @Override
+    public synchronized String toString() {
+        final var sb = new StringBuilder();
+        sb.append(violationCount).append(" invalid values").append(System.lineSeparator());
+        violationCounts.entrySet().stream()
+                .sorted(Map.Entry.<Node, Long>comparingByValue().reversed())
+                .forEach(entry -> sb.append(entry.getKey().getURI()).append(": ").append(entry.getValue())
+                        .append(System.lineSeparator()));
+        for (var violation : violations) {
+            sb.append("[line: ").append(violation.line()).append(", col: ").append(violation.column()).append("] ")
+                    .append(violation.subject()).append(' ').append(violation.property().getURI())
+                    .append(" \"").append(violation.lexicalForm()).append("\" is not a valid ")
+                    .append(violation.datatype().getURI()).append(System.lineSeparator());
+        }
+        return sb.toString();
+    }
+}
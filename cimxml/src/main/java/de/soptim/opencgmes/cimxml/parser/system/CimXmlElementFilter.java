@@ -0,0 +1,62 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.soptim.opencgmes.cimxml.parser.system;
+
+/**
+ * Decides which elements of a CIMXML document are parsed at all.
+ * <p>
+ * The parser asks the filter of its {@link StreamCIMXML} before it creates any node for an element.
+ * A rejected element is skipped with all of its content, so no IRIs are resolved, no datatypes are
+ * looked up and no literals are created for it.
+ * <ul>
+ *   <li>{@link #acceptType} is asked for each typed node element, e.g. {@code <cim:Terminal rdf:ID="...">},
+ *   at the top level and inside the forward differences, reverse differences and preconditions.
+ *   Untyped {@code rdf:Description} elements are always accepted.</li>
+ *   <li>{@link #acceptProperty} is asked for each property element and each property attribute of an
+ *   accepted node element. The rdf:type of an accepted typed node element is always emitted.</li>
+ * </ul>
+ * The model header ({@code md:FullModel} or {@code dm:DifferenceModel}) is never filtered, since the
+ * parser needs its profiles to resolve the datatypes of the body.
+ * <p>
+ * The namespace and local name are those of the element, so their concatenation is the IRI of the type or
+ * property. Implementations are called on the parser thread and must be thread-safe if they are shared by
+ * parsers that run in parallel.
+ */
+public interface CimXmlElementFilter {
+
+    /**
+     * Checks if node elements of the given type are parsed.
+     * @param namespace the namespace of the element, e.g. {@code http://iec.ch/TC57/CIM100#}
+     * @param localName the local name of the element, e.g. {@code Terminal}
+     * @return true to parse the element, false to skip it with all of its content
+     */
+    default boolean acceptType(String namespace, String localName) {
+        return true;
+    }
+
+    /**
+     * Checks if property elements and property attributes of the given property are parsed.
+     * @param namespace the namespace of the element, e.g. {@code http://iec.ch/TC57/CIM100#}
+     * @param localName the local name of the element, e.g. {@code Terminal.ConnectivityNode}
+     * @return true to parse the element, false to skip it with all of its content
+     */
+    default boolean acceptProperty(String namespace, String localName) {
+        return true;
+    }
+}
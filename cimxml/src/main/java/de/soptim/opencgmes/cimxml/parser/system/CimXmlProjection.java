@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.soptim.opencgmes.cimxml.parser.system;
+
+import de.soptim.opencgmes.cimxml.rdfs.CimPropertyIndex;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * An allow-list of classes and properties to parse, e.g. only the topology of a model.
+ * <pre>{@code
+ * var topology = CimXmlProjection.ofProperties(
+ *         "http://iec.ch/TC57/CIM100#Terminal.ConnectivityNode",
+ *         "http://iec.ch/TC57/CIM100#Terminal.ConductingEquipment");
+ * CimDatasetGraph partial = parser.parseCimModel(modelFile, topology);
+ * }</pre>
+ * Typed node elements whose class is not in the list of classes are skipped, and so are property elements and
+ * property attributes whose property is not in the list of properties. An empty list accepts everything, so a projection may restrict
+ * only the classes, only the properties or both. The rdf:type of an accepted node element is always kept.
+ * <p>
+ * The lists are matched on the namespace and local name of the elements, so no IRI has to be created for a
+ * skipped element. An IRI is split into namespace and local name by {@link CimPropertyIndex#localNameStart(String)},
+ * the same rule the parser uses to look up the datatypes of properties. Instances are immutable and thread-safe.
+ * @see CimXmlElementFilter
+ */
+public final class CimXmlProjection implements CimXmlElementFilter {
+
+    private final Map<String, Set<String>> classes;
+    private final Map<String, Set<String>> properties;
+
+    /**
+     * Creates a projection on the given classes and properties.
+     * @param classIris the IRIs of the classes to parse, or an empty collection to parse all classes
+     * @param propertyIris the IRIs of the properties to parse, or an empty collection to parse all properties
+     */
+    public CimXmlProjection(Collection<String> classIris, Collection<String> propertyIris) {
+        this.classes = byNamespace(Objects.requireNonNull(classIris, "classIris"));
+        this.properties = byNamespace(Objects.requireNonNull(propertyIris, "propertyIris"));
+    }
+
+    /**
+     * Creates a projection that parses all classes, but only the given properties.
+     * @param propertyIris the IRIs of the properties to parse
+     * @return the projection
+     */
+    public static CimXmlProjection ofProperties(String... propertyIris) {
+        return new CimXmlProjection(List.of(), List.of(propertyIris));
+    }
+
+    /**
+     * Creates a projection that parses all properties, but only the given classes.
+     * @param classIris the IRIs of the classes to parse
+     * @return the projection
+     */
+    public static CimXmlProjection ofClasses(String... classIris) {
+        return new CimXmlProjection(List.of(classIris), List.of());
+    }
+
+    @Override
+    public boolean acceptType(String namespace, String localName) {
+        return accepts(classes, namespace, localName);
+    }
+
+    @Override
+    public boolean acceptProperty(String namespace, String localName) {
+        return accepts(properties, namespace, localName);
+    }
+
+    private static boolean accepts(Map<String, Set<String>> allowed, String namespace, String localName) {
+        if (allowed.isEmpty())
+            return true;
+        final var localNames = allowed.get(namespace);
+        return localNames != null && localNames.contains(localName);
+    }
+
+    private static Map<String, Set<String>> byNamespace(Collection<String> iris) {
+        final var map = new HashMap<String, Set<String>>();
+        for (var iri : iris) {
+            Objects.requireNonNull(iri, "iri");
+            final var split = CimPropertyIndex.localNameStart(iri);
+            if (split == 0 || split == iri.length())
+                throw new IllegalArgumentException("Cannot split IRI into namespace and local name: " + iri);
+            map.computeIfAbsent(iri.substring(0, split), ns -> new HashSet<>()).add(iri.substring(split));
+        }
+        return map;
+    }
+}
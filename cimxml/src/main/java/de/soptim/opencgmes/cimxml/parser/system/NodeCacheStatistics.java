@@ -0,0 +1,46 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.soptim.opencgmes.cimxml.parser.system;
+
+import org.apache.jena.atlas.lib.cache.CacheInfo;
+
+/**
+ * The hit statistics of the node caches of the parser for one document.
+ * @param uriNodes the cache of the URI nodes created by the {@link org.apache.jena.riot.system.FactoryRDF} of the parser
+ * @param uuidNodes the cache of the "urn:uuid:" nodes of CIM objects, which bypass the other cache
+ * @param literalNodes the cache of the numeric and boolean literals typed by the profiles
+ */
+public record NodeCacheStatistics(CacheInfo uriNodes, CacheInfo uuidNodes, CacheInfo literalNodes) {
+
+    /**
+     * Adds up the statistics of two parsers, e.g. of two parts of a file that is parsed in parallel.
+     * @param other the statistics of the other parser
+     * @return the combined statistics
+     */
+    public NodeCacheStatistics plus(NodeCacheStatistics other) {
+        return new NodeCacheStatistics(plus(uriNodes, other.uriNodes), plus(uuidNodes, other.uuidNodes),
+                plus(literalNodes, other.literalNodes));
+    }
+
+    private static CacheInfo plus(CacheInfo a, CacheInfo b) {
+        final var requests = a.requests + b.requests;
+        final var hits = a.hits + b.hits;
+        return new CacheInfo(requests, hits, a.misses + b.misses, requests == 0 ? 1.0 : (double) hits / requests);
+    }
+}
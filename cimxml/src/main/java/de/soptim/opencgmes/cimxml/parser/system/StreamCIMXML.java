@@ -74,4 +74,31 @@ public interface StreamCIMXML extends StreamRDF {
      * @param context the current document context
      */
     void setCurrentContext(CimXmlDocumentContext context);
+
+    /**
+     * Gets the filter that decides which elements of the document are parsed.
+     * The parser asks for the filter once, before parsing the document.
+     * @return the filter, or null to parse all elements
+     */
+    default CimXmlElementFilter getElementFilter() {
+        return null;
+    }
+
+    /**
+     * Gets the report to collect the values into whose lexical form is not valid for the datatype of their
+     * property. The parser asks for the report once, before parsing the document.
+     * @return the report, or null to not validate the values
+     */
+    default CimValueValidationReport getValueValidationReport() {
+        return null;
+    }
+
+    /**
+     * Receives the hit statistics of the node caches of the parser, once the document has been parsed.
+     * When a file is parsed in parallel parts, the last statistics received are those of all parsers added up.
+     * @param statistics the statistics
+     */
+    default void setNodeCacheStatistics(NodeCacheStatistics statistics) {
+        // not kept by default
+    }
 }
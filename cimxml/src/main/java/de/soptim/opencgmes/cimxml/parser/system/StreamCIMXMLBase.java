@@ -0,0 +1,206 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.soptim.opencgmes.cimxml.parser.system;
+
+import de.soptim.opencgmes.cimxml.CimVersion;
+import de.soptim.opencgmes.cimxml.CimXmlDocumentContext;
+import de.soptim.opencgmes.cimxml.graph.CimModelHeader;
+import de.soptim.opencgmes.cimxml.sparql.core.CimDatasetGraph;
+import de.soptim.opencgmes.cimxml.sparql.core.LinkedCimDatasetGraph;
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.mem2.GraphMem2Roaring;
+import org.apache.jena.mem2.IndexingStrategy;
+import org.apache.jena.sparql.core.Quad;
+
+import java.util.Objects;
+import java.util.function.BiConsumer;
+
+/**
+ * A base class for {@link StreamCIMXML} implementations that process the triples of a CIMXML document
+ * as they are parsed, instead of storing them in a graph.
+ * <p>
+ * Only the small model header is kept, because the parser needs its profiles to resolve the datatypes
+ * of the body. All other triples are passed to {@link #triple(CimXmlDocumentContext, Triple)} together
+ * with the part of the document they belong to. So the memory used while scanning a document does not
+ * depend on its size.
+ * <pre>{@code
+ * var counts = new HashMap<Node, Integer>();
+ * parser.parseCimModel(modelFile, StreamCIMXMLBase.of((context, triple) -> {
+ *     if (triple.predicateMatches(RDF.Nodes.type))
+ *         counts.merge(triple.getObject(), 1, Integer::sum);
+ * }));
+ * }</pre>
+ * {@link #getCIMDatasetGraph()} returns a dataset with the model header only.
+ */
+public abstract class StreamCIMXMLBase implements StreamCIMXML {
+
+    private final CimXmlElementFilter elementFilter;
+    private final LinkedCimDatasetGraph headerDataset = new LinkedCimDatasetGraph();
+    private Graph headerGraph = null;
+    private CimXmlDocumentContext currentContext = CimXmlDocumentContext.body;
+    private String versionOfIEC61970_552 = null;
+    private CimVersion versionOfCIMXML = CimVersion.NO_CIM;
+
+    /**
+     * Creates a stream that receives all elements of the document.
+     */
+    protected StreamCIMXMLBase() {
+        this(null);
+    }
+
+    /**
+     * Creates a stream that only receives the elements accepted by the given filter.
+     * @param elementFilter the filter, or null to receive all elements
+     */
+    protected StreamCIMXMLBase(CimXmlElementFilter elementFilter) {
+        this.elementFilter = elementFilter;
+    }
+
+    /**
+     * Creates a stream that passes all triples except those of the model header to the given handler.
+     * @param handler the handler, called with the document context and the triple
+     * @return the stream
+     */
+    public static StreamCIMXMLBase of(BiConsumer<CimXmlDocumentContext, Triple> handler) {
+        return of(null, handler);
+    }
+
+    /**
+     * Creates a stream that passes all triples of the elements accepted by the given filter, except those of
+     * the model header, to the given handler.
+     * @param elementFilter the filter, or null to receive all elements
+     * @param handler the handler, called with the document context and the triple
+     * @return the stream
+     */
+    public static StreamCIMXMLBase of(CimXmlElementFilter elementFilter, BiConsumer<CimXmlDocumentContext, Triple> handler) {
+        Objects.requireNonNull(handler, "handler");
+        return new StreamCIMXMLBase(elementFilter) {
+            @Override
+            protected void triple(CimXmlDocumentContext context, Triple triple) {
+                handler.accept(context, triple);
+            }
+        };
+    }
+
+    /**
+     * Receives a triple of the body, the forward differences, the reverse differences or the preconditions.
+     * @param context the part of the document the triple belongs to
+     * @param triple the triple
+     */
+    protected abstract void triple(CimXmlDocumentContext context, Triple triple);
+
+    /**
+     * Called when the parser enters another part of the document, e.g. the forward differences.
+     * Does nothing by default.
+     * @param context the part of the document that starts
+     */
+    protected void contextStarted(CimXmlDocumentContext context) {
+    }
+
+    @Override
+    public final void triple(Triple triple) {
+        if (headerGraph != null && isHeaderContext(currentContext))
+            headerGraph.add(triple);
+        else
+            triple(currentContext, triple);
+    }
+
+    @Override
+    public CimXmlElementFilter getElementFilter() {
+        return elementFilter;
+    }
+
+    @Override
+    public CimDatasetGraph getCIMDatasetGraph() {
+        return headerDataset;
+    }
+
+    @Override
+    public CimModelHeader getModelHeader() {
+        return headerDataset.getModelHeader();
+    }
+
+    @Override
+    public void setVersionOfIEC61970_552(String versionOfIEC61970_552) {
+        this.versionOfIEC61970_552 = versionOfIEC61970_552;
+    }
+
+    @Override
+    public String getVersionOfIEC61970_552() {
+        return versionOfIEC61970_552;
+    }
+
+    @Override
+    public CimVersion getVersionOfCIMXML() {
+        return versionOfCIMXML;
+    }
+
+    @Override
+    public void setVersionOfCIMXML(CimVersion versionOfCIMXML) {
+        this.versionOfCIMXML = versionOfCIMXML;
+    }
+
+    @Override
+    public CimXmlDocumentContext getCurrentContext() {
+        return currentContext;
+    }
+
+    @Override
+    public void setCurrentContext(CimXmlDocumentContext context) {
+        if (isHeaderContext(context) && headerGraph == null) {
+            headerGraph = new GraphMem2Roaring(IndexingStrategy.MINIMAL);
+            headerGraph.getPrefixMapping().setNsPrefixes(headerDataset.prefixes().getMapping());
+            headerDataset.addGraph(CimXmlDocumentContext.getGraphName(context), headerGraph);
+        }
+        currentContext = context;
+        contextStarted(context);
+    }
+
+    private static boolean isHeaderContext(CimXmlDocumentContext context) {
+        return context == CimXmlDocumentContext.fullModel || context == CimXmlDocumentContext.differenceModel;
+    }
+
+    @Override
+    public void start() {
+        // Nothing to do
+    }
+
+    @Override
+    public void quad(Quad quad) {
+        throw new UnsupportedOperationException("Quads are not supported in this context.");
+    }
+
+    @Override
+    public void base(String base) {
+        // Nothing to do
+    }
+
+    @Override
+    public void prefix(String prefix, String iri) {
+        headerDataset.prefixes().add(prefix, iri);
+        if (headerGraph != null)
+            headerGraph.getPrefixMapping().setNsPrefix(prefix, iri);
+    }
+
+    @Override
+    public void finish() {
+        // Nothing to do
+    }
+}
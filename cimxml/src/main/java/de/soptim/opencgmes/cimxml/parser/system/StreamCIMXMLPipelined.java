@@ -0,0 +1,320 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.soptim.opencgmes.cimxml.parser.system;
+
+import de.soptim.opencgmes.cimxml.CimVersion;
+import de.soptim.opencgmes.cimxml.CimXmlDocumentContext;
+import de.soptim.opencgmes.cimxml.graph.CimModelHeader;
+import de.soptim.opencgmes.cimxml.sparql.core.CimDatasetGraph;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.riot.RiotException;
+import org.apache.jena.sparql.core.Quad;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * A {@link StreamCIMXML} that passes everything to another {@link StreamCIMXML} on a separate consumer thread.
+ * <p>
+ * The parser thread collects the triples into batches and hands them over through a bounded ring of batches,
+ * so XML parsing and graph insertion run on two cores. All other calls, like context switches and prefixes,
+ * travel through the same ring, so the consumer sees them in the same order as with direct insertion.
+ * If the consumer falls behind, the parser thread blocks until a batch is free again.
+ * <p>
+ * {@link #getModelHeader()} waits until the consumer has processed everything sent before, because the parser
+ * reads the header right after it has been parsed. {@link #finish()} waits for the consumer thread, rethrows
+ * any exception that occurred on it and then finishes the underlying stream on the calling thread.
+ */
+public class StreamCIMXMLPipelined implements StreamCIMXML {
+
+    /** The default number of triples per batch. */
+    public static final int DEFAULT_BATCH_SIZE = 4096;
+
+    /** The default number of batches in the ring. */
+    public static final int DEFAULT_CAPACITY = 16;
+
+    private static final class Batch {
+        private final Triple[] triples;
+        private int size = 0;
+        private Consumer<StreamCIMXML> action = null;
+        private boolean isLast = false;
+
+        Batch(int batchSize) {
+            this.triples = new Triple[batchSize];
+        }
+
+        void clear() {
+            Arrays.fill(triples, 0, size, null);
+            size = 0;
+            action = null;
+            isLast = false;
+        }
+    }
+
+    private final StreamCIMXML destination;
+    private final BlockingQueue<Batch> freeBatches;
+    private final BlockingQueue<Batch> filledBatches;
+    private Batch currentBatch = null;
+    private Thread consumerThread = null;
+    private volatile Throwable consumerFailure = null;
+
+    // Mirrors of the state of the destination, so the parser thread can read them without waiting.
+    private CimXmlDocumentContext currentContext;
+    private String versionOfIEC61970_552;
+    private CimVersion versionOfCIMXML;
+
+    /**
+     * Creates a pipelined stream with the default batch size and capacity.
+     * @param destination the stream that receives everything on the consumer thread
+     */
+    public StreamCIMXMLPipelined(StreamCIMXML destination) {
+        this(destination, DEFAULT_BATCH_SIZE, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a pipelined stream.
+     * @param destination the stream that receives everything on the consumer thread
+     * @param batchSize the number of triples per batch
+     * @param capacity the number of batches in the ring; the parser thread blocks if all of them are in use
+     */
+    public StreamCIMXMLPipelined(StreamCIMXML destination, int batchSize, int capacity) {
+        this.destination = Objects.requireNonNull(destination, "destination");
+        if (batchSize < 1)
+            throw new IllegalArgumentException("batchSize must be at least 1");
+        if (capacity < 1)
+            throw new IllegalArgumentException("capacity must be at least 1");
+        this.freeBatches = new ArrayBlockingQueue<>(capacity);
+        this.filledBatches = new ArrayBlockingQueue<>(capacity);
+        for (int i = 0; i < capacity; i++) {
+            freeBatches.add(new Batch(batchSize));
+        }
+        this.currentContext = destination.getCurrentContext();
+        this.versionOfIEC61970_552 = destination.getVersionOfIEC61970_552();
+        this.versionOfCIMXML = destination.getVersionOfCIMXML();
+    }
+
+    @Override
+    public void start() {
+        if (consumerThread != null)
+            throw new IllegalStateException("The pipelined stream has already been started.");
+        destination.start();
+        consumerThread = new Thread(this::consume, "CIMXML graph insertion");
+        consumerThread.setDaemon(true);
+        consumerThread.start();
+    }
+
+    @Override
+    public void triple(Triple triple) {
+        final var batch = currentBatch();
+        batch.triples[batch.size++] = triple;
+        if (batch.size == batch.triples.length)
+            dispatch();
+    }
+
+    @Override
+    public void quad(Quad quad) {
+        throw new UnsupportedOperationException("Quads are not supported in this context.");
+    }
+
+    @Override
+    public void base(String base) {
+        send(stream -> stream.base(base));
+    }
+
+    @Override
+    public void prefix(String prefix, String iri) {
+        send(stream -> stream.prefix(prefix, iri));
+    }
+
+    @Override
+    public void finish() {
+        if (consumerThread == null)
+            throw new IllegalStateException("The pipelined stream has not been started.");
+        // even after a failure of the consumer, the last batch is needed to end the consumer thread
+        if (currentBatch == null)
+            currentBatch = takeFreeBatch();
+        currentBatch.isLast = true;
+        dispatch();
+        try {
+            consumerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RiotException("Interrupted while waiting for the graph insertion to finish", e);
+        }
+        consumerThread = null;
+        rethrowConsumerFailure();
+        destination.finish();
+    }
+
+    @Override
+    public CimDatasetGraph getCIMDatasetGraph() {
+        return destination.getCIMDatasetGraph();
+    }
+
+    @Override
+    public CimModelHeader getModelHeader() {
+        awaitConsumer();
+        return destination.getModelHeader();
+    }
+
+    @Override
+    public void setVersionOfIEC61970_552(String versionOfIEC61970_552) {
+        this.versionOfIEC61970_552 = versionOfIEC61970_552;
+        send(stream -> stream.setVersionOfIEC61970_552(versionOfIEC61970_552));
+    }
+
+    @Override
+    public String getVersionOfIEC61970_552() {
+        return versionOfIEC61970_552;
+    }
+
+    @Override
+    public CimVersion getVersionOfCIMXML() {
+        return versionOfCIMXML;
+    }
+
+    @Override
+    public void setVersionOfCIMXML(CimVersion versionOfCIMXML) {
+        this.versionOfCIMXML = versionOfCIMXML;
+        send(stream -> stream.setVersionOfCIMXML(versionOfCIMXML));
+    }
+
+    @Override
+    public void setNodeCacheStatistics(NodeCacheStatistics statistics) {
+        send(stream -> stream.setNodeCacheStatistics(statistics));
+    }
+
+    @Override
+    public CimXmlElementFilter getElementFilter() {
+        return destination.getElementFilter();
+    }
+
+    @Override
+    public CimValueValidationReport getValueValidationReport() {
+        return destination.getValueValidationReport();
+    }
+
+    @Override
+    public CimXmlDocumentContext getCurrentContext() {
+        return currentContext;
+    }
+
+    @Override
+    public void setCurrentContext(CimXmlDocumentContext context) {
+        this.currentContext = context;
+        send(stream -> stream.setCurrentContext(context));
+    }
+
+    /** Sends the given action to the consumer, to be applied after all triples collected so far. */
+    private void send(Consumer<StreamCIMXML> action) {
+        if (consumerThread == null) {
+            // not started yet, so there is nothing to keep in order with
+            action.accept(destination);
+            return;
+        }
+        currentBatch().action = action;
+        dispatch();
+    }
+
+    /** Blocks until the consumer has processed everything sent so far. */
+    private void awaitConsumer() {
+        if (consumerThread == null)
+            return;
+        final var processed = new CountDownLatch(1);
+        send(stream -> processed.countDown());
+        try {
+            // the latch is not counted down if the consumer has failed before
+            while (!processed.await(10, TimeUnit.MILLISECONDS)) {
+                rethrowConsumerFailure();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RiotException("Interrupted while waiting for the graph insertion", e);
+        }
+        rethrowConsumerFailure();
+    }
+
+    private Batch currentBatch() {
+        if (currentBatch == null) {
+            if (consumerThread == null)
+                throw new IllegalStateException("The pipelined stream has not been started.");
+            rethrowConsumerFailure();
+            currentBatch = takeFreeBatch();
+        }
+        return currentBatch;
+    }
+
+    private Batch takeFreeBatch() {
+        try {
+            return freeBatches.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RiotException("Interrupted while waiting for a free batch", e);
+        }
+    }
+
+    private void dispatch() {
+        // filledBatches can hold all batches, so this never blocks
+        filledBatches.add(currentBatch);
+        currentBatch = null;
+    }
+
+    private void consume() {
+        try {
+            while (true) {
+                final var batch = filledBatches.take();
+                if (consumerFailure == null) {
+                    try {
+                        for (int i = 0; i < batch.size; i++) {
+                            destination.triple(batch.triples[i]);
+                        }
+                        if (batch.action != null)
+                            batch.action.accept(destination);
+                    } catch (Throwable t) {
+                        // keep taking batches, so the parser thread does not block forever
+                        consumerFailure = t;
+                    }
+                }
+                final var isLast = batch.isLast;
+                batch.clear();
+                freeBatches.add(batch);
+                if (isLast)
+                    return;
+            }
+        } catch (InterruptedException e) {
+            consumerFailure = e;
+        }
+    }
+
+    private void rethrowConsumerFailure() {
+        final var failure = consumerFailure;
+        if (failure == null)
+            return;
+        if (failure instanceof RuntimeException runtimeException)
+            throw runtimeException;
+        if (failure instanceof Error error)
+            throw error;
+        throw new RiotException(failure);
+    }
+}
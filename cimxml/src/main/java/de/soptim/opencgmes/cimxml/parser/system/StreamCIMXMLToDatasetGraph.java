@@ -20,7 +20,9 @@ package de.soptim.opencgmes.cimxml.parser.system;
 
 import de.soptim.opencgmes.cimxml.CimVersion;
 import de.soptim.opencgmes.cimxml.CimXmlDocumentContext;
+import de.soptim.opencgmes.cimxml.graph.CimMemoryReport;
 import de.soptim.opencgmes.cimxml.graph.CimModelHeader;
+import de.soptim.opencgmes.cimxml.graph.DictionaryGraph;
 import de.soptim.opencgmes.cimxml.sparql.core.CimDatasetGraph;
 import de.soptim.opencgmes.cimxml.sparql.core.LinkedCimDatasetGraph;
 import org.apache.jena.graph.Graph;
@@ -30,6 +32,9 @@ import org.apache.jena.mem2.GraphMem2Roaring;
 import org.apache.jena.mem2.IndexingStrategy;
 import org.apache.jena.sparql.core.Quad;
 
+import java.util.Objects;
+import java.util.function.Supplier;
+
 /**
  * An implementation of {@link StreamCIMXML} that populates a {@link LinkedCimDatasetGraph}
  * with the triples from the CIMXML file being processed.
@@ -41,15 +46,55 @@ import org.apache.jena.sparql.core.Quad;
 public class StreamCIMXMLToDatasetGraph implements StreamCIMXML {
 
     private final LinkedCimDatasetGraph linkedCIMDatasetGraph;
+    private final Supplier<Graph> dataGraphFactory;
+    private final CimXmlElementFilter elementFilter;
     private String versionOfIEC61970_552 = null;
     private Graph currentGraph;
     private CimXmlDocumentContext currentContext;
     private CimVersion versionOfCIMXML = CimVersion.NO_CIM;
+    private NodeCacheStatistics nodeCacheStatistics = null;
+    private CimValueValidationReport valueValidationReport = null;
 
     public StreamCIMXMLToDatasetGraph() {
+        this(() -> new GraphMem2Roaring(IndexingStrategy.LAZY_PARALLEL));
+    }
+
+    /**
+     * Creates a stream that only stores the elements accepted by the given filter, e.g. a {@link CimXmlProjection}.
+     * The resulting dataset contains the complete model header and the accepted part of the data.
+     * @param elementFilter the filter, or null to store all elements
+     */
+    public StreamCIMXMLToDatasetGraph(CimXmlElementFilter elementFilter) {
+        this(() -> new GraphMem2Roaring(IndexingStrategy.LAZY_PARALLEL), elementFilter);
+    }
+
+    /**
+     * Creates a stream that uses the given factory for the graphs of the data parts, i.e. the body,
+     * the forward and reverse differences and the preconditions. The small header graphs are always
+     * {@link GraphMem2Roaring} graphs.
+     * <p>
+     * For very large models, {@code DictionaryGraph::new} reduces the memory footprint considerably.
+     * @param dataGraphFactory the factory for the graphs of the data parts
+     * @see DictionaryGraph
+     */
+    public StreamCIMXMLToDatasetGraph(Supplier<Graph> dataGraphFactory) {
+        this(dataGraphFactory, null);
+    }
+
+    /**
+     * Creates a stream that uses the given factory for the graphs of the data parts and only stores the
+     * elements accepted by the given filter.
+     * @param dataGraphFactory the factory for the graphs of the data parts
+     * @param elementFilter the filter, or null to store all elements
+     * @see #StreamCIMXMLToDatasetGraph(Supplier)
+     * @see #StreamCIMXMLToDatasetGraph(CimXmlElementFilter)
+     */
+    public StreamCIMXMLToDatasetGraph(Supplier<Graph> dataGraphFactory, CimXmlElementFilter elementFilter) {
+        this.dataGraphFactory = Objects.requireNonNull(dataGraphFactory, "dataGraphFactory");
+        this.elementFilter = elementFilter;
         // init default graph for body context
         currentContext = CimXmlDocumentContext.body;
-        currentGraph = new GraphMem2Roaring(IndexingStrategy.LAZY_PARALLEL);
+        currentGraph = dataGraphFactory.get();
         linkedCIMDatasetGraph = new LinkedCimDatasetGraph(currentGraph);
     }
 
@@ -68,16 +113,56 @@ public class StreamCIMXMLToDatasetGraph implements StreamCIMXML {
         this.versionOfCIMXML = versionOfCIMXML;
     }
 
+    @Override
+    public CimXmlElementFilter getElementFilter() {
+        return elementFilter;
+    }
+
+    @Override
+    public CimValueValidationReport getValueValidationReport() {
+        return valueValidationReport;
+    }
+
+    /**
+     * Sets the report to collect invalid values into while parsing. This must be set before parsing.
+     * @param valueValidationReport the report, or null to not validate the values
+     */
+    public void setValueValidationReport(CimValueValidationReport valueValidationReport) {
+        this.valueValidationReport = valueValidationReport;
+    }
+
     @Override
     public CimDatasetGraph getCIMDatasetGraph() {
         return linkedCIMDatasetGraph;
     }
 
-    private void setCurrentGraphAndCreateIfNecessary(Node graphName, IndexingStrategy indexingStrategy) {
+    @Override
+    public void setNodeCacheStatistics(NodeCacheStatistics statistics) {
+        this.nodeCacheStatistics = statistics;
+    }
+
+    /**
+     * Gets the hit statistics of the node caches of the parser.
+     * @return the statistics, or null if the document has not been parsed yet
+     */
+    public NodeCacheStatistics getNodeCacheStatistics() {
+        return nodeCacheStatistics;
+    }
+
+    /**
+     * Estimates the memory held by the parsed dataset, including the node cache statistics of the parser.
+     * This walks all triples, so it is meant for sizing and diagnostics, not for every parsed model.
+     * @return the report
+     */
+    public CimMemoryReport getMemoryReport() {
+        return CimMemoryReport.of(linkedCIMDatasetGraph, nodeCacheStatistics);
+    }
+
+    private void setCurrentGraphAndCreateIfNecessary(Node graphName, Supplier<Graph> graphFactory) {
         if (linkedCIMDatasetGraph.containsGraph(graphName)) {
             currentGraph = linkedCIMDatasetGraph.getGraph(graphName);
         } else {
-            final var newGraph = new GraphMem2Roaring(indexingStrategy);
+            final var newGraph = graphFactory.get();
             newGraph.getPrefixMapping().setNsPrefixes(currentGraph.getPrefixMapping());
             currentGraph = newGraph;
             linkedCIMDatasetGraph.addGraph(graphName, currentGraph);
@@ -116,6 +201,8 @@ public class StreamCIMXMLToDatasetGraph implements StreamCIMXML {
         linkedCIMDatasetGraph.getGraphs().parallelStream().forEach(graph -> {
             if (graph instanceof GraphMem2Roaring roaring && !roaring.isIndexInitialized()) {
                 roaring.initializeIndexParallel();
+            } else if (graph instanceof DictionaryGraph dictionaryGraph && !dictionaryGraph.isIndexInitialized()) {
+                dictionaryGraph.initializeIndexParallel();
             }
         });
     }
@@ -143,19 +230,19 @@ public class StreamCIMXMLToDatasetGraph implements StreamCIMXML {
     /**
      * Switches the current graph context based on the provided {@link CimXmlDocumentContext}.
      * This method updates the current graph to the appropriate named graph in the dataset,
-     * creating it if it does not already exist. The indexing strategy is chosen based on the
+     * creating it if it does not already exist. The graph implementation is chosen based on the
      * context to optimize performance for different types of data.
      * @param cimDocumentContext the new document context to switch to
      */
     private void switchContext(CimXmlDocumentContext cimDocumentContext) {
-        var indexingStrategy = switch (cimDocumentContext) {
+        Supplier<Graph> graphFactory = switch (cimDocumentContext) {
             // The metadata is usually very small, so we use a minimal indexing strategy.
-            case fullModel, differenceModel -> IndexingStrategy.MINIMAL;
-            // The data parts can be large, so we use a lazy parallel indexing strategy.
-            default -> IndexingStrategy.LAZY_PARALLEL;
+            case fullModel, differenceModel -> () -> new GraphMem2Roaring(IndexingStrategy.MINIMAL);
+            // The data parts can be large, so they use the configured factory.
+            default -> dataGraphFactory;
         };
         var graphName = CimXmlDocumentContext.getGraphName(cimDocumentContext);
-        setCurrentGraphAndCreateIfNecessary(graphName, indexingStrategy);
+        setCurrentGraphAndCreateIfNecessary(graphName, graphFactory);
         currentContext = cimDocumentContext;
     }
 }
@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.soptim.opencgmes.cimxml.rdfs;
+
+import de.soptim.opencgmes.cimxml.CimVersion;
+import de.soptim.opencgmes.cimxml.graph.CimProfile;
+import org.apache.jena.graph.Node;
+import org.apache.jena.sparql.graph.GraphWrapper;
+import org.apache.jena.sparql.graph.GraphZero;
+
+import java.util.Set;
+
+/**
+ * A profile read from a {@link CimProfileRegistryCache}. It only knows the metadata the registry needs, its
+ * graph is empty.
+ */
+final class CachedCimProfile extends GraphWrapper implements CimProfile {
+
+    private final CimVersion cimVersion;
+    private final boolean isHeaderProfile;
+    private final Set<Node> owlVersionIRIs;
+    private final String dcatKeyword;
+    private final String owlVersionInfo;
+
+    CachedCimProfile(CimVersion cimVersion, boolean isHeaderProfile, Set<Node> owlVersionIRIs,
+                     String dcatKeyword, String owlVersionInfo) {
+        super(GraphZero.instance());
+        this.cimVersion = cimVersion;
+        this.isHeaderProfile = isHeaderProfile;
+        this.owlVersionIRIs = Set.copyOf(owlVersionIRIs);
+        this.dcatKeyword = dcatKeyword;
+        this.owlVersionInfo = owlVersionInfo;
+    }
+
+    @Override
+    public CimVersion getCIMVersion() {
+        return cimVersion;
+    }
+
+    @Override
+    public boolean isHeaderProfile() {
+        return isHeaderProfile;
+    }
+
+    @Override
+    public String getDcatKeyword() {
+        return dcatKeyword;
+    }
+
+    @Override
+    public Set<Node> getOwlVersionIRIs() {
+        return owlVersionIRIs;
+    }
+
+    @Override
+    public String getOwlVersionInfo() {
+        return owlVersionInfo;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof CachedCimProfile that)) return false;
+
+        return this.equals(that);
+    }
+
+    @Override
+    public int hashCode() {
+        return this.calculateHashCode();
+    }
+}
@@ -23,6 +23,7 @@ import de.soptim.opencgmes.cimxml.graph.CimProfile;
 import org.apache.jena.datatypes.RDFDatatype;
 import org.apache.jena.graph.Node;
 
+import java.util.Collection;
 import java.util.Map;
 import java.util.Set;
 
@@ -112,6 +113,15 @@ public interface CimProfileRegistry {
      */
     void register(CimProfile cimProfile);
 
+    /**
+     * Registers several ontology graphs for profiles, see {@link #register(CimProfile)}.
+     * Implementations may extract the properties of the profiles in parallel.
+     * @param cimProfiles The profile ontologies to register.
+     */
+    default void registerAll(Collection<? extends CimProfile> cimProfiles) {
+        cimProfiles.forEach(this::register);
+    }
+
     /**
      * Checks if the registry contains all profile IRIs in the given set.
      * @param owlVersionIRIs A set of profile IRIs as found in the model header.
@@ -151,6 +161,28 @@ public interface CimProfileRegistry {
      */
     Map<Node, PropertyInfo> getHeaderPropertiesAndDatatypes(CimVersion version);
 
+    /**
+     * Get the properties for the given set of profile IRIs as an index by namespace URI and local name,
+     * see {@link #getPropertiesAndDatatypes(Set)}.
+     * @param owlVersionIRIs A set of profile IRIs as found in the model header.
+     * @return The index of the properties, or null if one of the profile IRIs is not registered.
+     */
+    default CimPropertyIndex getPropertyIndex(Set<Node> owlVersionIRIs) {
+        final var properties = getPropertiesAndDatatypes(owlVersionIRIs);
+        return properties == null ? null : new CimPropertyIndex(properties);
+    }
+
+    /**
+     * Get the properties of the header profile of the given CIM version as an index by namespace URI and local
+     * name, see {@link #getHeaderPropertiesAndDatatypes(CimVersion)}.
+     * @param version The CIM version for which the header profile should be used.
+     * @return The index of the properties, or null if no header profile is registered for the given CIM version.
+     */
+    default CimPropertyIndex getHeaderPropertyIndex(CimVersion version) {
+        final var properties = getHeaderPropertiesAndDatatypes(version);
+        return properties == null ? null : new CimPropertyIndex(properties);
+    }
+
     /**
      * Get a mapping of primitive type names to RDF datatypes for all registered profiles.
      * This includes primitive types from all registered ontologies.
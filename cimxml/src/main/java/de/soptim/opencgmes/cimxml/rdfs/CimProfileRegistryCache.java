@@ -0,0 +1,349 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.soptim.opencgmes.cimxml.rdfs;
+
+import de.soptim.opencgmes.cimxml.CimVersion;
+import de.soptim.opencgmes.cimxml.graph.CimProfile;
+import de.soptim.opencgmes.cimxml.rdfs.CimProfileRegistry.PropertyInfo;
+import org.apache.jena.datatypes.RDFDatatype;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * Writes the computed content of a {@link CimProfileRegistryStd} to a compact binary file and registers it again
+ * on later starts, without parsing the RDFS files or running the property query.
+ * <p>
+ * The file contains, per registered profile, its CIM version, whether it is a header profile, its version IRIs,
+ * keyword and version info and its map of {@link PropertyInfo}s. Header profiles are selected by their CIM
+ * version only, so their version IRIs and version info are not stored. All IRIs are stored once in a string table.
+ * The file is keyed by a hash of the content of the profile files, see {@link #contentKey(Collection)}, so a
+ * changed profile file invalidates it:
+ * <pre>{@code
+ * var key = CimProfileRegistryCache.contentKey(profileFiles);
+ * if (!CimProfileRegistryCache.read(cacheFile, key, registry)) {
+ *     for (var profileFile : profileFiles)
+ *         registry.register(rdfXmlParser.parseCimProfile(profileFile));
+ *     CimProfileRegistryCache.write(registry, key, cacheFile);
+ * }
+ * }</pre>
+ * The profiles registered from the cache only carry their metadata, their graphs are empty. The resolved RDF
+ * datatypes of the primitive properties are stored as well, so the cache is also invalidated when the primitive
+ * type mapping of the registry differs from the one it was written with.
+ * <p>
+ * Like {@link de.soptim.opencgmes.cimxml.graph.CimDatasetSnapshot}, the cache is not an exchange format: it is
+ * only read by the same version of this library.
+ */
+public final class CimProfileRegistryCache {
+
+    private static final byte[] MAGIC = "CIMPREG\0".getBytes(StandardCharsets.US_ASCII);
+    private static final int FORMAT_VERSION = 1;
+    private static final int NONE = -1;
+
+    private CimProfileRegistryCache() {
+    }
+
+    /**
+     * Calculates the key for a cache of the given profile files from their content. The order of the files does
+     * not matter, their names and locations are not part of the key.
+     * @param profileFiles the RDFS files of the profiles
+     * @return the SHA-256 hash of the file contents as hex string
+     * @throws IOException if a file cannot be read
+     */
+    public static String contentKey(Collection<Path> profileFiles) throws IOException {
+        final var fileHashes = new ArrayList<String>(profileFiles.size());
+        for (var profileFile : profileFiles) {
+            final var digest = sha256();
+            try (var in = new DigestInputStream(Files.newInputStream(profileFile), digest)) {
+                in.transferTo(OutputStream.nullOutputStream());
+            }
+            fileHashes.add(HexFormat.of().formatHex(digest.digest()));
+        }
+        Collections.sort(fileHashes);
+        final var digest = sha256();
+        for (var fileHash : fileHashes)
+            digest.update(fileHash.getBytes(StandardCharsets.US_ASCII));
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Writes the registered profiles and their properties to a cache file. The file is first written under a
+     * temporary name and then moved into place, so readers never see a partially written cache.
+     * @param registry the registry to write
+     * @param key the key of the cache, usually {@link #contentKey(Collection)} of the registered profile files
+     * @param file the cache file, which is replaced if it exists
+     * @throws IOException if the file cannot be written
+     * @throws IllegalArgumentException if a profile contains nodes that cannot be stored, like blank nodes
+     */
+    public static void write(CimProfileRegistryStd registry, String key, Path file) throws IOException {
+        Objects.requireNonNull(registry, "registry");
+        Objects.requireNonNull(key, "key");
+        final var strings = new LinkedHashMap<String, Integer>();
+        final var profiles = new ArrayList<>(registry.getRegisteredProfiles());
+
+        final var temporaryFile = Files.createTempFile(file.toAbsolutePath().getParent(),
+                file.getFileName().toString(), ".tmp");
+        try {
+            try (var out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporaryFile)))) {
+                out.write(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                writeString(out, key);
+                final var primitiveTypes = new TreeMap<>(registry.getPrimitiveToRDFDatatypeMapping());
+                out.writeInt(primitiveTypes.size());
+                for (var entry : primitiveTypes.entrySet()) {
+                    writeString(out, entry.getKey());
+                    writeString(out, entry.getValue().getURI());
+                }
+
+                // the string table comes first, so the profiles can refer to it by index
+                for (var profile : profiles) {
+                    for (var versionIri : versionIris(profile))
+                        id(strings, versionIri);
+                    for (var info : registry.getProperties(profile).values()) {
+                        id(strings, info.rdfType());
+                        id(strings, info.property());
+                        id(strings, info.cimDatatype());
+                        id(strings, info.referenceType());
+                        if (info.primitiveType() != null)
+                            strings.putIfAbsent(info.primitiveType().getURI(), strings.size());
+                    }
+                }
+                out.writeInt(strings.size());
+                for (var string : strings.keySet())
+                    writeString(out, string);
+
+                out.writeInt(profiles.size());
+                for (var profile : profiles) {
+                    writeString(out, profile.getCIMVersion().name());
+                    out.writeBoolean(profile.isHeaderProfile());
+                    writeNullableString(out, profile.getDcatKeyword());
+                    writeNullableString(out, profile.isHeaderProfile() ? null : profile.getOwlVersionInfo());
+                    final var versionIris = versionIris(profile);
+                    out.writeInt(versionIris.size());
+                    for (var versionIri : versionIris)
+                        out.writeInt(id(strings, versionIri));
+                    final var properties = registry.getProperties(profile);
+                    out.writeInt(properties.size());
+                    for (var info : properties.values()) {
+                        out.writeInt(id(strings, info.rdfType()));
+                        out.writeInt(id(strings, info.property()));
+                        out.writeInt(id(strings, info.cimDatatype()));
+                        out.writeInt(info.primitiveType() == null ? NONE : strings.get(info.primitiveType().getURI()));
+                        out.writeInt(id(strings, info.referenceType()));
+                    }
+                }
+            }
+            moveIntoPlace(temporaryFile, file);
+        } finally {
+            Files.deleteIfExists(temporaryFile);
+        }
+    }
+
+    private static void moveIntoPlace(Path temporaryFile, Path file) throws IOException {
+        try {
+            Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static Collection<Node> versionIris(CimProfile profile) {
+        // header profiles are selected by their CIM version, and CIM 17 header profiles have no ontology
+        if (profile.isHeaderProfile())
+            return List.of();
+        final var versionIris = profile.getOwlVersionIRIs();
+        return versionIris == null ? List.of() : versionIris;
+    }
+
+    private static int id(Map<String, Integer> strings, Node node) {
+        if (node == null)
+            return NONE;
+        if (!node.isURI())
+            throw new IllegalArgumentException("Node cannot be stored in a profile registry cache: " + node);
+        return strings.computeIfAbsent(node.getURI(), uri -> strings.size());
+    }
+
+    /**
+     * Registers the profiles of a cache file in the given registry, if the file exists and was written with the
+     * given key, the same format version and the same primitive type mapping.
+     * @param file the cache file
+     * @param key the expected key of the cache, usually {@link #contentKey(Collection)} of the profile files
+     * @param registry the registry to register the profiles in
+     * @return true if the profiles have been registered, false if the cache is missing or stale
+     * @throws IOException if the file cannot be read or is not a profile registry cache
+     * @throws IllegalArgumentException if one of the cached profiles is already registered
+     */
+    public static boolean read(Path file, String key, CimProfileRegistryStd registry) throws IOException {
+        Objects.requireNonNull(key, "key");
+        Objects.requireNonNull(registry, "registry");
+        if (!Files.isRegularFile(file))
+            return false;
+        final var profiles = new LinkedHashMap<CimProfile, Map<Node, PropertyInfo>>();
+        try (var in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            final var magic = new byte[MAGIC.length];
+            in.readFully(magic);
+            if (!Arrays.equals(MAGIC, magic))
+                throw new IOException("Not a CIM profile registry cache: " + file);
+            if (in.readInt() != FORMAT_VERSION || !key.equals(readString(in)))
+                return false;
+            final var primitiveTypes = new HashMap<String, String>();
+            final var primitiveTypeCount = readCount(in);
+            for (int i = 0; i < primitiveTypeCount; i++)
+                primitiveTypes.put(readString(in), readString(in));
+            final var currentPrimitiveTypes = new HashMap<String, String>();
+            registry.getPrimitiveToRDFDatatypeMapping().forEach((name, datatype) ->
+                    currentPrimitiveTypes.put(name, datatype.getURI()));
+            if (!primitiveTypes.equals(currentPrimitiveTypes))
+                return false;
+
+            final var strings = new String[readCount(in)];
+            for (int i = 0; i < strings.length; i++)
+                strings[i] = readString(in);
+            final var nodes = new Node[strings.length];
+            final var datatypes = new RDFDatatype[strings.length];
+
+            final var profileCount = readCount(in);
+            for (int i = 0; i < profileCount; i++) {
+                final CimVersion cimVersion;
+                try {
+                    cimVersion = CimVersion.valueOf(readString(in));
+                } catch (IllegalArgumentException e) {
+                    throw new IOException("Unknown CIM version in profile registry cache: " + file, e);
+                }
+                final var isHeaderProfile = in.readBoolean();
+                final var dcatKeyword = readNullableString(in);
+                final var owlVersionInfo = readNullableString(in);
+                final var versionIris = new HashSet<Node>();
+                final var versionIriCount = readCount(in);
+                for (int j = 0; j < versionIriCount; j++)
+                    versionIris.add(node(nodes, strings, in.readInt()));
+                final var propertyCount = readCount(in);
+                final var properties = new HashMap<Node, PropertyInfo>(Math.max(16, propertyCount * 4 / 3 + 1));
+                for (int j = 0; j < propertyCount; j++) {
+                    final var rdfType = node(nodes, strings, in.readInt());
+                    final var property = node(nodes, strings, in.readInt());
+                    final var cimDatatype = node(nodes, strings, in.readInt());
+                    final var primitiveType = datatype(datatypes, strings, in.readInt());
+                    final var referenceType = node(nodes, strings, in.readInt());
+                    properties.put(property, new PropertyInfo(rdfType, property, cimDatatype, primitiveType, referenceType));
+                }
+                profiles.put(new CachedCimProfile(cimVersion, isHeaderProfile, versionIris, dcatKeyword, owlVersionInfo),
+                        Collections.unmodifiableMap(properties));
+            }
+        } catch (EOFException | IndexOutOfBoundsException e) {
+            throw new IOException("Truncated or corrupt CIM profile registry cache: " + file, e);
+        }
+        profiles.forEach(registry::register);
+        return true;
+    }
+
+    private static Node node(Node[] nodes, String[] strings, int id) {
+        if (id == NONE)
+            return null;
+        var node = nodes[id];
+        if (node == null) {
+            node = NodeFactory.createURI(strings[id]);
+            nodes[id] = node;
+        }
+        return node;
+    }
+
+    private static RDFDatatype datatype(RDFDatatype[] datatypes, String[] strings, int id) {
+        if (id == NONE)
+            return null;
+        var datatype = datatypes[id];
+        if (datatype == null) {
+            datatype = NodeFactory.getType(strings[id]);
+            datatypes[id] = datatype;
+        }
+        return datatype;
+    }
+
+    private static int readCount(DataInputStream in) throws IOException {
+        final var count = in.readInt();
+        if (count < 0)
+            throw new IOException("Invalid length in CIM profile registry cache: " + count);
+        return count;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        final var bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static void writeNullableString(DataOutputStream out, String value) throws IOException {
+        if (value == null)
+            out.writeInt(NONE);
+        else
+            writeString(out, value);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        final var bytes = new byte[readCount(in)];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static String readNullableString(DataInputStream in) throws IOException {
+        final var length = in.readInt();
+        if (length == NONE)
+            return null;
+        if (length < 0)
+            throw new IOException("Invalid length in CIM profile registry cache: " + length);
+        final var bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
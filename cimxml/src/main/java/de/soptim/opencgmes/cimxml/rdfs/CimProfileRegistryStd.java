@@ -25,11 +25,13 @@ import org.apache.jena.datatypes.xsd.XSDDatatype;
 import org.apache.jena.datatypes.xsd.impl.RDFLangString;
 import org.apache.jena.graph.Graph;
 import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
 import org.apache.jena.query.Query;
 import org.apache.jena.query.QueryFactory;
 import org.apache.jena.riot.system.ErrorHandler;
 import org.apache.jena.riot.system.ErrorHandlerFactory;
 import org.apache.jena.sparql.exec.QueryExec;
+import org.apache.jena.vocabulary.RDFS;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
@@ -92,6 +94,9 @@ public class CimProfileRegistryStd implements CimProfileRegistry {
     private final Map<CimProfile, Map<Node, PropertyInfo>> profilePropertiesCache = new ConcurrentHashMap<>();
     private final Map<Set<CimProfile>, Map<Node, PropertyInfo>> profileSetPropertiesCache = new ConcurrentHashMap<>();
     private final Map<String, RDFDatatype> primitiveToRDFDatatypeMap;
+    /** The indexes of the cached property maps, by identity of the maps. */
+    private final Map<Map<Node, PropertyInfo>, CimPropertyIndex> propertyIndexes =
+            Collections.synchronizedMap(new IdentityHashMap<>());
 
     public final ErrorHandler errorHandler;
 
@@ -111,6 +116,13 @@ public class CimProfileRegistryStd implements CimProfileRegistry {
         this.primitiveToRDFDatatypeMap = initPrimitiveToRDFDatatypeMapUsingXSDDatatypesOnly();
     }
 
+    private static final Node CIMS_DATATYPE = NodeFactory.createURI(CimProfile.NS_CIMS + "dataType");
+    private static final Node CIMS_STEREOTYPE = NodeFactory.createURI(CimProfile.NS_CIMS + "stereotype");
+    private static final Node CIMS_ASSOCIATION_USED = NodeFactory.createURI(CimProfile.NS_CIMS + "AssociationUsed");
+    private static final Node LITERAL_YES = NodeFactory.createLiteralString("Yes");
+    private static final Node LITERAL_CIM_DATATYPE = NodeFactory.createLiteralString("CIMDatatype");
+    private static final Node LITERAL_PRIMITIVE = NodeFactory.createLiteralString("Primitive");
+
     private final static Query typedPropertiesQuery = QueryFactory.create("""
            PREFIX rdf: <http://www.w3.org/1999/02/22-rdf-syntax-ns#>
            PREFIX rdfs: <http://www.w3.org/2000/01/rdf-schema#>
@@ -151,6 +163,32 @@ public class CimProfileRegistryStd implements CimProfileRegistry {
 
     @Override
     public void register(CimProfile cimProfile) {
+        register(cimProfile, extractTypedProperties(cimProfile));
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The properties of the profiles are extracted in parallel, one profile per task, before the profiles are
+     * registered one after the other.
+     */
+    @Override
+    public void registerAll(Collection<? extends CimProfile> cimProfiles) {
+        Objects.requireNonNull(cimProfiles, "cimProfiles");
+        final var properties = cimProfiles.parallelStream()
+                .map(this::extractTypedProperties)
+                .toList();
+        var i = 0;
+        for (var cimProfile : cimProfiles) {
+            register(cimProfile, properties.get(i++));
+        }
+    }
+
+    /**
+     * Registers a profile together with its properties, which have been computed before, e.g. by a registry that
+     * wrote them to a {@link CimProfileRegistryCache}.
+     */
+    void register(CimProfile cimProfile, Map<Node, PropertyInfo> properties) {
         if (cimProfile.isHeaderProfile()) {
             final var cimVersion = cimProfile.getCIMVersion();
             if (cimVersion == CimVersion.NO_CIM)
@@ -158,7 +196,7 @@ public class CimProfileRegistryStd implements CimProfileRegistry {
             if (headerProfiles.containsKey(cimVersion))
                 throw new IllegalArgumentException("Header profile for CIM version " + cimVersion + " is already registered.");
             headerProfiles.put(cimVersion, cimProfile);
-            profilePropertiesCache.put(cimProfile, getTypedProperties(cimProfile));
+            profilePropertiesCache.put(cimProfile, properties);
             return;
         }
 
@@ -176,7 +214,14 @@ public class CimProfileRegistryStd implements CimProfileRegistry {
                 throw new IllegalArgumentException("Profile ontology with owlVersionIRIs " + owlVersionIRIs + " is already registered.");
             multiVersionIriProfiles.put(owlVersionIRIs, cimProfile);
         }
-        profilePropertiesCache.put(cimProfile, getTypedProperties(cimProfile));
+        profilePropertiesCache.put(cimProfile, properties);
+    }
+
+    /**
+     * Gets the properties of a registered profile.
+     */
+    Map<Node, PropertyInfo> getProperties(CimProfile cimProfile) {
+        return profilePropertiesCache.get(cimProfile);
     }
 
     @Override
@@ -273,6 +318,30 @@ public class CimProfileRegistryStd implements CimProfileRegistry {
         return profilePropertiesCache.get(profile);
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The index is built once per profile set and cached along with its properties.
+     */
+    @Override
+    public CimPropertyIndex getPropertyIndex(Set<Node> owlVersionIRIs) {
+        return getPropertyIndex(getPropertiesAndDatatypes(owlVersionIRIs));
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The index is built once per header profile and cached along with its properties.
+     */
+    @Override
+    public CimPropertyIndex getHeaderPropertyIndex(CimVersion version) {
+        return getPropertyIndex(getHeaderPropertiesAndDatatypes(version));
+    }
+
+    private CimPropertyIndex getPropertyIndex(Map<Node, PropertyInfo> properties) {
+        return properties == null ? null : propertyIndexes.computeIfAbsent(properties, CimPropertyIndex::new);
+    }
+
     @Override
     public Map<String, RDFDatatype> getPrimitiveToRDFDatatypeMapping() {
         return Collections.unmodifiableMap(primitiveToRDFDatatypeMap);
@@ -285,7 +354,99 @@ public class CimProfileRegistryStd implements CimProfileRegistry {
         primitiveToRDFDatatypeMap.put(cimPrimitiveTypeName, rdfDatatype);
     }
 
-    private Map<Node, PropertyInfo> getTypedProperties(Graph g) {
+    /**
+     * Extracts the typed properties of a profile graph with direct {@link Graph#find} calls. The result is the same
+     * as the one of {@link #typedPropertiesQuery}, see {@link #extractTypedPropertiesWithSparql(Graph)}: first all
+     * properties with a domain and a range, unless they are marked as unused associations, then all properties with
+     * a domain and a CIM datatype that resolves to a primitive type. If a property matches more than once, the last
+     * match wins, as it does for the query.
+     * The primitive types of the CIM datatypes are resolved once per datatype.
+     */
+    Map<Node, PropertyInfo> extractTypedProperties(Graph g) {
+        final var map = new HashMap<Node, PropertyInfo>(1024);
+        g.find(Node.ANY, RDFS.Nodes.domain, Node.ANY).forEachRemaining(domain -> {
+            final var property = domain.getSubject();
+            if (!isAssociationUsed(g, property))
+                return;
+            g.find(property, RDFS.Nodes.range, Node.ANY).forEachRemaining(range ->
+                    map.put(property, new PropertyInfo(domain.getObject(), property, null, null, range.getObject())));
+        });
+        final var primitiveTypes = new HashMap<Node, List<RDFDatatype>>();
+        g.find(Node.ANY, RDFS.Nodes.domain, Node.ANY).forEachRemaining(domain -> {
+            final var property = domain.getSubject();
+            g.find(property, CIMS_DATATYPE, Node.ANY).forEachRemaining(dataType -> {
+                final var cimDatatype = dataType.getObject();
+                final var resolved = primitiveTypes.computeIfAbsent(cimDatatype, dt -> resolvePrimitiveTypes(g, dt));
+                for (var primitiveType : resolved) {
+                    map.put(property, new PropertyInfo(domain.getObject(), property, cimDatatype, primitiveType, null));
+                }
+            });
+        });
+        return Collections.unmodifiableMap(map);
+    }
+
+    /**
+     * Checks if a property has no {@code cims:AssociationUsed} or one with the value "Yes".
+     */
+    private static boolean isAssociationUsed(Graph g, Node property) {
+        if (!g.contains(property, CIMS_ASSOCIATION_USED, Node.ANY))
+            return true;
+        return g.contains(property, CIMS_ASSOCIATION_USED, LITERAL_YES);
+    }
+
+    /**
+     * Resolves the primitive types of a CIM datatype: for a "CIMDatatype" the types of its "value" attribute, for
+     * a "Primitive" the type named by its label.
+     */
+    private List<RDFDatatype> resolvePrimitiveTypes(Graph g, Node cimDatatype) {
+        final var primitiveTypes = new ArrayList<RDFDatatype>(1);
+        if (g.contains(cimDatatype, CIMS_STEREOTYPE, LITERAL_CIM_DATATYPE)) {
+            g.find(Node.ANY, RDFS.Nodes.domain, cimDatatype).forEachRemaining(domain -> {
+                final var attribute = domain.getSubject();
+                if (!hasValueLabel(g, attribute) || !hasPrimitiveDataType(g, attribute))
+                    return;
+                g.find(attribute, CIMS_DATATYPE, Node.ANY).forEachRemaining(dataType ->
+                        addPrimitiveTypes(g, dataType.getObject(), primitiveTypes));
+            });
+        }
+        if (g.contains(cimDatatype, CIMS_STEREOTYPE, LITERAL_PRIMITIVE))
+            addPrimitiveTypes(g, cimDatatype, primitiveTypes);
+        return primitiveTypes;
+    }
+
+    private static boolean hasValueLabel(Graph g, Node attribute) {
+        for (var it = g.find(attribute, RDFS.Nodes.label, Node.ANY); it.hasNext(); ) {
+            final var label = it.next().getObject();
+            if (label.isLiteral() && "value".equals(label.getLiteralLexicalForm())) {
+                it.close();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean hasPrimitiveDataType(Graph g, Node attribute) {
+        for (var it = g.find(attribute, CIMS_DATATYPE, Node.ANY); it.hasNext(); ) {
+            if (g.contains(it.next().getObject(), CIMS_STEREOTYPE, LITERAL_PRIMITIVE)) {
+                it.close();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void addPrimitiveTypes(Graph g, Node primitive, List<RDFDatatype> primitiveTypes) {
+        g.find(primitive, RDFS.Nodes.label, Node.ANY).forEachRemaining(label -> {
+            if (label.getObject().isLiteral())
+                primitiveTypes.add(getXsdDatatype(label.getObject().getLiteralLexicalForm()));
+        });
+    }
+
+    /**
+     * Extracts the typed properties of a profile graph with the {@link #typedPropertiesQuery}. This was used before
+     * {@link #extractTypedProperties(Graph)} and is kept as the reference for it.
+     */
+    Map<Node, PropertyInfo> extractTypedPropertiesWithSparql(Graph g) {
         final var map = new HashMap<Node, PropertyInfo>(1024);
         QueryExec.graph(g)
                 .query(typedPropertiesQuery)
@@ -0,0 +1,99 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.soptim.opencgmes.cimxml.rdfs;
+
+import de.soptim.opencgmes.cimxml.rdfs.CimProfileRegistry.PropertyInfo;
+import org.apache.jena.graph.Node;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A lookup of the {@link PropertyInfo}s of a profile set by the namespace URI and local name of an XML element,
+ * as reported by the StAX parser, so that resolving a property element needs neither string concatenation nor a
+ * new {@link Node}.
+ * <p>
+ * The property IRIs are split after their last '#', '/' or ':', which is where CIMXML documents split them by
+ * their namespace prefixes. A document that declares a namespace splitting an IRI elsewhere is still resolved
+ * through {@link #get(Node)}. Instances are immutable and thread-safe.
+ */
+public final class CimPropertyIndex {
+
+    private final Map<Node, PropertyInfo> properties;
+    /** The properties by namespace URI and local name. There are only a few namespaces per profile set. */
+    private final Map<String, Map<String, PropertyInfo>> propertiesByNamespace = new HashMap<>();
+
+    /**
+     * Creates the index for the given properties.
+     * @param properties the properties and their datatypes, e.g. from
+     *                   {@link CimProfileRegistry#getPropertiesAndDatatypes(java.util.Set)}
+     */
+    public CimPropertyIndex(Map<Node, PropertyInfo> properties) {
+        this.properties = Objects.requireNonNull(properties, "properties");
+        for (var entry : properties.entrySet()) {
+            if (!entry.getKey().isURI())
+                continue;
+            final var uri = entry.getKey().getURI();
+            final var split = localNameStart(uri);
+            if (split == 0 || split == uri.length())
+                continue;
+            propertiesByNamespace
+                    .computeIfAbsent(uri.substring(0, split), ns -> new HashMap<>())
+                    .put(uri.substring(split), entry.getValue());
+        }
+    }
+
+    /**
+     * Gets the index where the local name of an IRI starts, which is after its last '#', '/' or ':'.
+     * @param iri the IRI to split into namespace and local name
+     * @return the index of the first character of the local name, or 0 if the IRI cannot be split
+     */
+    public static int localNameStart(String iri) {
+        return Math.max(iri.lastIndexOf('#'), Math.max(iri.lastIndexOf('/'), iri.lastIndexOf(':'))) + 1;
+    }
+
+    /**
+     * Gets the property with the IRI of the given namespace URI and local name.
+     * @param namespaceURI the namespace URI of the element
+     * @param localName the local name of the element
+     * @return the property, or null if there is none or the IRI is split differently
+     */
+    public PropertyInfo get(String namespaceURI, String localName) {
+        final var localNames = propertiesByNamespace.get(namespaceURI);
+        return localNames == null ? null : localNames.get(localName);
+    }
+
+    /**
+     * Gets the property with the given IRI.
+     * @param property the property IRI
+     * @return the property, or null if there is none
+     */
+    public PropertyInfo get(Node property) {
+        return properties.get(property);
+    }
+
+    /**
+     * Gets the properties this index has been built from.
+     * @return the properties and their datatypes
+     */
+    public Map<Node, PropertyInfo> getProperties() {
+        return properties;
+    }
+}
@@ -19,8 +19,10 @@
 package de.soptim.opencgmes.cimxml.sparql.core;
 
 import de.soptim.opencgmes.cimxml.CimHeaderVocabulary;
+import de.soptim.opencgmes.cimxml.graph.CimModelDiff;
 import de.soptim.opencgmes.cimxml.graph.CimModelHeader;
 import de.soptim.opencgmes.cimxml.graph.DisjointMultiUnion;
+import de.soptim.opencgmes.cimxml.graph.FastDeltaChain;
 import de.soptim.opencgmes.cimxml.graph.FastDeltaGraph;
 import org.apache.jena.graph.Graph;
 import org.apache.jena.graph.Triple;
@@ -180,8 +182,10 @@ public interface CimDatasetGraph extends DatasetGraph {
      * @return a new Graph representing the resulting FullModel - containing only the body graph
      * @throws IllegalStateException if this dataset is not a DifferenceModel
      * @throws IllegalArgumentException if the provided predecessorFullModel is not a FullModel,
-     *                                  if its Model is not in the current Model.Supersedes,
+     *                                  if its Model is not in a non-empty Model.Supersedes,
      *                                  or if it does not contain all required preconditions
+     * @see FastDeltaChain FastDeltaChain to apply a chain of difference models
+     * @see CimModelDiff CimModelDiff to compute a difference model between two full models
      */
     default Graph differenceModelToFullModel(CimDatasetGraph predecessorFullModel) {
         if (!this.isDifferenceModel())
@@ -189,7 +193,11 @@ public interface CimDatasetGraph extends DatasetGraph {
         if (!predecessorFullModel.isFullModel())
             throw new IllegalArgumentException("The provided predecessorFullModel dataset must be a FullModel. Use isFullModel() to check.");
 
-        if (this.getModelHeader().getSupersedes().contains(predecessorFullModel.getModelHeader().getModel()))
+        // Model.Supersedes is written as resource or as literal, so both forms reference the predecessor
+        var supersedes = this.getModelHeader().getSupersedes();
+        var predecessorModel = predecessorFullModel.getModelHeader().getModel();
+        if (!supersedes.isEmpty() && supersedes.stream().noneMatch(node -> node.equals(predecessorModel)
+                || (node.isLiteral() && predecessorModel.isURI() && node.getLiteralLexicalForm().equals(predecessorModel.getURI()))))
             throw new IllegalArgumentException("The provided predecessorFullModel dataset Model must be in current Model.Supersedes.");
 
         var predecessorBody = predecessorFullModel.getBody();
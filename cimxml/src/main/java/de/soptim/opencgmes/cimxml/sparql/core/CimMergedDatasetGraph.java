@@ -0,0 +1,98 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.soptim.opencgmes.cimxml.sparql.core;
+
+import de.soptim.opencgmes.cimxml.graph.PredicateRoutedUnion;
+import de.soptim.opencgmes.cimxml.rdfs.CimProfileRegistry;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.sparql.core.Quad;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Objects;
+
+/**
+ * A merged view over the FullModels of an IGM, e.g. its EQ, SSH, TP and SV models.
+ * <p>
+ * The default graph is a {@link PredicateRoutedUnion} of all bodies, and each body is also available as a
+ * named graph with the model IRI from its header as graph name. No triples are copied. Each body is routed
+ * by the properties of the profiles in its {@code md:Model.profile}, as registered in the
+ * {@link CimProfileRegistry}, so a pattern like {@code ?terminal cim:Terminal.TopologicalNode ?node} is only
+ * evaluated on the TP body. Patterns with {@code rdf:type} or another predicate that no profile declares
+ * are evaluated on all bodies, narrowed by the subject filters of the union. Bodies whose profiles are not
+ * registered are asked for every pattern.
+ * <pre>{@code
+ * var igm = new CimMergedDatasetGraph(parser.getCimProfileRegistry(), List.of(eq, ssh, tp, sv));
+ * var voltages = QueryExecutionDatasetBuilder.create()
+ *         .query(terminalToVoltageQuery)
+ *         .dataset(igm)
+ *         .select();
+ * }</pre>
+ * The bodies must conform to their profiles and must not be modified while the view is in use. Like any
+ * {@link de.soptim.opencgmes.cimxml.graph.DisjointMultiUnion}, the view does not eliminate duplicates, so a
+ * triple such as the {@code rdf:type} of an element that several models describe is found once per model.
+ */
+public final class CimMergedDatasetGraph extends LinkedCimDatasetGraph {
+
+    private final PredicateRoutedUnion union = new PredicateRoutedUnion();
+
+    /**
+     * Creates a merged view over the given FullModels.
+     * @param cimProfileRegistry the registry with the profiles of the models
+     * @param fullModels the FullModels to merge
+     * @throws IllegalArgumentException if one of the datasets is not a FullModel
+     */
+    public CimMergedDatasetGraph(CimProfileRegistry cimProfileRegistry, Collection<? extends CimDatasetGraph> fullModels) {
+        super();
+        Objects.requireNonNull(cimProfileRegistry, "cimProfileRegistry");
+        Objects.requireNonNull(fullModels, "fullModels");
+        for (var fullModel : fullModels) {
+            if (!fullModel.isFullModel())
+                throw new IllegalArgumentException("Only FullModels can be merged. Use isFullModel() to check.");
+            final var header = fullModel.getModelHeader();
+            final var body = fullModel.getBody();
+            // without a header profile, md:Model.profile is parsed as literal
+            final var profiles = new HashSet<Node>();
+            for (var profile : header.getProfiles()) {
+                profiles.add(profile.isLiteral() ? NodeFactory.createURI(profile.getLiteralLexicalForm()) : profile);
+            }
+            final var properties = profiles.isEmpty() || !cimProfileRegistry.containsProfile(profiles)
+                    ? null
+                    : cimProfileRegistry.getPropertiesAndDatatypes(profiles);
+            if (properties == null)
+                union.addGraph(body);
+            else
+                union.addGraph(body, properties.keySet());
+            addGraph(header.getModel(), body);
+            prefixes().putAll(fullModel.prefixes());
+        }
+        union.enableMemberFilters();
+        union.getPrefixMapping().setNsPrefixes(prefixes().getMapping());
+        addGraph(Quad.defaultGraphIRI, union);
+    }
+
+    /**
+     * Gets the union of all bodies, which is also the default graph.
+     * @return the routed union
+     */
+    public PredicateRoutedUnion getUnion() {
+        return union;
+    }
+}
@@ -18,6 +18,7 @@
 
 package de.soptim.opencgmes.cimxml.sparql.core;
 
+import de.soptim.opencgmes.cimxml.graph.CimMemoryReport;
 import org.apache.jena.graph.Graph;
 import org.apache.jena.graph.Node;
 import org.apache.jena.query.ReadWrite;
@@ -74,6 +75,15 @@ public class LinkedCimDatasetGraph extends DatasetGraphCollection implements Cim
         return graphs.values();
     }
 
+    /**
+     * Estimates the memory held by the graphs of this dataset. This walks all triples, so it is meant for
+     * sizing and diagnostics.
+     * @return the report
+     */
+    public CimMemoryReport getMemoryReport() {
+        return CimMemoryReport.of(this);
+    }
+
     @Override
     public Iterator<Node> listGraphNodes() {
         return graphs.keySet().iterator();
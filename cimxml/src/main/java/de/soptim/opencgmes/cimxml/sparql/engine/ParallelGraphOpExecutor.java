@@ -0,0 +1,332 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.soptim.opencgmes.cimxml.sparql.engine;
+
+import de.soptim.opencgmes.cimxml.sparql.core.CimDatasetGraph;
+import org.apache.jena.atlas.io.IndentedWriter;
+import org.apache.jena.graph.Node;
+import org.apache.jena.query.QueryCancelledException;
+import org.apache.jena.query.QueryExecException;
+import org.apache.jena.sparql.algebra.Op;
+import org.apache.jena.sparql.algebra.op.OpGraph;
+import org.apache.jena.sparql.core.Quad;
+import org.apache.jena.sparql.core.Substitute;
+import org.apache.jena.sparql.core.Var;
+import org.apache.jena.sparql.engine.ExecutionContext;
+import org.apache.jena.sparql.engine.QueryIterator;
+import org.apache.jena.sparql.engine.binding.Binding;
+import org.apache.jena.sparql.engine.binding.BindingFactory;
+import org.apache.jena.sparql.engine.iterator.QueryIter;
+import org.apache.jena.sparql.engine.iterator.QueryIterNullIterator;
+import org.apache.jena.sparql.engine.iterator.QueryIterRepeatApply;
+import org.apache.jena.sparql.engine.iterator.QueryIterSingleton;
+import org.apache.jena.sparql.engine.main.OpExecutor;
+import org.apache.jena.sparql.engine.main.OpExecutorFactory;
+import org.apache.jena.sparql.engine.main.QC;
+import org.apache.jena.sparql.serializer.SerializationContext;
+import org.apache.jena.sparql.util.Context;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * An {@link OpExecutor} that evaluates {@code GRAPH ?g { ... }} over a {@link CimDatasetGraph} with one task
+ * per named graph on a {@link ForkJoinPool}.
+ * <p>
+ * The results of the graphs are returned in the order of {@link CimDatasetGraph#listGraphNodes()}, the same
+ * order as the standard executor uses, so {@code ORDER BY}, {@code LIMIT} and {@code OFFSET} above the
+ * {@code GRAPH} pattern see the same solutions. Each graph task hands its results over through a small
+ * bounded queue, so it waits once it is a few hundred bindings ahead of the consumer. A {@code LIMIT} does
+ * not close the pattern below it, so the tasks are stopped when the query execution is closed; until then
+ * they hold no more than their queues. {@code GRAPH <iri>} patterns and queries over other datasets are
+ * evaluated by the standard executor.
+ * <p>
+ * The tasks read the graphs of the dataset from the pool threads, so the graphs must support concurrent
+ * reads, which all graphs built by the parser do. The executor is enabled per query or globally:
+ * <pre>{@code
+ * ParallelGraphOpExecutor.enable(ARQ.getContext());
+ * }</pre>
+ */
+public class ParallelGraphOpExecutor extends OpExecutor {
+
+    private final ForkJoinPool pool;
+
+    protected ParallelGraphOpExecutor(ExecutionContext execCxt, ForkJoinPool pool) {
+        super(execCxt);
+        this.pool = pool;
+    }
+
+    /**
+     * Creates a factory for executors that use the common pool.
+     * @return the executor factory
+     */
+    public static OpExecutorFactory factory() {
+        return factory(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates a factory for executors that use the given pool.
+     * @param pool the pool to evaluate the graph tasks on
+     * @return the executor factory
+     */
+    public static OpExecutorFactory factory(ForkJoinPool pool) {
+        Objects.requireNonNull(pool, "pool");
+        return execCxt -> new ParallelGraphOpExecutor(execCxt, pool);
+    }
+
+    /**
+     * Enables the executor with the common pool in the given context, which may be the global
+     * {@code ARQ.getContext()} or the context of a single query execution.
+     * @param context the context to enable the executor in
+     */
+    public static void enable(Context context) {
+        QC.setFactory(context, factory());
+    }
+
+    @Override
+    protected QueryIterator execute(OpGraph opGraph, QueryIterator input) {
+        if (!(execCxt.getDataset() instanceof CimDatasetGraph) || !Var.isVar(opGraph.getNode()))
+            return super.execute(opGraph, input);
+        return new QueryIterParallelGraph(input, opGraph, execCxt, pool);
+    }
+
+    private static class QueryIterParallelGraph extends QueryIterRepeatApply {
+
+        private final OpGraph opGraph;
+        private final ForkJoinPool pool;
+
+        QueryIterParallelGraph(QueryIterator input, OpGraph opGraph, ExecutionContext execCxt, ForkJoinPool pool) {
+            super(input, execCxt);
+            this.opGraph = opGraph;
+            this.pool = pool;
+        }
+
+        @Override
+        protected QueryIterator nextStage(Binding binding) {
+            final var dataset = getExecContext().getDataset();
+            final var var = Var.alloc(opGraph.getNode());
+            final var graphNames = new ArrayList<Node>();
+            final var bound = binding.get(var);
+            // the names are only listed, since containsGraph would look into every graph on the query thread
+            dataset.listGraphNodes().forEachRemaining(graphName -> {
+                if ((bound == null || bound.equals(graphName))
+                        && (graphName.isURI() || graphName.isBlank())
+                        && !Quad.isDefaultGraph(graphName)
+                        && !Quad.isUnionGraph(graphName))
+                    graphNames.add(graphName);
+            });
+            if (graphNames.isEmpty())
+                return QueryIterNullIterator.create(getExecContext());
+            final var op = Substitute.substitute(opGraph.getSubOp(), binding);
+            return new QueryIterGraphTasks(binding, var, graphNames, op, pool, getExecContext());
+        }
+
+        @Override
+        protected void details(IndentedWriter out, SerializationContext sCxt) {
+            out.println("ParallelGraph " + opGraph.getNode());
+        }
+    }
+
+    /**
+     * Evaluates the sub-plan on each graph in its own task and returns the results graph by graph.
+     * Each task hands its bindings over in chunks through a small bounded queue, so it runs at most
+     * {@value #CHUNKS_PER_GRAPH} chunks ahead of the consumer and stops when the iterator is closed.
+     */
+    private static class QueryIterGraphTasks extends QueryIter {
+
+        private static final int BINDINGS_PER_CHUNK = 64;
+        private static final int CHUNKS_PER_GRAPH = 4;
+        private static final List<Binding> END = new ArrayList<>(0);
+
+        private final List<GraphResults> results;
+        private final AtomicBoolean closed = new AtomicBoolean(false);
+        private final AtomicBoolean cancelled = new AtomicBoolean(false);
+        private Iterator<Binding> current = Collections.emptyIterator();
+        private int next = 0;
+
+        QueryIterGraphTasks(Binding parent, Var var, List<Node> graphNames, Op op, ForkJoinPool pool,
+                            ExecutionContext execCxt) {
+            super(execCxt);
+            this.results = new ArrayList<>(graphNames.size());
+            for (var graphName : graphNames) {
+                final var graphResults = new GraphResults();
+                results.add(graphResults);
+                graphResults.task = pool.submit(() -> evaluate(parent, var, graphName, op, execCxt, graphResults));
+            }
+        }
+
+        private void evaluate(Binding parent, Var var, Node graphName, Op op, ExecutionContext outer,
+                              GraphResults graphResults) {
+            try {
+                if (isStopped())
+                    return;
+                // a context of its own, since the open iterators of an execution context are not thread-safe
+                final var execCxt = ExecutionContext.create(outer.getDataset(),
+                        outer.getDataset().getGraph(graphName), outer.getContext());
+                execCxt.setExecutor(outer.getExecutor());
+                final var iterator = QC.execute(op, QueryIterSingleton.create(parent, execCxt), execCxt);
+                try {
+                    var chunk = new ArrayList<Binding>(BINDINGS_PER_CHUNK);
+                    while (!isStopped() && iterator.hasNext()) {
+                        final var binding = iterator.nextBinding();
+                        final var value = binding.get(var);
+                        if (value == null)
+                            chunk.add(BindingFactory.binding(binding, var, graphName));
+                        else if (value.equals(graphName))
+                            chunk.add(binding);
+                        if (chunk.size() == BINDINGS_PER_CHUNK) {
+                            graphResults.put(chunk);
+                            chunk = new ArrayList<>(BINDINGS_PER_CHUNK);
+                        }
+                    }
+                    if (!chunk.isEmpty() && !isStopped())
+                        graphResults.put(chunk);
+                } finally {
+                    iterator.close();
+                }
+            } catch (Throwable t) {
+                graphResults.failure = t;
+            } finally {
+                // once closed, nobody waits for the end anymore
+                if (!closed.get())
+                    graphResults.put(END);
+            }
+        }
+
+        private boolean isStopped() {
+            return closed.get() || cancelled.get();
+        }
+
+        @Override
+        protected boolean hasNextBinding() {
+            while (!current.hasNext()) {
+                if (next == results.size())
+                    return false;
+                final var graphResults = results.get(next);
+                final var chunk = graphResults.take();
+                if (chunk == END) {
+                    results.set(next++, null);
+                    rethrow(graphResults.failure);
+                } else {
+                    current = chunk.iterator();
+                }
+            }
+            return true;
+        }
+
+        private static void rethrow(Throwable failure) {
+            if (failure == null)
+                return;
+            if (failure instanceof RuntimeException runtimeException)
+                throw runtimeException;
+            if (failure instanceof Error error)
+                throw error;
+            throw new QueryExecException(failure);
+        }
+
+        @Override
+        protected Binding moveToNextBinding() {
+            return current.next();
+        }
+
+        @Override
+        protected void closeIterator() {
+            closed.set(true);
+            for (int i = next; i < results.size(); i++) {
+                final var graphResults = results.get(i);
+                graphResults.task.cancel(false);
+                // releases a task blocked on a full queue, which then sees that the iterator is closed
+                graphResults.chunks.clear();
+            }
+            current = Collections.emptyIterator();
+            next = results.size();
+        }
+
+        @Override
+        protected void requestCancel() {
+            cancelled.set(true);
+        }
+    }
+
+    /**
+     * The bounded hand-off of the binding chunks of one graph. Waiting tasks are managed blockers,
+     * so the pool can compensate for pool threads that wait for a slow consumer.
+     */
+    private static final class GraphResults {
+        private final BlockingQueue<List<Binding>> chunks =
+                new ArrayBlockingQueue<>(QueryIterGraphTasks.CHUNKS_PER_GRAPH);
+        private volatile Throwable failure;
+        private ForkJoinTask<?> task;
+
+        void put(List<Binding> chunk) {
+            block(new ForkJoinPool.ManagedBlocker() {
+                @Override
+                public boolean block() throws InterruptedException {
+                    chunks.put(chunk);
+                    return true;
+                }
+
+                @Override
+                public boolean isReleasable() {
+                    return chunks.offer(chunk);
+                }
+            });
+        }
+
+        List<Binding> take() {
+            final var taken = new ArrayList<List<Binding>>(1);
+            block(new ForkJoinPool.ManagedBlocker() {
+                @Override
+                public boolean block() throws InterruptedException {
+                    if (taken.isEmpty())
+                        taken.add(chunks.take());
+                    return true;
+                }
+
+                @Override
+                public boolean isReleasable() {
+                    if (taken.isEmpty()) {
+                        final var chunk = chunks.poll();
+                        if (chunk != null)
+                            taken.add(chunk);
+                    }
+                    return !taken.isEmpty();
+                }
+            });
+            return taken.get(0);
+        }
+
+        private static void block(ForkJoinPool.ManagedBlocker blocker) {
+            try {
+                ForkJoinPool.managedBlock(blocker);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new QueryCancelledException();
+            }
+        }
+    }
+}
@@ -0,0 +1,534 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.soptim.opencgmes.cimxml.writer;
+
+import de.soptim.opencgmes.cimxml.CimHeaderVocabulary;
+import de.soptim.opencgmes.cimxml.CimXmlDocumentContext;
+import de.soptim.opencgmes.cimxml.graph.FastDeltaGraph;
+import de.soptim.opencgmes.cimxml.sparql.core.CimDatasetGraph;
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.riot.RiotException;
+import org.apache.jena.vocabulary.RDF;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * IEC 61970-552 CIMXML writer for FullModel and DifferenceModel datasets.
+ *
+ * <p>The writer produces the layout that CIM tools expect, which the generic RDF/XML writer of Jena does not:</p>
+ * <ul>
+ *   <li>one node element per subject, named after its {@code rdf:type}</li>
+ *   <li>{@code rdf:ID="_uuid"} for the elements of a FullModel body and {@code rdf:about="#_uuid"}
+ *       inside the containers of a DifferenceModel</li>
+ *   <li>{@code rdf:resource="#_uuid"} for references to {@code urn:uuid} resources</li>
+ *   <li>the {@code md:FullModel} or {@code dm:DifferenceModel} header first, followed by the
+ *       {@code dm:forwardDifferences}, {@code dm:reverseDifferences} and {@code dm:preconditions} containers</li>
+ * </ul>
+ *
+ * <p>The triples of each graph are grouped by subject with the subject index of the graph, so no sorted copy
+ * of a graph is made, and the XML is written directly to a buffered {@link Writer}. To visit each subject once,
+ * the writer keeps a set of the subjects already seen, which holds references to the nodes of the graph and
+ * grows with the number of subjects, not triples. Literals are written by
+ * their lexical form without {@code rdf:datatype}, as is usual in CIMXML; the parser restores the datatypes
+ * from the profiles. Of the header graph, only the properties of the model itself are written.</p>
+ *
+ * <p>With a parallelism above 1, graphs with more than {@value #SUBJECTS_PER_SHARD} subjects are split into
+ * shards of subjects that are rendered on several threads and written in order. A lazy index of the graph is
+ * built before the shards are rendered, see {@link FastDeltaGraph#initializeIndex(Graph)}.</p>
+ *
+ * <h2>Usage Example:</h2>
+ * <pre>{@code
+ * CimDatasetGraph differenceModel = CimModelDiff.compute(yesterday, today);
+ * new CimXmlWriter().write(differenceModel, Path.of("difference.xml"));
+ *
+ * // Render the body of a very large FullModel on all processors
+ * new CimXmlWriter(Runtime.getRuntime().availableProcessors()).write(merged, Path.of("merged-EQ.xml"));
+ * }</pre>
+ *
+ * <h2>Thread Safety:</h2>
+ * <p>This class is thread-safe; each call to {@code write} uses its own state.</p>
+ *
+ * @see CimXmlDocumentContext
+ */
+public class CimXmlWriter {
+
+    /** The number of subjects rendered by one thread at a time, if the output is sharded. */
+    public static final int SUBJECTS_PER_SHARD = 4096;
+
+    private static final String NS_RDF = RDF.getURI();
+    private static final String URN_UUID = "urn:uuid:";
+    private static final int UUID_LENGTH = 36;
+    private static final String INDENT = "  ";
+
+    private final int parallelism;
+
+    /**
+     * Creates a writer that writes on the calling thread.
+     */
+    public CimXmlWriter() {
+        this(1);
+    }
+
+    /**
+     * Creates a writer that renders large graphs on up to {@code parallelism} threads.
+     * @param parallelism the maximum number of threads rendering shards of a graph, at least 1
+     */
+    public CimXmlWriter(final int parallelism) {
+        if (parallelism < 1)
+            throw new IllegalArgumentException("parallelism must be at least 1");
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Writes the dataset as UTF-8 encoded CIMXML file.
+     * @param dataset the FullModel or DifferenceModel
+     * @param path the path of the file, which is created or overwritten
+     * @throws IOException if an I/O error occurs
+     */
+    public void write(final CimDatasetGraph dataset, final Path path) throws IOException {
+        Objects.requireNonNull(path, "path");
+        try (final var writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            write(dataset, writer);
+        }
+    }
+
+    /**
+     * Writes the dataset as UTF-8 encoded CIMXML to the stream, which is flushed but not closed.
+     * @param dataset the FullModel or DifferenceModel
+     * @param outputStream the stream to write to
+     * @throws IOException if an I/O error occurs
+     */
+    public void write(final CimDatasetGraph dataset, final OutputStream outputStream) throws IOException {
+        Objects.requireNonNull(outputStream, "outputStream");
+        final var writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), 1 << 16);
+        write(dataset, writer);
+        writer.flush();
+    }
+
+    /**
+     * Writes the dataset as CIMXML to the writer, which is neither flushed nor closed.
+     * The XML declaration states UTF-8, so the writer should encode with UTF-8.
+     * @param dataset the FullModel or DifferenceModel
+     * @param writer the writer to write to, preferably buffered
+     * @throws IOException if an I/O error occurs
+     * @throws IllegalArgumentException if the dataset is neither a FullModel nor a DifferenceModel,
+     *                                  or if a predicate cannot be written as XML element name
+     */
+    public void write(final CimDatasetGraph dataset, final Writer writer) throws IOException {
+        Objects.requireNonNull(dataset, "dataset");
+        Objects.requireNonNull(writer, "writer");
+        final var isFullModel = dataset.isFullModel();
+        if (!isFullModel && !dataset.isDifferenceModel())
+            throw new IllegalArgumentException("Only FullModels and DifferenceModels can be written. Use isFullModel() or isDifferenceModel() to check.");
+
+        final var header = dataset.getModelHeader();
+        final var namespaces = new Namespaces();
+        namespaces.declare(NS_RDF, "rdf");
+        namespaces.declare(CimHeaderVocabulary.NS_MD, "md");
+        if (!isFullModel)
+            namespaces.declare(CimHeaderVocabulary.NS_DM, "dm");
+        header.getPrefixMapping().getNsPrefixMap().forEach((prefix, uri) -> namespaces.declare(uri, prefix));
+        dataset.prefixes().getMapping().forEach((prefix, uri) -> namespaces.declare(uri, prefix));
+
+        writer.write("<?xml version=\"1.0\" encoding=\"utf-8\"?>\n<rdf:RDF");
+        for (var namespace : namespaces.declared()) {
+            writer.write("\n    xmlns:");
+            writer.write(namespace.getValue());
+            writer.write("=\"");
+            escapeAttribute(namespace.getKey(), writer);
+            writer.write('"');
+        }
+        writer.write(">\n");
+
+        final var model = header.getModel();
+        final var modelType = isFullModel ? CimHeaderVocabulary.TYPE_FULL_MODEL : CimHeaderVocabulary.TYPE_DIFFERENCE_MODEL;
+        final var modelElement = namespaces.qName(modelType);
+        writer.write(INDENT);
+        writer.write('<');
+        writer.write(modelElement);
+        final var headerContext = isFullModel ? CimXmlDocumentContext.fullModel : CimXmlDocumentContext.differenceModel;
+        writeSubjectAttribute(model, headerContext, writer);
+        writer.write(">\n");
+        final var headerRenderer = new NodeRenderer(namespaces, headerContext, INDENT + INDENT);
+        final var modelProperties = header.find(model, Node.ANY, Node.ANY);
+        try {
+            while (modelProperties.hasNext()) {
+                final var triple = modelProperties.next();
+                if (!(triple.predicateMatches(RDF.type.asNode()) && triple.objectMatches(modelType)))
+                    headerRenderer.writeProperty(triple, writer);
+            }
+        } finally {
+            modelProperties.close();
+        }
+
+        if (isFullModel) {
+            writer.write(INDENT);
+            writer.write("</");
+            writer.write(modelElement);
+            writer.write(">\n");
+            writeGraph(dataset.getBody(), new NodeRenderer(namespaces, CimXmlDocumentContext.body, INDENT), writer);
+        } else {
+            writeContainer(dataset.getForwardDifferences(), CimXmlDocumentContext.forwardDifferences,
+                    CimHeaderVocabulary.GRAPH_FORWARD_DIFFERENCES, namespaces, writer);
+            writeContainer(dataset.getReverseDifferences(), CimXmlDocumentContext.reverseDifferences,
+                    CimHeaderVocabulary.GRAPH_REVERSE_DIFFERENCES, namespaces, writer);
+            writeContainer(dataset.getPreconditions(), CimXmlDocumentContext.preconditions,
+                    CimHeaderVocabulary.GRAPH_PRECONDITIONS, namespaces, writer);
+            writer.write(INDENT);
+            writer.write("</");
+            writer.write(modelElement);
+            writer.write(">\n");
+        }
+        writer.write("</rdf:RDF>\n");
+    }
+
+    private void writeContainer(final Graph graph, final CimXmlDocumentContext context, final Node containerName,
+                                final Namespaces namespaces, final Writer writer) throws IOException {
+        if (graph == null || graph.isEmpty())
+            return;
+        final var containerElement = namespaces.qName(containerName);
+        writer.write(INDENT + INDENT + "<");
+        writer.write(containerElement);
+        writer.write(" rdf:parseType=\"Statements\">\n");
+        writeGraph(graph, new NodeRenderer(namespaces, context, INDENT + INDENT + INDENT), writer);
+        writer.write(INDENT + INDENT + "</");
+        writer.write(containerElement);
+        writer.write(">\n");
+    }
+
+    /**
+     * Writes one node element per subject of the graph, rendering shards of subjects in parallel
+     * if the parallelism allows it and the graph has more than one shard.
+     */
+    private void writeGraph(final Graph graph, final NodeRenderer renderer, final Writer writer) throws IOException {
+        final var subjects = graph.stream().map(Triple::getSubject).distinct().iterator();
+        if (parallelism == 1) {
+            while (subjects.hasNext())
+                renderer.writeNode(graph, subjects.next(), writer);
+            return;
+        }
+        var shard = nextShard(subjects);
+        if (!subjects.hasNext()) {
+            for (var subject : shard)
+                renderer.writeNode(graph, subject, writer);
+            return;
+        }
+        // the shards call find on several threads, which must not build a lazy index concurrently
+        FastDeltaGraph.initializeIndex(graph);
+        try (final var executor = Executors.newFixedThreadPool(parallelism)) {
+            // a window of rendered shards keeps all threads busy while the shards are written in order
+            final var pending = new ArrayDeque<Future<String>>();
+            while (!shard.isEmpty()) {
+                final var subjectsOfShard = shard;
+                pending.add(executor.submit(() -> {
+                    final var builder = new StringBuilder(subjectsOfShard.size() * 256);
+                    for (var subject : subjectsOfShard)
+                        renderer.writeNode(graph, subject, builder);
+                    return builder.toString();
+                }));
+                if (pending.size() >= 2 * parallelism)
+                    writer.write(getResult(pending.poll()));
+                shard = nextShard(subjects);
+            }
+            while (!pending.isEmpty())
+                writer.write(getResult(pending.poll()));
+        }
+    }
+
+    private static List<Node> nextShard(final Iterator<Node> subjects) {
+        final var shard = new ArrayList<Node>(SUBJECTS_PER_SHARD);
+        while (shard.size() < SUBJECTS_PER_SHARD && subjects.hasNext())
+            shard.add(subjects.next());
+        return shard;
+    }
+
+    private static String getResult(final Future<String> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the CIMXML writer");
+        } catch (ExecutionException e) {
+            final var cause = e.getCause();
+            if (cause instanceof IOException ioException)
+                throw ioException;
+            if (cause instanceof RuntimeException runtimeException)
+                throw runtimeException;
+            if (cause instanceof Error error)
+                throw error;
+            throw new RiotException(cause);
+        }
+    }
+
+    private static void writeSubjectAttribute(final Node subject, final CimXmlDocumentContext context,
+                                              final Appendable out) throws IOException {
+        if (subject.isBlank()) {
+            out.append(" rdf:nodeID=\"");
+            appendNodeId(subject, out);
+        } else if (!subject.isURI()) {
+            throw new IllegalArgumentException("Subject cannot be written to CIMXML: " + subject);
+        } else if (isCimUuid(subject.getURI()) && context == CimXmlDocumentContext.body) {
+            out.append(" rdf:ID=\"_");
+            out.append(subject.getURI(), URN_UUID.length(), subject.getURI().length());
+        } else if (isCimUuid(subject.getURI()) && !isHeader(context)) {
+            out.append(" rdf:about=\"#_");
+            out.append(subject.getURI(), URN_UUID.length(), subject.getURI().length());
+        } else {
+            out.append(" rdf:about=\"");
+            escapeAttribute(subject.getURI(), out);
+        }
+        out.append('"');
+    }
+
+    private static boolean isHeader(final CimXmlDocumentContext context) {
+        return context == CimXmlDocumentContext.fullModel || context == CimXmlDocumentContext.differenceModel;
+    }
+
+    private static boolean isCimUuid(final String uri) {
+        return uri.length() == URN_UUID.length() + UUID_LENGTH && uri.startsWith(URN_UUID);
+    }
+
+    private static void appendNodeId(final Node blankNode, final Appendable out) throws IOException {
+        // blank node labels are not necessarily NCNames, so they are written hex encoded
+        out.append('b');
+        final var label = blankNode.getBlankNodeLabel();
+        for (int i = 0; i < label.length(); i++) {
+            out.append(Integer.toHexString(label.charAt(i)));
+            out.append('.');
+        }
+    }
+
+    /**
+     * Renders node elements and their property elements for one context of the document.
+     */
+    private static final class NodeRenderer {
+        private final Namespaces namespaces;
+        private final CimXmlDocumentContext context;
+        private final String indent;
+        private final String propertyIndent;
+
+        private NodeRenderer(final Namespaces namespaces, final CimXmlDocumentContext context, final String indent) {
+            this.namespaces = namespaces;
+            this.context = context;
+            this.indent = indent;
+            this.propertyIndent = isHeader(context) ? indent : indent + INDENT;
+        }
+
+        void writeNode(final Graph graph, final Node subject, final Appendable out) throws IOException {
+            // the first rdf:type with a declared namespace becomes the element name
+            Triple typeTriple = null;
+            String element = null;
+            final var types = graph.find(subject, RDF.type.asNode(), Node.ANY);
+            try {
+                while (types.hasNext() && element == null) {
+                    final var candidate = types.next();
+                    if (candidate.getObject().isURI())
+                        element = namespaces.declaredQName(candidate.getObject());
+                    if (element != null)
+                        typeTriple = candidate;
+                }
+            } finally {
+                types.close();
+            }
+            if (element == null)
+                element = "rdf:Description";
+
+            out.append(indent).append('<').append(element);
+            writeSubjectAttribute(subject, context, out);
+            out.append(">\n");
+            final var properties = graph.find(subject, Node.ANY, Node.ANY);
+            try {
+                while (properties.hasNext()) {
+                    final var triple = properties.next();
+                    if (!triple.equals(typeTriple))
+                        writeProperty(triple, out);
+                }
+            } finally {
+                properties.close();
+            }
+            out.append(indent).append("</").append(element).append(">\n");
+        }
+
+        void writeProperty(final Triple triple, final Appendable out) throws IOException {
+            final var predicate = triple.getPredicate();
+            var element = namespaces.declaredQName(predicate);
+            String localNamespace = null;
+            if (element == null) {
+                // an undeclared namespace is declared on the property element itself
+                final var split = Namespaces.split(predicate);
+                if (split < 0)
+                    throw new IllegalArgumentException("Predicate cannot be written as XML element name: " + predicate);
+                element = "j.0:" + predicate.getURI().substring(split);
+                localNamespace = predicate.getURI().substring(0, split);
+            }
+            out.append(propertyIndent).append('<').append(element);
+            if (localNamespace != null) {
+                out.append(" xmlns:j.0=\"");
+                escapeAttribute(localNamespace, out);
+                out.append('"');
+            }
+            final var object = triple.getObject();
+            if (object.isLiteral()) {
+                final var language = object.getLiteralLanguage();
+                if (language != null && !language.isEmpty()) {
+                    out.append(" xml:lang=\"");
+                    escapeAttribute(language, out);
+                    out.append('"');
+                }
+                out.append('>');
+                escapeText(object.getLiteralLexicalForm(), out);
+                out.append("</").append(element).append(">\n");
+            } else if (object.isBlank()) {
+                out.append(" rdf:nodeID=\"");
+                appendNodeId(object, out);
+                out.append("\"/>\n");
+            } else if (object.isURI()) {
+                final var uri = object.getURI();
+                if (isCimUuid(uri) && !isHeader(context)) {
+                    out.append(" rdf:resource=\"#_");
+                    out.append(uri, URN_UUID.length(), uri.length());
+                } else {
+                    out.append(" rdf:resource=\"");
+                    escapeAttribute(uri, out);
+                }
+                out.append("\"/>\n");
+            } else {
+                throw new IllegalArgumentException("Object cannot be written to CIMXML: " + object);
+            }
+        }
+    }
+
+    /**
+     * The namespaces declared on the rdf:RDF element and the cached qualified names of the URIs in them.
+     */
+    private static final class Namespaces {
+        private static final String NOT_DECLARED = "";
+
+        private final Map<String, String> prefixByNamespace = new LinkedHashMap<>();
+        private final Set<String> prefixes = new HashSet<>();
+        private final Map<Node, String> qNames = new ConcurrentHashMap<>();
+
+        void declare(final String namespace, final String preferredPrefix) {
+            if (prefixByNamespace.containsKey(namespace) || !isNCName(preferredPrefix) || preferredPrefix.startsWith("xml"))
+                return;
+            var prefix = preferredPrefix;
+            for (int i = 1; prefixes.contains(prefix); i++)
+                prefix = preferredPrefix + i;
+            prefixByNamespace.put(namespace, prefix);
+            prefixes.add(prefix);
+        }
+
+        Collection<Map.Entry<String, String>> declared() {
+            return prefixByNamespace.entrySet();
+        }
+
+        String qName(final Node uri) {
+            final var qName = declaredQName(uri);
+            if (qName == null)
+                throw new IllegalStateException("Namespace is not declared: " + uri);
+            return qName;
+        }
+
+        /** Gets the qualified name of the URI, or null if its namespace is not declared. */
+        String declaredQName(final Node uri) {
+            final var qName = qNames.computeIfAbsent(uri, node -> {
+                final var split = split(node);
+                if (split < 0)
+                    return NOT_DECLARED;
+                final var prefix = prefixByNamespace.get(node.getURI().substring(0, split));
+                return prefix == null ? NOT_DECLARED : prefix + ":" + node.getURI().substring(split);
+            });
+            return qName == NOT_DECLARED ? null : qName;
+        }
+
+        /** Gets the start of the local name after the last '#' or '/', or -1 if it is not an NCName. */
+        static int split(final Node uri) {
+            final var s = uri.getURI();
+            final var split = Math.max(s.lastIndexOf('#'), s.lastIndexOf('/')) + 1;
+            return split > 0 && isNCName(s.substring(split)) ? split : -1;
+        }
+
+        static boolean isNCName(final String s) {
+            if (s.isEmpty())
+                return false;
+            final var first = s.charAt(0);
+            if (!(Character.isLetter(first) || first == '_'))
+                return false;
+            for (int i = 1; i < s.length(); i++) {
+                final var c = s.charAt(i);
+                if (!(Character.isLetterOrDigit(c) || c == '_' || c == '-' || c == '.'))
+                    return false;
+            }
+            return true;
+        }
+    }
+
+    private static void escapeText(final String s, final Appendable out) throws IOException {
+        var start = 0;
+        for (int i = 0; i < s.length(); i++) {
+            final String replacement = switch (s.charAt(i)) {
+                case '&' -> "&amp;";
+                case '<' -> "&lt;";
+                case '>' -> "&gt;";
+                case '\r' -> "&#13;";
+                default -> null;
+            };
+            if (replacement != null) {
+                out.append(s, start, i).append(replacement);
+                start = i + 1;
+            }
+        }
+        out.append(s, start, s.length());
+    }
+
+    private static void escapeAttribute(final String s, final Appendable out) throws IOException {
+        var start = 0;
+        for (int i = 0; i < s.length(); i++) {
+            final String replacement = switch (s.charAt(i)) {
+                case '&' -> "&amp;";
+                case '<' -> "&lt;";
+                case '"' -> "&quot;";
+                case '\n' -> "&#10;";
+                case '\r' -> "&#13;";
+                case '\t' -> "&#9;";
+                default -> null;
+            };
+            if (replacement != null) {
+                out.append(s, start, i).append(replacement);
+                start = i + 1;
+            }
+        }
+        out.append(s, start, s.length());
+    }
+}
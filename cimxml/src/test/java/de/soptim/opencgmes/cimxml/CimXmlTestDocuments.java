@@ -0,0 +1,64 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.soptim.opencgmes.cimxml;
+
+import java.util.function.IntFunction;
+
+/**
+ * CIMXML documents shared by the tests.
+ */
+public final class CimXmlTestDocuments {
+
+    private CimXmlTestDocuments() {
+    }
+
+    /**
+     * Creates a FullModel document with the cim, md and rdf namespaces.
+     * @param model the IRI of the model, e.g. {@code urn:uuid:...}
+     * @param profile the {@code md:Model.profile} of the header, or null for a header without properties
+     * @param body the elements of the body
+     * @return the CIMXML document
+     */
+    public static String fullModel(String model, String profile, String body) {
+        final var header = profile == null
+                ? " <md:FullModel rdf:about=\"%s\"/>\n".formatted(model)
+                : """
+                 <md:FullModel rdf:about="%s">
+                   <md:Model.profile>%s</md:Model.profile>
+                 </md:FullModel>
+                """.formatted(model, profile);
+        return """
+            <?xml version="1.0" encoding="utf-8"?>
+            <rdf:RDF xmlns:cim="http://iec.ch/TC57/CIM100#" xmlns:md="http://iec.ch/TC57/61970-552/ModelDescription/1#" xmlns:rdf="http://www.w3.org/1999/02/22-rdf-syntax-ns#">
+            """ + header + body + "</rdf:RDF>\n";
+    }
+
+    /**
+     * Concatenates the given number of generated elements, e.g. for the body of a large model.
+     * @param count the number of elements
+     * @param element creates the element with the given index
+     * @return the elements
+     */
+    public static String elements(int count, IntFunction<String> element) {
+        final var elements = new StringBuilder();
+        for (int i = 0; i < count; i++)
+            elements.append(element.apply(i));
+        return elements.toString();
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.soptim.opencgmes.cimxml.graph;
+
+import de.soptim.opencgmes.cimxml.CimHeaderVocabulary;
+import de.soptim.opencgmes.cimxml.CimVersion;
+import de.soptim.opencgmes.cimxml.parser.ReaderCIMXML_StAX_SR;
+import de.soptim.opencgmes.cimxml.parser.system.StreamCIMXMLToDatasetGraph;
+import de.soptim.opencgmes.cimxml.sparql.core.CimDatasetGraph;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.mem2.GraphMem2Roaring;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+
+import static org.junit.Assert.*;
+
+public class TestCimDatasetSnapshot {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private static CimDatasetGraph parse(String rdfxml) {
+        final var streamRDF = new StreamCIMXMLToDatasetGraph();
+        new ReaderCIMXML_StAX_SR().read(new StringReader(rdfxml), streamRDF);
+        return streamRDF.getCIMDatasetGraph();
+    }
+
+    private static void assertSameGraphs(CimDatasetGraph expected, CimDatasetGraph actual) {
+        expected.listGraphNodes().forEachRemaining(graphName -> {
+            assertTrue(graphName.toString(), actual.containsGraph(graphName));
+            assertTrue(graphName.toString(), expected.getGraph(graphName).isIsomorphicWith(actual.getGraph(graphName)));
+            assertEquals(expected.getGraph(graphName).getPrefixMapping().getNsPrefixMap(),
+                    actual.getGraph(graphName).getPrefixMapping().getNsPrefixMap());
+        });
+        assertEquals(expected.prefixes().getMapping(), actual.prefixes().getMapping());
+    }
+
+    @Test
+    public void writeAndReadFullModel() throws IOException {
+        final var dataset = parse("""
+            <?xml version="1.0" encoding="utf-8"?>
+            <rdf:RDF xmlns:cim="http://iec.ch/TC57/CIM100#" xmlns:md="http://iec.ch/TC57/61970-552/ModelDescription/1#" xmlns:rdf="http://www.w3.org/1999/02/22-rdf-syntax-ns#">
+             <md:FullModel rdf:about="urn:uuid:08984e27-811f-4042-9125-1531ae0de0f6">
+               <md:Model.profile>http://soptim.de/CIM/MyProfile/1.1</md:Model.profile>
+             </md:FullModel>
+             <cim:MyEquipment rdf:ID="_f67fc354-9e39-4191-a456-67537399bc48">
+               <cim:IdentifiedObject.name xml:lang="de">Betriebsmittel</cim:IdentifiedObject.name>
+               <cim:IdentifiedObject.description>Equipment with a 😀 in its description</cim:IdentifiedObject.description>
+               <cim:MyEquipment.MyReference rdf:resource="#_d597b77bc8c44d88883ef516eedb913b" />
+               <cim:MyEquipment.Other rdf:resource="http://example.org/not-a-uuid" />
+               <cim:MyEquipment.Nested>
+                 <cim:MyNested>
+                   <cim:MyNested.value>42</cim:MyNested.value>
+                 </cim:MyNested>
+               </cim:MyEquipment.Nested>
+             </cim:MyEquipment>
+            </rdf:RDF>
+            """);
+        final var file = temporaryFolder.getRoot().toPath().resolve("model.snapshot");
+
+        CimDatasetSnapshot.write(dataset, file);
+        final var reloaded = CimDatasetSnapshot.read(file);
+
+        assertTrue(reloaded.isFullModel());
+        assertSameGraphs(dataset, reloaded);
+        assertEquals("urn:uuid:08984e27-811f-4042-9125-1531ae0de0f6", reloaded.getModelHeader().getModel().getURI());
+        assertTrue(reloaded.getGraph(CimHeaderVocabulary.TYPE_FULL_MODEL) instanceof GraphMem2Roaring);
+        final var body = (DictionaryGraph) reloaded.getBody();
+        assertTrue(body.isIndexInitialized());
+        assertTrue(body.contains(
+                NodeFactory.createURI("urn:uuid:f67fc354-9e39-4191-a456-67537399bc48"),
+                NodeFactory.createURI("http://iec.ch/TC57/CIM100#IdentifiedObject.name"),
+                NodeFactory.createLiteralLang("Betriebsmittel", "de")));
+        assertEquals(CimVersion.CIM_17, CimDatasetSnapshot.readCimVersion(file));
+
+        // the reloaded graphs can still be changed
+        final var added = Triple.create(
+                NodeFactory.createURI("urn:uuid:135c601e-bad4-4872-ba8f-b15baf91bd2f"),
+                NodeFactory.createURI("http://iec.ch/TC57/CIM100#IdentifiedObject.name"),
+                NodeFactory.createLiteralString("added"));
+        body.add(added);
+        assertTrue(body.contains(added));
+        assertEquals(dataset.getBody().size() + 1, body.size());
+        assertFalse(Files.exists(file.resolveSibling("model.snapshot.tmp")));
+    }
+
+    @Test
+    public void writeAndReadDifferenceModel() throws IOException {
+        final var dataset = parse("""
+            <?xml version="1.0" encoding="utf-8"?>
+            <rdf:RDF
+                xmlns:dm="http://iec.ch/TC57/61970-552/DifferenceModel/1#"
+                xmlns:md="http://iec.ch/TC57/61970-552/ModelDescription/1#"
+                xmlns:cim="http://iec.ch/TC57/CIM100#"
+                xmlns:rdf="http://www.w3.org/1999/02/22-rdf-syntax-ns#">
+             <dm:DifferenceModel rdf:about="urn:uuid:08984e27-811f-4042-9125-1531ae0de0f6">
+                <dm:preconditions rdf:parseType="Statements">
+                    <rdf:Description rdf:about="#_135c601e-bad4-4872-ba8f-b15baf91bd2f">
+                        <cim:IdentifiedObject.name>Name of my element</cim:IdentifiedObject.name>
+                    </rdf:Description>
+                </dm:preconditions>
+                <dm:forwardDifferences rdf:parseType="Statements">
+                    <rdf:Description rdf:about="#_135c601e-bad4-4872-ba8f-b15baf91bd2f">
+                        <cim:MyElement.MyProperty>B</cim:MyElement.MyProperty>
+                    </rdf:Description>
+                </dm:forwardDifferences>
+                <dm:reverseDifferences rdf:parseType="Statements">
+                    <rdf:Description rdf:about="#_135c601e-bad4-4872-ba8f-b15baf91bd2f">
+                        <cim:MyElement.MyProperty>A</cim:MyElement.MyProperty>
+                    </rdf:Description>
+                </dm:reverseDifferences>
+             </dm:DifferenceModel>
+            </rdf:RDF>
+            """);
+        final var file = temporaryFolder.getRoot().toPath().resolve("difference.snapshot");
+
+        CimDatasetSnapshot.write(dataset, file);
+        final var reloaded = CimDatasetSnapshot.read(file);
+
+        assertTrue(reloaded.isDifferenceModel());
+        assertSameGraphs(dataset, reloaded);
+        assertEquals(1, reloaded.getForwardDifferences().size());
+        assertEquals(1, reloaded.getReverseDifferences().size());
+        assertEquals(1, reloaded.getPreconditions().size());
+    }
+
+    @Test
+    public void readRejectsOtherFiles() throws IOException {
+        final var file = temporaryFolder.newFile("model.xml").toPath();
+        Files.writeString(file, "<?xml version=\"1.0\" encoding=\"utf-8\"?>");
+
+        final var e = assertThrows(IOException.class, () -> CimDatasetSnapshot.read(file));
+        assertTrue(e.getMessage().startsWith("Not a CIM dataset snapshot"));
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.soptim.opencgmes.cimxml.graph;
+
+import de.soptim.opencgmes.cimxml.CimXmlTestDocuments;
+import de.soptim.opencgmes.cimxml.parser.CimXmlParser;
+import de.soptim.opencgmes.cimxml.parser.system.StreamCIMXMLToDatasetGraph;
+import de.soptim.opencgmes.cimxml.sparql.core.LinkedCimDatasetGraph;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.sparql.core.Quad;
+import org.junit.Test;
+
+import java.io.StringReader;
+
+import static org.junit.Assert.*;
+
+public class TestCimMemoryReport {
+
+    private static String fullModel(int elements) {
+        return CimXmlTestDocuments.fullModel("urn:uuid:d4336345-ad68-4566-afab-d9798ec5ca86", null,
+                CimXmlTestDocuments.elements(elements, i -> """
+                     <cim:ACLineSegment rdf:ID="_%08d-0000-0000-0000-000000000000">\
+                    <cim:IdentifiedObject.name>line %d</cim:IdentifiedObject.name>\
+                    <cim:Equipment.EquipmentContainer rdf:resource="#_ffffffff-0000-0000-0000-000000000000"/>\
+                    </cim:ACLineSegment>
+                    """.formatted(i, i)));
+    }
+
+    @Test
+    public void reportCountsTriplesNodesAndCacheHits() {
+        final var streamRDF = new StreamCIMXMLToDatasetGraph();
+        new CimXmlParser().parseCimModel(new StringReader(fullModel(100)), streamRDF);
+
+        final var report = streamRDF.getMemoryReport();
+        final var body = report.getGraphs().get(0);
+
+        assertEquals(Quad.defaultGraphIRI, body.graphName());
+        assertEquals(300, body.triples());
+        // 100 lines, the container, rdf:type, the class and two properties
+        assertEquals(105, body.uris());
+        assertEquals(100, body.literals());
+        assertEquals(0, body.blankNodes());
+        assertTrue(body.nodeBytes() > 0);
+        assertEquals(300 * 40, body.tripleBytes());
+        assertTrue(report.getTotalBytes() >= body.totalBytes());
+        assertTrue(report.getTotalTriples() >= 300);
+
+        final var statistics = report.getNodeCacheStatistics();
+        assertNotNull(statistics);
+        assertTrue(statistics.uriNodes().requests > 0);
+        // the container is referenced by every line
+        assertTrue(statistics.uuidNodes().hits >= 99);
+        assertTrue(report.toString().contains("default"));
+        assertTrue(report.toString().contains("UUID node cache"));
+    }
+
+    @Test
+    public void dictionaryIsCountedOnceAcrossGraphs() {
+        final var dictionary = new NodeDictionary();
+        final var first = new DictionaryGraph(dictionary);
+        final var second = new DictionaryGraph(dictionary);
+        for (int i = 0; i < 50; i++) {
+            final var t = Triple.create(NodeFactory.createURI("urn:uuid:" + i),
+                    NodeFactory.createURI("http://iec.ch/TC57/CIM100#IdentifiedObject.name"),
+                    NodeFactory.createLiteralString("name " + i));
+            first.add(t);
+            second.add(t);
+        }
+        final var dataset = new LinkedCimDatasetGraph();
+        dataset.addGraph(Quad.defaultGraphIRI, first);
+        dataset.addGraph(NodeFactory.createURI("http://example.org/second"), second);
+
+        final var report = dataset.getMemoryReport();
+
+        assertEquals(2, report.getGraphs().size());
+        assertEquals(100, report.getTotalTriples());
+        assertEquals(dictionary.estimateBytes(), report.getGraphs().get(0).nodeBytes());
+        assertEquals(0, report.getGraphs().get(1).nodeBytes());
+        assertTrue(report.getGraphs().get(1).tripleBytes() > 0);
+        assertNull(report.getNodeCacheStatistics());
+    }
+}
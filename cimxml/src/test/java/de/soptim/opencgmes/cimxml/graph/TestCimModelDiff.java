@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.soptim.opencgmes.cimxml.graph;
+
+import de.soptim.opencgmes.cimxml.CimXmlTestDocuments;
+import de.soptim.opencgmes.cimxml.parser.CimXmlParser;
+import de.soptim.opencgmes.cimxml.sparql.core.CimDatasetGraph;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.junit.Test;
+
+import java.io.StringReader;
+
+import static org.junit.Assert.*;
+
+public class TestCimModelDiff {
+
+    private static final String PREDECESSOR = "urn:uuid:d4336345-ad68-4566-afab-d9798ec5ca86";
+    private static final String SUCCESSOR = "urn:uuid:6a0b7e5c-0d4f-4d8e-9c55-0f3f4c6c7a11";
+
+    private static CimDatasetGraph fullModel(String model, String property, String elementToRemove) {
+        return new CimXmlParser().parseCimModel(new StringReader(CimXmlTestDocuments.fullModel(
+                model, "http://soptim.de/CIM/MyProfile/1.1", """
+                 <cim:MyElement rdf:ID="_135c601e-bad4-4872-ba8f-b15baf91bd2f">
+                   <cim:IdentifiedObject.name>Name of my element</cim:IdentifiedObject.name>
+                   <cim:MyElement.MyProperty>%s</cim:MyElement.MyProperty>
+                 </cim:MyElement>
+                 <cim:MyElement rdf:ID="%s">
+                   <cim:IdentifiedObject.name>Name of other element</cim:IdentifiedObject.name>
+                 </cim:MyElement>
+                """.formatted(property, elementToRemove))));
+    }
+
+    private static Triple property(String value) {
+        return Triple.create(
+                NodeFactory.createURI("urn:uuid:135c601e-bad4-4872-ba8f-b15baf91bd2f"),
+                NodeFactory.createURI("http://iec.ch/TC57/CIM100#MyElement.MyProperty"),
+                NodeFactory.createLiteralString(value));
+    }
+
+    @Test
+    public void computeDifferenceModelAndApplyItToThePredecessor() {
+        final var predecessor = fullModel(PREDECESSOR, "A", "_c9fe6664-fcf0-44e6-9d20-656538b68d1c");
+        final var successor = fullModel(SUCCESSOR, "B", "_2d1e4820-8858-49de-b441-5a03e7c40035");
+        final var differenceModelIri = NodeFactory.createURI("urn:uuid:08984e27-811f-4042-9125-1531ae0de0f6");
+
+        final var differenceModel = CimModelDiff.compute(predecessor, successor, differenceModelIri);
+
+        assertTrue(differenceModel.isDifferenceModel());
+        final var header = differenceModel.getModelHeader();
+        assertEquals(differenceModelIri, header.getModel());
+        assertEquals(1, header.getSupersedes().size());
+        assertTrue(header.getSupersedes().contains(NodeFactory.createURI(PREDECESSOR)));
+        assertEquals(successor.getModelHeader().getProfiles(), header.getProfiles());
+
+        final var forward = differenceModel.getForwardDifferences();
+        final var reverse = differenceModel.getReverseDifferences();
+        assertEquals(3, forward.size());
+        assertEquals(3, reverse.size());
+        assertTrue(forward.contains(property("B")));
+        assertTrue(reverse.contains(property("A")));
+        assertEquals("http://iec.ch/TC57/CIM100#", forward.getPrefixMapping().getNsPrefixURI("cim"));
+
+        final var result = differenceModel.differenceModelToFullModel(predecessor);
+        assertTrue(successor.getBody().isIsomorphicWith(result));
+        assertEquals(5, predecessor.getBody().size());
+    }
+
+    @Test
+    public void identicalModelsHaveNoDifferences() {
+        final var predecessor = fullModel(PREDECESSOR, "A", "_c9fe6664-fcf0-44e6-9d20-656538b68d1c");
+        final var successor = fullModel(SUCCESSOR, "A", "_c9fe6664-fcf0-44e6-9d20-656538b68d1c");
+
+        final var differenceModel = CimModelDiff.compute(predecessor, successor);
+
+        assertTrue(differenceModel.getForwardDifferences().isEmpty());
+        assertTrue(differenceModel.getReverseDifferences().isEmpty());
+        assertTrue(differenceModel.getModelHeader().getModel().getURI().startsWith("urn:uuid:"));
+    }
+
+    @Test
+    public void rejectDifferenceModels() {
+        final var fullModel = fullModel(PREDECESSOR, "A", "_c9fe6664-fcf0-44e6-9d20-656538b68d1c");
+        final var differenceModel = CimModelDiff.compute(fullModel, fullModel);
+
+        assertThrows(IllegalArgumentException.class, () -> CimModelDiff.compute(differenceModel, fullModel));
+        assertThrows(IllegalArgumentException.class, () -> CimModelDiff.compute(fullModel, differenceModel));
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.soptim.opencgmes.cimxml.graph;
+
+import de.soptim.opencgmes.cimxml.parser.ReaderCIMXML_StAX_SR;
+import de.soptim.opencgmes.cimxml.parser.system.StreamCIMXMLToDatasetGraph;
+import org.apache.jena.datatypes.xsd.XSDDatatype;
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.mem2.GraphMem2Roaring;
+import org.apache.jena.mem2.IndexingStrategy;
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class TestDictionaryGraph {
+
+    private static List<Triple> randomTriples(int count, long seed) {
+        final var random = new Random(seed);
+        final var subjects = new ArrayList<Node>();
+        for (int i = 0; i < 50; i++) {
+            subjects.add(NodeFactory.createURI("urn:uuid:%08x-9e39-4191-a456-67537399bc48".formatted(random.nextInt())));
+        }
+        subjects.add(NodeFactory.createURI("urn:uuid:F67FC354-9E39-4191-A456-67537399BC48")); // not canonical
+        subjects.add(NodeFactory.createBlankNode());
+        final var predicates = List.of(
+                NodeFactory.createURI("http://iec.ch/TC57/CIM100#IdentifiedObject.name"),
+                NodeFactory.createURI("http://iec.ch/TC57/CIM100#Terminal.ConductingEquipment"),
+                NodeFactory.createURI("http://iec.ch/TC57/CIM100#ACLineSegment.r"));
+        final var triples = new ArrayList<Triple>();
+        for (int i = 0; i < count; i++) {
+            final var s = subjects.get(random.nextInt(subjects.size()));
+            final var p = predicates.get(random.nextInt(predicates.size()));
+            final var o = switch (random.nextInt(3)) {
+                case 0 -> subjects.get(random.nextInt(subjects.size()));
+                case 1 -> NodeFactory.createLiteralString("name " + random.nextInt(20));
+                default -> NodeFactory.createLiteralDT(Integer.toString(random.nextInt(20)), XSDDatatype.XSDfloat);
+            };
+            triples.add(Triple.create(s, p, o));
+        }
+        return triples;
+    }
+
+    private static void assertSameFindResults(Graph expected, Graph actual) {
+        assertEquals(expected.size(), actual.size());
+        for (var triple : expected.find().toList()) {
+            final var s = triple.getSubject();
+            final var p = triple.getPredicate();
+            final var o = triple.getObject();
+            for (int mask = 0; mask < 8; mask++) {
+                final var pattern = Triple.create(
+                        (mask & 1) != 0 ? s : Node.ANY,
+                        (mask & 2) != 0 ? p : Node.ANY,
+                        (mask & 4) != 0 ? o : Node.ANY);
+                assertEquals(pattern.toString(),
+                        new HashSet<>(expected.find(pattern).toList()),
+                        new HashSet<>(actual.find(pattern).toList()));
+                assertTrue(actual.contains(pattern));
+            }
+        }
+    }
+
+    @Test
+    public void findMatchesGraphMem2RoaringForAllPatterns() {
+        final var expected = new GraphMem2Roaring(IndexingStrategy.EAGER);
+        final var actual = new DictionaryGraph();
+        for (var triple : randomTriples(2000, 4711)) {
+            expected.add(triple);
+            actual.add(triple);
+        }
+        assertFalse(actual.isIndexInitialized());
+        actual.initializeIndexParallel();
+        assertTrue(actual.isIndexInitialized());
+
+        assertSameFindResults(expected, actual);
+        assertFalse(actual.contains(NodeFactory.createURI("urn:uuid:00000000-0000-0000-0000-000000000000"), Node.ANY, Node.ANY));
+    }
+
+    @Test
+    public void deleteAndAddAfterIndexing() {
+        final var expected = new GraphMem2Roaring(IndexingStrategy.EAGER);
+        final var actual = new DictionaryGraph();
+        final var triples = randomTriples(5000, 42);
+        for (var triple : triples) {
+            expected.add(triple);
+            actual.add(triple);
+        }
+        actual.initializeIndexParallel();
+        // enough deletions to trigger the compaction of the columns
+        for (int i = 0; i < triples.size(); i += 2) {
+            expected.delete(triples.get(i));
+            actual.delete(triples.get(i));
+        }
+        assertFalse(actual.isIndexInitialized());
+        assertSameFindResults(expected, actual);
+
+        for (var triple : randomTriples(500, 7)) {
+            expected.add(triple);
+            actual.add(triple);
+        }
+        assertSameFindResults(expected, actual);
+
+        actual.clear();
+        assertTrue(actual.isEmpty());
+        assertFalse(actual.find().hasNext());
+    }
+
+    @Test
+    public void fastDeltaGraphOnTopOfDictionaryGraph() {
+        final var base = new DictionaryGraph();
+        final var triples = randomTriples(100, 1);
+        triples.forEach(base::add);
+        final var delta = new FastDeltaGraph(base);
+        final var removed = base.find().next();
+        final var added = Triple.create(
+                NodeFactory.createURI("urn:uuid:135c601e-bad4-4872-ba8f-b15baf91bd2f"),
+                NodeFactory.createURI("http://iec.ch/TC57/CIM100#IdentifiedObject.name"),
+                NodeFactory.createLiteralString("added"));
+        delta.delete(removed);
+        delta.add(added);
+
+        assertEquals(base.size(), delta.size());
+        assertFalse(delta.contains(removed));
+        assertTrue(delta.contains(added));
+        assertTrue(base.contains(removed));
+    }
+
+    @Test
+    public void parseIntoDictionaryGraphs() {
+        final var rdfxml = """
+            <?xml version="1.0" encoding="utf-8"?>
+            <rdf:RDF xmlns:cim="http://iec.ch/TC57/CIM100#" xmlns:md="http://iec.ch/TC57/61970-552/ModelDescription/1#" xmlns:rdf="http://www.w3.org/1999/02/22-rdf-syntax-ns#">
+             <md:FullModel rdf:about="urn:uuid:08984e27-811f-4042-9125-1531ae0de0f6">
+               <md:Model.profile>http://soptim.de/CIM/MyProfile/1.1</md:Model.profile>
+             </md:FullModel>
+             <cim:MyEquipment rdf:ID="_f67fc354-9e39-4191-a456-67537399bc48">
+               <cim:IdentifiedObject.name>Equipment</cim:IdentifiedObject.name>
+               <cim:MyEquipment.MyReference rdf:resource="#_d597b77bc8c44d88883ef516eedb913b" />
+             </cim:MyEquipment>
+            </rdf:RDF>
+            """;
+
+        final var parser = new ReaderCIMXML_StAX_SR();
+        final var expected = new StreamCIMXMLToDatasetGraph();
+        final var actual = new StreamCIMXMLToDatasetGraph(DictionaryGraph::new);
+        parser.read(new StringReader(rdfxml), expected);
+        parser.read(new StringReader(rdfxml), actual);
+
+        final var body = actual.getCIMDatasetGraph().getBody();
+        assertTrue(body instanceof DictionaryGraph);
+        assertTrue(((DictionaryGraph) body).isIndexInitialized());
+        assertTrue(expected.getCIMDatasetGraph().getBody().isIsomorphicWith(body));
+        assertTrue(body.contains(
+                NodeFactory.createURI("urn:uuid:f67fc354-9e39-4191-a456-67537399bc48"),
+                NodeFactory.createURI("http://iec.ch/TC57/CIM100#MyEquipment.MyReference"),
+                NodeFactory.createURI("urn:uuid:d597b77b-c8c4-4d88-883e-f516eedb913b")));
+        assertEquals("urn:uuid:08984e27-811f-4042-9125-1531ae0de0f6",
+                actual.getCIMDatasetGraph().getModelHeader().getModel().getURI());
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.soptim.opencgmes.cimxml.graph;
+
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.sparql.graph.GraphFactory;
+import org.apache.jena.sparql.graph.GraphWrapper;
+import org.apache.jena.util.iterator.ExtendedIterator;
+import org.junit.Test;
+
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+public class TestDisjointMultiUnion {
+
+    private static final Node NAME = NodeFactory.createURI("http://iec.ch/TC57/CIM100#IdentifiedObject.name");
+
+    private static Node subject(int i) {
+        return NodeFactory.createURI("urn:uuid:" + i);
+    }
+
+    private static Node predicate(int member) {
+        return NodeFactory.createURI("http://iec.ch/TC57/CIM100#Member" + member + ".value");
+    }
+
+    /** Counts the pattern lookups, which the union forwards to its members. */
+    private static class CountingGraph extends GraphWrapper {
+        final AtomicInteger lookups = new AtomicInteger();
+
+        CountingGraph(Graph graph) {
+            super(graph);
+        }
+
+        @Override
+        public ExtendedIterator<Triple> find(Node s, Node p, Node o) {
+            lookups.incrementAndGet();
+            return super.find(s, p, o);
+        }
+
+        @Override
+        public ExtendedIterator<Triple> find(Triple t) {
+            lookups.incrementAndGet();
+            return super.find(t);
+        }
+
+        @Override
+        public Stream<Triple> stream(Node s, Node p, Node o) {
+            lookups.incrementAndGet();
+            return super.stream(s, p, o);
+        }
+
+        @Override
+        public boolean contains(Triple t) {
+            lookups.incrementAndGet();
+            return super.contains(t);
+        }
+    }
+
+    private static CountingGraph[] members(int count, int subjectsPerMember) {
+        final var members = new CountingGraph[count];
+        for (int m = 0; m < count; m++) {
+            final var graph = GraphFactory.createGraphMem();
+            for (int i = m * subjectsPerMember; i < (m + 1) * subjectsPerMember; i++) {
+                graph.add(subject(i), NAME, NodeFactory.createLiteralString("name " + i));
+                graph.add(subject(i), predicate(m), NodeFactory.createLiteralString("value " + i));
+            }
+            members[m] = new CountingGraph(graph);
+        }
+        return members;
+    }
+
+    private static int totalLookups(CountingGraph[] members) {
+        var lookups = 0;
+        for (var member : members) {
+            lookups += member.lookups.getAndSet(0);
+        }
+        return lookups;
+    }
+
+    @Test
+    public void memberFiltersRouteLookupsToMatchingMembers() {
+        final var members = members(10, 100);
+        final var union = new DisjointMultiUnion(members);
+        union.enableMemberFilters();
+        // the first lookup scans the members to build the filters
+        assertTrue(union.contains(subject(0), NAME, Node.ANY));
+        totalLookups(members);
+
+        assertEquals(2, union.find(subject(542), Node.ANY, Node.ANY).toList().size());
+        assertTrue(union.contains(subject(542), NAME, NodeFactory.createLiteralString("name 542")));
+        assertFalse(union.contains(subject(542), NAME, NodeFactory.createLiteralString("name 543")));
+        assertEquals(100, union.find(Node.ANY, predicate(7), Node.ANY).toList().size());
+        assertEquals(100, union.stream(Node.ANY, predicate(3), Node.ANY).count());
+        // the filters may report a false positive now and then, but never all members
+        assertTrue(totalLookups(members) < 10);
+
+        assertEquals(1000, union.find(Node.ANY, NAME, Node.ANY).toList().size());
+        assertEquals(10, totalLookups(members));
+        assertEquals(2000, union.size());
+    }
+
+    @Test
+    public void memberFiltersFollowChangesThroughTheUnion() {
+        final var members = members(3, 10);
+        final var union = new DisjointMultiUnion(members);
+        union.enableMemberFilters();
+        assertFalse(union.contains(subject(100), Node.ANY, Node.ANY));
+
+        final var added = GraphFactory.createGraphMem();
+        added.add(subject(100), NAME, NodeFactory.createLiteralString("name 100"));
+        union.addGraph(added);
+        assertTrue(union.contains(subject(100), NAME, Node.ANY));
+
+        union.setBaseGraph(members[0]);
+        union.add(subject(200), NAME, NodeFactory.createLiteralString("name 200"));
+        assertEquals(1, union.find(subject(200), Node.ANY, Node.ANY).toList().size());
+
+        union.removeGraph(added);
+        assertFalse(union.contains(subject(100), NAME, Node.ANY));
+    }
+
+    @Test
+    public void predicateRoutesAreNarrowedByTheSubjectFilters() {
+        final var members = members(10, 100);
+        final var union = new PredicateRoutedUnion();
+        for (int m = 0; m < members.length; m++) {
+            union.addGraph(members[m], Set.of(NAME, predicate(m)));
+        }
+        union.enableMemberFilters();
+        assertTrue(union.contains(subject(0), NAME, Node.ANY));
+        totalLookups(members);
+
+        // every member declares the name, but only the member with the subject is asked for it
+        assertTrue(union.contains(subject(542), NAME, NodeFactory.createLiteralString("name 542")));
+        assertEquals(1, union.find(subject(542), predicate(5), Node.ANY).toList().size());
+        assertTrue(totalLookups(members) < 4);
+
+        assertEquals(1000, union.find(Node.ANY, NAME, Node.ANY).toList().size());
+        assertEquals(10, totalLookups(members));
+    }
+
+    @Test
+    public void withoutMemberFiltersAllMembersAreAsked() {
+        final var members = members(4, 10);
+        final var union = new DisjointMultiUnion(members);
+
+        assertFalse(union.isMemberFiltersEnabled());
+        assertEquals(2, union.find(subject(5), Node.ANY, Node.ANY).toList().size());
+        assertEquals(4, totalLookups(members));
+    }
+}
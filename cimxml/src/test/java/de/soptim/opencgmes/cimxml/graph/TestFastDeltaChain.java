@@ -0,0 +1,169 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.soptim.opencgmes.cimxml.graph;
+
+import de.soptim.opencgmes.cimxml.parser.ReaderCIMXML_StAX_SR;
+import de.soptim.opencgmes.cimxml.parser.system.StreamCIMXMLToDatasetGraph;
+import de.soptim.opencgmes.cimxml.sparql.core.CimDatasetGraph;
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.sparql.graph.GraphFactory;
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class TestFastDeltaChain {
+
+    private static Triple triple(int subject, int value) {
+        return Triple.create(
+                NodeFactory.createURI("urn:uuid:" + subject),
+                NodeFactory.createURI("http://iec.ch/TC57/CIM100#MyElement.MyProperty"),
+                NodeFactory.createLiteralString(Integer.toString(value)));
+    }
+
+    @Test
+    public void compactedChainMatchesStackedDeltas() {
+        final var base = GraphFactory.createGraphMem();
+        for (int i = 0; i < 50; i++) {
+            base.add(triple(i, 0));
+        }
+        final var random = new Random(42);
+        final var chain = new FastDeltaChain(base, 3, Long.MAX_VALUE);
+        Graph stacked = base;
+        for (int step = 1; step <= 20; step++) {
+            // like in a difference model, only present triples are removed and only missing triples are added
+            final var forward = GraphFactory.createGraphMem();
+            final var reverse = GraphFactory.createGraphMem();
+            for (int i = 0; i < 10; i++) {
+                final var t = triple(random.nextInt(60), random.nextInt(3));
+                if (stacked.contains(t))
+                    reverse.add(t);
+                else if (!reverse.contains(t))
+                    forward.add(t);
+            }
+            stacked = new FastDeltaGraph(stacked, forward, reverse);
+            final var result = chain.apply(forward, reverse);
+            assertSame(result, chain.getGraph());
+            assertTrue("step " + step, chain.getDepth() <= 4);
+            assertTrue("step " + step, stacked.isIsomorphicWith(result));
+        }
+        assertEquals(20, chain.getAppliedCount());
+        chain.compact();
+        assertEquals(1, chain.getDepth());
+        assertTrue(stacked.isIsomorphicWith(chain.getGraph()));
+        assertEquals(50, base.size());
+    }
+
+    @Test
+    public void earlierResultsStayUnchanged() {
+        final var base = GraphFactory.createGraphMem();
+        base.add(triple(1, 0));
+        final var chain = new FastDeltaChain(base, 1, Long.MAX_VALUE);
+
+        final var forward = GraphFactory.createGraphMem();
+        forward.add(triple(2, 0));
+        final var first = chain.apply(forward, GraphFactory.createGraphMem());
+        final var reverse = GraphFactory.createGraphMem();
+        reverse.add(triple(2, 0));
+        reverse.add(triple(1, 0));
+        chain.apply(GraphFactory.createGraphMem(), reverse);
+
+        assertEquals(1, chain.getDepth());
+        assertTrue(chain.getGraph().isEmpty());
+        assertEquals(2, first.size());
+        assertTrue(first.contains(triple(2, 0)));
+    }
+
+    @Test
+    public void compactKeepsTriplesInForwardAndReverseDifferences() {
+        final var base = GraphFactory.createGraphMem();
+        base.add(triple(1, 0));
+        final var chain = new FastDeltaChain(base, 1, Long.MAX_VALUE);
+
+        final var both = GraphFactory.createGraphMem();
+        both.add(triple(1, 0));
+        both.add(triple(2, 0));
+        chain.apply(both, both);
+        chain.compact();
+
+        assertEquals(2, chain.getGraph().size());
+        assertTrue(chain.getGraph().contains(triple(1, 0)));
+        assertTrue(chain.getGraph().contains(triple(2, 0)));
+    }
+
+    @Test
+    public void applyDifferenceModelsAndCheckPreconditions() {
+        final var base = GraphFactory.createGraphMem();
+        base.add(Triple.create(
+                NodeFactory.createURI("urn:uuid:135c601e-bad4-4872-ba8f-b15baf91bd2f"),
+                NodeFactory.createURI("http://iec.ch/TC57/CIM100#MyElement.MyProperty"),
+                NodeFactory.createLiteralString("A")));
+        final var chain = new FastDeltaChain(base, 1, Long.MAX_VALUE);
+
+        final var toB = differenceModel("A", "B");
+        final var toC = differenceModel("B", "C");
+        chain.apply(toB);
+        chain.apply(toC);
+        final var e = assertThrows(IllegalArgumentException.class, () -> chain.apply(toB));
+        assertTrue(e.getMessage().contains("Missing preconditions"));
+
+        assertEquals(2, chain.getAppliedCount());
+        assertEquals(1, chain.getGraph().size());
+        assertTrue(chain.getGraph().contains(Triple.create(
+                NodeFactory.createURI("urn:uuid:135c601e-bad4-4872-ba8f-b15baf91bd2f"),
+                NodeFactory.createURI("http://iec.ch/TC57/CIM100#MyElement.MyProperty"),
+                NodeFactory.createLiteralString("C"))));
+        assertEquals("http://iec.ch/TC57/CIM100#", chain.getGraph().getPrefixMapping().getNsPrefixURI("cim"));
+    }
+
+    private static CimDatasetGraph differenceModel(String from, String to) {
+        final var streamRDF = new StreamCIMXMLToDatasetGraph();
+        new ReaderCIMXML_StAX_SR().read(new StringReader("""
+            <?xml version="1.0" encoding="utf-8"?>
+            <rdf:RDF
+                xmlns:dm="http://iec.ch/TC57/61970-552/DifferenceModel/1#"
+                xmlns:md="http://iec.ch/TC57/61970-552/ModelDescription/1#"
+                xmlns:cim="http://iec.ch/TC57/CIM100#"
+                xmlns:rdf="http://www.w3.org/1999/02/22-rdf-syntax-ns#">
+             <dm:DifferenceModel rdf:about="urn:uuid:08984e27-811f-4042-9125-1531ae0de0f6">
+                <dm:preconditions rdf:parseType="Statements">
+                    <rdf:Description rdf:about="#_135c601e-bad4-4872-ba8f-b15baf91bd2f">
+                        <cim:MyElement.MyProperty>%1$s</cim:MyElement.MyProperty>
+                    </rdf:Description>
+                </dm:preconditions>
+                <dm:forwardDifferences rdf:parseType="Statements">
+                    <rdf:Description rdf:about="#_135c601e-bad4-4872-ba8f-b15baf91bd2f">
+                        <cim:MyElement.MyProperty>%2$s</cim:MyElement.MyProperty>
+                    </rdf:Description>
+                </dm:forwardDifferences>
+                <dm:reverseDifferences rdf:parseType="Statements">
+                    <rdf:Description rdf:about="#_135c601e-bad4-4872-ba8f-b15baf91bd2f">
+                        <cim:MyElement.MyProperty>%1$s</cim:MyElement.MyProperty>
+                    </rdf:Description>
+                </dm:reverseDifferences>
+             </dm:DifferenceModel>
+            </rdf:RDF>
+            """.formatted(from, to)), streamRDF);
+        return streamRDF.getCIMDatasetGraph();
+    }
+}
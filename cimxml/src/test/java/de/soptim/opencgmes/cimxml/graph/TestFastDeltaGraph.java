@@ -0,0 +1,119 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.soptim.opencgmes.cimxml.graph;
+
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.mem2.GraphMem2Roaring;
+import org.apache.jena.mem2.IndexingStrategy;
+import org.apache.jena.sparql.graph.GraphWrapper;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class TestFastDeltaGraph {
+
+    private static Triple triple(int subject, String value) {
+        return Triple.create(
+                NodeFactory.createURI("urn:uuid:" + subject),
+                NodeFactory.createURI("http://iec.ch/TC57/CIM100#MyElement.MyProperty"),
+                NodeFactory.createLiteralString(value));
+    }
+
+    private static FastDeltaGraph deltaOverLargeBase() {
+        final var base = new GraphMem2Roaring(IndexingStrategy.LAZY_PARALLEL);
+        for (int i = 0; i < 10_000; i++) {
+            base.add(triple(i, "A"));
+        }
+        final var delta = new FastDeltaGraph(base);
+        for (int i = 0; i < 10_000; i += 10) {
+            delta.delete(triple(i, "A"));
+            delta.add(triple(i, "B"));
+        }
+        delta.add(triple(20_000, "new"));
+        delta.getPrefixMapping().setNsPrefix("cim", "http://iec.ch/TC57/CIM100#");
+        return delta;
+    }
+
+    @Test
+    public void materializeIntoGraphMem2Roaring() {
+        final var delta = deltaOverLargeBase();
+
+        final var materialized = delta.materialize();
+
+        assertTrue(materialized instanceof GraphMem2Roaring);
+        assertTrue(((GraphMem2Roaring) materialized).isIndexInitialized());
+        assertEquals(delta.size(), materialized.size());
+        assertTrue(delta.isIsomorphicWith(materialized));
+        assertFalse(materialized.contains(triple(10, "A")));
+        assertTrue(materialized.contains(triple(10, "B")));
+        assertEquals(1, materialized.find(NodeFactory.createURI("urn:uuid:20000"), Node.ANY, Node.ANY).toList().size());
+        assertEquals(1000, materialized.find(Node.ANY, Node.ANY, NodeFactory.createLiteralString("B")).toList().size());
+        assertEquals("http://iec.ch/TC57/CIM100#", materialized.getPrefixMapping().getNsPrefixURI("cim"));
+
+        // the delta itself is unchanged and the result is independent of it
+        materialized.delete(triple(11, "A"));
+        assertTrue(delta.contains(triple(11, "A")));
+    }
+
+    @Test
+    public void findFiltersOnlyPatternsWithDeletions() {
+        final var lookups = new AtomicInteger();
+        final var deletions = new GraphWrapper(new GraphMem2Roaring(IndexingStrategy.LAZY)) {
+            @Override
+            public boolean contains(Triple t) {
+                lookups.incrementAndGet();
+                return super.contains(t);
+            }
+        };
+        final var base = new GraphMem2Roaring(IndexingStrategy.LAZY);
+        final var name = NodeFactory.createURI("http://iec.ch/TC57/CIM100#IdentifiedObject.name");
+        for (int i = 0; i < 1000; i++) {
+            base.add(triple(i, "A"));
+            base.add(Triple.create(NodeFactory.createURI("urn:uuid:" + i), name, NodeFactory.createLiteralString("n" + i)));
+        }
+        final var delta = new FastDeltaGraph(base, new GraphMem2Roaring(IndexingStrategy.LAZY), deletions);
+        delta.delete(triple(5, "A"));
+
+        assertEquals(1000, delta.find(Node.ANY, name, Node.ANY).toList().size());
+        assertEquals(1000, delta.stream(Node.ANY, name, Node.ANY).count());
+        assertEquals(2, delta.find(NodeFactory.createURI("urn:uuid:6"), Node.ANY, Node.ANY).toList().size());
+        assertEquals(0, lookups.get());
+
+        assertEquals(999, delta.find(Node.ANY, triple(0, "A").getPredicate(), Node.ANY).toList().size());
+        assertEquals(1, delta.find(NodeFactory.createURI("urn:uuid:5"), Node.ANY, Node.ANY).toList().size());
+        assertEquals(1999, delta.find().toList().size());
+        assertTrue(lookups.get() > 0);
+    }
+
+    @Test
+    public void materializeIntoDictionaryGraph() {
+        final var delta = deltaOverLargeBase();
+
+        final var materialized = delta.materialize(DictionaryGraph::new);
+
+        assertTrue(materialized instanceof DictionaryGraph);
+        assertTrue(((DictionaryGraph) materialized).isIndexInitialized());
+        assertEquals(delta.size(), materialized.size());
+        assertTrue(delta.isIsomorphicWith(materialized));
+    }
+}
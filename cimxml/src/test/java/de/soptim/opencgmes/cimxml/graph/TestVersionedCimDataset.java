@@ -0,0 +1,149 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.soptim.opencgmes.cimxml.graph;
+
+import de.soptim.opencgmes.cimxml.CimXmlTestDocuments;
+import de.soptim.opencgmes.cimxml.parser.CimXmlParser;
+import de.soptim.opencgmes.cimxml.sparql.core.CimDatasetGraph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.mem2.GraphMem2Roaring;
+import org.apache.jena.query.TxnType;
+import org.apache.jena.sparql.JenaTransactionException;
+import org.apache.jena.sparql.core.Quad;
+import org.apache.jena.system.Txn;
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.*;
+
+public class TestVersionedCimDataset {
+
+    private static final Node NAME = NodeFactory.createURI("http://iec.ch/TC57/CIM100#IdentifiedObject.name");
+
+    private static Triple name(int i, String name) {
+        return Triple.create(NodeFactory.createURI("urn:uuid:" + i), NAME, NodeFactory.createLiteralString(name));
+    }
+
+    private static CimDatasetGraph fullModel(int elements) {
+        return new CimXmlParser().parseCimModel(new StringReader(CimXmlTestDocuments.fullModel(
+                "urn:uuid:d4336345-ad68-4566-afab-d9798ec5ca86", null,
+                CimXmlTestDocuments.elements(elements, i -> """
+                     <rdf:Description rdf:about="urn:uuid:%d"><cim:IdentifiedObject.name>%d</cim:IdentifiedObject.name></rdf:Description>
+                    """.formatted(i, i)))));
+    }
+
+    @Test
+    public void readersKeepTheirVersionWhileUpdatesArePublished() {
+        final var versioned = new VersionedCimDataset(fullModel(10));
+        final var before = versioned.current();
+
+        final var after = versioned.update(update -> {
+            final var body = update.getGraph(Quad.defaultGraphIRI);
+            body.delete(name(3, "3"));
+            body.add(name(3, "renamed"));
+        });
+
+        assertEquals(0, before.getVersion());
+        assertEquals(1, after.getVersion());
+        assertSame(after, versioned.current());
+        assertTrue(before.getBody().contains(name(3, "3")));
+        assertFalse(before.getBody().contains(name(3, "renamed")));
+        assertTrue(after.getBody().contains(name(3, "renamed")));
+        assertFalse(after.getBody().contains(name(3, "3")));
+        assertTrue(after.isFullModel());
+        assertEquals(before.getModelHeader().getModel(), after.getModelHeader().getModel());
+    }
+
+    @Test
+    public void failedOrEmptyUpdatesPublishNothing() {
+        final var versioned = new VersionedCimDataset(fullModel(5));
+        final var first = versioned.current();
+
+        assertThrows(IllegalArgumentException.class, () -> versioned.update(update -> {
+            update.getGraph(Quad.defaultGraphIRI).add(name(100, "100"));
+            update.getGraph(NodeFactory.createURI("http://example.org/unknown"));
+        }));
+        assertSame(first, versioned.current());
+        assertFalse(versioned.current().getBody().contains(name(100, "100")));
+
+        assertSame(first, versioned.update(update -> {
+            update.getGraph(Quad.defaultGraphIRI).add(name(100, "100"));
+            update.getGraph(Quad.defaultGraphIRI).delete(name(100, "100"));
+        }));
+    }
+
+    @Test
+    public void versionsAreReadOnly() {
+        final var version = new VersionedCimDataset(fullModel(5)).current();
+
+        assertThrows(RuntimeException.class, () -> version.getBody().add(name(100, "100")));
+        assertThrows(UnsupportedOperationException.class,
+                () -> version.addGraph(NodeFactory.createURI("http://example.org/g"), new GraphMem2Roaring()));
+        assertThrows(JenaTransactionException.class, () -> version.begin(TxnType.WRITE));
+        assertEquals(5, (int) Txn.calculateRead(version, () -> version.getBody().size()));
+    }
+
+    @Test
+    public void concurrentReadersSeeOnlyPublishedVersions() throws InterruptedException {
+        final var elements = 200;
+        final var versioned = new VersionedCimDataset(fullModel(elements));
+        final var stop = new AtomicBoolean(false);
+        final var failures = new ConcurrentLinkedQueue<String>();
+        final var readers = new ArrayList<Thread>();
+        for (int r = 0; r < 4; r++) {
+            final var reader = new Thread(() -> {
+                while (!stop.get()) {
+                    final var version = versioned.current();
+                    final var body = version.getBody();
+                    // every update renames one element, so each version has exactly one name per element
+                    final var names = body.find(Node.ANY, NAME, Node.ANY).toList().size();
+                    if (names != elements)
+                        failures.add("version " + version.getVersion() + " has " + names + " names");
+                }
+            });
+            reader.start();
+            readers.add(reader);
+        }
+
+        for (int i = 0; i < 100; i++) {
+            final var element = i % elements;
+            final var version = i;
+            versioned.update(update -> {
+                final var body = update.getGraph(Quad.defaultGraphIRI);
+                body.remove(NodeFactory.createURI("urn:uuid:" + element), NAME, Node.ANY);
+                body.add(name(element, "version " + version));
+            });
+        }
+        stop.set(true);
+        for (var reader : readers) {
+            reader.join();
+        }
+
+        assertTrue(failures.toString(), failures.isEmpty());
+        assertEquals(100, versioned.current().getVersion());
+        assertTrue(versioned.current().getBody().contains(name(99, "version 99")));
+        assertEquals(elements, versioned.current().getBody().size());
+    }
+}
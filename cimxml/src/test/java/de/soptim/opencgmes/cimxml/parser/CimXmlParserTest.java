@@ -0,0 +1,664 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.soptim.opencgmes.cimxml.parser;
+
+import de.soptim.opencgmes.cimxml.CimXmlDocumentContext;
+import de.soptim.opencgmes.cimxml.CimXmlTestDocuments;
+import de.soptim.opencgmes.cimxml.parser.system.CimValueValidationReport;
+import de.soptim.opencgmes.cimxml.parser.system.CimXmlElementFilter;
+import de.soptim.opencgmes.cimxml.parser.system.CimXmlProjection;
+import de.soptim.opencgmes.cimxml.parser.system.StreamCIMXMLBase;
+import de.soptim.opencgmes.cimxml.parser.system.StreamCIMXMLToDatasetGraph;
+import org.apache.jena.datatypes.xsd.XSDDatatype;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.sparql.graph.GraphFactory;
+import org.apache.jena.vocabulary.RDF;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.Assert.*;
+
+public class CimXmlParserTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private static String fullModel(String modelUuid, String elementUuid, String name) {
+        return CimXmlTestDocuments.fullModel("urn:uuid:" + modelUuid, "http://soptim.de/CIM/MyProfile/1.1", """
+             <cim:MyEquipment rdf:ID="_%s">
+               <cim:IdentifiedObject.name>%s</cim:IdentifiedObject.name>
+             </cim:MyEquipment>
+            """.formatted(elementUuid, name));
+    }
+
+    private static final String EQ = fullModel(
+            "08984e27-811f-4042-9125-1531ae0de0f6", "f67fc354-9e39-4191-a456-67537399bc48", "Equipment");
+    private static final String SSH = fullModel(
+            "d4336345-ad68-4566-afab-d9798ec5ca86", "135c601e-bad4-4872-ba8f-b15baf91bd2f", "Steady state");
+
+    private static final String FILE_HEADER_PROFILE = """
+        <?xml version="1.0" encoding="UTF-8"?>
+        <rdf:RDF
+            xmlns:cims="http://iec.ch/TC57/1999/rdf-schema-extensions-19990926#"
+            xmlns:rdf="http://www.w3.org/1999/02/22-rdf-syntax-ns#"
+            xmlns:xsd="http://www.w3.org/2001/XMLSchema#"
+            xmlns:cim="http://iec.ch/TC57/CIM100#"
+            xmlns:rdfs="http://www.w3.org/2000/01/rdf-schema#"
+            xml:base="http://iec.ch/TC57/CIM100"
+            xmlns:eu="http://iec.ch/TC57/CIM100-European#"
+            xmlns:md="http://iec.ch/TC57/61970-552/ModelDescription/1#"
+            xmlns:dm="http://iec.ch/TC57/61970-552/DifferenceModel/1#">
+            <rdf:Description rdf:about="#Package_FileHeaderProfile">
+                <rdf:type rdf:resource="http://iec.ch/TC57/1999/rdf-schema-extensions-19990926#ClassCategory"/>
+            </rdf:Description>
+            <rdf:Description rdf:about="http://iec.ch/TC57/61970-552/ModelDescription/1#Model.profile">
+                <cims:stereotype rdf:resource="http://iec.ch/TC57/NonStandard/UML#attribute"/>
+                <rdfs:domain rdf:resource="http://iec.ch/TC57/61970-552/ModelDescription/1#Model"/>
+                <cims:dataType rdf:resource="http://iec.ch/TC57/CIM100-European#URI"/>
+                <rdf:type rdf:resource="http://www.w3.org/1999/02/22-rdf-syntax-ns#Property"/>
+             </rdf:Description>
+             <rdf:Description rdf:about="http://iec.ch/TC57/CIM100-European#URI">
+                <rdfs:label xml:lang="en">URI</rdfs:label>
+                <cims:stereotype>Primitive</cims:stereotype>
+                <rdf:type rdf:resource="http://www.w3.org/2000/01/rdf-schema#Class"/>
+             </rdf:Description>
+        </rdf:RDF>
+        """;
+
+    private static final String CUSTOM_PROFILE = """
+        <?xml version="1.0" encoding="UTF-8"?>
+        <rdf:RDF
+           xmlns:cim="http://iec.ch/TC57/CIM100#"
+           xmlns:cims="http://iec.ch/TC57/1999/rdf-schema-extensions-19990926#"
+           xmlns:dcat="http://www.w3.org/ns/dcat#"
+           xmlns:owl="http://www.w3.org/2002/07/owl#"
+           xmlns:rdf="http://www.w3.org/1999/02/22-rdf-syntax-ns#"
+           xmlns:rdfs="http://www.w3.org/2000/01/rdf-schema#"
+           xml:base ="http://iec.ch/TC57/CIM100">
+            <!-- ······························································································· -->
+            <rdf:Description rdf:about="http://iec.ch/TC57/ns/CIM/CoreEquipment-EU#Ontology">
+                <dcat:keyword>MYCUST</dcat:keyword>
+                <owl:versionIRI rdf:resource="http://example.org/MyCustom/1/1"/>
+                <owl:versionInfo xml:lang ="en">1.1.0</owl:versionInfo>
+               <rdf:type rdf:resource="http://www.w3.org/2002/07/owl#Ontology"/>
+            </rdf:Description >
+            <!-- ······························································································· -->
+            <rdf:Description rdf:about="#ClassA">
+                <rdf:type rdf:resource="http://www.w3.org/2000/01/rdf-schema#Class"/>
+                <rdfs:subClassOf rdf:resource="#IdentifiedObject"/>
+                <cims:stereotype rdf:resource="http://iec.ch/TC57/NonStandard/UML#concrete"/>
+            </rdf:Description>
+            <!-- ······························································································· -->
+            <rdf:Description rdf:about="#ClassA.floatProperty">
+                <rdf:type rdf:resource="http://www.w3.org/1999/02/22-rdf-syntax-ns#Property"/>
+                <cims:stereotype rdf:resource="http://iec.ch/TC57/NonStandard/UML#attribute"/>
+                <rdfs:domain rdf:resource="#ClassA"/>
+                <cims:dataType rdf:resource="#Float"/>
+             </rdf:Description>
+            <!-- ······························································································· -->
+            <rdf:Description rdf:about="#ClassA.textProperty">
+                <rdf:type rdf:resource="http://www.w3.org/1999/02/22-rdf-syntax-ns#Property"/>
+                <cims:stereotype rdf:resource="http://iec.ch/TC57/NonStandard/UML#attribute"/>
+                <rdfs:domain rdf:resource="#ClassA"/>
+                <cims:dataType rdf:resource="#String"/>
+            </rdf:Description>
+            <!-- ······························································································· -->
+            <rdf:Description rdf:about="#Float">
+                <rdfs:label xml:lang="en">Float</rdfs:label>
+                <cims:stereotype>Primitive</cims:stereotype>
+                <rdf:type rdf:resource="http://www.w3.org/2000/01/rdf-schema#Class"/>
+            </rdf:Description>
+            <!-- ······························································································· -->
+            <rdf:Description rdf:about="#String">
+                <rdfs:label xml:lang="en">String</rdfs:label>
+                <cims:stereotype>Primitive</cims:stereotype>
+                <rdf:type rdf:resource="http://www.w3.org/2000/01/rdf-schema#Class"/>
+            </rdf:Description>
+        </rdf:RDF>
+        """;
+
+    /**
+     * Creates a FullModel with the given number of elements. The elements contain text that a byte level
+     * splitter must not mistake for element boundaries, blank nodes and references between distant elements.
+     */
+    private static String largeFullModel(int numberOfElements) {
+        final var sb = new StringBuilder("""
+            <?xml version="1.0" encoding="utf-8"?>
+            <?iec61970-552 version="2.0"?>
+            <rdf:RDF xmlns:cim="http://iec.ch/TC57/CIM100#" xmlns:md="http://iec.ch/TC57/61970-552/ModelDescription/1#" xmlns:rdf="http://www.w3.org/1999/02/22-rdf-syntax-ns#">
+             <md:FullModel rdf:about="urn:uuid:08984e27-811f-4042-9125-1531ae0de0f6">
+               <md:Model.profile>http://example.org/MyCustom/1/1</md:Model.profile>
+             </md:FullModel>
+            """);
+        for (int i = 0; i < numberOfElements; i++) {
+            final var uuid = "%08x-8da5-45c2-892e-59a648f2f862".formatted(i);
+            sb.append("""
+                 <!-- element %d </cim:ClassA> <![CDATA[ </rdf:RDF> ]]> -->
+                 <cim:ClassA rdf:ID="_%s">
+                   <cim:ClassA.floatProperty>%d.5</cim:ClassA.floatProperty>
+                   <cim:ClassA.textProperty>a &lt; b &amp;&amp; b > c '%d' "quoted" /></cim:ClassA.textProperty>
+                   <cim:ClassA.next rdf:nodeID="node%d"/>
+                   <cim:ClassA.anonymous rdf:parseType="Resource">
+                     <cim:ClassA.textProperty>anonymous %d</cim:ClassA.textProperty>
+                   </cim:ClassA.anonymous>
+                 </cim:ClassA>
+                 <rdf:Description rdf:nodeID="node%d"><cim:ClassA.textProperty>labelled %d</cim:ClassA.textProperty></rdf:Description>
+                 <cim:ClassA rdf:about="#_%s"/>
+                """.formatted(i, uuid, i, i, (i * 7) % numberOfElements, i, i, i, uuid));
+        }
+        sb.append("</rdf:RDF>\n");
+        return sb.toString();
+    }
+
+    private CimXmlParser parserWithCustomProfile() throws IOException {
+        final var parser = new CimXmlParser();
+        final var fileHeaderProfile = temporaryFolder.newFile("FileHeader.rdf").toPath();
+        final var customProfile = temporaryFolder.newFile("Custom.rdf").toPath();
+        Files.writeString(fileHeaderProfile, FILE_HEADER_PROFILE, StandardCharsets.UTF_8);
+        Files.writeString(customProfile, CUSTOM_PROFILE, StandardCharsets.UTF_8);
+        parser.parseAndRegisterCimProfile(fileHeaderProfile);
+        parser.parseAndRegisterCimProfile(customProfile);
+        return parser;
+    }
+
+    @Test
+    public void parseCimModelParallelMatchesSequentialParsing() throws IOException {
+        final var file = temporaryFolder.newFile("large.xml").toPath();
+        Files.writeString(file, largeFullModel(200), StandardCharsets.UTF_8);
+        final var parser = parserWithCustomProfile();
+
+        final var sequential = parser.parseCimModel(file);
+        final var parallel = parser.parseCimModelParallel(file, 4, 1024);
+
+        assertTrue(parallel.isFullModel());
+        assertEquals(sequential.getModelHeader().size(), parallel.getModelHeader().size());
+        assertEquals(sequential.getModelHeader().getProfiles(), parallel.getModelHeader().getProfiles());
+        assertEquals(sequential.getBody().size(), parallel.getBody().size());
+        assertTrue(sequential.getBody().isIsomorphicWith(parallel.getBody()));
+        assertTrue(parallel.getBody().contains(
+                NodeFactory.createURI("urn:uuid:000000c7-8da5-45c2-892e-59a648f2f862"),
+                NodeFactory.createURI("http://iec.ch/TC57/CIM100#ClassA.floatProperty"),
+                NodeFactory.createLiteral("199.5", null, XSDDatatype.XSDfloat)));
+    }
+
+    @Test
+    public void parallelParsingCountsTheNodeCachesOfAllParts() throws IOException {
+        final var file = temporaryFolder.newFile("large.xml").toPath();
+        Files.writeString(file, largeFullModel(200), StandardCharsets.UTF_8);
+        final var parser = parserWithCustomProfile();
+
+        final var sequential = new StreamCIMXMLToDatasetGraph();
+        parser.parseCimModel(file, sequential);
+        final var parallel = new StreamCIMXMLToDatasetGraph();
+        assertTrue(new ParallelReaderCIMXML(new ReaderCIMXML_StAX_SR(), 4, 1024)
+                .read(file, parser.getCimProfileRegistry(), parallel));
+
+        // the caches of the parts are separate, so only the requests are the same
+        final var expected = sequential.getNodeCacheStatistics();
+        final var actual = parallel.getNodeCacheStatistics();
+        assertEquals(expected.literalNodes().requests, actual.literalNodes().requests);
+        assertEquals(expected.uuidNodes().requests, actual.uuidNodes().requests);
+        assertEquals(actual.literalNodes().requests, actual.literalNodes().hits + actual.literalNodes().misses);
+    }
+
+    @Test
+    public void parseCimModelPipelinedMatchesSequentialParsing() throws IOException {
+        final var file = temporaryFolder.newFile("large.xml").toPath();
+        Files.writeString(file, largeFullModel(200), StandardCharsets.UTF_8);
+        final var parser = parserWithCustomProfile();
+
+        final var sequential = parser.parseCimModel(file);
+        final var pipelined = parser.parseCimModelPipelined(file, 7, 2);
+
+        assertTrue(pipelined.isFullModel());
+        assertEquals(sequential.getModelHeader().size(), pipelined.getModelHeader().size());
+        assertEquals(sequential.getBody().size(), pipelined.getBody().size());
+        assertTrue(sequential.getBody().isIsomorphicWith(pipelined.getBody()));
+        assertEquals(sequential.prefixes().getMapping(), pipelined.prefixes().getMapping());
+        assertTrue(pipelined.getBody().contains(
+                NodeFactory.createURI("urn:uuid:000000c7-8da5-45c2-892e-59a648f2f862"),
+                NodeFactory.createURI("http://iec.ch/TC57/CIM100#ClassA.floatProperty"),
+                NodeFactory.createLiteral("199.5", null, XSDDatatype.XSDfloat)));
+    }
+
+    @Test
+    public void resolvePropertyDatatypeWithUnusualNamespacePrefix() throws IOException {
+        final var parser = parserWithCustomProfile();
+        final var model = """
+            <?xml version="1.0" encoding="utf-8"?>
+            <rdf:RDF xmlns:cim="http://iec.ch/TC57/CIM100#" xmlns:a="http://iec.ch/TC57/CIM100#ClassA." xmlns:md="http://iec.ch/TC57/61970-552/ModelDescription/1#" xmlns:rdf="http://www.w3.org/1999/02/22-rdf-syntax-ns#">
+             <md:FullModel rdf:about="urn:uuid:08984e27-811f-4042-9125-1531ae0de0f6">
+               <md:Model.profile>http://example.org/MyCustom/1/1</md:Model.profile>
+             </md:FullModel>
+             <cim:ClassA rdf:ID="_00000001-8da5-45c2-892e-59a648f2f862">
+               <cim:ClassA.floatProperty>1.5</cim:ClassA.floatProperty>
+               <a:floatProperty>2.5</a:floatProperty>
+             </cim:ClassA>
+            </rdf:RDF>
+            """;
+
+        final var body = parser.parseCimModel(new StringReader(model)).getBody();
+
+        final var subject = NodeFactory.createURI("urn:uuid:00000001-8da5-45c2-892e-59a648f2f862");
+        final var floatProperty = NodeFactory.createURI("http://iec.ch/TC57/CIM100#ClassA.floatProperty");
+        assertTrue(body.contains(subject, floatProperty, NodeFactory.createLiteral("1.5", null, XSDDatatype.XSDfloat)));
+        assertTrue(body.contains(subject, floatProperty, NodeFactory.createLiteral("2.5", null, XSDDatatype.XSDfloat)));
+    }
+
+    @Test
+    public void repeatedProfileTypedLiteralsAreShared() throws IOException {
+        final var parser = parserWithCustomProfile();
+        final var model = CimXmlTestDocuments.fullModel("urn:uuid:08984e27-811f-4042-9125-1531ae0de0f6",
+                "http://example.org/MyCustom/1/1", CimXmlTestDocuments.elements(10, i -> """
+                     <cim:ClassA rdf:ID="_%08x-8da5-45c2-892e-59a648f2f862">
+                       <cim:ClassA.floatProperty>%s</cim:ClassA.floatProperty>
+                     </cim:ClassA>
+                    """.formatted(i, i < 8 ? "0.0" : i + ".25")));
+        final var streamRDF = new StreamCIMXMLToDatasetGraph();
+
+        parser.parseCimModel(new StringReader(model), streamRDF);
+
+        final var body = streamRDF.getCIMDatasetGraph().getBody();
+        final var floatProperty = NodeFactory.createURI("http://iec.ch/TC57/CIM100#ClassA.floatProperty");
+        final var values = body.find(Node.ANY, floatProperty, Node.ANY).mapWith(Triple::getObject).toList();
+        assertEquals(10, values.size());
+        final var zero = NodeFactory.createLiteral("0.0", null, XSDDatatype.XSDfloat);
+        final var zeros = values.stream().filter(zero::equals).toList();
+        assertEquals(8, zeros.size());
+        zeros.forEach(value -> assertSame(zeros.getFirst(), value));
+        assertTrue(body.contains(NodeFactory.createURI("urn:uuid:00000009-8da5-45c2-892e-59a648f2f862"),
+                floatProperty, NodeFactory.createLiteral("9.25", null, XSDDatatype.XSDfloat)));
+        final var literalNodes = streamRDF.getNodeCacheStatistics().literalNodes();
+        assertEquals(10, literalNodes.requests);
+        assertEquals(7, literalNodes.hits);
+    }
+
+    @Test
+    public void invalidProfileTypedValuesAreReportedWhenValidating() throws IOException {
+        final var parser = parserWithCustomProfile();
+        final var values = List.of("1.5", "1,5", "1.5", "1,5", "abc", "", "1,5");
+        final var model = CimXmlTestDocuments.fullModel("urn:uuid:08984e27-811f-4042-9125-1531ae0de0f6",
+                "http://example.org/MyCustom/1/1", CimXmlTestDocuments.elements(values.size(), i -> """
+                     <cim:ClassA rdf:ID="_%08x-8da5-45c2-892e-59a648f2f862">
+                       <cim:ClassA.floatProperty>%s</cim:ClassA.floatProperty>
+                       <cim:ClassA.textProperty>1,5</cim:ClassA.textProperty>
+                     </cim:ClassA>
+                    """.formatted(i, values.get(i)))
+                        + " <cim:ClassA rdf:ID=\"_ffffffff-8da5-45c2-892e-59a648f2f862\"><cim:ClassA.floatProperty/></cim:ClassA>\n");
+
+        final var withoutValidation = new StreamCIMXMLToDatasetGraph();
+        parser.parseCimModel(new StringReader(model), withoutValidation);
+        assertNull(withoutValidation.getValueValidationReport());
+
+        final var report = new CimValueValidationReport(3);
+        final var streamRDF = new StreamCIMXMLToDatasetGraph();
+        streamRDF.setValueValidationReport(report);
+        parser.parseCimModel(new StringReader(model), streamRDF);
+
+        final var floatProperty = NodeFactory.createURI("http://iec.ch/TC57/CIM100#ClassA.floatProperty");
+        assertFalse(report.isValid());
+        assertEquals(6, report.getViolationCount());
+        assertTrue(report.isTruncated());
+        assertEquals(Map.of(floatProperty, 6L), report.getViolationCountsByProperty());
+        final var violations = report.getViolations();
+        assertEquals(List.of("1,5", "1,5", "abc"),
+                violations.stream().map(CimValueValidationReport.Violation::lexicalForm).toList());
+        final var first = violations.getFirst();
+        assertEquals(NodeFactory.createURI("urn:uuid:00000001-8da5-45c2-892e-59a648f2f862"), first.subject());
+        assertEquals(floatProperty, first.property());
+        assertEquals(XSDDatatype.XSDfloat, first.datatype());
+        assertEquals(11, first.line());
+        // the invalid values are still parsed as before
+        assertEquals(withoutValidation.getCIMDatasetGraph().getBody().size(),
+                streamRDF.getCIMDatasetGraph().getBody().size());
+        assertTrue(streamRDF.getCIMDatasetGraph().getBody().contains(first.subject(), floatProperty,
+                NodeFactory.createLiteral("1,5", null, XSDDatatype.XSDfloat)));
+    }
+
+    @Test
+    public void invalidValuesInParallelPartsAreReportedWithFilePositions() throws IOException {
+        final var file = temporaryFolder.newFile("invalid.xml").toPath();
+        // several elements share a line, so that parts may also start in the middle of a line
+        Files.writeString(file, CimXmlTestDocuments.fullModel("urn:uuid:08984e27-811f-4042-9125-1531ae0de0f6",
+                "http://example.org/MyCustom/1/1", CimXmlTestDocuments.elements(200, i ->
+                        " <cim:ClassA rdf:ID=\"_%08x-8da5-45c2-892e-59a648f2f862\"><cim:ClassA.floatProperty>%d,5</cim:ClassA.floatProperty></cim:ClassA>"
+                                .formatted(i, i) + (i % 3 == 2 ? "\n" : ""))
+                        + "\n"), StandardCharsets.UTF_8);
+        final var parser = parserWithCustomProfile();
+
+        final var sequentialReport = new CimValueValidationReport(1000);
+        final var sequential = new StreamCIMXMLToDatasetGraph();
+        sequential.setValueValidationReport(sequentialReport);
+        parser.parseCimModel(file, sequential);
+
+        final var parallelReport = new CimValueValidationReport(1000);
+        final var parallel = new StreamCIMXMLToDatasetGraph();
+        parallel.setValueValidationReport(parallelReport);
+        assertTrue(new ParallelReaderCIMXML(new ReaderCIMXML_StAX_SR(), 4, 1024)
+                .read(file, parser.getCimProfileRegistry(), parallel));
+
+        assertEquals(200, sequentialReport.getViolationCount());
+        assertEquals(200, parallelReport.getViolationCount());
+        // the parts are validated concurrently, so only the set of violations is the same
+        assertEquals(Set.copyOf(sequentialReport.getViolations()), Set.copyOf(parallelReport.getViolations()));
+    }
+
+    @Test
+    public void registerCimProfilesFromCacheMatchesParsedProfiles() throws IOException {
+        final var file = temporaryFolder.newFile("large.xml").toPath();
+        Files.writeString(file, largeFullModel(20), StandardCharsets.UTF_8);
+        final var fileHeaderProfile = temporaryFolder.newFile("FileHeader.rdf").toPath();
+        final var customProfile = temporaryFolder.newFile("Custom.rdf").toPath();
+        Files.writeString(fileHeaderProfile, FILE_HEADER_PROFILE, StandardCharsets.UTF_8);
+        Files.writeString(customProfile, CUSTOM_PROFILE, StandardCharsets.UTF_8);
+        final var profiles = List.of(fileHeaderProfile, customProfile);
+        final var cacheFile = temporaryFolder.getRoot().toPath().resolve("profiles.cache");
+
+        final var parsing = new CimXmlParser();
+        assertFalse(parsing.registerCimProfiles(profiles, cacheFile));
+        assertTrue(Files.exists(cacheFile));
+
+        final var caching = new CimXmlParser();
+        assertTrue(caching.registerCimProfiles(profiles.reversed(), cacheFile));
+        final var versionIris = Set.of(NodeFactory.createURI("http://example.org/MyCustom/1/1"));
+        assertTrue(caching.getCimProfileRegistry().containsProfile(versionIris));
+        assertEquals(parsing.getCimProfileRegistry().getPropertiesAndDatatypes(versionIris),
+                caching.getCimProfileRegistry().getPropertiesAndDatatypes(versionIris));
+        assertEquals(parsing.getCimProfileRegistry().getRegisteredProfiles().size(),
+                caching.getCimProfileRegistry().getRegisteredProfiles().size());
+
+        final var parsed = parsing.parseCimModel(file);
+        final var cached = caching.parseCimModel(file);
+        assertTrue(parsed.getBody().isIsomorphicWith(cached.getBody()));
+        assertTrue(cached.getBody().contains(
+                NodeFactory.createURI("urn:uuid:00000013-8da5-45c2-892e-59a648f2f862"),
+                NodeFactory.createURI("http://iec.ch/TC57/CIM100#ClassA.floatProperty"),
+                NodeFactory.createLiteral("19.5", null, XSDDatatype.XSDfloat)));
+
+        // a changed profile file invalidates the cache
+        Files.writeString(customProfile, CUSTOM_PROFILE.replace("</rdf:RDF>", "<!-- changed --></rdf:RDF>"),
+                StandardCharsets.UTF_8);
+        assertFalse(new CimXmlParser().registerCimProfiles(profiles, cacheFile));
+    }
+
+    @Test
+    public void splitLargeFullModelAtTopLevelElements() throws IOException {
+        final var file = temporaryFolder.newFile("large.xml").toPath();
+        Files.writeString(file, largeFullModel(200), StandardCharsets.UTF_8);
+
+        try (final var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final var layout = CimXmlBodySplitter.split(channel, 4096);
+            assertNotNull(layout);
+            assertTrue(layout.numberOfBodyParts() > 1);
+            final var content = Files.readString(file, StandardCharsets.UTF_8);
+            assertTrue(content.substring(0, (int) layout.headerEnd()).endsWith("</md:FullModel>"));
+            assertTrue(content.substring((int) layout.rootEndStart()).startsWith("</rdf:RDF>"));
+            final var bounds = layout.bodyBounds();
+            assertEquals(layout.headerEnd(), bounds[0]);
+            assertEquals(layout.rootEndStart(), bounds[bounds.length - 1]);
+            for (int i = 1; i < bounds.length - 1; i++) {
+                assertTrue(content.substring(0, (int) bounds[i]).endsWith(">"));
+            }
+        }
+    }
+
+    @Test
+    public void parseCimModelParallelFallsBackForDocumentsWithoutFullModel() throws IOException {
+        final var file = temporaryFolder.newFile("plain.xml").toPath();
+        Files.writeString(file, largeFullModel(50).replace("md:FullModel", "cim:ClassB"), StandardCharsets.UTF_8);
+
+        try (final var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            assertNull(CimXmlBodySplitter.split(channel, 1024));
+        }
+        final var parser = new CimXmlParser();
+        final var parallel = parser.parseCimModelParallel(file, 4, 1024);
+        assertFalse(parallel.isFullModel());
+        assertTrue(parser.parseCimModel(file).getDefaultGraph().isIsomorphicWith(parallel.getDefaultGraph()));
+    }
+
+    @Test
+    public void parseCimModelIntoStreamWithElementFilter() throws IOException {
+        final var file = temporaryFolder.newFile("large.xml").toPath();
+        Files.writeString(file, largeFullModel(20), StandardCharsets.UTF_8);
+        final var parser = parserWithCustomProfile();
+        final var cim = "http://iec.ch/TC57/CIM100#";
+        final var filter = new CimXmlElementFilter() {
+            @Override
+            public boolean acceptType(String namespace, String localName) {
+                return cim.equals(namespace) && "ClassA".equals(localName);
+            }
+
+            @Override
+            public boolean acceptProperty(String namespace, String localName) {
+                return cim.equals(namespace) && "ClassA.floatProperty".equals(localName);
+            }
+        };
+        final var triples = new ArrayList<Triple>();
+        final var stream = StreamCIMXMLBase.of(filter, (context, triple) -> {
+            assertEquals(CimXmlDocumentContext.body, context);
+            triples.add(triple);
+        });
+
+        parser.parseCimModel(file, stream);
+
+        final var floatProperty = NodeFactory.createURI(cim + "ClassA.floatProperty");
+        assertEquals(40, triples.stream().filter(t -> t.predicateMatches(RDF.Nodes.type)).count());
+        assertEquals(20, triples.stream().filter(t -> t.predicateMatches(floatProperty)).count());
+        assertEquals(60, triples.size());
+        assertTrue(triples.contains(Triple.create(
+                NodeFactory.createURI("urn:uuid:00000013-8da5-45c2-892e-59a648f2f862"),
+                floatProperty,
+                NodeFactory.createLiteral("19.5", null, XSDDatatype.XSDfloat))));
+        // the header is kept for the profiles, but not passed to the handler
+        assertEquals(Set.of(NodeFactory.createURI("http://example.org/MyCustom/1/1")),
+                stream.getModelHeader().getProfiles());
+    }
+
+    @Test
+    public void parseCimModelWithProjection() throws IOException {
+        final var file = temporaryFolder.newFile("large.xml").toPath();
+        Files.writeString(file, largeFullModel(50), StandardCharsets.UTF_8);
+        final var parser = parserWithCustomProfile();
+        final var floatProperty = NodeFactory.createURI("http://iec.ch/TC57/CIM100#ClassA.floatProperty");
+
+        final var complete = parser.parseCimModel(file);
+        final var partial = parser.parseCimModel(file, CimXmlProjection.ofProperties(floatProperty.getURI()));
+
+        final var expected = GraphFactory.createGraphMem();
+        complete.getBody().find(Node.ANY, RDF.Nodes.type, Node.ANY).forEach(expected::add);
+        complete.getBody().find(Node.ANY, floatProperty, Node.ANY).forEach(expected::add);
+        assertEquals(100, expected.size());
+        assertTrue(expected.isIsomorphicWith(partial.getBody()));
+        assertTrue(complete.getModelHeader().isIsomorphicWith(partial.getModelHeader()));
+
+        final var noClassA = parser.parseCimModel(file,
+                CimXmlProjection.ofClasses("http://iec.ch/TC57/CIM100#ClassB"));
+        // only the untyped rdf:Description elements are left
+        assertEquals(50, noClassA.getBody().size());
+        assertFalse(noClassA.getBody().contains(Node.ANY, RDF.Nodes.type, Node.ANY));
+    }
+
+    @Test
+    public void projectionSplitsUrnNamespacesAndFiltersPropertyAttributes() {
+        final var rdfxml = CimXmlTestDocuments.fullModel("urn:uuid:08984e27-811f-4042-9125-1531ae0de0f6", null, """
+             <cim:MyEquipment rdf:ID="_f67fc354-9e39-4191-a456-67537399bc48" xmlns:x="urn:example:" x:kept="1" x:dropped="2">
+               <x:name>kept</x:name>
+               <x:description>dropped</x:description>
+             </cim:MyEquipment>
+            """);
+
+        final var partial = new CimXmlParser().parseCimModel(new StringReader(rdfxml),
+                CimXmlProjection.ofProperties("urn:example:name", "urn:example:kept"));
+
+        final var body = partial.getBody();
+        final var subject = NodeFactory.createURI("urn:uuid:f67fc354-9e39-4191-a456-67537399bc48");
+        assertEquals(3, body.size());
+        assertTrue(body.contains(subject, RDF.Nodes.type, NodeFactory.createURI("http://iec.ch/TC57/CIM100#MyEquipment")));
+        assertTrue(body.contains(subject, NodeFactory.createURI("urn:example:name"), NodeFactory.createLiteralString("kept")));
+        assertTrue(body.contains(subject, NodeFactory.createURI("urn:example:kept"), NodeFactory.createLiteralString("1")));
+    }
+
+    @Test
+    public void normalizeCimUuidsInAllSupportedForms() {
+        final var rdfxml = """
+            <?xml version="1.0" encoding="utf-8"?>
+            <rdf:RDF xmlns:cim="http://iec.ch/TC57/CIM100#" xmlns:rdf="http://www.w3.org/1999/02/22-rdf-syntax-ns#">
+              <cim:MyEquipment rdf:ID="_F67FC354-9E39-4191-A456-67537399BC48">
+                <cim:MyEquipment.A rdf:resource="#_f67fc3549e394191a45667537399bc48"/>
+                <cim:MyEquipment.B rdf:resource="#_F67FC3549E394191A45667537399BC48"/>
+                <cim:MyEquipment.C rdf:resource="#_f67fc354-9e39-4191-a456-67537399bc48"/>
+                <cim:MyEquipment.D rdf:resource="#_f67fc354-9e39-4191-a456-67537399bc4g"/>
+                <cim:MyEquipment.E rdf:resource="#_f67fc354"/>
+              </cim:MyEquipment>
+            </rdf:RDF>
+            """;
+
+        final var graph = new CimXmlParser().parseCimModel(new StringReader(rdfxml)).getDefaultGraph();
+
+        final var uuid = NodeFactory.createURI("urn:uuid:f67fc354-9e39-4191-a456-67537399bc48");
+        final var cim = "http://iec.ch/TC57/CIM100#";
+        for (var property : List.of("MyEquipment.A", "MyEquipment.B", "MyEquipment.C")) {
+            assertTrue(property, graph.contains(uuid, NodeFactory.createURI(cim + property), uuid));
+        }
+        assertTrue(graph.contains(uuid, NodeFactory.createURI(cim + "MyEquipment.D"),
+                NodeFactory.createURI("urn:uuid:#_f67fc354-9e39-4191-a456-67537399bc4g")));
+        assertTrue(graph.contains(uuid, NodeFactory.createURI(cim + "MyEquipment.E"),
+                NodeFactory.createURI("urn:uuid:#_f67fc354")));
+    }
+
+    @Test
+    public void parseCimModelSetFromPaths() throws IOException {
+        var eq = temporaryFolder.newFile("EQ.xml").toPath();
+        var ssh = temporaryFolder.newFile("SSH.xml").toPath();
+        Files.writeString(eq, EQ, StandardCharsets.UTF_8);
+        Files.writeString(ssh, SSH, StandardCharsets.UTF_8);
+
+        var modelSet = new CimXmlParser().parseCimModelSet(List.of(ssh, eq), 2);
+
+        assertEquals(2, modelSet.getEntries().size());
+        assertEquals("SSH.xml", modelSet.getEntries().get(0).name());
+        assertEquals("EQ.xml", modelSet.getEntries().get(1).name());
+        for (var entry : modelSet.getEntries()) {
+            assertTrue(entry.dataset().isFullModel());
+            assertEquals(4, entry.tripleCount());
+            assertNotNull(entry.parseTime());
+        }
+        assertEquals(8, modelSet.getTripleCount());
+
+        var combined = modelSet.getCombinedDatasetGraph();
+        assertEquals(4, combined.getDefaultGraph().size());
+        assertTrue(combined.containsGraph(NodeFactory.createURI("urn:uuid:08984e27-811f-4042-9125-1531ae0de0f6")));
+        assertTrue(combined.containsGraph(NodeFactory.createURI("urn:uuid:d4336345-ad68-4566-afab-d9798ec5ca86")));
+        assertTrue(combined.getDefaultGraph().contains(
+                NodeFactory.createURI("urn:uuid:135c601e-bad4-4872-ba8f-b15baf91bd2f"),
+                NodeFactory.createURI("http://iec.ch/TC57/CIM100#IdentifiedObject.name"),
+                NodeFactory.createLiteralString("Steady state")));
+    }
+
+    @Test
+    public void parseCimModelSetFromDirectory() throws IOException {
+        var directory = temporaryFolder.newFolder("igm").toPath();
+        Files.writeString(directory.resolve("EQ.xml"), EQ, StandardCharsets.UTF_8);
+        Files.writeString(directory.resolve("SSH.xml"), SSH, StandardCharsets.UTF_8);
+        Files.writeString(directory.resolve("readme.txt"), "not a model", StandardCharsets.UTF_8);
+
+        var modelSet = new CimXmlParser().parseCimModelSet(directory);
+
+        assertEquals(2, modelSet.getEntries().size());
+        assertNotNull(modelSet.getDataset("EQ.xml"));
+        assertNotNull(modelSet.getDataset("SSH.xml"));
+        assertNull(modelSet.getDataset("readme.txt"));
+    }
+
+    @Test
+    public void parseCimModelSetFromZip() throws IOException {
+        var zip = temporaryFolder.getRoot().toPath().resolve("igm.zip");
+        writeZip(zip, "EQ.xml", EQ, "SSH.xml", SSH);
+
+        var modelSet = new CimXmlParser().parseCimModelSet(zip);
+
+        assertEquals(2, modelSet.getEntries().size());
+        assertEquals("EQ.xml", modelSet.getEntries().get(0).name());
+        assertEquals("SSH.xml", modelSet.getEntries().get(1).name());
+        assertEquals(8, modelSet.getTripleCount());
+    }
+
+    @Test
+    public void parseCimModelSetFromNestedZipAndRecognizeProfiles() throws IOException {
+        var zip = temporaryFolder.getRoot().toPath().resolve("cgm.zip");
+        var nested = new ByteArrayOutputStream();
+        try (var out = new ZipOutputStream(nested)) {
+            out.putNextEntry(new ZipEntry("EQ.xml"));
+            out.write(EQ.getBytes(StandardCharsets.UTF_8));
+            out.closeEntry();
+            out.putNextEntry(new ZipEntry("Custom.xml"));
+            out.write(largeFullModel(3).getBytes(StandardCharsets.UTF_8));
+            out.closeEntry();
+        }
+        try (var out = new ZipOutputStream(Files.newOutputStream(zip))) {
+            out.putNextEntry(new ZipEntry("igm.zip"));
+            out.write(nested.toByteArray());
+            out.closeEntry();
+            out.putNextEntry(new ZipEntry("SSH.xml"));
+            out.write(SSH.getBytes(StandardCharsets.UTF_8));
+            out.closeEntry();
+        }
+
+        var modelSet = parserWithCustomProfile().parseCimModelSet(zip, 2);
+
+        // the outer entries are sorted by name, the entries of the nested zip keep their order
+        assertEquals(List.of("SSH.xml", "igm.zip/EQ.xml", "igm.zip/Custom.xml"),
+                modelSet.getEntries().stream().map(CimModelSet.Entry::name).toList());
+        assertEquals(4, modelSet.getEntries().get(1).tripleCount());
+        var custom = modelSet.getEntriesForProfile("MYCUST");
+        assertEquals(1, custom.size());
+        assertEquals("igm.zip/Custom.xml", custom.get(0).name());
+        assertEquals(Set.of("MYCUST"), custom.get(0).profileKeywords());
+        assertTrue(modelSet.getDataset("SSH.xml").isFullModel());
+        assertEquals(Set.of(), modelSet.getEntries().get(0).profileKeywords());
+    }
+
+    private static void writeZip(Path zip, String... namesAndContents) throws IOException {
+        try (var out = new ZipOutputStream(Files.newOutputStream(zip))) {
+            for (int i = 0; i < namesAndContents.length; i += 2) {
+                out.putNextEntry(new ZipEntry(namesAndContents[i]));
+                out.write(namesAndContents[i + 1].getBytes(StandardCharsets.UTF_8));
+                out.closeEntry();
+            }
+        }
+    }
+}
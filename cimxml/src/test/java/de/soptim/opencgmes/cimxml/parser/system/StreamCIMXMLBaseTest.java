@@ -0,0 +1,118 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.soptim.opencgmes.cimxml.parser.system;
+
+import de.soptim.opencgmes.cimxml.CimXmlDocumentContext;
+import de.soptim.opencgmes.cimxml.parser.ReaderCIMXML_StAX_SR;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class StreamCIMXMLBaseTest {
+
+    private static final String DIFFERENCE_MODEL = """
+            <?xml version="1.0" encoding="utf-8"?>
+            <rdf:RDF
+                xmlns:dm="http://iec.ch/TC57/61970-552/DifferenceModel/1#"
+                xmlns:md="http://iec.ch/TC57/61970-552/ModelDescription/1#"
+                xmlns:cim="http://iec.ch/TC57/CIM100#"
+                xmlns:rdf="http://www.w3.org/1999/02/22-rdf-syntax-ns#">
+             <dm:DifferenceModel rdf:about="urn:uuid:08984e27-811f-4042-9125-1531ae0de0f6">
+                <md:Model.description>The header is never filtered</md:Model.description>
+                <dm:preconditions rdf:parseType="Statements">
+                    <rdf:Description rdf:about="#_135c601e-bad4-4872-ba8f-b15baf91bd2f">
+                        <cim:IdentifiedObject.name>Name of my element</cim:IdentifiedObject.name>
+                    </rdf:Description>
+                </dm:preconditions>
+                <dm:forwardDifferences rdf:parseType="Statements">
+                    <rdf:Description rdf:about="#_135c601e-bad4-4872-ba8f-b15baf91bd2f">
+                        <cim:MyElement.MyProperty>B</cim:MyElement.MyProperty>
+                    </rdf:Description>
+                    <cim:MyElement rdf:about="#_2d1e4820-8858-49de-b441-5a03e7c40035">
+                        <cim:IdentifiedObject.name>Name of new element to add</cim:IdentifiedObject.name>
+                        <cim:MyElement.MyProperty>property of new element</cim:MyElement.MyProperty>
+                    </cim:MyElement>
+                    <cim:OtherElement rdf:about="#_9b1b7d0c-5c40-4a43-9f0f-7bb8fd1a4a2a">
+                        <cim:MyElement.MyProperty>skipped with its element</cim:MyElement.MyProperty>
+                    </cim:OtherElement>
+                </dm:forwardDifferences>
+                <dm:reverseDifferences rdf:parseType="Statements">
+                    <rdf:Description rdf:about="#_135c601e-bad4-4872-ba8f-b15baf91bd2f">
+                        <cim:MyElement.MyProperty>A</cim:MyElement.MyProperty>
+                    </rdf:Description>
+                </dm:reverseDifferences>
+             </dm:DifferenceModel>
+            </rdf:RDF>
+            """;
+
+    @Test
+    public void filterDifferenceModelAndReportContexts() {
+        final var filter = new CimXmlElementFilter() {
+            @Override
+            public boolean acceptType(String namespace, String localName) {
+                return !"OtherElement".equals(localName);
+            }
+
+            @Override
+            public boolean acceptProperty(String namespace, String localName) {
+                return "MyElement.MyProperty".equals(localName);
+            }
+        };
+        final var triplesByContext = new EnumMap<CimXmlDocumentContext, List<Triple>>(CimXmlDocumentContext.class);
+        final var startedContexts = new ArrayList<CimXmlDocumentContext>();
+        final var stream = new StreamCIMXMLBase(filter) {
+            @Override
+            protected void triple(CimXmlDocumentContext context, Triple triple) {
+                triplesByContext.computeIfAbsent(context, c -> new ArrayList<>()).add(triple);
+            }
+
+            @Override
+            protected void contextStarted(CimXmlDocumentContext context) {
+                startedContexts.add(context);
+            }
+        };
+
+        new ReaderCIMXML_StAX_SR().read(new StringReader(DIFFERENCE_MODEL), stream);
+
+        assertEquals(List.of(CimXmlDocumentContext.differenceModel, CimXmlDocumentContext.preconditions,
+                CimXmlDocumentContext.forwardDifferences, CimXmlDocumentContext.reverseDifferences), startedContexts);
+        assertNull(triplesByContext.get(CimXmlDocumentContext.preconditions));
+        assertEquals(3, triplesByContext.get(CimXmlDocumentContext.forwardDifferences).size());
+        assertEquals(List.of(Triple.create(
+                        NodeFactory.createURI("urn:uuid:135c601e-bad4-4872-ba8f-b15baf91bd2f"),
+                        NodeFactory.createURI("http://iec.ch/TC57/CIM100#MyElement.MyProperty"),
+                        NodeFactory.createLiteralString("A"))),
+                triplesByContext.get(CimXmlDocumentContext.reverseDifferences));
+        assertNull(triplesByContext.get(CimXmlDocumentContext.differenceModel));
+
+        final var dataset = stream.getCIMDatasetGraph();
+        assertTrue(dataset.isDifferenceModel());
+        assertTrue(dataset.getModelHeader().contains(
+                NodeFactory.createURI("urn:uuid:08984e27-811f-4042-9125-1531ae0de0f6"),
+                NodeFactory.createURI("http://iec.ch/TC57/61970-552/ModelDescription/1#Model.description"),
+                NodeFactory.createLiteralString("The header is never filtered")));
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.soptim.opencgmes.cimxml.parser.system;
+
+import de.soptim.opencgmes.cimxml.parser.ReaderCIMXML_StAX_SR;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.junit.Test;
+
+import java.io.StringReader;
+
+import static org.junit.Assert.*;
+
+public class StreamCIMXMLPipelinedTest {
+
+    private static final String FULL_MODEL = """
+            <?xml version="1.0" encoding="utf-8"?>
+            <?iec61970-552 version="2.0"?>
+            <rdf:RDF xmlns:cim="http://iec.ch/TC57/CIM100#" xmlns:md="http://iec.ch/TC57/61970-552/ModelDescription/1#" xmlns:rdf="http://www.w3.org/1999/02/22-rdf-syntax-ns#">
+             <md:FullModel rdf:about="urn:uuid:08984e27-811f-4042-9125-1531ae0de0f6">
+               <md:Model.profile>http://soptim.de/CIM/MyProfile/1.1</md:Model.profile>
+               <md:Model.description>Pipelined</md:Model.description>
+             </md:FullModel>
+             <cim:MyEquipment rdf:ID="_f67fc354-9e39-4191-a456-67537399bc48">
+               <cim:IdentifiedObject.name>Equipment A</cim:IdentifiedObject.name>
+             </cim:MyEquipment>
+             <cim:MyEquipment rdf:ID="_135c601e-bad4-4872-ba8f-b15baf91bd2f">
+               <cim:IdentifiedObject.name>Equipment B</cim:IdentifiedObject.name>
+             </cim:MyEquipment>
+            </rdf:RDF>
+            """;
+
+    @Test
+    public void contextSwitchesAreAppliedBetweenTheRightTriples() {
+        final var destination = new StreamCIMXMLToDatasetGraph();
+        final var pipelined = new StreamCIMXMLPipelined(destination, 1, 1);
+
+        new ReaderCIMXML_StAX_SR().read(new StringReader(FULL_MODEL), pipelined);
+
+        final var dataset = destination.getCIMDatasetGraph();
+        assertTrue(dataset.isFullModel());
+        assertEquals(3, dataset.getModelHeader().size());
+        assertEquals(4, dataset.getBody().size());
+        assertTrue(dataset.getBody().contains(
+                NodeFactory.createURI("urn:uuid:135c601e-bad4-4872-ba8f-b15baf91bd2f"),
+                NodeFactory.createURI("http://iec.ch/TC57/CIM100#IdentifiedObject.name"),
+                NodeFactory.createLiteralString("Equipment B")));
+        assertEquals("version=\"2.0\"", destination.getVersionOfIEC61970_552());
+        assertEquals("http://iec.ch/TC57/CIM100#", dataset.prefixes().get("cim"));
+    }
+
+    @Test
+    public void failureOfTheConsumerIsRethrown() {
+        final var failure = new IllegalStateException("graph is full");
+        final var destination = new StreamCIMXMLToDatasetGraph() {
+            @Override
+            public void triple(Triple triple) {
+                throw failure;
+            }
+        };
+        final var pipelined = new StreamCIMXMLPipelined(destination, 2, 2);
+        final var triple = Triple.create(
+                NodeFactory.createURI("urn:uuid:f67fc354-9e39-4191-a456-67537399bc48"),
+                NodeFactory.createURI("http://iec.ch/TC57/CIM100#IdentifiedObject.name"),
+                NodeFactory.createLiteralString("Equipment A"));
+
+        pipelined.start();
+        for (int i = 0; i < 100; i++) {
+            try {
+                pipelined.triple(triple);
+            } catch (IllegalStateException e) {
+                assertSame(failure, e);
+                break;
+            }
+        }
+        assertSame(failure, assertThrows(IllegalStateException.class, pipelined::finish));
+    }
+}
@@ -24,9 +24,15 @@ import de.soptim.opencgmes.cimxml.parser.ReaderCIMXML_StAX_SR;
 import de.soptim.opencgmes.cimxml.parser.system.StreamCIMXMLToDatasetGraph;
 import org.apache.jena.datatypes.xsd.XSDDatatype;
 import org.apache.jena.graph.NodeFactory;
+import org.junit.Assume;
 import org.junit.Test;
 
+import java.io.IOException;
 import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
 
 import static org.junit.Assert.*;
@@ -379,4 +385,134 @@ public class CimProfileRegistryStdTest {
         }
     }
 
-}
\ No newline at end of file
+    private static final String PROFILE_WITH_ALL_KINDS_OF_PROPERTIES = """
+        <?xml version="1.0" encoding="UTF-8"?>
+        <rdf:RDF
+           xmlns:cim="http://iec.ch/TC57/CIM100#"
+           xmlns:cims="http://iec.ch/TC57/1999/rdf-schema-extensions-19990926#"
+           xmlns:dcat="http://www.w3.org/ns/dcat#"
+           xmlns:owl="http://www.w3.org/2002/07/owl#"
+           xmlns:rdf="http://www.w3.org/1999/02/22-rdf-syntax-ns#"
+           xmlns:rdfs="http://www.w3.org/2000/01/rdf-schema#"
+           xml:base ="http://iec.ch/TC57/CIM100">
+            <rdf:Description rdf:about="http://iec.ch/TC57/ns/CIM/CoreEquipment-EU#Ontology">
+                <dcat:keyword>ALL</dcat:keyword>
+                <owl:versionIRI rdf:resource="http://example.org/AllKinds/1/1"/>
+                <rdf:type rdf:resource="http://www.w3.org/2002/07/owl#Ontology"/>
+            </rdf:Description>
+            <rdf:Description rdf:about="#ClassA.floatProperty">
+                <rdfs:domain rdf:resource="#ClassA"/>
+                <cims:dataType rdf:resource="#Float"/>
+            </rdf:Description>
+            <rdf:Description rdf:about="#ClassA.count">
+                <rdfs:domain rdf:resource="#ClassA"/>
+                <cims:dataType rdf:resource="#Integer"/>
+            </rdf:Description>
+            <rdf:Description rdf:about="#ClassA.p">
+                <rdfs:domain rdf:resource="#ClassA"/>
+                <cims:dataType rdf:resource="#ActivePower"/>
+            </rdf:Description>
+            <rdf:Description rdf:about="#ClassA.kind">
+                <rdfs:domain rdf:resource="#ClassA"/>
+                <rdfs:range rdf:resource="#Kind"/>
+            </rdf:Description>
+            <rdf:Description rdf:about="#ClassA.ClassB">
+                <rdfs:domain rdf:resource="#ClassA"/>
+                <rdfs:range rdf:resource="#ClassB"/>
+                <cims:AssociationUsed>Yes</cims:AssociationUsed>
+            </rdf:Description>
+            <rdf:Description rdf:about="#ClassB.ClassA">
+                <rdfs:domain rdf:resource="#ClassB"/>
+                <rdfs:range rdf:resource="#ClassA"/>
+                <cims:AssociationUsed>No</cims:AssociationUsed>
+            </rdf:Description>
+            <rdf:Description rdf:about="#ActivePower">
+                <cims:stereotype>CIMDatatype</cims:stereotype>
+            </rdf:Description>
+            <rdf:Description rdf:about="#ActivePower.value">
+                <rdfs:label xml:lang="en">value</rdfs:label>
+                <rdfs:domain rdf:resource="#ActivePower"/>
+                <cims:dataType rdf:resource="#Float"/>
+            </rdf:Description>
+            <rdf:Description rdf:about="#ActivePower.multiplier">
+                <rdfs:label xml:lang="en">multiplier</rdfs:label>
+                <rdfs:domain rdf:resource="#ActivePower"/>
+                <cims:dataType rdf:resource="#Integer"/>
+            </rdf:Description>
+            <rdf:Description rdf:about="#Float">
+                <rdfs:label xml:lang="en">Float</rdfs:label>
+                <cims:stereotype>Primitive</cims:stereotype>
+            </rdf:Description>
+            <rdf:Description rdf:about="#Integer">
+                <rdfs:label xml:lang="en">Integer</rdfs:label>
+                <cims:stereotype>Primitive</cims:stereotype>
+            </rdf:Description>
+        </rdf:RDF>
+        """;
+
+    @Test
+    public void extractTypedPropertiesMatchesSparqlQuery() {
+        final var profile = new RdfXmlParser().parseCimProfile(new StringReader(PROFILE_WITH_ALL_KINDS_OF_PROPERTIES));
+        final var registry = new CimProfileRegistryStd();
+
+        final var properties = registry.extractTypedProperties(profile);
+
+        assertEquals(registry.extractTypedPropertiesWithSparql(profile), properties);
+        // the value and multiplier attributes of ActivePower are properties as well
+        assertEquals(7, properties.size());
+        final var p = properties.get(NodeFactory.createURI("http://iec.ch/TC57/CIM100#ClassA.p"));
+        assertEquals(NodeFactory.createURI("http://iec.ch/TC57/CIM100#ActivePower"), p.cimDatatype());
+        assertEquals(XSDDatatype.XSDfloat, p.primitiveType());
+        assertEquals(XSDDatatype.XSDinteger,
+                properties.get(NodeFactory.createURI("http://iec.ch/TC57/CIM100#ClassA.count")).primitiveType());
+        assertEquals(NodeFactory.createURI("http://iec.ch/TC57/CIM100#Kind"),
+                properties.get(NodeFactory.createURI("http://iec.ch/TC57/CIM100#ClassA.kind")).referenceType());
+        assertTrue(properties.containsKey(NodeFactory.createURI("http://iec.ch/TC57/CIM100#ClassA.ClassB")));
+        assertFalse(properties.containsKey(NodeFactory.createURI("http://iec.ch/TC57/CIM100#ClassB.ClassA")));
+    }
+
+    @Test
+    public void propertyIndexResolvesNamespaceAndLocalName() {
+        final var registry = new CimProfileRegistryStd();
+        registry.register(new RdfXmlParser().parseCimProfile(new StringReader(PROFILE_WITH_ALL_KINDS_OF_PROPERTIES)));
+        final var versionIris = Set.of(NodeFactory.createURI("http://example.org/AllKinds/1/1"));
+
+        final var index = registry.getPropertyIndex(versionIris);
+
+        assertSame(index, registry.getPropertyIndex(versionIris));
+        final var property = NodeFactory.createURI("http://iec.ch/TC57/CIM100#ClassA.p");
+        assertSame(registry.getPropertiesAndDatatypes(versionIris).get(property),
+                index.get("http://iec.ch/TC57/CIM100#", "ClassA.p"));
+        assertSame(index.get(property), index.get("http://iec.ch/TC57/CIM100#", "ClassA.p"));
+        assertNull(index.get("http://iec.ch/TC57/CIM100#ClassA.", "p"));
+        assertNull(index.get("http://iec.ch/TC57/CIM100#", "ClassB.ClassA"));
+        assertNull(registry.getPropertyIndex(Set.of(NodeFactory.createURI("http://example.org/Unknown/1"))));
+    }
+
+    /**
+     * Compares both extractions on the CGMES profiles of the ENTSO-E submodule. Skipped when it is absent.
+     */
+    @Test
+    public void extractTypedPropertiesMatchesSparqlQueryForCgmesProfiles() throws IOException {
+        final var rdfsDirectories = List.of(
+                Path.of("../cimvocabcheck/core/testing/entsoe/application-profiles-library/CGMES/CurrentRelease/RDFS"),
+                Path.of("../cimvocabcheck/core/testing/entsoe/application-profiles-library/CGMES/PreviousReleases/CGMES_2.4.15/RDFS"));
+        final var profileFiles = new ArrayList<Path>();
+        for (var rdfsDirectory : rdfsDirectories) {
+            if (Files.isDirectory(rdfsDirectory)) {
+                try (var files = Files.list(rdfsDirectory)) {
+                    files.filter(file -> file.toString().endsWith(".rdf")).sorted().forEach(profileFiles::add);
+                }
+            }
+        }
+        Assume.assumeFalse("CGMES submodule not initialised - skipping", profileFiles.isEmpty());
+
+        final var parser = new RdfXmlParser();
+        final var registry = new CimProfileRegistryStd();
+        for (var profileFile : profileFiles) {
+            final var profile = parser.parseCimProfile(profileFile);
+            assertEquals(profileFile.toString(),
+                    registry.extractTypedPropertiesWithSparql(profile), registry.extractTypedProperties(profile));
+        }
+    }
+}
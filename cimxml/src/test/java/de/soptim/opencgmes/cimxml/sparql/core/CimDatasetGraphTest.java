@@ -19,6 +19,7 @@
 package de.soptim.opencgmes.cimxml.sparql.core;
 
 import de.soptim.opencgmes.cimxml.parser.CimXmlParser;
+import org.apache.jena.graph.Graph;
 import org.apache.jena.graph.NodeFactory;
 import org.junit.Test;
 
@@ -223,4 +224,74 @@ public class CimDatasetGraphTest {
                 NodeFactory.createLiteralString("property of new element to remove")
         ));
     }
-}
\ No newline at end of file
+
+    private static final String PREDECESSOR_FULL_MODEL = """
+            <?xml version="1.0" encoding="utf-8"?>
+            <rdf:RDF xmlns:cim="http://iec.ch/TC57/CIM100#" xmlns:md="http://iec.ch/TC57/61970-552/ModelDescription/1#" xmlns:rdf="http://www.w3.org/1999/02/22-rdf-syntax-ns#">
+             <md:FullModel rdf:about="urn:uuid:d4336345-ad68-4566-afab-d9798ec5ca86">
+               <md:Model.profile>http://soptim.de/CIM/MyProfile/1.1</md:Model.profile>
+             </md:FullModel>
+             <cim:MyElement rdf:ID="_135c601e-bad4-4872-ba8f-b15baf91bd2f">
+               <cim:IdentifiedObject.name>A</cim:IdentifiedObject.name>
+             </cim:MyElement>
+            </rdf:RDF>
+            """;
+
+    private static Graph applyDifferenceModelWithSupersedes(String supersedes) {
+        final var rdfxmlDifferenceModel = """
+            <?xml version="1.0" encoding="utf-8"?>
+            <rdf:RDF xmlns:dm="http://iec.ch/TC57/61970-552/DifferenceModel/1#" xmlns:md="http://iec.ch/TC57/61970-552/ModelDescription/1#" xmlns:cim="http://iec.ch/TC57/CIM100#" xmlns:rdf="http://www.w3.org/1999/02/22-rdf-syntax-ns#">
+             <dm:DifferenceModel rdf:about="urn:uuid:08984e27-811f-4042-9125-1531ae0de0f6">
+                <md:Model.profile>http://soptim.de/CIM/MyProfile/1.1</md:Model.profile>
+                %s
+                <dm:forwardDifferences rdf:parseType="Statements">
+                    <rdf:Description rdf:about="#_135c601e-bad4-4872-ba8f-b15baf91bd2f">
+                        <cim:IdentifiedObject.name>B</cim:IdentifiedObject.name>
+                    </rdf:Description>
+                </dm:forwardDifferences>
+                <dm:reverseDifferences rdf:parseType="Statements">
+                    <rdf:Description rdf:about="#_135c601e-bad4-4872-ba8f-b15baf91bd2f">
+                        <cim:IdentifiedObject.name>A</cim:IdentifiedObject.name>
+                    </rdf:Description>
+                </dm:reverseDifferences>
+             </dm:DifferenceModel>
+            </rdf:RDF>
+            """.formatted(supersedes);
+
+        var predecessorFullModel = new CimXmlParser().parseCimModel(new StringReader(PREDECESSOR_FULL_MODEL));
+        var differenceModel = new CimXmlParser().parseCimModel(new StringReader(rdfxmlDifferenceModel));
+        return differenceModel.differenceModelToFullModel(predecessorFullModel);
+    }
+
+    private static void assertUpdatedName(Graph fullGraph) {
+        var element = NodeFactory.createURI("urn:uuid:135c601e-bad4-4872-ba8f-b15baf91bd2f");
+        var name = NodeFactory.createURI("http://iec.ch/TC57/CIM100#IdentifiedObject.name");
+        assertTrue(fullGraph.contains(element, name, NodeFactory.createLiteralString("B")));
+        assertFalse(fullGraph.contains(element, name, NodeFactory.createLiteralString("A")));
+    }
+
+    @Test
+    public void differenceModelToFullModelAcceptsSupersedesAsLiteral() {
+        assertUpdatedName(applyDifferenceModelWithSupersedes(
+                "<md:Model.Supersedes>urn:uuid:d4336345-ad68-4566-afab-d9798ec5ca86</md:Model.Supersedes>"));
+    }
+
+    @Test
+    public void differenceModelToFullModelAcceptsSupersedesAsResource() {
+        assertUpdatedName(applyDifferenceModelWithSupersedes(
+                "<md:Model.Supersedes rdf:resource=\"urn:uuid:d4336345-ad68-4566-afab-d9798ec5ca86\"/>"));
+    }
+
+    @Test
+    public void differenceModelToFullModelAcceptsEmptySupersedes() {
+        assertUpdatedName(applyDifferenceModelWithSupersedes(""));
+    }
+
+    @Test
+    public void differenceModelToFullModelRejectsMismatchingSupersedes() {
+        assertThrows(IllegalArgumentException.class, () -> applyDifferenceModelWithSupersedes(
+                "<md:Model.Supersedes rdf:resource=\"urn:uuid:6a0b7e5c-0d4f-4d8e-9c55-0f3f4c6c7a11\"/>"));
+        assertThrows(IllegalArgumentException.class, () -> applyDifferenceModelWithSupersedes(
+                "<md:Model.Supersedes>urn:uuid:6a0b7e5c-0d4f-4d8e-9c55-0f3f4c6c7a11</md:Model.Supersedes>"));
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.soptim.opencgmes.cimxml.sparql.core;
+
+import de.soptim.opencgmes.cimxml.CimXmlTestDocuments;
+import de.soptim.opencgmes.cimxml.graph.CimProfile;
+import de.soptim.opencgmes.cimxml.parser.CimXmlParser;
+import de.soptim.opencgmes.cimxml.parser.ReaderCIMXML_StAX_SR;
+import de.soptim.opencgmes.cimxml.parser.system.StreamCIMXMLToDatasetGraph;
+import de.soptim.opencgmes.cimxml.rdfs.CimProfileRegistryStd;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.query.DatasetFactory;
+import org.apache.jena.query.QueryExecutionFactory;
+import org.apache.jena.vocabulary.RDF;
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class CimMergedDatasetGraphTest {
+
+    private static final String CIM = "http://iec.ch/TC57/CIM100#";
+
+    private static CimProfile profile(String keyword, String... properties) {
+        final var rdfxml = new StringBuilder("""
+            <?xml version="1.0" encoding="UTF-8"?>
+            <rdf:RDF
+               xmlns:cim="http://iec.ch/TC57/CIM100#"
+               xmlns:cims="http://iec.ch/TC57/1999/rdf-schema-extensions-19990926#"
+               xmlns:dcat="http://www.w3.org/ns/dcat#"
+               xmlns:owl="http://www.w3.org/2002/07/owl#"
+               xmlns:rdf="http://www.w3.org/1999/02/22-rdf-syntax-ns#"
+               xmlns:rdfs="http://www.w3.org/2000/01/rdf-schema#"
+               xml:base ="http://iec.ch/TC57/CIM100">
+                <rdf:Description rdf:about="http://example.org/%1$s#Ontology">
+                    <dcat:keyword>%1$s</dcat:keyword>
+                    <owl:versionIRI rdf:resource="http://example.org/%1$s/1"/>
+                    <owl:versionInfo xml:lang ="en">1.0.0</owl:versionInfo>
+                    <rdf:type rdf:resource="http://www.w3.org/2002/07/owl#Ontology"/>
+                </rdf:Description>
+                <rdf:Description rdf:about="#String">
+                    <rdfs:label xml:lang="en">String</rdfs:label>
+                    <cims:stereotype>Primitive</cims:stereotype>
+                    <rdf:type rdf:resource="http://www.w3.org/2000/01/rdf-schema#Class"/>
+                </rdf:Description>
+            """.formatted(keyword));
+        for (var property : properties) {
+            rdfxml.append("""
+                <rdf:Description rdf:about="#%s">
+                    <rdf:type rdf:resource="http://www.w3.org/1999/02/22-rdf-syntax-ns#Property"/>
+                    <cims:stereotype rdf:resource="http://iec.ch/TC57/NonStandard/UML#attribute"/>
+                    <rdfs:domain rdf:resource="#Terminal"/>
+                    <cims:dataType rdf:resource="#String"/>
+                </rdf:Description>
+                """.formatted(property));
+        }
+        rdfxml.append("</rdf:RDF>\n");
+        final var streamRDF = new StreamCIMXMLToDatasetGraph();
+        new ReaderCIMXML_StAX_SR().read(new StringReader(rdfxml.toString()), streamRDF);
+        return CimProfile.wrap(streamRDF.getCIMDatasetGraph().getDefaultGraph());
+    }
+
+    private static CimDatasetGraph fullModel(String keyword, String modelUuid, String properties) {
+        return new CimXmlParser().parseCimModel(new StringReader(CimXmlTestDocuments.fullModel(
+                "urn:uuid:" + modelUuid, "http://example.org/" + keyword + "/1", """
+                 <cim:Terminal rdf:ID="_135c601e-bad4-4872-ba8f-b15baf91bd2f">
+                   %s
+                 </cim:Terminal>
+                """.formatted(properties))));
+    }
+
+    private static CimMergedDatasetGraph mergedIgm() {
+        final var registry = new CimProfileRegistryStd();
+        registry.register(profile("EQ", "IdentifiedObject.name"));
+        registry.register(profile("TP", "Terminal.TopologicalNode"));
+        final var eq = fullModel("EQ", "08984e27-811f-4042-9125-1531ae0de0f6",
+                "<cim:IdentifiedObject.name>T1</cim:IdentifiedObject.name>");
+        // the TP model also carries a name, which its profile does not declare
+        final var tp = fullModel("TP", "d4336345-ad68-4566-afab-d9798ec5ca86",
+                "<cim:Terminal.TopologicalNode>TN1</cim:Terminal.TopologicalNode>"
+                        + "<cim:IdentifiedObject.name>undeclared</cim:IdentifiedObject.name>");
+        final var unknown = fullModel("SV", "6a0b7e5c-0d4f-4d8e-9c55-0f3f4c6c7a11",
+                "<cim:Terminal.TopologicalNode>TN2</cim:Terminal.TopologicalNode>");
+        return new CimMergedDatasetGraph(registry, List.of(eq, tp, unknown));
+    }
+
+    @Test
+    public void patternsAreRoutedByTheProfilesOfTheModels() {
+        final var igm = mergedIgm();
+        final var union = igm.getDefaultGraph();
+        final var name = NodeFactory.createURI(CIM + "IdentifiedObject.name");
+        final var topologicalNode = NodeFactory.createURI(CIM + "Terminal.TopologicalNode");
+
+        // the name is only asked from EQ, the model of an unregistered profile is always asked
+        assertEquals(1, union.find(Node.ANY, name, Node.ANY).toList().size());
+        assertEquals(2, union.find(Node.ANY, topologicalNode, Node.ANY).toList().size());
+        // rdf:type is not declared by any profile, so all models are asked
+        assertEquals(3, union.find(Node.ANY, RDF.type.asNode(), Node.ANY).toList().size());
+        assertEquals(7, union.size());
+
+        assertEquals(3, igm.getGraph(NodeFactory.createURI("urn:uuid:d4336345-ad68-4566-afab-d9798ec5ca86")).size());
+    }
+
+    @Test
+    public void queryJoinsAcrossModels() {
+        final var igm = mergedIgm();
+        final var query = """
+            PREFIX cim: <http://iec.ch/TC57/CIM100#>
+            SELECT DISTINCT ?name ?node WHERE {
+                ?terminal a cim:Terminal ;
+                          cim:IdentifiedObject.name ?name ;
+                          cim:Terminal.TopologicalNode ?node .
+            } ORDER BY ?node
+            """;
+        try (var execution = QueryExecutionFactory.create(query, DatasetFactory.wrap(igm))) {
+            final var results = execution.execSelect();
+            final var first = results.next();
+            assertEquals("T1", first.getLiteral("name").getString());
+            assertEquals("TN1", first.getLiteral("node").getString());
+            assertEquals("TN2", results.next().getLiteral("node").getString());
+            assertFalse(results.hasNext());
+        }
+    }
+
+    @Test
+    public void rejectDatasetsThatAreNotFullModels() {
+        final var registry = new CimProfileRegistryStd();
+        final var fullModel = fullModel("EQ", "08984e27-811f-4042-9125-1531ae0de0f6", "");
+        final var notAFullModel = new LinkedCimDatasetGraph();
+        assertThrows(IllegalArgumentException.class,
+                () -> new CimMergedDatasetGraph(registry, List.of(fullModel, notAFullModel)));
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.soptim.opencgmes.cimxml.sparql.engine;
+
+import de.soptim.opencgmes.cimxml.sparql.core.LinkedCimDatasetGraph;
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.query.DatasetFactory;
+import org.apache.jena.query.QueryExecution;
+import org.apache.jena.query.QuerySolution;
+import org.apache.jena.sparql.core.DatasetGraph;
+import org.apache.jena.sparql.engine.main.OpExecutor;
+import org.apache.jena.sparql.engine.main.QC;
+import org.apache.jena.sparql.graph.GraphFactory;
+import org.apache.jena.sparql.graph.GraphWrapper;
+import org.apache.jena.sparql.util.Context;
+import org.apache.jena.util.iterator.ExtendedIterator;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.UnaryOperator;
+
+import static org.junit.Assert.*;
+
+public class ParallelGraphOpExecutorTest {
+
+    private static final String CIM = "http://iec.ch/TC57/CIM100#";
+
+    /**
+     * Records the threads that call find and counts the triples read from the graph.
+     */
+    private static class RecordingGraph extends GraphWrapper {
+        private final Set<Thread> findThreads;
+        private final AtomicInteger triplesRead;
+
+        RecordingGraph(Graph graph, Set<Thread> findThreads, AtomicInteger triplesRead) {
+            super(graph);
+            this.findThreads = findThreads;
+            this.triplesRead = triplesRead;
+        }
+
+        @Override
+        public ExtendedIterator<Triple> find(Triple triple) {
+            return find(triple.getSubject(), triple.getPredicate(), triple.getObject());
+        }
+
+        @Override
+        public ExtendedIterator<Triple> find(Node s, Node p, Node o) {
+            findThreads.add(Thread.currentThread());
+            return super.find(s, p, o).mapWith(t -> {
+                triplesRead.incrementAndGet();
+                return t;
+            });
+        }
+    }
+
+    private static DatasetGraph igms(int count, int terminalsPerIgm) {
+        return igms(count, terminalsPerIgm, UnaryOperator.identity());
+    }
+
+    private static DatasetGraph igms(int count, int terminalsPerIgm, UnaryOperator<Graph> wrapper) {
+        final var dataset = new LinkedCimDatasetGraph(GraphFactory.createGraphMem());
+        final var name = NodeFactory.createURI(CIM + "IdentifiedObject.name");
+        for (int g = 0; g < count; g++) {
+            final var graph = GraphFactory.createGraphMem();
+            for (int i = 0; i < terminalsPerIgm; i++) {
+                graph.add(NodeFactory.createURI("urn:uuid:" + g + "-" + i), name,
+                        NodeFactory.createLiteralString("T" + (g * terminalsPerIgm + i)));
+            }
+            dataset.addGraph(NodeFactory.createURI("http://example.org/igm/" + g), wrapper.apply(graph));
+        }
+        return dataset;
+    }
+
+    private static List<String> select(DatasetGraph dataset, String query, boolean parallel) {
+        final var context = new Context();
+        if (parallel)
+            ParallelGraphOpExecutor.enable(context);
+        else
+            QC.setFactory(context, OpExecutor.stdFactory);
+        final var names = new ArrayList<String>();
+        try (var execution = QueryExecution.create().query(query).dataset(DatasetFactory.wrap(dataset)).context(context).build()) {
+            execution.execSelect().forEachRemaining((QuerySolution row) ->
+                    names.add(row.get("g") + " " + row.getLiteral("name").getString()));
+        }
+        return names;
+    }
+
+    @Test
+    public void sameResultsAsTheStandardExecutor() {
+        final var dataset = igms(16, 50);
+        final var query = """
+            PREFIX cim: <http://iec.ch/TC57/CIM100#>
+            SELECT ?g ?name WHERE { GRAPH ?g { ?terminal cim:IdentifiedObject.name ?name } }
+            """;
+
+        final var parallel = select(dataset, query, true);
+
+        assertEquals(16 * 50, parallel.size());
+        assertEquals(select(dataset, query, false), parallel);
+    }
+
+    @Test
+    public void orderByAndLimitAboveTheGraphPattern() {
+        final var dataset = igms(8, 20);
+        final var query = """
+            PREFIX cim: <http://iec.ch/TC57/CIM100#>
+            SELECT ?g ?name WHERE { GRAPH ?g { ?terminal cim:IdentifiedObject.name ?name } }
+            ORDER BY DESC(?name) LIMIT 3
+            """;
+        assertEquals(select(dataset, query, false), select(dataset, query, true));
+
+        final var unordered = select(dataset, query.replace("ORDER BY DESC(?name)", ""), true);
+        assertEquals(3, unordered.size());
+    }
+
+    @Test
+    public void boundGraphNamesAreEvaluatedOnTheirGraphOnly() {
+        final var dataset = igms(4, 5);
+        final var query = """
+            PREFIX cim: <http://iec.ch/TC57/CIM100#>
+            SELECT ?g ?name WHERE {
+                VALUES ?g { <http://example.org/igm/2> <http://example.org/unknown> }
+                GRAPH ?g { ?terminal cim:IdentifiedObject.name ?name }
+            }
+            """;
+
+        final var names = select(dataset, query, true);
+
+        assertEquals(5, names.size());
+        assertTrue(names.stream().allMatch(n -> n.startsWith("http://example.org/igm/2 ")));
+    }
+
+    @Test
+    public void graphsAreEvaluatedOnThePoolThreads() {
+        final var findThreads = ConcurrentHashMap.<Thread>newKeySet();
+        final var dataset = igms(8, 20, graph -> new RecordingGraph(graph, findThreads, new AtomicInteger()));
+        final var query = """
+            PREFIX cim: <http://iec.ch/TC57/CIM100#>
+            SELECT ?g ?name WHERE { GRAPH ?g { ?terminal cim:IdentifiedObject.name ?name } }
+            """;
+
+        assertEquals(8 * 20, select(dataset, query, true).size());
+
+        assertFalse(findThreads.isEmpty());
+        assertFalse(findThreads.contains(Thread.currentThread()));
+    }
+
+    @Test
+    public void limitDoesNotReadAllGraphsCompletely() {
+        final var triplesRead = new AtomicInteger();
+        final var dataset = igms(16, 5000,
+                graph -> new RecordingGraph(graph, ConcurrentHashMap.newKeySet(), triplesRead));
+        final var query = """
+            PREFIX cim: <http://iec.ch/TC57/CIM100#>
+            SELECT ?g ?name WHERE { GRAPH ?g { ?terminal cim:IdentifiedObject.name ?name } }
+            LIMIT 10
+            """;
+
+        assertEquals(10, select(dataset, query, true).size());
+
+        // each graph task stops after filling its bounded queue
+        assertTrue("read " + triplesRead.get() + " triples", triplesRead.get() < 16 * 5000 / 4);
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.soptim.opencgmes.cimxml.writer;
+
+import de.soptim.opencgmes.cimxml.CimXmlTestDocuments;
+import de.soptim.opencgmes.cimxml.graph.CimModelDiff;
+import de.soptim.opencgmes.cimxml.parser.CimXmlParser;
+import de.soptim.opencgmes.cimxml.sparql.core.CimDatasetGraph;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.UUID;
+
+import static org.junit.Assert.*;
+
+public class CimXmlWriterTest {
+
+    private static final String FULL_MODEL = """
+            <?xml version="1.0" encoding="utf-8"?>
+            <rdf:RDF xmlns:cim="http://iec.ch/TC57/CIM100#" xmlns:md="http://iec.ch/TC57/61970-552/ModelDescription/1#" xmlns:rdf="http://www.w3.org/1999/02/22-rdf-syntax-ns#" xmlns:eu="http://iec.ch/TC57/CIM100-European#">
+             <md:FullModel rdf:about="urn:uuid:d4336345-ad68-4566-afab-d9798ec5ca86">
+               <md:Model.profile>http://soptim.de/CIM/MyProfile/1.1</md:Model.profile>
+               <md:Model.DependentOn rdf:resource="urn:uuid:6a0b7e5c-0d4f-4d8e-9c55-0f3f4c6c7a11"/>
+             </md:FullModel>
+             <cim:MyElement rdf:ID="_135c601e-bad4-4872-ba8f-b15baf91bd2f">
+               <cim:IdentifiedObject.name>Name &amp; &lt;escaped&gt; "text"</cim:IdentifiedObject.name>
+               <eu:IdentifiedObject.shortName xml:lang="de">Kurz</eu:IdentifiedObject.shortName>
+               <cim:MyElement.Other rdf:resource="#_c9fe6664-fcf0-44e6-9d20-656538b68d1c"/>
+               <cim:MyElement.Kind rdf:resource="http://iec.ch/TC57/CIM100#MyKind.a"/>
+             </cim:MyElement>
+             <rdf:Description rdf:about="#_c9fe6664-fcf0-44e6-9d20-656538b68d1c">
+               <cim:IdentifiedObject.name>Untyped element</cim:IdentifiedObject.name>
+             </rdf:Description>
+            </rdf:RDF>
+            """;
+
+    private static String write(CimXmlWriter writer, CimDatasetGraph dataset) throws IOException {
+        final var out = new StringWriter();
+        writer.write(dataset, out);
+        return out.toString();
+    }
+
+    private static CimDatasetGraph parse(String cimXml) {
+        return new CimXmlParser().parseCimModel(new StringReader(cimXml));
+    }
+
+    @Test
+    public void writeFullModelInCimLayoutAndReadItBack() throws IOException {
+        final var fullModel = parse(FULL_MODEL);
+
+        final var cimXml = write(new CimXmlWriter(), fullModel);
+
+        assertTrue(cimXml.contains("<md:FullModel rdf:about=\"urn:uuid:d4336345-ad68-4566-afab-d9798ec5ca86\">"));
+        assertTrue(cimXml.contains("<cim:MyElement rdf:ID=\"_135c601e-bad4-4872-ba8f-b15baf91bd2f\">"));
+        assertTrue(cimXml.contains("<cim:MyElement.Other rdf:resource=\"#_c9fe6664-fcf0-44e6-9d20-656538b68d1c\"/>"));
+        assertTrue(cimXml.contains("<md:Model.DependentOn rdf:resource=\"urn:uuid:6a0b7e5c-0d4f-4d8e-9c55-0f3f4c6c7a11\"/>"));
+        assertTrue(cimXml.contains("<rdf:Description rdf:ID=\"_c9fe6664-fcf0-44e6-9d20-656538b68d1c\">"));
+        assertTrue(cimXml.contains("Name &amp; &lt;escaped&gt; \"text\""));
+
+        final var readBack = parse(cimXml);
+        assertTrue(readBack.isFullModel());
+        assertTrue(fullModel.getBody().isIsomorphicWith(readBack.getBody()));
+        assertTrue(fullModel.getModelHeader().isIsomorphicWith(readBack.getModelHeader()));
+    }
+
+    @Test
+    public void writeDifferenceModelAndReadItBack() throws IOException {
+        final var predecessor = parse(FULL_MODEL);
+        final var successor = parse(FULL_MODEL
+                .replace("d4336345-ad68-4566-afab-d9798ec5ca86", "08984e27-811f-4042-9125-1531ae0de0f6")
+                .replace("Untyped element", "Renamed element"));
+        final var differenceModel = CimModelDiff.compute(predecessor, successor);
+
+        final var cimXml = write(new CimXmlWriter(), differenceModel);
+
+        assertTrue(cimXml.contains("<dm:forwardDifferences rdf:parseType=\"Statements\">"));
+        assertTrue(cimXml.contains("<rdf:Description rdf:about=\"#_c9fe6664-fcf0-44e6-9d20-656538b68d1c\">"));
+        assertFalse(cimXml.contains("dm:preconditions"));
+
+        final var readBack = parse(cimXml);
+        assertTrue(readBack.isDifferenceModel());
+        assertTrue(differenceModel.getModelHeader().isIsomorphicWith(readBack.getModelHeader()));
+        assertTrue(differenceModel.getForwardDifferences().isIsomorphicWith(readBack.getForwardDifferences()));
+        assertTrue(differenceModel.getReverseDifferences().isIsomorphicWith(readBack.getReverseDifferences()));
+        assertTrue(successor.getBody().isIsomorphicWith(readBack.differenceModelToFullModel(predecessor)));
+    }
+
+    private static String fullModelWithElements(String modelId, int elements, String namePrefix) {
+        return CimXmlTestDocuments.fullModel("urn:uuid:" + modelId, null,
+                CimXmlTestDocuments.elements(elements, i -> """
+                     <cim:MyElement rdf:ID="_%s">
+                      <cim:IdentifiedObject.name>%s%d</cim:IdentifiedObject.name>
+                     </cim:MyElement>
+                    """.formatted(new UUID(i, i), namePrefix, i)));
+    }
+
+    @Test
+    public void shardedOutputEqualsSequentialOutput() throws IOException {
+        final var elements = 3 * CimXmlWriter.SUBJECTS_PER_SHARD + 17;
+        final var fullModel = parse(fullModelWithElements("d4336345-ad68-4566-afab-d9798ec5ca86", elements, ""));
+
+        final var sequential = write(new CimXmlWriter(), fullModel);
+        final var sharded = write(new CimXmlWriter(4), fullModel);
+
+        assertEquals(sequential, sharded);
+        assertEquals(2 * elements, parse(sharded).getBody().size());
+    }
+
+    @Test
+    public void shardedOutputOfComputedDifferenceModelEqualsSequentialOutput() throws IOException {
+        // the graphs of a computed difference model have a lazy index, which must be built before sharding
+        final var elements = 2 * CimXmlWriter.SUBJECTS_PER_SHARD + 17;
+        final var predecessor = parse(fullModelWithElements("d4336345-ad68-4566-afab-d9798ec5ca86", elements, "old"));
+        final var successor = parse(fullModelWithElements("08984e27-811f-4042-9125-1531ae0de0f6", elements, "new"));
+
+        // each computation creates a new IRI for the difference model, so both writers get the same result
+        final var differenceModel = CimModelDiff.compute(predecessor, successor);
+        final var sharded = write(new CimXmlWriter(4), differenceModel);
+        final var sequential = write(new CimXmlWriter(), differenceModel);
+
+        assertEquals(sequential, sharded);
+        final var readBack = parse(sharded);
+        assertEquals(elements, readBack.getForwardDifferences().size());
+        assertTrue(successor.getBody().isIsomorphicWith(readBack.differenceModelToFullModel(predecessor)));
+    }
+}